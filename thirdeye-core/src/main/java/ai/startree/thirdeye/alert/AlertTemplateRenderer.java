@@ -27,13 +27,19 @@ import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.template.TemplatePropertyMetadata;
-import ai.startree.thirdeye.util.StringTemplateUtils;
+import ai.startree.thirdeye.spi.util.Pair;
+import ai.startree.thirdeye.util.CompiledTemplate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.io.IOException;
+import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.joda.time.Interval;
@@ -41,8 +47,18 @@ import org.joda.time.Interval;
 @Singleton
 public class AlertTemplateRenderer {
 
+  private static final long MAX_COMPILED_TEMPLATES = 1000;
+
   private final AlertManager alertManager;
   private final AlertTemplateManager alertTemplateManager;
+  /**
+   * Compiled templates by template id and update time. An updated template gets a new entry.
+   */
+  private final Cache<Pair<Long, Timestamp>, CompiledAlertTemplate> compiledTemplates =
+      CacheBuilder.newBuilder()
+          .maximumSize(MAX_COMPILED_TEMPLATES)
+          .expireAfterAccess(1, TimeUnit.HOURS)
+          .build();
 
   @Inject
   public AlertTemplateRenderer(
@@ -98,31 +114,27 @@ public class AlertTemplateRenderer {
   /**
    * Render the alert with an enumeration Item.
    *
-   * Render the template properties, then render the enumeration item properties.
+   * The enumeration item properties are rendered into the alert template properties, then the
+   * cached compiled template is rendered once with the resulting properties. For instance, an
+   * alert property "queryFilters": "${queryFilters}" takes the queryFilters value of the item.
    */
   public AlertTemplateDTO renderAlert(final AlertDTO alert, final Interval detectionInterval,
       @Nullable final EnumerationItemDTO enumerationItemDTO)
       throws IOException, ClassNotFoundException {
-    final AlertTemplateDTO templateWithAlertProperties = renderAlert(alert, detectionInterval);
-
     if (enumerationItemDTO == null || enumerationItemDTO.getParams() == null
         || enumerationItemDTO.getParams().isEmpty()) {
-      return templateWithAlertProperties;
+      return renderAlert(alert, detectionInterval);
     }
 
-    // re-render with enum properties
-    // remove id and name to prevent template being re-fetched from db
-    final Long templateId = templateWithAlertProperties.getId();
-    final String templateName = templateWithAlertProperties.getName();
-    templateWithAlertProperties.setId(null);
-    templateWithAlertProperties.setName(null);
-    final AlertDTO alertWithEnumProperties = new AlertDTO().setTemplate(templateWithAlertProperties)
-        .setTemplateProperties(enumerationItemDTO.getParams());
-    final AlertTemplateDTO templateWithEnumProperties = renderAlert(alertWithEnumProperties,
-        detectionInterval);
-    templateWithEnumProperties.setId(templateId);
-    templateWithEnumProperties.setName(templateName);
-    return templateWithEnumProperties;
+    final CompiledAlertTemplate template = compile(getTemplate(alert.getTemplate()));
+    final Map<String, Object> enumerationProperties = new HashMap<>(template.defaultProperties);
+    enumerationProperties.putAll(enumerationItemDTO.getParams());
+    putInterval(enumerationProperties, detectionInterval);
+    final Map<String, Object> templateProperties = alert.getTemplateProperties() == null
+        ? null
+        : CompiledTemplate.compile(new HashMap<>(alert.getTemplateProperties()))
+            .render(enumerationProperties);
+    return applyContext(template, templateProperties, detectionInterval, alert.getName());
   }
 
   private AlertTemplateDTO renderAlertInternal(final AlertTemplateDTO alertTemplateInsideAlertDto,
@@ -131,12 +143,25 @@ public class AlertTemplateRenderer {
       final String alertName)
       throws IOException, ClassNotFoundException {
     final AlertTemplateDTO template = getTemplate(alertTemplateInsideAlertDto);
-    return applyContext(template,
+    return applyContext(compile(template),
         templateProperties,
         detectionInterval,
         alertName);
   }
 
+  private CompiledAlertTemplate compile(final AlertTemplateDTO template) throws IOException {
+    if (template.getId() == null || template.getUpdateTime() == null) {
+      // not persisted: cannot be identified
+      return new CompiledAlertTemplate(template);
+    }
+    try {
+      return compiledTemplates.get(new Pair<>(template.getId(), template.getUpdateTime()),
+          () -> new CompiledAlertTemplate(template));
+    } catch (final ExecutionException e) {
+      throw new IOException("Failed to compile template " + template.getId(), e.getCause());
+    }
+  }
+
   public AlertTemplateDTO getTemplate(final AlertTemplateDTO alertTemplateDTO) {
     final Long id = alertTemplateDTO.getId();
     if (id != null) {
@@ -153,37 +178,36 @@ public class AlertTemplateRenderer {
     return alertTemplateDTO;
   }
 
-  private AlertTemplateDTO applyContext(final AlertTemplateDTO template,
+  private AlertTemplateDTO applyContext(final CompiledAlertTemplate template,
       final Map<String, Object> templateProperties,
       final Interval detectionInterval,
-      final String alertName) throws IOException, ClassNotFoundException {
-    final Map<String, Object> properties = new HashMap<>();
-    // legacy properties can be removed once all users have migrated their template to the new propertiesMetadata
-    final Map<String, Object> legacyDefaultProperties = optional(
-        template.getDefaultProperties()).orElse(new HashMap<>());
-    properties.putAll(legacyDefaultProperties);
-    final Map<String, Object> defaultProperties = defaultProperties(template.getProperties());
-    properties.putAll(defaultProperties);
-
+      final String alertName) throws IOException {
+    final Map<String, Object> properties = new HashMap<>(template.defaultProperties);
     if (templateProperties != null) {
       properties.putAll(templateProperties);
     }
 
-    properties.put("startTime", detectionInterval.getStartMillis());
-    properties.put("endTime", detectionInterval.getEndMillis());
+    putInterval(properties, detectionInterval);
+
+    final AlertTemplateDTO rendered = template.template.render(properties);
     // add source metadata to each node
-    if (template.getNodes() != null) {
-      template.getNodes().stream()
+    if (rendered.getNodes() != null) {
+      rendered.getNodes().stream()
           // TODO spyne remove magic string. This was done to remove dependency of AnomalyDetector.TYPE on the renderer
           .filter(node -> node.getType().equals("AnomalyDetector"))
           .forEach(node -> node.getParams()
               .putValue("anomaly.source", String.format("%s/%s", alertName, node.getName())));
     }
+    return rendered;
+  }
 
-    return StringTemplateUtils.applyContext(template, properties);
+  private static void putInterval(final Map<String, Object> properties,
+      final Interval detectionInterval) {
+    properties.put("startTime", detectionInterval.getStartMillis());
+    properties.put("endTime", detectionInterval.getEndMillis());
   }
 
-  private @NonNull Map<String, Object> defaultProperties(
+  private static @NonNull Map<String, Object> defaultProperties(
       final @Nullable List<TemplatePropertyMetadata> propertiesMetadata) {
     final HashMap<String, Object> res = new HashMap<>();
     if (propertiesMetadata == null) {
@@ -199,4 +223,17 @@ public class AlertTemplateRenderer {
 
     return res;
   }
+
+  private static class CompiledAlertTemplate {
+
+    private final CompiledTemplate<AlertTemplateDTO> template;
+    private final Map<String, Object> defaultProperties = new HashMap<>();
+
+    private CompiledAlertTemplate(final AlertTemplateDTO template) {
+      this.template = CompiledTemplate.compile(template);
+      // legacy properties can be removed once all users have migrated their template to the new propertiesMetadata
+      optional(template.getDefaultProperties()).ifPresent(defaultProperties::putAll);
+      defaultProperties.putAll(defaultProperties(template.getProperties()));
+    }
+  }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.alert;
+
+import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.shutdownExecutionService;
+import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.threadsNamed;
+import static ai.startree.thirdeye.spi.datalayer.dto.AlertDTO.NO_MONITORED_METRIC;
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertMetadataDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import org.joda.time.Interval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sets the indexed datasource, dataset and metric monitored by an alert, from the metadata of its
+ * rendered template. Analytics count the monitored metrics from the index.
+ *
+ * At startup, the alerts whose index has no monitored metric - alerts saved before the column
+ * was added - are indexed in the background, see {@link #start()}.
+ */
+@Singleton
+public class MonitoredMetricIndexer {
+
+  private static final Logger LOG = LoggerFactory.getLogger(MonitoredMetricIndexer.class);
+
+  private final AlertTemplateRenderer renderer;
+  private final AlertManager alertManager;
+
+  private final ExecutorService executorService = Executors.newSingleThreadExecutor(
+      threadsNamed("monitored-metric-indexer-%d"));
+
+  @Inject
+  public MonitoredMetricIndexer(final AlertTemplateRenderer renderer,
+      final AlertManager alertManager) {
+    this.renderer = renderer;
+    this.alertManager = alertManager;
+  }
+
+  /**
+   * Render the alert and set its monitored metric. If the alert cannot be rendered or its template
+   * has no complete metric metadata, the fields are set to {@link AlertDTO#NO_MONITORED_METRIC},
+   * so that the alert is not indexed again until it or its template is updated.
+   */
+  public void index(final AlertDTO alert) {
+    AlertMetadataDTO metadata = null;
+    try {
+      // Interval does not have significance in this case, just a placeholder.
+      metadata = renderer.renderAlert(alert, new Interval(1L, 2L)).getMetadata();
+    } catch (final Exception e) {
+      LOG.warn(String.format("Trouble while rendering alert, %s. id : %d",
+          alert.getName(),
+          alert.getId()), e);
+    }
+    final AlertMetadataDTO m = optional(metadata).orElse(new AlertMetadataDTO());
+    final String datasource = optional(m.getDatasource()).map(DataSourceDTO::getName).orElse(null);
+    final String dataset = optional(m.getDataset()).map(DatasetConfigDTO::getDataset).orElse(null);
+    final String metric = optional(m.getMetric()).map(MetricConfigDTO::getName).orElse(null);
+    if (datasource == null || dataset == null || metric == null) {
+      alert
+          .setMonitoredDatasource(NO_MONITORED_METRIC)
+          .setMonitoredDataset(NO_MONITORED_METRIC)
+          .setMonitoredMetric(NO_MONITORED_METRIC);
+      return;
+    }
+    alert
+        .setMonitoredDatasource(datasource)
+        .setMonitoredDataset(dataset)
+        .setMonitoredMetric(metric);
+  }
+
+  /**
+   * Index again the alerts that use one of the templates, after the templates were updated. Alerts
+   * reference their template by id or by name: both are indexed. Only the alerts whose monitored
+   * metric changed are saved.
+   *
+   * @return the number of saved alerts
+   */
+  public int indexAlertsUsing(final Collection<AlertTemplateDTO> templates) {
+    final Set<Long> ids = templates.stream()
+        .map(AlertTemplateDTO::getId)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+    final Set<String> names = templates.stream()
+        .map(AlertTemplateDTO::getName)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+    final List<Predicate> references = new ArrayList<>();
+    if (!ids.isEmpty()) {
+      references.add(Predicate.IN("templateId", ids.toArray()));
+    }
+    if (!names.isEmpty()) {
+      references.add(Predicate.IN("templateName", names.toArray()));
+    }
+    if (references.isEmpty()) {
+      return 0;
+    }
+    int saved = 0;
+    for (final AlertDTO alert : alertManager.findByPredicate(
+        Predicate.OR(references.toArray(new Predicate[0])))) {
+      final String datasource = alert.getMonitoredDatasource();
+      final String dataset = alert.getMonitoredDataset();
+      final String metric = alert.getMonitoredMetric();
+      index(alert);
+      if (!Objects.equals(datasource, alert.getMonitoredDatasource())
+          || !Objects.equals(dataset, alert.getMonitoredDataset())
+          || !Objects.equals(metric, alert.getMonitoredMetric())) {
+        alertManager.update(alert);
+        saved++;
+      }
+    }
+    return saved;
+  }
+
+  public void start() {
+    executorService.submit(this::indexAlertsNotIndexed);
+  }
+
+  /**
+   * Index and save the alerts whose index has no monitored metric. Saving an alert also indexes
+   * its template reference. An indexed alert gets a non null monitored metric, so the alerts are
+   * indexed once.
+   *
+   * @return the number of saved alerts
+   */
+  public int indexAlertsNotIndexed() {
+    int saved = 0;
+    for (final AlertDTO alert : alertManager.findByPredicate(
+        Predicate.EQ("monitoredMetric", null))) {
+      try {
+        index(alert);
+        saved += alertManager.update(alert);
+      } catch (final Exception e) {
+        LOG.error("Could not index alert {}", alert.getId(), e);
+      }
+    }
+    LOG.info("Indexed the monitored metric of {} alerts.", saved);
+    return saved;
+  }
+
+  public void close() throws Exception {
+    shutdownExecutionService(executorService);
+  }
+}
@@ -13,15 +13,30 @@
  */
 package ai.startree.thirdeye.config;
 
+import java.time.Duration;
+
 /**
  * Config file for cache-related stuff.
- * Mapped from cache-config.yml
+ * Mapped from the cache section of server.yaml.
+ *
+ * useIncrementalQueryCache enables the incremental cache of detection query results. See
+ * {@link ai.startree.thirdeye.datasource.cache.IncrementalQueryCache}.
  */
-@Deprecated  // todo cache needs reimplementation with v2 query system - kept to not break config yaml - can be removed
 public class CacheConfig {
 
+  // not implemented - kept to not break config yaml
   private boolean useInMemoryCache = true;
+  // not implemented - kept to not break config yaml
   private boolean useCentralizedCache = false;
+  private boolean useIncrementalQueryCache = false;
+  /**
+   * Max number of values - rows x columns - kept in the query cache.
+   */
+  private long maxCachedValues = 5_000_000;
+  /**
+   * Cached query results not used for this duration are evicted.
+   */
+  private Duration expireAfterAccess = Duration.ofHours(25);
 
   public boolean useCentralizedCache() {
     return useCentralizedCache;
@@ -40,4 +55,31 @@ public class CacheConfig {
     this.useInMemoryCache = useInMemoryCache;
     return this;
   }
+
+  public boolean useIncrementalQueryCache() {
+    return useIncrementalQueryCache;
+  }
+
+  public CacheConfig setUseIncrementalQueryCache(final boolean useIncrementalQueryCache) {
+    this.useIncrementalQueryCache = useIncrementalQueryCache;
+    return this;
+  }
+
+  public long getMaxCachedValues() {
+    return maxCachedValues;
+  }
+
+  public CacheConfig setMaxCachedValues(final long maxCachedValues) {
+    this.maxCachedValues = maxCachedValues;
+    return this;
+  }
+
+  public Duration getExpireAfterAccess() {
+    return expireAfterAccess;
+  }
+
+  public CacheConfig setExpireAfterAccess(final Duration expireAfterAccess) {
+    this.expireAfterAccess = expireAfterAccess;
+    return this;
+  }
 }
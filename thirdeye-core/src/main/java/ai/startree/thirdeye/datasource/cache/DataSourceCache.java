@@ -32,26 +32,36 @@ import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
 import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
-import ai.startree.thirdeye.spi.util.Pair;
 import com.codahale.metrics.CachedGauge;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.sql.Timestamp;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Caches the data source objects by name. The cached object is replaced when the data source is
+ * updated in the database.
+ *
+ * Cache hits do not block. A data source is constructed by a single thread: concurrent calls for
+ * the same name wait for it, calls for other names do not. Replaced data sources are retired:
+ * they are closed once their queries in flight are done.
+ */
 @Singleton
 public class DataSourceCache {
 
@@ -61,7 +71,7 @@ public class DataSourceCache {
   private final DataSourcesLoader dataSourcesLoader;
   private final MetricRegistry metricRegistry;
 
-  private final Map<String, Pair<DataSourceWrapper, Timestamp>> cache = new HashMap<>();
+  private final Map<String, CachedDataSource> cache = new ConcurrentHashMap<>();
 
   private final ExecutorService executorService = new ThreadPoolExecutor(0, 10,
       60L,
@@ -111,7 +121,7 @@ public class DataSourceCache {
     }
   }
 
-  public synchronized ThirdEyeDataSource getDataSource(final String name) {
+  public ThirdEyeDataSource getDataSource(final String name) {
     final Optional<DataSourceDTO> dataSource = findByName(name);
 
     // datasource absent in DB
@@ -120,13 +130,10 @@ public class DataSourceCache {
       removeDataSource(name);
       throw new ThirdEyeException(ThirdEyeStatus.ERR_DATASOURCE_NOT_FOUND, name);
     }
-    final Pair<DataSourceWrapper, Timestamp> cachedEntry = cache.get(name);
     final DataSourceDTO dataSourceDTO = dataSource.get();
-    if (cachedEntry != null) {
-      final Timestamp updateTimeCached = cachedEntry.getSecond();
-      if (updateTimeCached.equals(dataSourceDTO.getUpdateTime())) {
-        return cachedEntry.getFirst(); // cache hit
-      }
+    final CachedDataSource cachedEntry = cache.get(name);
+    if (cachedEntry != null && cachedEntry.isUpToDate(dataSourceDTO)) {
+      return cachedEntry.await(); // cache hit, or construction in progress
     }
 
     // cache miss
@@ -144,14 +151,33 @@ public class DataSourceCache {
   private ThirdEyeDataSource loadDataSource(final DataSourceDTO dataSource) {
     requireNonNull(dataSource);
     final String dataSourceName = dataSource.getName();
-    final DataSourceWrapper wrapped = wrap(
-        requireNonNull(dataSourcesLoader.loadDataSource(dataSource),
-            "Failed to construct a data source object! " + dataSourceName));
-
-    // remove outdated cached datasource
-    removeDataSource(dataSourceName);
-    cache.put(dataSourceName, new Pair<>(wrapped, dataSource.getUpdateTime()));
-    return wrapped;
+    final CachedDataSource created = new CachedDataSource(dataSource.getUpdateTime());
+    final AtomicReference<CachedDataSource> outdated = new AtomicReference<>();
+    final CachedDataSource entry = cache.compute(dataSourceName, (name, existing) -> {
+      if (existing != null && existing.isUpToDate(dataSource)) {
+        // another thread is constructing it, or already did
+        return existing;
+      }
+      outdated.set(existing);
+      return created;
+    });
+    if (entry != created) {
+      return entry.await();
+    }
+
+    // retire outdated cached datasource
+    optional(outdated.get()).ifPresent(this::retire);
+    try {
+      created.future.complete(wrap(
+          requireNonNull(dataSourcesLoader.loadDataSource(dataSource),
+              "Failed to construct a data source object! " + dataSourceName)));
+    } catch (final Throwable e) {
+      // complete on errors too: waiters of the future would hang otherwise
+      LOG.error("Failed to load datasource {}", dataSourceName, e);
+      cache.remove(dataSourceName, created);
+      created.future.completeExceptionally(e);
+    }
+    return created.await();
   }
 
   private DataSourceWrapper wrap(final ThirdEyeDataSource thirdEyeDataSource) {
@@ -159,24 +185,60 @@ public class DataSourceCache {
   }
 
   public void removeDataSource(final String name) {
-    optional(cache.remove(name))
-        .map(Pair::getFirst)
-        .ifPresent(this::close);
+    optional(cache.remove(name)).ifPresent(this::retire);
   }
 
   public void clear() {
-    cache.values().stream()
-        .map(Pair::getFirst)
-        .forEach(this::close);
-    cache.clear();
+    for (final String name : cache.keySet()) {
+      removeDataSource(name);
+    }
   }
 
-  private void close(final ThirdEyeDataSource dataSource) {
-    try {
-      dataSource.close();
-      shutdownExecutionService(executorService);
-    } catch (final Exception e) {
-      LOG.error("Datasource {} was not flushed gracefully.", dataSource.getName());
+  /**
+   * Retires the cached data sources and stops the validation threads.
+   */
+  public void close() {
+    clear();
+    shutdownExecutionService(executorService);
+  }
+
+  private void retire(final CachedDataSource cachedDataSource) {
+    cachedDataSource.future.thenAccept(DataSourceWrapper::retire);
+  }
+
+  private static class CachedDataSource {
+
+    private final Timestamp updateTime;
+    private final CompletableFuture<DataSourceWrapper> future = new CompletableFuture<>();
+
+    private CachedDataSource(final Timestamp updateTime) {
+      this.updateTime = updateTime;
+    }
+
+    /**
+     * A data source constructed from a more recent version of the DTO is up-to-date too: it
+     * happens when the DTO was read before a concurrent update.
+     */
+    private boolean isUpToDate(final DataSourceDTO dataSource) {
+      final Timestamp dtoUpdateTime = dataSource.getUpdateTime();
+      if (updateTime == null || dtoUpdateTime == null) {
+        return updateTime == dtoUpdateTime;
+      }
+      return !updateTime.before(dtoUpdateTime);
+    }
+
+    private DataSourceWrapper await() {
+      try {
+        return future.join();
+      } catch (final CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        if (e.getCause() instanceof Error) {
+          throw (Error) e.getCause();
+        }
+        throw e;
+      }
     }
   }
 }
@@ -24,16 +24,29 @@ import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * This class intercepts all data source calls and helps with telemetry, etc.
+ *
+ * It also counts the calls in flight. A retired data source is closed once its calls in flight
+ * are done, so replacing an outdated data source does not break the queries running on it.
  */
 public class DataSourceWrapper implements ThirdEyeDataSource {
 
+  private static final Logger LOG = LoggerFactory.getLogger(DataSourceWrapper.class);
+
   private final ThirdEyeDataSource delegate;
 
   private final Meter fetchTableExceptionMeter;
   private final Timer fetchTableTimer;
+  private final AtomicInteger callsInFlight = new AtomicInteger();
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private volatile boolean retired = false;
 
   public DataSourceWrapper(final ThirdEyeDataSource delegate, final MetricRegistry metricRegistry) {
     this.delegate = delegate;
@@ -54,17 +67,22 @@ public class DataSourceWrapper implements ThirdEyeDataSource {
 
   @Override
   public List<DatasetConfigDTO> getDatasets() {
-    return delegate.getDatasets();
+    return track(delegate::getDatasets);
   }
 
   @Override
   public DatasetConfigDTO getDataset(final String datasetName) {
-    return delegate.getDataset(datasetName);
+    return track(() -> delegate.getDataset(datasetName));
   }
 
   @Override
   public DataTable fetchDataTable(final DataSourceRequest request) throws Exception {
-    return fetchTableTimer.time(() -> fetchDataTable0(request));
+    callsInFlight.incrementAndGet();
+    try {
+      return fetchTableTimer.time(() -> fetchDataTable0(request));
+    } finally {
+      onCallDone();
+    }
   }
 
   private DataTable fetchDataTable0(final DataSourceRequest request) throws Exception {
@@ -79,7 +97,7 @@ public class DataSourceWrapper implements ThirdEyeDataSource {
 
   @Override
   public boolean validate() {
-    return delegate.validate();
+    return track(delegate::validate);
   }
 
   @Override
@@ -99,6 +117,42 @@ public class DataSourceWrapper implements ThirdEyeDataSource {
 
   @Override
   public void close() throws Exception {
-    delegate.close();
+    if (closed.compareAndSet(false, true)) {
+      delegate.close();
+    }
+  }
+
+  /**
+   * Closes the data source once the calls in flight are done. Calls started after retirement
+   * are still served until then.
+   */
+  public void retire() {
+    retired = true;
+    if (callsInFlight.get() == 0) {
+      closeQuietly();
+    }
+  }
+
+  private <T> T track(final Supplier<T> call) {
+    callsInFlight.incrementAndGet();
+    try {
+      return call.get();
+    } finally {
+      onCallDone();
+    }
+  }
+
+  private void onCallDone() {
+    if (callsInFlight.decrementAndGet() == 0 && retired) {
+      closeQuietly();
+    }
+  }
+
+  private void closeQuietly() {
+    try {
+      close();
+    } catch (final Exception e) {
+      LOG.error("Datasource {} was not flushed gracefully.", getName(), e);
+    }
   }
 }
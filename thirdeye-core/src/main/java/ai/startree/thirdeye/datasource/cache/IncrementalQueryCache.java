@@ -0,0 +1,296 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.cache;
+
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.GRANULARITY;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MAX_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MIN_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.TIME_GROUP_ALIAS;
+import static ai.startree.thirdeye.spi.util.TimeUtils.floorByPeriod;
+import static ai.startree.thirdeye.spi.util.TimeUtils.isoPeriod;
+
+import ai.startree.thirdeye.config.CacheConfig;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.joda.time.Period;
+
+/**
+ * Caches the results of detection queries by time range.
+ *
+ * Detection queries are run again and again on a sliding window. Buckets of the
+ * __timeGroup macro that are older than the mutabilityPeriod of the dataset cannot change anymore:
+ * they are kept in memory, and only the missing or mutable tail of the window is queried from the
+ * datasource.
+ *
+ * The cache is enabled with useIncrementalQueryCache. A query is cached only if:
+ * - its dataset has a mutabilityPeriod
+ * - its __timeFilter macro has no lookback: it filters exactly on the detection interval
+ * - the detection interval starts and ends on bucket boundaries of the granularity
+ * - its __timeGroup macro is aliased. Eg __timeGroup(...) AS ts. The aliased column must be epoch
+ * millis.
+ * - it has no ORDER BY, LIMIT, OFFSET or FETCH clause: those apply to the whole result
+ * Other queries are run directly.
+ *
+ * Cached results are keyed on the query after macro expansion, so that a change of the dataset
+ * - eg time column or format - does not re-use stale results.
+ */
+@Singleton
+public class IncrementalQueryCache {
+
+  private static final Pattern UNSUPPORTED_CLAUSES = Pattern.compile(
+      "\\b(ORDER\\s+BY|LIMIT|OFFSET|FETCH)\\b", Pattern.CASE_INSENSITIVE);
+  /**
+   * The query is expanded on this interval to build the cache key: it does not depend on the
+   * detection interval.
+   */
+  private static final long KEY_INTERVAL_END = TimeUnit.DAYS.toMillis(1);
+
+  private final CacheConfig config;
+  private final Clock clock;
+  private final Cache<CacheKey, CachedRange> cache;
+  private final Meter hitMeter;
+  private final Meter partialHitMeter;
+  private final Meter missMeter;
+
+  @Inject
+  public IncrementalQueryCache(final CacheConfig config, final MetricRegistry metricRegistry) {
+    this(config, metricRegistry, Clock.systemUTC());
+  }
+
+  @VisibleForTesting
+  IncrementalQueryCache(final CacheConfig config,
+      final MetricRegistry metricRegistry,
+      final Clock clock) {
+    this.config = config;
+    this.clock = clock;
+    cache = CacheBuilder.newBuilder()
+        .maximumWeight(config.getMaxCachedValues())
+        .weigher((CacheKey key, CachedRange range) -> range.weight())
+        .expireAfterAccess(config.getExpireAfterAccess().toMillis(), TimeUnit.MILLISECONDS)
+        .build();
+    hitMeter = metricRegistry.meter("queryCacheHitMeter");
+    partialHitMeter = metricRegistry.meter("queryCachePartialHitMeter");
+    missMeter = metricRegistry.meter("queryCacheMissMeter");
+  }
+
+  private static DataFrame slice(final DataFrame df, final String timeColumn, final long start,
+      final long end) {
+    final long[] times = df.getLongs(timeColumn).values();
+    final int[] indices = new int[times.length];
+    int count = 0;
+    for (int i = 0; i < times.length; i++) {
+      if (times[i] != LongSeries.NULL && times[i] >= start && times[i] < end) {
+        indices[count++] = i;
+      }
+    }
+    if (count == times.length) {
+      return df;
+    }
+    final int[] fromIndex = new int[count];
+    System.arraycopy(indices, 0, fromIndex, 0, count);
+    return df.project(fromIndex);
+  }
+
+  private static DataTable fetch(final ThirdEyeDataSource dataSource,
+      final DataSourceRequest request) throws Exception {
+    final DataTable result = dataSource.fetchDataTable(request);
+    result.addProperties(request.getProperties());
+    return result;
+  }
+
+  private static DataTable toDataTable(final DataFrame df, final Map<String, String> properties) {
+    final DataTable dataTable = SimpleDataTable.fromDataFrame(df);
+    dataTable.addProperties(properties);
+    return dataTable;
+  }
+
+  private static boolean isTimeColumn(final DataFrame df, final String timeColumn) {
+    return df.contains(timeColumn) && df.get(timeColumn).type() == SeriesType.LONG;
+  }
+
+  /**
+   * Runs the request built for the interval, re-using the cached results of the immutable range.
+   *
+   * @param requestBuilder builds the request for a time range, by expanding the macros of the
+   *     query. The interval given to the builder always ends with the interval given to this
+   *     method.
+   */
+  public DataTable getDataTable(final ThirdEyeDataSource dataSource,
+      final @Nullable DatasetConfigDTO datasetConfigDTO,
+      final Interval interval,
+      final Function<Interval, DataSourceRequest> requestBuilder) throws Exception {
+    final DataSourceRequest request = requestBuilder.apply(interval);
+    if (!isCacheable(datasetConfigDTO, request, interval)) {
+      return fetch(dataSource, request);
+    }
+    final Map<String, String> properties = request.getProperties();
+    final String timeColumn = properties.get(TIME_GROUP_ALIAS.toString());
+    final Period granularity = isoPeriod(properties.get(GRANULARITY.toString()));
+    final DateTimeZone timezone = interval.getChronology().getZone();
+    final CacheKey key = new CacheKey(dataSource.getName(),
+        request.getTable(),
+        requestBuilder.apply(new Interval(0L, KEY_INTERVAL_END, timezone)).getQuery(),
+        request.getOptions(),
+        timezone.getID());
+
+    final long start = interval.getStartMillis();
+    final long end = interval.getEndMillis();
+    final CachedRange cached = cache.getIfPresent(key);
+    DataFrame df = null;
+    if (cached != null && cached.start <= start && start < cached.end) {
+      final DataFrame cachedDf = slice(cached.df, timeColumn, start, Math.min(cached.end, end));
+      if (cached.end >= end) {
+        hitMeter.mark();
+        return toDataTable(cachedDf, properties);
+      }
+      final DataTable tail = fetch(dataSource,
+          requestBuilder.apply(new Interval(cached.end, end, timezone)));
+      df = concatenate(cachedDf, tail.getDataFrame(), timeColumn);
+      if (df != null) {
+        partialHitMeter.mark();
+      }
+    }
+    if (df == null) {
+      missMeter.mark();
+      final DataTable result = fetch(dataSource, request);
+      if (!isTimeColumn(result.getDataFrame(), timeColumn)) {
+        cache.invalidate(key);
+        return result;
+      }
+      df = result.getDataFrame();
+    }
+
+    final DateTime mutabilityStart = new DateTime(clock.millis(), timezone)
+        .minus(isoPeriod(datasetConfigDTO.getMutabilityPeriod()));
+    // the cached range ends on a bucket boundary: the seam with the tail never splits a bucket
+    final long immutableEnd = floorByPeriod(
+        new DateTime(Math.min(mutabilityStart.getMillis(), end), timezone),
+        granularity).getMillis();
+    if (immutableEnd > start) {
+      cache.put(key, new CachedRange(start, immutableEnd, slice(df, timeColumn, start, immutableEnd)));
+    } else {
+      cache.invalidate(key);
+    }
+
+    return toDataTable(df, properties);
+  }
+
+  /**
+   * Returns null if the tail cannot be appended to the cached rows.
+   */
+  private static @Nullable DataFrame concatenate(final DataFrame cachedDf, final DataFrame tailDf,
+      final String timeColumn) {
+    if (tailDf.size() == 0) {
+      return cachedDf;
+    }
+    if (!isTimeColumn(tailDf, timeColumn)) {
+      return null;
+    }
+    if (cachedDf.size() == 0) {
+      return tailDf;
+    }
+    if (!cachedDf.getSeriesNames().equals(tailDf.getSeriesNames())) {
+      return null;
+    }
+    return DataFrame.concatenate(cachedDf, tailDf);
+  }
+
+  private boolean isCacheable(final @Nullable DatasetConfigDTO datasetConfigDTO,
+      final DataSourceRequest request, final Interval interval) {
+    if (!config.useIncrementalQueryCache()
+        || datasetConfigDTO == null
+        || datasetConfigDTO.getMutabilityPeriod() == null) {
+      return false;
+    }
+    final Map<String, String> properties = request.getProperties();
+    if (!properties.containsKey(GRANULARITY.toString())
+        || !properties.containsKey(TIME_GROUP_ALIAS.toString())
+        || !String.valueOf(interval.getStartMillis())
+        .equals(properties.get(MIN_TIME_MILLIS.toString()))
+        || !String.valueOf(interval.getEndMillis())
+        .equals(properties.get(MAX_TIME_MILLIS.toString()))
+        || UNSUPPORTED_CLAUSES.matcher(request.getQuery()).find()) {
+      return false;
+    }
+    final Period granularity = isoPeriod(properties.get(GRANULARITY.toString()));
+    return isBucketBoundary(interval.getStart(), granularity)
+        && isBucketBoundary(interval.getEnd(), granularity);
+  }
+
+  private static boolean isBucketBoundary(final DateTime time, final Period granularity) {
+    return floorByPeriod(time, granularity).getMillis() == time.getMillis();
+  }
+
+  private static class CacheKey {
+
+    private final List<Object> values;
+
+    private CacheKey(final String dataSource, final String table, final String query,
+        final Map<String, String> options, final String timezone) {
+      values = Arrays.asList(dataSource, table, query, options, timezone);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof CacheKey && values.equals(((CacheKey) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(values);
+    }
+  }
+
+  private static class CachedRange {
+
+    private final long start;
+    private final long end;
+    private final DataFrame df;
+
+    private CachedRange(final long start, final long end, final DataFrame df) {
+      this.start = start;
+      this.end = end;
+      this.df = df;
+    }
+
+    private int weight() {
+      return Math.max(1, df.size() * df.getSeriesNames().size());
+    }
+  }
+}
@@ -13,6 +13,7 @@
  */
 package ai.startree.thirdeye.detectionpipeline.sql.macro;
 
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.TIME_GROUP_ALIAS;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static ai.startree.thirdeye.util.CalciteUtils.expressionToNode;
 import static ai.startree.thirdeye.util.CalciteUtils.nodeToQuery;
@@ -35,6 +36,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import org.apache.calcite.sql.SqlCall;
 import org.apache.calcite.sql.SqlDialect;
+import org.apache.calcite.sql.SqlIdentifier;
 import org.apache.calcite.sql.SqlKind;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.parser.SqlParser;
@@ -108,6 +110,9 @@ public class MacroEngine {
     @Override
     public @Nullable
     SqlNode visit(SqlCall call) {
+      if (call.getKind() == SqlKind.AS) {
+        recordTimeGroupAlias(call);
+      }
       // depth-first traverse and replace macros
       CallCopyingArgHandler argHandler = new CallCopyingArgHandler(call, false);
       call.getOperator().acceptCall(this, call, false, argHandler);
@@ -115,6 +120,20 @@ public class MacroEngine {
       return replaceIfMacro((SqlCall) argHandler.result());
     }
 
+    /**
+     * Records the alias of the time bucket column, so that consumers can find it in the result.
+     */
+    private void recordTimeGroupAlias(final SqlCall asCall) {
+      final SqlNode expression = asCall.operand(0);
+      final SqlNode alias = asCall.operand(1);
+      if (expression instanceof SqlCall
+          && alias instanceof SqlIdentifier
+          && availableMacros.get(((SqlCall) expression).getOperator().getName())
+          instanceof TimeGroupFunction) {
+        properties.put(TIME_GROUP_ALIAS.toString(), ((SqlIdentifier) alias).getSimple());
+      }
+    }
+
     private SqlNode replaceIfMacro(SqlCall call) {
       if (call.getOperator().getKind() != SqlKind.OTHER_FUNCTION) {
         // cannot be a macro function
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.util;
+
+import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_TEMPLATE_MISSING_PROPERTY;
+import static com.google.common.base.Preconditions.checkArgument;
+
+import ai.startree.thirdeye.spi.ThirdEyeException;
+import ai.startree.thirdeye.spi.datalayer.Templatable;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.apache.commons.text.StringSubstitutor;
+
+/**
+ * A template parsed once, that can be rendered many times with different properties.
+ *
+ * The template object is converted to a json tree, and the locations of the placeholders are
+ * recorded: String values containing ${...} and {@link Templatable} values with a templated
+ * value. Rendering copies the tree, replaces the placeholders in place and converts the tree back
+ * to the template class. The rendered object is a new object: the template is not modified.
+ *
+ * Placeholders in String values are replaced with {@link StringSubstitutor}: all the properties
+ * used must be provided. A templatable value is replaced by the value of its property. The value
+ * is rendered too. Map keys are not rendered. Immutable and thread-safe.
+ */
+public class CompiledTemplate<T> {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final String PLACEHOLDER_START = "${";
+
+  private final Class<T> templateClass;
+  private final JsonNode tree;
+  /**
+   * Path of each placeholder in the tree. Elements are field names and array indexes.
+   */
+  private final List<List<Object>> placeholders;
+
+  private CompiledTemplate(final Class<T> templateClass, final JsonNode tree,
+      final List<List<Object>> placeholders) {
+    this.templateClass = templateClass;
+    this.tree = tree;
+    this.placeholders = placeholders;
+  }
+
+  @SuppressWarnings("unchecked")
+  public static <T> CompiledTemplate<T> compile(final T template) {
+    final JsonNode tree = OBJECT_MAPPER.valueToTree(template);
+    final List<List<Object>> placeholders = new ArrayList<>();
+    collectPlaceholders(tree, new ArrayList<>(), placeholders);
+    return new CompiledTemplate<>((Class<T>) template.getClass(), tree, placeholders);
+  }
+
+  private static void collectPlaceholders(final JsonNode node, final List<Object> path,
+      final List<List<Object>> placeholders) {
+    if (isPlaceholder(node)) {
+      placeholders.add(List.copyOf(path));
+    } else if (node.isObject()) {
+      final Iterator<Entry<String, JsonNode>> fields = node.fields();
+      while (fields.hasNext()) {
+        final Entry<String, JsonNode> field = fields.next();
+        path.add(field.getKey());
+        collectPlaceholders(field.getValue(), path, placeholders);
+        path.remove(path.size() - 1);
+      }
+    } else if (node.isArray()) {
+      for (int i = 0; i < node.size(); i++) {
+        path.add(i);
+        collectPlaceholders(node.get(i), path, placeholders);
+        path.remove(path.size() - 1);
+      }
+    }
+  }
+
+  private static boolean isPlaceholder(final JsonNode node) {
+    return (node.isTextual() && node.textValue().contains(PLACEHOLDER_START))
+        || templatedValue(node) != null;
+  }
+
+  /**
+   * Returns the templated value if the node is a serialized {@link Templatable} with a templated
+   * value, else null.
+   */
+  private static String templatedValue(final JsonNode node) {
+    if (!node.isObject()) {
+      return null;
+    }
+    final JsonNode templatedValue = node.get("templatedValue");
+    if (templatedValue == null || !templatedValue.isTextual()
+        || node.size() > (node.has(Templatable.VALUE_FIELD_STRING) ? 2 : 1)) {
+      return null;
+    }
+    return templatedValue.textValue();
+  }
+
+  public T render(final Map<String, Object> valuesMap) throws JsonProcessingException {
+    final StringSubstitutor sub = new StringSubstitutor(valuesMap)
+        .setDisableSubstitutionInValues(true)
+        .setEnableUndefinedVariableException(true);
+    try {
+      if (placeholders.isEmpty()) {
+        return OBJECT_MAPPER.treeToValue(tree, templateClass);
+      }
+      final JsonNode copy = tree.deepCopy();
+      JsonNode root = copy;
+      for (final List<Object> path : placeholders) {
+        if (path.isEmpty()) {
+          root = replace(copy, sub, valuesMap);
+          continue;
+        }
+        JsonNode parent = copy;
+        for (final Object element : path.subList(0, path.size() - 1)) {
+          parent = element instanceof Integer ? parent.get((Integer) element)
+              : parent.get((String) element);
+        }
+        final Object last = path.get(path.size() - 1);
+        if (last instanceof Integer) {
+          final int index = (Integer) last;
+          ((ArrayNode) parent).set(index, replace(parent.get(index), sub, valuesMap));
+        } else {
+          final String field = (String) last;
+          ((ObjectNode) parent).set(field, replace(parent.get(field), sub, valuesMap));
+        }
+      }
+      return OBJECT_MAPPER.treeToValue(root, templateClass);
+    } catch (final IllegalArgumentException | ThirdEyeException e) {
+      throw JsonMappingException.from((JsonGenerator) null, e.getMessage(), e);
+    }
+  }
+
+  private static JsonNode replace(final JsonNode node, final StringSubstitutor sub,
+      final Map<String, Object> valuesMap) {
+    if (node.isTextual()) {
+      try {
+        return TextNode.valueOf(sub.replace(node.textValue()));
+      } catch (final IllegalArgumentException e) {
+        throw new ThirdEyeException(ERR_TEMPLATE_MISSING_PROPERTY, e.getMessage());
+      }
+    }
+    final String templatedValue = templatedValue(node);
+    if (templatedValue != null) {
+      final String property = templatedValue.substring(2, templatedValue.length() - 1);
+      checkArgument(valuesMap.containsKey(property),
+          "Property not provided for templatable value: %s",
+          property);
+      final Object value = valuesMap.get(property);
+      // the value is rendered too: it can contain placeholders
+      final JsonNode valueNode = value == null
+          ? NullNode.getInstance()
+          : replaceAll(OBJECT_MAPPER.valueToTree(value), sub, valuesMap);
+      return OBJECT_MAPPER.createObjectNode().set(Templatable.VALUE_FIELD_STRING, valueNode);
+    }
+    return node;
+  }
+
+  private static JsonNode replaceAll(final JsonNode node, final StringSubstitutor sub,
+      final Map<String, Object> valuesMap) {
+    if (isPlaceholder(node)) {
+      return replace(node, sub, valuesMap);
+    }
+    if (node.isObject()) {
+      final ObjectNode objectNode = (ObjectNode) node;
+      final List<String> fieldNames = new ArrayList<>();
+      objectNode.fieldNames().forEachRemaining(fieldNames::add);
+      for (final String fieldName : fieldNames) {
+        objectNode.set(fieldName, replaceAll(objectNode.get(fieldName), sub, valuesMap));
+      }
+    } else if (node.isArray()) {
+      final ArrayNode arrayNode = (ArrayNode) node;
+      for (int i = 0; i < arrayNode.size(); i++) {
+        arrayNode.set(i, replaceAll(arrayNode.get(i), sub, valuesMap));
+      }
+    }
+    return node;
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.alert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertTemplateManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import java.sql.Timestamp;
+import java.util.Map;
+import org.joda.time.Interval;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class AlertTemplateRendererTest {
+
+  private static final long TEMPLATE_ID = 1L;
+  private static final Interval INTERVAL = new Interval(1L, 2L);
+
+  private AlertTemplateManager alertTemplateManager;
+  private AlertTemplateRenderer renderer;
+
+  private static AlertTemplateDTO template(final String description, final long updateTime) {
+    final AlertTemplateDTO template = new AlertTemplateDTO().setDescription(description);
+    template.setId(TEMPLATE_ID);
+    template.setUpdateTime(new Timestamp(updateTime));
+    return template;
+  }
+
+  private static AlertDTO alert(final Map<String, Object> templateProperties) {
+    final AlertTemplateDTO templateReference = new AlertTemplateDTO();
+    templateReference.setId(TEMPLATE_ID);
+    return new AlertDTO()
+        .setTemplate(templateReference)
+        .setTemplateProperties(templateProperties);
+  }
+
+  @BeforeMethod
+  public void setUp() {
+    alertTemplateManager = mock(AlertTemplateManager.class);
+    renderer = new AlertTemplateRenderer(mock(AlertManager.class), alertTemplateManager);
+  }
+
+  @Test
+  public void testCompiledTemplateIsCachedByIdAndUpdateTime() throws Exception {
+    final AlertDTO alert = alert(Map.of("p", "a"));
+
+    when(alertTemplateManager.findById(TEMPLATE_ID)).thenReturn(template("v1 ${p}", 1000L));
+    assertThat(renderer.renderAlert(alert, INTERVAL).getDescription()).isEqualTo("v1 a");
+
+    // same id and update time: the compiled template is reused
+    when(alertTemplateManager.findById(TEMPLATE_ID)).thenReturn(template("v2 ${p}", 1000L));
+    assertThat(renderer.renderAlert(alert, INTERVAL).getDescription()).isEqualTo("v1 a");
+
+    // the template was updated: it is compiled again
+    when(alertTemplateManager.findById(TEMPLATE_ID)).thenReturn(template("v2 ${p}", 2000L));
+    assertThat(renderer.renderAlert(alert, INTERVAL).getDescription()).isEqualTo("v2 a");
+  }
+
+  @Test
+  public void testEnumerationItemRenderUsesTheCompiledTemplate() throws Exception {
+    final AlertDTO alert = alert(Map.of("p", "a", "queryFilters", "${queryFilters}"));
+    final EnumerationItemDTO enumerationItem = new EnumerationItemDTO()
+        .setParams(Map.of("queryFilters", " AND country = 'US'"));
+
+    when(alertTemplateManager.findById(TEMPLATE_ID))
+        .thenReturn(template("v1 ${p}${queryFilters}", 1000L));
+    final AlertTemplateDTO rendered = renderer.renderAlert(alert, INTERVAL, enumerationItem);
+    assertThat(rendered.getDescription()).isEqualTo("v1 a AND country = 'US'");
+    assertThat(rendered.getId()).isEqualTo(TEMPLATE_ID);
+
+    when(alertTemplateManager.findById(TEMPLATE_ID))
+        .thenReturn(template("v2 ${p}${queryFilters}", 1000L));
+    assertThat(renderer.renderAlert(alert, INTERVAL, enumerationItem).getDescription())
+        .isEqualTo("v1 a AND country = 'US'");
+
+    when(alertTemplateManager.findById(TEMPLATE_ID))
+        .thenReturn(template("v2 ${p}${queryFilters}", 2000L));
+    assertThat(renderer.renderAlert(alert, INTERVAL, enumerationItem).getDescription())
+        .isEqualTo("v2 a AND country = 'US'");
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.alert;
+
+import static ai.startree.thirdeye.spi.datalayer.dto.AlertDTO.NO_MONITORED_METRIC;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertMetadataDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.MetricConfigDTO;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class MonitoredMetricIndexerTest {
+
+  private final Map<String, AlertTemplateDTO> templates = new HashMap<>();
+  private AlertTemplateRenderer renderer;
+  private AlertManager alertManager;
+  private MonitoredMetricIndexer indexer;
+
+  private static AlertMetadataDTO metadata(final String metric) {
+    return new AlertMetadataDTO()
+        .setDatasource(new DataSourceDTO().setName("pinot"))
+        .setDataset(new DatasetConfigDTO().setDataset("dataset"))
+        .setMetric(new MetricConfigDTO().setName(metric));
+  }
+
+  private static AlertDTO alertUsing(final AlertTemplateDTO templateReference) {
+    final AlertDTO alert = new AlertDTO().setTemplate(templateReference);
+    alert.setName(templateReference.getName() + templateReference.getId());
+    return alert;
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    templates.clear();
+    renderer = mock(AlertTemplateRenderer.class);
+    // templates are resolved by name
+    when(renderer.renderAlert(any(AlertDTO.class), any())).then(
+        i -> templates.get(((AlertDTO) i.getArguments()[0]).getTemplate().getName()));
+    alertManager = mock(AlertManager.class);
+    indexer = new MonitoredMetricIndexer(renderer, alertManager);
+  }
+
+  @Test
+  public void testIndex() {
+    templates.put("t", new AlertTemplateDTO().setMetadata(metadata("metric")));
+    final AlertDTO alert = alertUsing(new AlertTemplateDTO().setName("t"));
+
+    indexer.index(alert);
+
+    assertThat(alert.getMonitoredDatasource()).isEqualTo("pinot");
+    assertThat(alert.getMonitoredDataset()).isEqualTo("dataset");
+    assertThat(alert.getMonitoredMetric()).isEqualTo("metric");
+  }
+
+  @Test
+  public void testIndexMarksAlertsWithoutMonitoredMetric() {
+    templates.put("noMetadata", new AlertTemplateDTO());
+    templates.put("noMetric", new AlertTemplateDTO().setMetadata(metadata(null)));
+    for (final String template : List.of("noMetadata", "noMetric", "renderingFails")) {
+      final AlertDTO alert = alertUsing(new AlertTemplateDTO().setName(template));
+
+      indexer.index(alert);
+
+      assertThat(alert.getMonitoredDatasource()).isEqualTo(NO_MONITORED_METRIC);
+      assertThat(alert.getMonitoredDataset()).isEqualTo(NO_MONITORED_METRIC);
+      assertThat(alert.getMonitoredMetric()).isEqualTo(NO_MONITORED_METRIC);
+    }
+  }
+
+  @Test
+  public void testIndexAlertsUsingUpdatedTemplates() {
+    final AlertTemplateDTO updated = new AlertTemplateDTO().setName("t");
+    updated.setId(1L);
+    templates.put("t", new AlertTemplateDTO().setMetadata(metadata("newMetric")));
+    templates.put("other", new AlertTemplateDTO().setMetadata(metadata("newMetric")));
+
+    final AlertDTO byName = alertUsing(new AlertTemplateDTO().setName("t"))
+        .setMonitoredMetric("oldMetric");
+    final AlertTemplateDTO idReference = new AlertTemplateDTO().setName("t");
+    idReference.setId(1L);
+    final AlertDTO byId = alertUsing(idReference).setMonitoredMetric("oldMetric");
+    final AlertDTO unchanged = alertUsing(new AlertTemplateDTO().setName("t"));
+    unchanged.setName("unchanged");
+    indexer.index(unchanged);
+    // only the alerts referencing the template are read
+    when(alertManager.findByPredicate(Predicate.OR(
+        Predicate.IN("templateId", new Object[]{1L}),
+        Predicate.IN("templateName", new Object[]{"t"}))))
+        .thenReturn(List.of(byName, byId, unchanged));
+
+    assertThat(indexer.indexAlertsUsing(List.of(updated))).isEqualTo(2);
+
+    assertThat(byName.getMonitoredMetric()).isEqualTo("newMetric");
+    assertThat(byId.getMonitoredMetric()).isEqualTo("newMetric");
+    verify(alertManager).update(byName);
+    verify(alertManager).update(byId);
+    verify(alertManager, never()).update(unchanged);
+    verify(alertManager, never()).findAll();
+  }
+
+  @Test
+  public void testIndexAlertsNotIndexed() {
+    templates.put("t", new AlertTemplateDTO().setMetadata(metadata("metric")));
+    templates.put("noMetadata", new AlertTemplateDTO());
+    final AlertDTO notIndexed = alertUsing(new AlertTemplateDTO().setName("t"));
+    final AlertDTO noMetric = alertUsing(new AlertTemplateDTO().setName("noMetadata"));
+    when(alertManager.findByPredicate(Predicate.EQ("monitoredMetric", null)))
+        .thenReturn(List.of(notIndexed, noMetric));
+    when(alertManager.update(any(AlertDTO.class))).thenReturn(1);
+
+    assertThat(indexer.indexAlertsNotIndexed()).isEqualTo(2);
+
+    assertThat(notIndexed.getMonitoredMetric()).isEqualTo("metric");
+    // saved with a non null value: it is not indexed again at the next startup
+    assertThat(noMetric.getMonitoredMetric()).isEqualTo(NO_MONITORED_METRIC);
+    verify(alertManager).update(notIndexed);
+    verify(alertManager).update(noMetric);
+  }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datasource.DataSourcesLoader;
+import ai.startree.thirdeye.spi.datalayer.bao.DataSourceManager;
+import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
+import com.codahale.metrics.MetricRegistry;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DataSourceCacheTest {
+
+  private static final String NAME = "pinot";
+
+  private final AtomicInteger loads = new AtomicInteger();
+  private final List<ThirdEyeDataSource> loaded = new ArrayList<>();
+  private DataSourceDTO dto;
+  private DataSourcesLoader dataSourcesLoader;
+  private DataSourceCache dataSourceCache;
+
+  @BeforeMethod
+  public void setUp() {
+    loads.set(0);
+    loaded.clear();
+    dto = dto(1000L);
+    final DataSourceManager dataSourceManager = mock(DataSourceManager.class);
+    when(dataSourceManager.findByPredicate(any())).thenAnswer(invocation -> List.of(dto));
+    dataSourcesLoader = mock(DataSourcesLoader.class);
+    when(dataSourcesLoader.loadDataSource(any())).thenAnswer(invocation -> {
+      loads.incrementAndGet();
+      final ThirdEyeDataSource dataSource = mock(ThirdEyeDataSource.class);
+      synchronized (loaded) {
+        loaded.add(dataSource);
+      }
+      return dataSource;
+    });
+    dataSourceCache = new DataSourceCache(dataSourceManager,
+        dataSourcesLoader,
+        new MetricRegistry());
+  }
+
+  private static DataSourceDTO dto(final long updateTime) {
+    final DataSourceDTO dataSourceDTO = new DataSourceDTO().setName(NAME);
+    dataSourceDTO.setUpdateTime(new Timestamp(updateTime));
+    return dataSourceDTO;
+  }
+
+  @Test
+  public void testCacheHit() {
+    final ThirdEyeDataSource first = dataSourceCache.getDataSource(NAME);
+    final ThirdEyeDataSource second = dataSourceCache.getDataSource(NAME);
+
+    assertThat(second).isSameAs(first);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testConcurrentCallsConstructTheDataSourceOnce() throws Exception {
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      loads.incrementAndGet();
+      loading.countDown();
+      release.await();
+      return mock(ThirdEyeDataSource.class);
+    }).when(dataSourcesLoader).loadDataSource(any());
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<ThirdEyeDataSource>> futures = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> dataSourceCache.getDataSource(NAME)));
+      }
+      assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+      release.countDown();
+      final ThirdEyeDataSource first = futures.get(0).get(5, TimeUnit.SECONDS);
+      for (final Future<ThirdEyeDataSource> future : futures) {
+        assertThat(future.get(5, TimeUnit.SECONDS)).isSameAs(first);
+      }
+      assertThat(loads.get()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testOutdatedDataSourceIsClosedAfterCallsInFlight() throws Exception {
+    final ThirdEyeDataSource first = dataSourceCache.getDataSource(NAME);
+    final ThirdEyeDataSource firstDelegate = loaded.get(0);
+    final CountDownLatch fetching = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    when(firstDelegate.fetchDataTable(any())).thenAnswer(invocation -> {
+      fetching.countDown();
+      release.await();
+      return null;
+    });
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final Future<?> query = executor.submit(
+          () -> first.fetchDataTable(mock(DataSourceRequest.class)));
+      assertThat(fetching.await(5, TimeUnit.SECONDS)).isTrue();
+
+      dto = dto(2000L);
+      final ThirdEyeDataSource second = dataSourceCache.getDataSource(NAME);
+      assertThat(second).isNotSameAs(first);
+      verify(firstDelegate, never()).close();
+
+      release.countDown();
+      query.get(5, TimeUnit.SECONDS);
+      verify(firstDelegate).close();
+      verify(loaded.get(1), never()).close();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testFailedConstructionIsNotCached() {
+    doReturn(null).when(dataSourcesLoader).loadDataSource(any());
+    assertThatThrownBy(() -> dataSourceCache.getDataSource(NAME))
+        .isInstanceOf(NullPointerException.class);
+    assertThatThrownBy(() -> dataSourceCache.getDataSource(NAME))
+        .isInstanceOf(NullPointerException.class);
+    verify(dataSourcesLoader, times(2)).loadDataSource(any());
+  }
+
+  @Test
+  public void testConstructionErrorIsPropagatedToWaiters() throws Exception {
+    final CountDownLatch loading = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      loading.countDown();
+      release.await();
+      throw new NoClassDefFoundError("driver");
+    }).when(dataSourcesLoader).loadDataSource(any());
+    final ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      final Future<ThirdEyeDataSource> loader = executor.submit(
+          () -> dataSourceCache.getDataSource(NAME));
+      assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+      final Future<ThirdEyeDataSource> waiter = executor.submit(
+          () -> dataSourceCache.getDataSource(NAME));
+      release.countDown();
+
+      for (final Future<ThirdEyeDataSource> future : List.of(loader, waiter)) {
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(NoClassDefFoundError.class);
+      }
+      // the failed construction is not cached
+      doReturn(mock(ThirdEyeDataSource.class)).when(dataSourcesLoader).loadDataSource(any());
+      assertThat(dataSourceCache.getDataSource(NAME)).isNotNull();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testCloseClosesDataSources() throws Exception {
+    dataSourceCache.getDataSource(NAME);
+    dataSourceCache.close();
+
+    verify(loaded.get(0)).close();
+  }
+}
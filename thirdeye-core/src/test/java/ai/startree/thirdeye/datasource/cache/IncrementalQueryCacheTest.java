@@ -0,0 +1,192 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datasource.cache;
+
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.GRANULARITY;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MAX_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.MIN_TIME_MILLIS;
+import static ai.startree.thirdeye.spi.datasource.macro.MacroMetadataKeys.TIME_GROUP_ALIAS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.config.CacheConfig;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
+import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
+import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import com.codahale.metrics.MetricRegistry;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class IncrementalQueryCacheTest {
+
+  private static final long HOUR = 3_600_000L;
+  private static final String QUERY = "SELECT __timeGroup(...) AS ts, SUM(met) AS met FROM t";
+
+  private final List<Interval> fetchedIntervals = new ArrayList<>();
+  private ThirdEyeDataSource dataSource;
+  private DatasetConfigDTO dataset;
+
+  private static DataSourceRequest request(final Interval interval, final boolean aliased) {
+    return request(interval, aliased, QUERY);
+  }
+
+  private static DataSourceRequest request(final Interval interval, final boolean aliased,
+      final String query) {
+    final Map<String, String> properties = aliased
+        ? Map.of(MIN_TIME_MILLIS.toString(), String.valueOf(interval.getStartMillis()),
+        MAX_TIME_MILLIS.toString(), String.valueOf(interval.getEndMillis()),
+        GRANULARITY.toString(), "PT1H",
+        TIME_GROUP_ALIAS.toString(), "ts")
+        : Map.of(MIN_TIME_MILLIS.toString(), String.valueOf(interval.getStartMillis()),
+            MAX_TIME_MILLIS.toString(), String.valueOf(interval.getEndMillis()),
+            GRANULARITY.toString(), "PT1H");
+    return new DataSourceRequest("t", query, Map.of(), properties);
+  }
+
+  private static Interval hours(final long startHour, final long endHour) {
+    return new Interval(startHour * HOUR, endHour * HOUR, DateTimeZone.UTC);
+  }
+
+  private static IncrementalQueryCache cacheAt(final long nowHour) {
+    return new IncrementalQueryCache(new CacheConfig().setUseIncrementalQueryCache(true),
+        new MetricRegistry(),
+        Clock.fixed(Instant.ofEpochMilli(nowHour * HOUR), ZoneOffset.UTC));
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    fetchedIntervals.clear();
+    dataset = new DatasetConfigDTO().setMutabilityPeriod("PT2H");
+    dataSource = mock(ThirdEyeDataSource.class);
+    when(dataSource.getName()).thenReturn("pinot");
+    // one row per hour, value is the hour
+    when(dataSource.fetchDataTable(any())).thenAnswer(invocation -> {
+      final DataSourceRequest request = invocation.getArgument(0);
+      final long start = Long.parseLong(request.getProperties().get(MIN_TIME_MILLIS.toString()));
+      final long end = Long.parseLong(request.getProperties().get(MAX_TIME_MILLIS.toString()));
+      fetchedIntervals.add(new Interval(start, end, DateTimeZone.UTC));
+      final LongSeries.Builder times = LongSeries.builder();
+      final LongSeries.Builder values = LongSeries.builder();
+      for (long t = start; t < end; t += HOUR) {
+        times.addValues(t);
+        values.addValues(t / HOUR);
+      }
+      return SimpleDataTable.fromDataFrame(new DataFrame()
+          .addSeries("ts", times.build())
+          .addSeries("met", values.build()));
+    });
+  }
+
+  @Test
+  public void testOnlyTheMutableTailIsFetched() throws Exception {
+    final IncrementalQueryCache cache = cacheAt(10);
+    final DataTable first = cache.getDataTable(dataSource, dataset, hours(0, 10),
+        interval -> request(interval, true));
+    assertThat(first.getDataFrame().size()).isEqualTo(10);
+
+    // window slid by one hour
+    final DataTable next = cache.getDataTable(dataSource, dataset, hours(1, 11),
+        interval -> request(interval, true));
+
+    // hours 0 to 8 are immutable at hour 10
+    assertThat(fetchedIntervals).containsExactly(hours(0, 10), hours(8, 11));
+    final DataFrame df = next.getDataFrame();
+    assertThat(df.getLongs("met").values()).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    assertThat(df.getLong("ts", 0)).isEqualTo(HOUR);
+    assertThat(next.getProperties()).containsEntry(MIN_TIME_MILLIS.toString(),
+        String.valueOf(HOUR));
+  }
+
+  @Test
+  public void testFullHitWhenIntervalIsImmutable() throws Exception {
+    final IncrementalQueryCache cache = cacheAt(100);
+    cache.getDataTable(dataSource, dataset, hours(0, 10), i -> request(i, true));
+    final DataTable result = cache.getDataTable(dataSource, dataset, hours(2, 6),
+        i -> request(i, true));
+
+    assertThat(fetchedIntervals).containsExactly(hours(0, 10));
+    assertThat(result.getDataFrame().getLongs("met").values()).containsExactly(2, 3, 4, 5);
+  }
+
+  @Test
+  public void testNotCachedWithoutMutabilityPeriodOrAlias() throws Exception {
+    final IncrementalQueryCache cache = cacheAt(100);
+    cache.getDataTable(dataSource, dataset, hours(0, 10), i -> request(i, false));
+    cache.getDataTable(dataSource, dataset, hours(0, 10), i -> request(i, false));
+    final DatasetConfigDTO mutableDataset = new DatasetConfigDTO();
+    cache.getDataTable(dataSource, mutableDataset, hours(0, 10), i -> request(i, true));
+    cache.getDataTable(dataSource, mutableDataset, hours(0, 10), i -> request(i, true));
+
+    assertThat(fetchedIntervals).hasSize(4);
+  }
+
+  @Test
+  public void testDisabledByDefault() throws Exception {
+    final IncrementalQueryCache cache = new IncrementalQueryCache(new CacheConfig(),
+        new MetricRegistry(),
+        Clock.fixed(Instant.ofEpochMilli(100 * HOUR), ZoneOffset.UTC));
+    cache.getDataTable(dataSource, dataset, hours(0, 10), i -> request(i, true));
+    cache.getDataTable(dataSource, dataset, hours(0, 10), i -> request(i, true));
+
+    assertThat(fetchedIntervals).hasSize(2);
+  }
+
+  @Test
+  public void testNotCachedWithOrderByOrLimit() throws Exception {
+    final IncrementalQueryCache cache = cacheAt(100);
+    for (final String query : List.of(QUERY + " ORDER BY ts", QUERY + " limit 5")) {
+      cache.getDataTable(dataSource, dataset, hours(0, 10), i -> request(i, true, query));
+      cache.getDataTable(dataSource, dataset, hours(0, 10), i -> request(i, true, query));
+    }
+
+    assertThat(fetchedIntervals).hasSize(4);
+  }
+
+  @Test
+  public void testNotCachedWhenIntervalIsNotAligned() throws Exception {
+    final IncrementalQueryCache cache = cacheAt(100);
+    final long halfHour = HOUR / 2;
+    final Interval unaligned = new Interval(halfHour, 10 * HOUR + halfHour, DateTimeZone.UTC);
+    cache.getDataTable(dataSource, dataset, unaligned, i -> request(i, true));
+    cache.getDataTable(dataSource, dataset, unaligned, i -> request(i, true));
+
+    assertThat(fetchedIntervals).containsExactly(unaligned, unaligned);
+  }
+
+  @Test
+  public void testKeyedOnTheExpandedQuery() throws Exception {
+    final IncrementalQueryCache cache = cacheAt(100);
+    cache.getDataTable(dataSource, dataset, hours(0, 10), i -> request(i, true, QUERY));
+    // same query with a different macro expansion - eg the time column of the dataset changed
+    cache.getDataTable(dataSource, dataset, hours(0, 10),
+        i -> request(i, true, QUERY.replace("...", "time2")));
+    cache.getDataTable(dataSource, dataset, hours(0, 10), i -> request(i, true, QUERY));
+
+    assertThat(fetchedIntervals).containsExactly(hours(0, 10), hours(0, 10));
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.startree.thirdeye.spi.datalayer.Templatable;
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.util.List;
+import java.util.Map;
+import org.testng.annotations.Test;
+
+public class CompiledTemplateTest {
+
+  private static AlertTemplateDTO template() {
+    final TemplatableMap<String, Object> params = new TemplatableMap<>();
+    params.putValue("query", "SELECT ${metric} FROM ${dataset}");
+    params.put("limit", new Templatable<>().setTemplatedValue("${limit}"));
+    final PlanNodeBean node = new PlanNodeBean()
+        .setName("dataFetcher")
+        .setType("DataFetcher")
+        .setParams(params);
+    return new AlertTemplateDTO()
+        .setDescription("no placeholder")
+        .setNodes(List.of(node));
+  }
+
+  @Test
+  public void testRenderManyTimes() throws JsonProcessingException {
+    final AlertTemplateDTO template = template();
+    final CompiledTemplate<AlertTemplateDTO> compiled = CompiledTemplate.compile(template);
+
+    final AlertTemplateDTO first = compiled.render(
+        Map.of("metric", "views", "dataset", "pageviews", "limit", 10));
+    final AlertTemplateDTO second = compiled.render(
+        Map.of("metric", "clicks", "dataset", "pageviews", "limit", 20));
+
+    assertThat(first.getNodes().get(0).getParams().get("query").getValue())
+        .isEqualTo("SELECT views FROM pageviews");
+    assertThat(first.getNodes().get(0).getParams().get("limit").getValue()).isEqualTo(10);
+    assertThat(second.getNodes().get(0).getParams().get("query").getValue())
+        .isEqualTo("SELECT clicks FROM pageviews");
+    assertThat(second.getNodes().get(0).getParams().get("limit").getValue()).isEqualTo(20);
+    assertThat(second.getDescription()).isEqualTo("no placeholder");
+  }
+
+  @Test
+  public void testTemplateIsNotModified() throws JsonProcessingException {
+    final AlertTemplateDTO template = template();
+    final CompiledTemplate<AlertTemplateDTO> compiled = CompiledTemplate.compile(template);
+
+    final AlertTemplateDTO rendered = compiled.render(
+        Map.of("metric", "views", "dataset", "pageviews", "limit", 10));
+    rendered.getNodes().get(0).getParams().putValue("query", "modified");
+
+    assertThat(template.getNodes().get(0).getParams().get("query").getValue())
+        .isEqualTo("SELECT ${metric} FROM ${dataset}");
+    assertThat(compiled.render(Map.of("metric", "views", "dataset", "pageviews", "limit", 10))
+        .getNodes().get(0).getParams().get("query").getValue())
+        .isEqualTo("SELECT views FROM pageviews");
+  }
+}
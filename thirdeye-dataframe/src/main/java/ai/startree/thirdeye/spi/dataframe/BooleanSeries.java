@@ -13,6 +13,7 @@
  */
 package ai.startree.thirdeye.spi.dataframe;
 
+import ai.startree.thirdeye.spi.dataframe.SeriesKernels.Logical;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -389,19 +390,19 @@ public final class BooleanSeries extends TypedSeries<BooleanSeries> {
   }
 
   public LongSeries sum() {
-    return this.aggregate(LongSeries.SUM);
+    return LongSeries.buildFrom(SeriesKernels.countTrue(this.values));
   }
 
   public BooleanSeries product() {
-    return this.aggregate(ALL_TRUE);
+    return buildFrom(SeriesKernels.allTrue(this.values));
   }
 
   public BooleanSeries min() {
-    return this.aggregate(ALL_TRUE);
+    return buildFrom(SeriesKernels.allTrue(this.values));
   }
 
   public BooleanSeries max() {
-    return this.aggregate(HAS_TRUE);
+    return buildFrom(SeriesKernels.hasTrue(this.values));
   }
 
   public DoubleSeries mean() {
@@ -424,40 +425,33 @@ public final class BooleanSeries extends TypedSeries<BooleanSeries> {
   }
 
   public boolean allTrue() {
-    return this.aggregate(ALL_TRUE).valueBoolean();
+    return booleanValueOf(SeriesKernels.allTrue(this.values));
   }
 
   public boolean hasTrue() {
-    return this.aggregate(HAS_TRUE).valueBoolean();
+    return booleanValueOf(SeriesKernels.hasTrue(this.values));
   }
 
   public boolean allFalse() {
-    return this.aggregate(ALL_FALSE).valueBoolean();
+    final byte hasTrue = SeriesKernels.hasTrue(this.values);
+    return !isNull(hasTrue) && !isTrue(hasTrue);
   }
 
   public boolean hasFalse() {
-    return this.aggregate(HAS_FALSE).valueBoolean();
+    final byte allTrue = SeriesKernels.allTrue(this.values);
+    return !isNull(allTrue) && !isTrue(allTrue);
   }
 
   public BooleanSeries not() {
-    return this.map(new BooleanFunctionEx() {
-      @Override
-      public byte apply(byte... values) {
-        return (byte) (0b1 ^ values[0]);
-      }
-    });
+    return buildFrom(SeriesKernels.not(this.values));
   }
 
   public BooleanSeries or(Series other) {
     if (other.size() == 1) {
       return this.or(other.getBoolean(0));
     }
-    return map(new BooleanFunctionEx() {
-      @Override
-      public byte apply(byte... values) {
-        return (byte) (values[0] | values[1]);
-      }
-    }, this, other);
+    return buildFrom(
+        SeriesKernels.logical(Logical.OR, this.values, other.getBooleans().values));
   }
 
   public BooleanSeries or(final boolean constant) {
@@ -468,24 +462,15 @@ public final class BooleanSeries extends TypedSeries<BooleanSeries> {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new BooleanFunctionEx() {
-      @Override
-      public byte apply(byte... values) {
-        return (byte) (values[0] | constant);
-      }
-    });
+    return buildFrom(SeriesKernels.logical(Logical.OR, this.values, constant));
   }
 
   public BooleanSeries and(Series other) {
     if (other.size() == 1) {
       return this.and(other.getBoolean(0));
     }
-    return map(new BooleanFunctionEx() {
-      @Override
-      public byte apply(byte... values) {
-        return (byte) (values[0] & values[1]);
-      }
-    }, this, other);
+    return buildFrom(
+        SeriesKernels.logical(Logical.AND, this.values, other.getBooleans().values));
   }
 
   public BooleanSeries and(final boolean constant) {
@@ -496,24 +481,15 @@ public final class BooleanSeries extends TypedSeries<BooleanSeries> {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new BooleanFunctionEx() {
-      @Override
-      public byte apply(byte... values) {
-        return (byte) (values[0] & constant);
-      }
-    });
+    return buildFrom(SeriesKernels.logical(Logical.AND, this.values, constant));
   }
 
   public BooleanSeries xor(Series other) {
     if (other.size() == 1) {
       return this.xor(other.getBoolean(0));
     }
-    return map(new BooleanFunctionEx() {
-      @Override
-      public byte apply(byte... values) {
-        return (byte) (values[0] ^ values[1]);
-      }
-    }, this, other);
+    return buildFrom(
+        SeriesKernels.logical(Logical.XOR, this.values, other.getBooleans().values));
   }
 
   public BooleanSeries xor(final boolean constant) {
@@ -524,24 +500,15 @@ public final class BooleanSeries extends TypedSeries<BooleanSeries> {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new BooleanFunctionEx() {
-      @Override
-      public byte apply(byte... values) {
-        return (byte) (values[0] ^ constant);
-      }
-    });
+    return buildFrom(SeriesKernels.logical(Logical.XOR, this.values, constant));
   }
 
   public BooleanSeries implies(Series other) {
     if (other.size() == 1) {
       return this.implies(other.getBoolean(0));
     }
-    return map(new BooleanFunctionEx() {
-      @Override
-      public byte apply(byte... values) {
-        return (byte) ((0b1 ^ values[0]) | values[1]);
-      }
-    }, this, other);
+    return buildFrom(
+        SeriesKernels.logical(Logical.IMPLIES, this.values, other.getBooleans().values));
   }
 
   public BooleanSeries implies(final boolean constant) {
@@ -552,24 +519,15 @@ public final class BooleanSeries extends TypedSeries<BooleanSeries> {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new BooleanFunctionEx() {
-      @Override
-      public byte apply(byte... values) {
-        return (byte) ((0b1 ^ values[0]) | constant);
-      }
-    });
+    return buildFrom(SeriesKernels.logical(Logical.IMPLIES, this.values, constant));
   }
 
   public BooleanSeries eq(Series other) {
     if (other.size() == 1) {
       return this.eq(other.getBoolean(0));
     }
-    return map(new BooleanFunctionEx() {
-      @Override
-      public byte apply(byte... values) {
-        return (byte) ((values[0] ^ values[1]) ^ 0b1);
-      }
-    }, this, other);
+    return buildFrom(
+        SeriesKernels.logical(Logical.EQ, this.values, other.getBooleans().values));
   }
 
   public BooleanSeries eq(final boolean constant) {
@@ -580,12 +538,7 @@ public final class BooleanSeries extends TypedSeries<BooleanSeries> {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new BooleanFunctionEx() {
-      @Override
-      public byte apply(byte... values) {
-        return (byte) ((values[0] ^ constant) ^ 0b1);
-      }
-    });
+    return buildFrom(SeriesKernels.logical(Logical.EQ, this.values, constant));
   }
 
   @Override
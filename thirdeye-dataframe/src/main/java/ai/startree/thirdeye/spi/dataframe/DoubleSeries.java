@@ -13,6 +13,8 @@
  */
 package ai.startree.thirdeye.spi.dataframe;
 
+import ai.startree.thirdeye.spi.dataframe.SeriesKernels.Arithmetic;
+import ai.startree.thirdeye.spi.dataframe.SeriesKernels.Comparison;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -515,27 +517,27 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public DoubleSeries sum() {
-    return this.aggregate(SUM);
+    return buildFrom(SeriesKernels.sum(this.values));
   }
 
   @Override
   public DoubleSeries product() {
-    return this.aggregate(PRODUCT);
+    return buildFrom(SeriesKernels.product(this.values));
   }
 
   @Override
   public DoubleSeries min() {
-    return this.aggregate(MIN);
+    return buildFrom(SeriesKernels.min(this.values));
   }
 
   @Override
   public DoubleSeries max() {
-    return this.aggregate(MAX);
+    return buildFrom(SeriesKernels.max(this.values));
   }
 
   @Override
   public DoubleSeries mean() {
-    return this.aggregate(MEAN);
+    return buildFrom(SeriesKernels.mean(this.values));
   }
 
   @Override
@@ -545,7 +547,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
 
   @Override
   public DoubleSeries std() {
-    return this.aggregate(STD);
+    return buildFrom(SeriesKernels.std(this.values));
   }
 
   /**
@@ -650,72 +652,45 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     if (other.size() == 1) {
       return this.add(other.getDouble(0));
     }
-    return map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] + values[1];
-      }
-    }, this, other);
+    return buildFrom(
+        SeriesKernels.arithmetic(Arithmetic.ADD, this.values, other.getDoubles().values));
   }
 
   public DoubleSeries add(final double constant) {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] + constant;
-      }
-    });
+    return buildFrom(SeriesKernels.arithmetic(Arithmetic.ADD, this.values, constant));
   }
 
   public DoubleSeries subtract(Series other) {
     if (other.size() == 1) {
       return this.subtract(other.getDouble(0));
     }
-    return map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] - values[1];
-      }
-    }, this, other);
+    return buildFrom(
+        SeriesKernels.arithmetic(Arithmetic.SUBTRACT, this.values, other.getDoubles().values));
   }
 
   public DoubleSeries subtract(final double constant) {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] - constant;
-      }
-    });
+    return buildFrom(SeriesKernels.arithmetic(Arithmetic.SUBTRACT, this.values, constant));
   }
 
   public DoubleSeries multiply(Series other) {
     if (other.size() == 1) {
       return this.multiply(other.getDouble(0));
     }
-    return map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] * values[1];
-      }
-    }, this, other);
+    return buildFrom(
+        SeriesKernels.arithmetic(Arithmetic.MULTIPLY, this.values, other.getDoubles().values));
   }
 
   public DoubleSeries multiply(final double constant) {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] * constant;
-      }
-    });
+    return buildFrom(SeriesKernels.arithmetic(Arithmetic.MULTIPLY, this.values, constant));
   }
 
   public DoubleSeries divide(Series other) {
@@ -726,12 +701,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     if (o.contains(0.0d)) {
       throw new ArithmeticException("/ by zero");
     }
-    return map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] / values[1];
-      }
-    }, this, o);
+    return buildFrom(SeriesKernels.arithmetic(Arithmetic.DIVIDE, this.values, o.values));
   }
 
   public DoubleSeries divide(final double constant) {
@@ -741,12 +711,7 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     if (constant == 0.0d) {
       throw new ArithmeticException("/ by zero");
     }
-    return this.map(new DoubleFunction() {
-      @Override
-      public double apply(double... values) {
-        return values[0] / constant;
-      }
-    });
+    return buildFrom(SeriesKernels.arithmetic(Arithmetic.DIVIDE, this.values, constant));
   }
 
   public DoubleSeries pow(Series other) {
@@ -774,24 +739,15 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     if (other.size() == 1) {
       return this.eq(other.getDouble(0));
     }
-    return map(new DoubleConditional() {
-      @Override
-      public boolean apply(double... values) {
-        return values[0] == values[1];
-      }
-    }, this, other);
+    return BooleanSeries.buildFrom(
+        SeriesKernels.compare(Comparison.EQ, this.values, other.getDoubles().values));
   }
 
   public BooleanSeries eq(final double constant) {
     if (isNull(constant)) {
       return BooleanSeries.nulls(this.size());
     }
-    return this.map(new DoubleConditional() {
-      @Override
-      public boolean apply(double... values) {
-        return values[0] == constant;
-      }
-    });
+    return BooleanSeries.buildFrom(SeriesKernels.compare(Comparison.EQ, this.values, constant));
   }
 
   public BooleanSeries eq(final double constant, final double epsilon) {
@@ -818,96 +774,60 @@ public final class DoubleSeries extends TypedSeries<DoubleSeries> {
     if (isNull(constant)) {
       return BooleanSeries.nulls(this.size());
     }
-    return this.map(new DoubleConditional() {
-      @Override
-      public boolean apply(double... values) {
-        return values[0] > constant;
-      }
-    });
+    return BooleanSeries.buildFrom(SeriesKernels.compare(Comparison.GT, this.values, constant));
   }
 
   public BooleanSeries gt(Series other) {
     if (other.size() == 1) {
       return this.gt(other.getLong(0));
     }
-    return map(new DoubleConditional() {
-      @Override
-      public boolean apply(double... values) {
-        return values[0] > values[1];
-      }
-    }, this, other);
+    return BooleanSeries.buildFrom(
+        SeriesKernels.compare(Comparison.GT, this.values, other.getDoubles().values));
   }
 
   public BooleanSeries gte(final double constant) {
     if (isNull(constant)) {
       return BooleanSeries.nulls(this.size());
     }
-    return this.map(new DoubleConditional() {
-      @Override
-      public boolean apply(double... values) {
-        return values[0] >= constant;
-      }
-    });
+    return BooleanSeries.buildFrom(SeriesKernels.compare(Comparison.GTE, this.values, constant));
   }
 
   public BooleanSeries gte(Series other) {
     if (other.size() == 1) {
       return this.gte(other.getLong(0));
     }
-    return map(new DoubleConditional() {
-      @Override
-      public boolean apply(double... values) {
-        return values[0] >= values[1];
-      }
-    }, this, other);
+    return BooleanSeries.buildFrom(
+        SeriesKernels.compare(Comparison.GTE, this.values, other.getDoubles().values));
   }
 
   public BooleanSeries lt(final double constant) {
     if (isNull(constant)) {
       return BooleanSeries.nulls(this.size());
     }
-    return this.map(new DoubleConditional() {
-      @Override
-      public boolean apply(double... values) {
-        return values[0] < constant;
-      }
-    });
+    return BooleanSeries.buildFrom(SeriesKernels.compare(Comparison.LT, this.values, constant));
   }
 
   public BooleanSeries lt(Series other) {
     if (other.size() == 1) {
       return this.lt(other.getLong(0));
     }
-    return map(new DoubleConditional() {
-      @Override
-      public boolean apply(double... values) {
-        return values[0] < values[1];
-      }
-    }, this, other);
+    return BooleanSeries.buildFrom(
+        SeriesKernels.compare(Comparison.LT, this.values, other.getDoubles().values));
   }
 
   public BooleanSeries lte(final double constant) {
     if (isNull(constant)) {
       return BooleanSeries.nulls(this.size());
     }
-    return this.map(new DoubleConditional() {
-      @Override
-      public boolean apply(double... values) {
-        return values[0] <= constant;
-      }
-    });
+    return BooleanSeries.buildFrom(SeriesKernels.compare(Comparison.LTE, this.values, constant));
   }
 
   public BooleanSeries lte(Series other) {
     if (other.size() == 1) {
       return this.lte(other.getLong(0));
     }
-    return map(new DoubleConditional() {
-      @Override
-      public boolean apply(double... values) {
-        return values[0] <= values[1];
-      }
-    }, this, other);
+    return BooleanSeries.buildFrom(
+        SeriesKernels.compare(Comparison.LTE, this.values, other.getDoubles().values));
   }
 
   public BooleanSeries between(final double startIncl, final double endExcl) {
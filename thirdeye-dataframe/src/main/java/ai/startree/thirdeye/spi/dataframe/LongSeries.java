@@ -13,6 +13,8 @@
  */
 package ai.startree.thirdeye.spi.dataframe;
 
+import ai.startree.thirdeye.spi.dataframe.SeriesKernels.Arithmetic;
+import ai.startree.thirdeye.spi.dataframe.SeriesKernels.Comparison;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -380,23 +382,23 @@ public final class LongSeries extends TypedSeries<LongSeries> {
   }
 
   public LongSeries sum() {
-    return this.aggregate(SUM);
+    return buildFrom(SeriesKernels.sum(this.values));
   }
 
   public LongSeries product() {
-    return this.aggregate(PRODUCT);
+    return buildFrom(SeriesKernels.product(this.values));
   }
 
   public LongSeries min() {
-    return this.aggregate(MIN);
+    return buildFrom(SeriesKernels.min(this.values));
   }
 
   public LongSeries max() {
-    return this.aggregate(MAX);
+    return buildFrom(SeriesKernels.max(this.values));
   }
 
   public DoubleSeries mean() {
-    return this.aggregate(DoubleSeries.MEAN);
+    return DoubleSeries.buildFrom(SeriesKernels.mean(this.values));
   }
 
   public DoubleSeries median() {
@@ -404,7 +406,7 @@ public final class LongSeries extends TypedSeries<LongSeries> {
   }
 
   public DoubleSeries std() {
-    return this.aggregate(DoubleSeries.STD);
+    return DoubleSeries.buildFrom(SeriesKernels.std(this.values));
   }
 
   /**
@@ -425,120 +427,75 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     if (other.size() == 1) {
       return this.add(other.getLong(0));
     }
-    return map(new LongFunction() {
-      @Override
-      public long apply(long... values) {
-        return values[0] + values[1];
-      }
-    }, this, other);
+    return buildFrom(
+        SeriesKernels.arithmetic(Arithmetic.ADD, this.values, other.getLongs().values));
   }
 
   public LongSeries add(final long constant) {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new LongFunction() {
-      @Override
-      public long apply(long... values) {
-        return values[0] + constant;
-      }
-    });
+    return buildFrom(SeriesKernels.arithmetic(Arithmetic.ADD, this.values, constant));
   }
 
   public LongSeries subtract(Series other) {
     if (other.size() == 1) {
       return this.subtract(other.getLong(0));
     }
-    return map(new LongFunction() {
-      @Override
-      public long apply(long... values) {
-        return values[0] - values[1];
-      }
-    }, this, other);
+    return buildFrom(
+        SeriesKernels.arithmetic(Arithmetic.SUBTRACT, this.values, other.getLongs().values));
   }
 
   public LongSeries subtract(final long constant) {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new LongFunction() {
-      @Override
-      public long apply(long... values) {
-        return values[0] - constant;
-      }
-    });
+    return buildFrom(SeriesKernels.arithmetic(Arithmetic.SUBTRACT, this.values, constant));
   }
 
   public LongSeries multiply(Series other) {
     if (other.size() == 1) {
       return this.multiply(other.getLong(0));
     }
-    return map(new LongFunction() {
-      @Override
-      public long apply(long... values) {
-        return values[0] * values[1];
-      }
-    }, this, other);
+    return buildFrom(
+        SeriesKernels.arithmetic(Arithmetic.MULTIPLY, this.values, other.getLongs().values));
   }
 
   public LongSeries multiply(final long constant) {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new LongFunction() {
-      @Override
-      public long apply(long... values) {
-        return values[0] * constant;
-      }
-    });
+    return buildFrom(SeriesKernels.arithmetic(Arithmetic.MULTIPLY, this.values, constant));
   }
 
   public LongSeries divide(Series other) {
     if (other.size() == 1) {
       return this.divide(other.getLong(0));
     }
-    return map(new LongFunction() {
-      @Override
-      public long apply(long... values) {
-        return values[0] / values[1];
-      }
-    }, this, other);
+    return buildFrom(
+        SeriesKernels.arithmetic(Arithmetic.DIVIDE, this.values, other.getLongs().values));
   }
 
   public LongSeries divide(final long constant) {
     if (isNull(constant)) {
       return nulls(this.size());
     }
-    return this.map(new LongFunction() {
-      @Override
-      public long apply(long... values) {
-        return values[0] / constant;
-      }
-    });
+    return buildFrom(SeriesKernels.arithmetic(Arithmetic.DIVIDE, this.values, constant));
   }
 
   public BooleanSeries eq(Series other) {
     if (other.size() == 1) {
       return this.eq(other.getLong(0));
     }
-    return map(new LongConditional() {
-      @Override
-      public boolean apply(long... values) {
-        return values[0] == values[1];
-      }
-    }, this, other);
+    return BooleanSeries.buildFrom(
+        SeriesKernels.compare(Comparison.EQ, this.values, other.getLongs().values));
   }
 
   public BooleanSeries eq(final long constant) {
     if (isNull(constant)) {
       return BooleanSeries.nulls(this.size());
     }
-    return this.map(new LongConditional() {
-      @Override
-      public boolean apply(long... values) {
-        return values[0] == constant;
-      }
-    });
+    return BooleanSeries.buildFrom(SeriesKernels.compare(Comparison.EQ, this.values, constant));
   }
 
   public BooleanSeries neq(final long constant) {
@@ -552,96 +509,60 @@ public final class LongSeries extends TypedSeries<LongSeries> {
     if (isNull(constant)) {
       return BooleanSeries.nulls(this.size());
     }
-    return this.map(new LongConditional() {
-      @Override
-      public boolean apply(long... values) {
-        return values[0] > constant;
-      }
-    });
+    return BooleanSeries.buildFrom(SeriesKernels.compare(Comparison.GT, this.values, constant));
   }
 
   public BooleanSeries gt(Series other) {
     if (other.size() == 1) {
       return this.gt(other.getLong(0));
     }
-    return map(new LongConditional() {
-      @Override
-      public boolean apply(long... values) {
-        return values[0] > values[1];
-      }
-    }, this, other);
+    return BooleanSeries.buildFrom(
+        SeriesKernels.compare(Comparison.GT, this.values, other.getLongs().values));
   }
 
   public BooleanSeries gte(final long constant) {
     if (isNull(constant)) {
       return BooleanSeries.nulls(this.size());
     }
-    return this.map(new LongConditional() {
-      @Override
-      public boolean apply(long... values) {
-        return values[0] >= constant;
-      }
-    });
+    return BooleanSeries.buildFrom(SeriesKernels.compare(Comparison.GTE, this.values, constant));
   }
 
   public BooleanSeries gte(Series other) {
     if (other.size() == 1) {
       return this.gte(other.getLong(0));
     }
-    return map(new LongConditional() {
-      @Override
-      public boolean apply(long... values) {
-        return values[0] >= values[1];
-      }
-    }, this, other);
+    return BooleanSeries.buildFrom(
+        SeriesKernels.compare(Comparison.GTE, this.values, other.getLongs().values));
   }
 
   public BooleanSeries lt(final long constant) {
     if (isNull(constant)) {
       return BooleanSeries.nulls(this.size());
     }
-    return this.map(new LongConditional() {
-      @Override
-      public boolean apply(long... values) {
-        return values[0] < constant;
-      }
-    });
+    return BooleanSeries.buildFrom(SeriesKernels.compare(Comparison.LT, this.values, constant));
   }
 
   public BooleanSeries lt(Series other) {
     if (other.size() == 1) {
       return this.lt(other.getLong(0));
     }
-    return map(new LongConditional() {
-      @Override
-      public boolean apply(long... values) {
-        return values[0] < values[1];
-      }
-    }, this, other);
+    return BooleanSeries.buildFrom(
+        SeriesKernels.compare(Comparison.LT, this.values, other.getLongs().values));
   }
 
   public BooleanSeries lte(final long constant) {
     if (isNull(constant)) {
       return BooleanSeries.nulls(this.size());
     }
-    return this.map(new LongConditional() {
-      @Override
-      public boolean apply(long... values) {
-        return values[0] <= constant;
-      }
-    });
+    return BooleanSeries.buildFrom(SeriesKernels.compare(Comparison.LTE, this.values, constant));
   }
 
   public BooleanSeries lte(Series other) {
     if (other.size() == 1) {
       return this.lte(other.getLong(0));
     }
-    return map(new LongConditional() {
-      @Override
-      public boolean apply(long... values) {
-        return values[0] <= values[1];
-      }
-    }, this, other);
+    return BooleanSeries.buildFrom(
+        SeriesKernels.compare(Comparison.LTE, this.values, other.getLongs().values));
   }
 
   public BooleanSeries between(final long startIncl, final long endExcl) {
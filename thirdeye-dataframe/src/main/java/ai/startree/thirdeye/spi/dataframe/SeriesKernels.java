@@ -0,0 +1,637 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+/**
+ * Primitive loops for the built-in operations of {@link DoubleSeries}, {@link LongSeries} and
+ * {@link BooleanSeries}.
+ *
+ * The generic map() goes through a function callback and a varargs array for each element. The
+ * kernels below work on the raw arrays, with one loop per operation: the loops have no calls and
+ * can be unrolled and vectorized by the JIT.
+ *
+ * Null semantics are the ones of map(): if an input is null, the output is null. For doubles,
+ * null is NaN and propagates through arithmetic, so arithmetic loops need no null check.
+ * Aggregations ignore nulls, like {@link Series#aggregate(Series.Function)}, and iterate in the
+ * same order: results are identical.
+ */
+final class SeriesKernels {
+
+  enum Arithmetic {ADD, SUBTRACT, MULTIPLY, DIVIDE}
+
+  enum Comparison {EQ, GT, GTE, LT, LTE}
+
+  enum Logical {AND, OR, XOR, IMPLIES, EQ}
+
+  private SeriesKernels() {
+  }
+
+  private static void assertSameLength(final int a, final int b) {
+    if (a != b) {
+      throw new IllegalArgumentException("Series size must be of equal size");
+    }
+  }
+
+  /* **************************************************************************
+   * double
+   ***************************************************************************/
+
+  static double[] arithmetic(final Arithmetic op, final double[] a, final double[] b) {
+    assertSameLength(a.length, b.length);
+    final double[] out = new double[a.length];
+    switch (op) {
+      case ADD:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] + b[i];
+        }
+        break;
+      case SUBTRACT:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] - b[i];
+        }
+        break;
+      case MULTIPLY:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] * b[i];
+        }
+        break;
+      case DIVIDE:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] / b[i];
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation " + op);
+    }
+    return out;
+  }
+
+  static double[] arithmetic(final Arithmetic op, final double[] a, final double b) {
+    final double[] out = new double[a.length];
+    switch (op) {
+      case ADD:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] + b;
+        }
+        break;
+      case SUBTRACT:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] - b;
+        }
+        break;
+      case MULTIPLY:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] * b;
+        }
+        break;
+      case DIVIDE:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] / b;
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation " + op);
+    }
+    return out;
+  }
+
+  static byte[] compare(final Comparison op, final double[] a, final double[] b) {
+    assertSameLength(a.length, b.length);
+    final byte[] out = new byte[a.length];
+    switch (op) {
+      case EQ:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] == b[i] ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case GT:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] > b[i] ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case GTE:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] >= b[i] ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case LT:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] < b[i] ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case LTE:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] <= b[i] ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation " + op);
+    }
+    // comparisons with NaN are false: set nulls in a separate pass
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] != a[i] || b[i] != b[i]) {
+        out[i] = BooleanSeries.NULL;
+      }
+    }
+    return out;
+  }
+
+  static byte[] compare(final Comparison op, final double[] a, final double b) {
+    final byte[] out = new byte[a.length];
+    switch (op) {
+      case EQ:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] == b ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case GT:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] > b ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case GTE:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] >= b ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case LT:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] < b ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case LTE:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] <= b ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation " + op);
+    }
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] != a[i]) {
+        out[i] = BooleanSeries.NULL;
+      }
+    }
+    return out;
+  }
+
+  static double sum(final double[] values) {
+    double sum = 0.0d;
+    int count = 0;
+    for (final double v : values) {
+      if (v == v) {
+        sum += v;
+        count++;
+      }
+    }
+    return count == 0 ? DoubleSeries.NULL : sum;
+  }
+
+  static double product(final double[] values) {
+    double product = 1.0d;
+    int count = 0;
+    for (final double v : values) {
+      if (v == v) {
+        product *= v;
+        count++;
+      }
+    }
+    return count == 0 ? DoubleSeries.NULL : product;
+  }
+
+  static double min(final double[] values) {
+    double min = DoubleSeries.NULL;
+    for (final double v : values) {
+      if (v == v) {
+        min = min != min ? v : Math.min(min, v);
+      }
+    }
+    return min;
+  }
+
+  static double max(final double[] values) {
+    double max = DoubleSeries.NULL;
+    for (final double v : values) {
+      if (v == v) {
+        max = max != max ? v : Math.max(max, v);
+      }
+    }
+    return max;
+  }
+
+  static double mean(final double[] values) {
+    double sum = 0.0d;
+    int count = 0;
+    for (final double v : values) {
+      if (v == v) {
+        sum += v;
+        count++;
+      }
+    }
+    return count == 0 ? DoubleSeries.NULL : sum / count;
+  }
+
+  /**
+   * Sample standard deviation, computed in two passes.
+   */
+  static double std(final double[] values) {
+    double sum = 0.0d;
+    int count = 0;
+    for (final double v : values) {
+      if (v == v) {
+        sum += v;
+        count++;
+      }
+    }
+    if (count <= 1) {
+      return DoubleSeries.NULL;
+    }
+    final double mean = sum / count;
+    double var = 0.0d;
+    for (final double v : values) {
+      if (v == v) {
+        var += (v - mean) * (v - mean);
+      }
+    }
+    return Math.sqrt(var / (count - 1));
+  }
+
+  /* **************************************************************************
+   * long
+   ***************************************************************************/
+
+  static long[] arithmetic(final Arithmetic op, final long[] a, final long[] b) {
+    assertSameLength(a.length, b.length);
+    final long[] out = new long[a.length];
+    switch (op) {
+      case ADD:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] + b[i];
+        }
+        break;
+      case SUBTRACT:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] - b[i];
+        }
+        break;
+      case MULTIPLY:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] * b[i];
+        }
+        break;
+      case DIVIDE:
+        for (int i = 0; i < a.length; i++) {
+          // nulls are not divided: null divisors must not throw
+          if (a[i] != LongSeries.NULL && b[i] != LongSeries.NULL) {
+            out[i] = a[i] / b[i];
+          }
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation " + op);
+    }
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] == LongSeries.NULL || b[i] == LongSeries.NULL) {
+        out[i] = LongSeries.NULL;
+      }
+    }
+    return out;
+  }
+
+  static long[] arithmetic(final Arithmetic op, final long[] a, final long b) {
+    final long[] out = new long[a.length];
+    switch (op) {
+      case ADD:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] + b;
+        }
+        break;
+      case SUBTRACT:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] - b;
+        }
+        break;
+      case MULTIPLY:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] * b;
+        }
+        break;
+      case DIVIDE:
+        for (int i = 0; i < a.length; i++) {
+          if (a[i] != LongSeries.NULL) {
+            out[i] = a[i] / b;
+          }
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation " + op);
+    }
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] == LongSeries.NULL) {
+        out[i] = LongSeries.NULL;
+      }
+    }
+    return out;
+  }
+
+  static byte[] compare(final Comparison op, final long[] a, final long[] b) {
+    assertSameLength(a.length, b.length);
+    final byte[] out = new byte[a.length];
+    switch (op) {
+      case EQ:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] == b[i] ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case GT:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] > b[i] ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case GTE:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] >= b[i] ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case LT:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] < b[i] ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case LTE:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] <= b[i] ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation " + op);
+    }
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] == LongSeries.NULL || b[i] == LongSeries.NULL) {
+        out[i] = BooleanSeries.NULL;
+      }
+    }
+    return out;
+  }
+
+  static byte[] compare(final Comparison op, final long[] a, final long b) {
+    final byte[] out = new byte[a.length];
+    switch (op) {
+      case EQ:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] == b ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case GT:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] > b ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case GTE:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] >= b ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case LT:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] < b ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      case LTE:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = a[i] <= b ? BooleanSeries.TRUE : BooleanSeries.FALSE;
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation " + op);
+    }
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] == LongSeries.NULL) {
+        out[i] = BooleanSeries.NULL;
+      }
+    }
+    return out;
+  }
+
+  static long sum(final long[] values) {
+    long sum = 0;
+    int count = 0;
+    for (final long v : values) {
+      if (v != LongSeries.NULL) {
+        sum += v;
+        count++;
+      }
+    }
+    return count == 0 ? LongSeries.NULL : sum;
+  }
+
+  static long product(final long[] values) {
+    long product = 1;
+    int count = 0;
+    for (final long v : values) {
+      if (v != LongSeries.NULL) {
+        product *= v;
+        count++;
+      }
+    }
+    return count == 0 ? LongSeries.NULL : product;
+  }
+
+  static long min(final long[] values) {
+    // NULL is the smallest long: ignore it by starting from the largest value
+    long min = Long.MAX_VALUE;
+    int count = 0;
+    for (final long v : values) {
+      if (v != LongSeries.NULL) {
+        min = Math.min(min, v);
+        count++;
+      }
+    }
+    return count == 0 ? LongSeries.NULL : min;
+  }
+
+  static long max(final long[] values) {
+    // NULL is the smallest long: it never wins
+    long max = LongSeries.NULL;
+    for (final long v : values) {
+      max = Math.max(max, v);
+    }
+    return max;
+  }
+
+  static double mean(final long[] values) {
+    double sum = 0.0d;
+    int count = 0;
+    for (final long v : values) {
+      if (v != LongSeries.NULL) {
+        sum += v;
+        count++;
+      }
+    }
+    return count == 0 ? DoubleSeries.NULL : sum / count;
+  }
+
+  /**
+   * Sample standard deviation, computed in two passes.
+   */
+  static double std(final long[] values) {
+    final double mean = mean(values);
+    int count = 0;
+    double var = 0.0d;
+    for (final long v : values) {
+      if (v != LongSeries.NULL) {
+        var += (v - mean) * (v - mean);
+        count++;
+      }
+    }
+    if (count <= 1) {
+      return DoubleSeries.NULL;
+    }
+    return Math.sqrt(var / (count - 1));
+  }
+
+  /* **************************************************************************
+   * boolean
+   ***************************************************************************/
+
+  static byte[] logical(final Logical op, final byte[] a, final byte[] b) {
+    assertSameLength(a.length, b.length);
+    final byte[] out = new byte[a.length];
+    switch (op) {
+      case AND:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = (byte) (a[i] & b[i]);
+        }
+        break;
+      case OR:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = (byte) (a[i] | b[i]);
+        }
+        break;
+      case XOR:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = (byte) (a[i] ^ b[i]);
+        }
+        break;
+      case IMPLIES:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = (byte) ((0b1 ^ a[i]) | b[i]);
+        }
+        break;
+      case EQ:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = (byte) ((a[i] ^ b[i]) ^ 0b1);
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation " + op);
+    }
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] == BooleanSeries.NULL || b[i] == BooleanSeries.NULL) {
+        out[i] = BooleanSeries.NULL;
+      }
+    }
+    return out;
+  }
+
+  static byte[] logical(final Logical op, final byte[] a, final byte b) {
+    final byte[] out = new byte[a.length];
+    switch (op) {
+      case AND:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = (byte) (a[i] & b);
+        }
+        break;
+      case OR:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = (byte) (a[i] | b);
+        }
+        break;
+      case XOR:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = (byte) (a[i] ^ b);
+        }
+        break;
+      case IMPLIES:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = (byte) ((0b1 ^ a[i]) | b);
+        }
+        break;
+      case EQ:
+        for (int i = 0; i < a.length; i++) {
+          out[i] = (byte) ((a[i] ^ b) ^ 0b1);
+        }
+        break;
+      default:
+        throw new IllegalArgumentException("Unsupported operation " + op);
+    }
+    for (int i = 0; i < a.length; i++) {
+      if (a[i] == BooleanSeries.NULL) {
+        out[i] = BooleanSeries.NULL;
+      }
+    }
+    return out;
+  }
+
+  static byte[] not(final byte[] a) {
+    final byte[] out = new byte[a.length];
+    for (int i = 0; i < a.length; i++) {
+      out[i] = a[i] == BooleanSeries.NULL ? BooleanSeries.NULL : (byte) (0b1 ^ a[i]);
+    }
+    return out;
+  }
+
+  /**
+   * @return TRUE if all non-null values are true, NULL if all values are null
+   */
+  static byte allTrue(final byte[] values) {
+    boolean hasValue = false;
+    for (final byte v : values) {
+      if (v == BooleanSeries.FALSE) {
+        return BooleanSeries.FALSE;
+      }
+      hasValue |= v != BooleanSeries.NULL;
+    }
+    return hasValue ? BooleanSeries.TRUE : BooleanSeries.NULL;
+  }
+
+  /**
+   * @return TRUE if any non-null value is true, NULL if all values are null
+   */
+  static byte hasTrue(final byte[] values) {
+    boolean hasValue = false;
+    for (final byte v : values) {
+      if (v != BooleanSeries.NULL && v != BooleanSeries.FALSE) {
+        return BooleanSeries.TRUE;
+      }
+      hasValue |= v != BooleanSeries.NULL;
+    }
+    return hasValue ? BooleanSeries.FALSE : BooleanSeries.NULL;
+  }
+
+  /**
+   * @return the number of true values, NULL if all values are null
+   */
+  static long countTrue(final byte[] values) {
+    long sum = 0;
+    int count = 0;
+    for (final byte v : values) {
+      if (v != BooleanSeries.NULL) {
+        sum += v == BooleanSeries.FALSE ? 0 : 1;
+        count++;
+      }
+    }
+    return count == 0 ? LongSeries.NULL : sum;
+  }
+}
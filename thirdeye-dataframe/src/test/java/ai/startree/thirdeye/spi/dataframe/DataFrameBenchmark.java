@@ -716,6 +716,88 @@ public class DataFrameBenchmark {
     logResults("benchmarkAggregateLongArray", checksum);
   }
 
+  private void benchmarkAggregateDoubleSeries() {
+    startTimerOuter();
+    long checksum = 0;
+
+    for (int r = 0; r < N_ROUNDS; r++) {
+      double[] doubleValues = generateDoubleData(N_ELEMENTS);
+      DoubleSeries series = DoubleSeries.buildFrom(doubleValues);
+
+      startTimer();
+      double out = series.std().value();
+      stopTimer();
+
+      checksum ^= checksum(out);
+    }
+
+    logResults("benchmarkAggregateDoubleSeries", checksum);
+  }
+
+  private void benchmarkAggregateDoubleArray() {
+    startTimerOuter();
+    long checksum = 0;
+
+    for (int r = 0; r < N_ROUNDS; r++) {
+      double[] doubleValues = generateDoubleData(N_ELEMENTS);
+
+      startTimer();
+      double sum = 0;
+      for (int i = 0; i < N_ELEMENTS; i++) {
+        sum += doubleValues[i];
+      }
+      double mean = sum / N_ELEMENTS;
+      double var = 0;
+      for (int i = 0; i < N_ELEMENTS; i++) {
+        var += (doubleValues[i] - mean) * (doubleValues[i] - mean);
+      }
+      double out = Math.sqrt(var / (N_ELEMENTS - 1));
+      stopTimer();
+
+      checksum ^= checksum(out);
+    }
+
+    logResults("benchmarkAggregateDoubleArray", checksum);
+  }
+
+  private void benchmarkCompareDoubleSeriesOperation() {
+    startTimerOuter();
+    long checksum = 0;
+
+    for (int r = 0; r < N_ROUNDS; r++) {
+      double[] doubleValues = generateDoubleData(N_ELEMENTS);
+      DoubleSeries series = DoubleSeries.buildFrom(doubleValues);
+
+      startTimer();
+      BooleanSeries out = series.gt(0.5).and(series.lt(0.75));
+      stopTimer();
+
+      checksum ^= checksum(out.count(true));
+    }
+
+    logResults("benchmarkCompareDoubleSeriesOperation", checksum);
+  }
+
+  private void benchmarkCompareDoubleArray() {
+    startTimerOuter();
+    long checksum = 0;
+
+    for (int r = 0; r < N_ROUNDS; r++) {
+      double[] doubleValues = generateDoubleData(N_ELEMENTS);
+
+      startTimer();
+      byte[] out = new byte[N_ELEMENTS];
+      for (int i = 0; i < N_ELEMENTS; i++) {
+        out[i] = doubleValues[i] > 0.5 && doubleValues[i] < 0.75 ? (byte) 1 : (byte) 0;
+      }
+      stopTimer();
+
+      checksum ^= checksum(BooleanSeries.buildFrom(out).count(true));
+    }
+
+    logResults("benchmarkCompareDoubleArray", checksum);
+  }
+
   private void benchmarkHasNullLongSeries() {
     startTimerOuter();
     long checksum = 0;
@@ -1006,6 +1088,10 @@ public class DataFrameBenchmark {
     benchmarkDropNullLongArray();
     benchmarkAggregateLongSeries();
     benchmarkAggregateLongArray();
+    benchmarkAggregateDoubleSeries();
+    benchmarkAggregateDoubleArray();
+    benchmarkCompareDoubleSeriesOperation();
+    benchmarkCompareDoubleArray();
     benchmarkMinMaxLongSeries();
     benchmarkMinMaxLongArray();
     benchmarkEqualsLongSeries();
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.dataframe;
+
+import ai.startree.thirdeye.spi.dataframe.Series.BooleanFunction;
+import ai.startree.thirdeye.spi.dataframe.Series.DoubleConditional;
+import ai.startree.thirdeye.spi.dataframe.Series.DoubleFunction;
+import ai.startree.thirdeye.spi.dataframe.Series.LongConditional;
+import ai.startree.thirdeye.spi.dataframe.Series.LongFunction;
+import java.util.Random;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * Checks the kernels against the generic map() and aggregate() implementations.
+ */
+public class SeriesKernelsTest {
+
+  private static final int SIZE = 1000;
+
+  private final Random random = new Random(42);
+
+  private DoubleSeries randomDoubles() {
+    double[] values = new double[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      values[i] = random.nextInt(10) == 0 ? DoubleSeries.NULL : random.nextInt(20) - 10;
+    }
+    return DoubleSeries.buildFrom(values);
+  }
+
+  private LongSeries randomLongs() {
+    long[] values = new long[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      values[i] = random.nextInt(10) == 0 ? LongSeries.NULL : random.nextInt(20) - 10;
+    }
+    return LongSeries.buildFrom(values);
+  }
+
+  private BooleanSeries randomBooleans() {
+    byte[] values = new byte[SIZE];
+    for (int i = 0; i < SIZE; i++) {
+      values[i] = random.nextInt(10) == 0 ? BooleanSeries.NULL : (byte) random.nextInt(2);
+    }
+    return BooleanSeries.buildFrom(values);
+  }
+
+  @Test
+  public void testDoubleArithmetic() {
+    DoubleSeries a = randomDoubles();
+    DoubleSeries b = randomDoubles().replace(0.0d, 1.0d);
+
+    Assert.assertEquals(a.add(b),
+        DoubleSeries.map((DoubleFunction) v -> v[0] + v[1], a, b));
+    Assert.assertEquals(a.subtract(b),
+        DoubleSeries.map((DoubleFunction) v -> v[0] - v[1], a, b));
+    Assert.assertEquals(a.multiply(b),
+        DoubleSeries.map((DoubleFunction) v -> v[0] * v[1], a, b));
+    Assert.assertEquals(a.divide(b),
+        DoubleSeries.map((DoubleFunction) v -> v[0] / v[1], a, b));
+    Assert.assertEquals(a.add(3.5),
+        DoubleSeries.map((DoubleFunction) v -> v[0] + 3.5, a));
+    Assert.assertEquals(a.divide(-2),
+        DoubleSeries.map((DoubleFunction) v -> v[0] / -2, a));
+    // long input is converted, with its nulls
+    LongSeries l = randomLongs();
+    Assert.assertEquals(a.multiply(l),
+        DoubleSeries.map((DoubleFunction) v -> v[0] * v[1], a, l));
+  }
+
+  @Test
+  public void testDoubleComparison() {
+    DoubleSeries a = randomDoubles();
+    DoubleSeries b = randomDoubles();
+
+    Assert.assertEquals(a.eq(b),
+        DoubleSeries.map((DoubleConditional) v -> v[0] == v[1], a, b));
+    Assert.assertEquals(a.gt(b),
+        DoubleSeries.map((DoubleConditional) v -> v[0] > v[1], a, b));
+    Assert.assertEquals(a.gte(b),
+        DoubleSeries.map((DoubleConditional) v -> v[0] >= v[1], a, b));
+    Assert.assertEquals(a.lt(b),
+        DoubleSeries.map((DoubleConditional) v -> v[0] < v[1], a, b));
+    Assert.assertEquals(a.lte(b),
+        DoubleSeries.map((DoubleConditional) v -> v[0] <= v[1], a, b));
+    Assert.assertEquals(a.eq(2),
+        DoubleSeries.map((DoubleConditional) v -> v[0] == 2, a));
+    Assert.assertEquals(a.gt(2),
+        DoubleSeries.map((DoubleConditional) v -> v[0] > 2, a));
+    Assert.assertEquals(a.lte(-2),
+        DoubleSeries.map((DoubleConditional) v -> v[0] <= -2, a));
+  }
+
+  @Test
+  public void testDoubleAggregation() {
+    DoubleSeries a = randomDoubles();
+
+    Assert.assertEquals(a.sum(), a.aggregate(DoubleSeries.SUM));
+    Assert.assertEquals(a.product(), a.aggregate(DoubleSeries.PRODUCT));
+    Assert.assertEquals(a.min(), a.aggregate(DoubleSeries.MIN));
+    Assert.assertEquals(a.max(), a.aggregate(DoubleSeries.MAX));
+    Assert.assertEquals(a.mean(), a.aggregate(DoubleSeries.MEAN));
+    Assert.assertEquals(a.std(), a.aggregate(DoubleSeries.STD));
+
+    DoubleSeries nulls = DoubleSeries.nulls(3);
+    Assert.assertTrue(nulls.sum().isNull(0));
+    Assert.assertTrue(nulls.min().isNull(0));
+    Assert.assertTrue(DoubleSeries.buildFrom(1.0).std().isNull(0));
+  }
+
+  @Test
+  public void testLongArithmetic() {
+    LongSeries a = randomLongs();
+    LongSeries b = randomLongs().replace(0, 1);
+
+    Assert.assertEquals(a.add(b),
+        LongSeries.map((LongFunction) v -> v[0] + v[1], a, b));
+    Assert.assertEquals(a.subtract(b),
+        LongSeries.map((LongFunction) v -> v[0] - v[1], a, b));
+    Assert.assertEquals(a.multiply(b),
+        LongSeries.map((LongFunction) v -> v[0] * v[1], a, b));
+    Assert.assertEquals(a.divide(b),
+        LongSeries.map((LongFunction) v -> v[0] / v[1], a, b));
+    Assert.assertEquals(a.add(3),
+        LongSeries.map((LongFunction) v -> v[0] + 3, a));
+    Assert.assertEquals(a.divide(-2),
+        LongSeries.map((LongFunction) v -> v[0] / -2, a));
+    // null values are not divided
+    Assert.assertEquals(LongSeries.nulls(2).divide(0), LongSeries.nulls(2));
+  }
+
+  @Test(expectedExceptions = ArithmeticException.class)
+  public void testLongDivideByZero() {
+    LongSeries.buildFrom(1, LongSeries.NULL).divide(LongSeries.buildFrom(0, 1));
+  }
+
+  @Test
+  public void testLongComparison() {
+    LongSeries a = randomLongs();
+    LongSeries b = randomLongs();
+
+    Assert.assertEquals(a.eq(b),
+        LongSeries.map((LongConditional) v -> v[0] == v[1], a, b));
+    Assert.assertEquals(a.gt(b),
+        LongSeries.map((LongConditional) v -> v[0] > v[1], a, b));
+    Assert.assertEquals(a.gte(b),
+        LongSeries.map((LongConditional) v -> v[0] >= v[1], a, b));
+    Assert.assertEquals(a.lt(b),
+        LongSeries.map((LongConditional) v -> v[0] < v[1], a, b));
+    Assert.assertEquals(a.lte(b),
+        LongSeries.map((LongConditional) v -> v[0] <= v[1], a, b));
+    Assert.assertEquals(a.gte(0),
+        LongSeries.map((LongConditional) v -> v[0] >= 0, a));
+  }
+
+  @Test
+  public void testLongAggregation() {
+    LongSeries a = randomLongs();
+
+    Assert.assertEquals(a.sum(), a.aggregate(LongSeries.SUM));
+    Assert.assertEquals(a.product(), a.aggregate(LongSeries.PRODUCT));
+    Assert.assertEquals(a.min(), a.aggregate(LongSeries.MIN));
+    Assert.assertEquals(a.max(), a.aggregate(LongSeries.MAX));
+    Assert.assertEquals(a.mean(), a.aggregate(DoubleSeries.MEAN));
+    Assert.assertEquals(a.std(), a.aggregate(DoubleSeries.STD));
+
+    LongSeries nulls = LongSeries.nulls(3);
+    Assert.assertTrue(nulls.sum().isNull(0));
+    Assert.assertTrue(nulls.max().isNull(0));
+    Assert.assertTrue(nulls.mean().isNull(0));
+  }
+
+  @Test
+  public void testBooleanLogical() {
+    BooleanSeries a = randomBooleans();
+    BooleanSeries b = randomBooleans();
+
+    Assert.assertEquals(a.and(b),
+        BooleanSeries.map((BooleanFunction) v -> v[0] && v[1], a, b));
+    Assert.assertEquals(a.or(b),
+        BooleanSeries.map((BooleanFunction) v -> v[0] || v[1], a, b));
+    Assert.assertEquals(a.xor(b),
+        BooleanSeries.map((BooleanFunction) v -> v[0] ^ v[1], a, b));
+    Assert.assertEquals(a.implies(b),
+        BooleanSeries.map((BooleanFunction) v -> !v[0] || v[1], a, b));
+    Assert.assertEquals(a.eq(b),
+        BooleanSeries.map((BooleanFunction) v -> v[0] == v[1], a, b));
+    Assert.assertEquals(a.not(),
+        BooleanSeries.map((BooleanFunction) v -> !v[0], a));
+    Assert.assertEquals(a.and(true),
+        BooleanSeries.map((BooleanFunction) v -> v[0], a));
+    Assert.assertEquals(a.implies(false),
+        BooleanSeries.map((BooleanFunction) v -> !v[0], a));
+  }
+
+  @Test
+  public void testBooleanAggregation() {
+    BooleanSeries a = randomBooleans();
+
+    Assert.assertEquals(a.sum(), a.aggregate(LongSeries.SUM));
+    Assert.assertEquals(a.min(), a.aggregate(BooleanSeries.ALL_TRUE));
+    Assert.assertEquals(a.max(), a.aggregate(BooleanSeries.HAS_TRUE));
+
+    BooleanSeries nulls = BooleanSeries.nulls(3);
+    Assert.assertTrue(nulls.max().isNull(0));
+    Assert.assertFalse(nulls.allTrue());
+    Assert.assertFalse(nulls.hasTrue());
+    Assert.assertFalse(nulls.allFalse());
+    Assert.assertFalse(nulls.hasFalse());
+
+    BooleanSeries mixed = BooleanSeries.buildFrom(BooleanSeries.NULL, BooleanSeries.FALSE);
+    Assert.assertFalse(mixed.allTrue());
+    Assert.assertFalse(mixed.hasTrue());
+    Assert.assertTrue(mixed.allFalse());
+    Assert.assertTrue(mixed.hasFalse());
+  }
+}
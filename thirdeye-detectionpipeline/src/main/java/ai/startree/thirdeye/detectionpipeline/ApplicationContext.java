@@ -15,6 +15,8 @@ package ai.startree.thirdeye.detectionpipeline;
 
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.datasource.cache.IncrementalQueryCache;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.SqlEngineSessionPool;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import java.util.concurrent.ExecutorService;
@@ -29,6 +31,8 @@ public class ApplicationContext {
   private final ExecutorService subTaskExecutor;
   private final DetectionPipelineConfiguration configuration;
   private final EnumerationItemMaintainer enumerationItemMaintainer;
+  private final IncrementalQueryCache queryCache;
+  private final SqlEngineSessionPool sqlEngineSessionPool;
 
   public ApplicationContext(final DataSourceCache dataSourceCache,
       final DetectionRegistry detectionRegistry,
@@ -37,13 +41,17 @@ public class ApplicationContext {
       final DatasetConfigManager datasetConfigManager,
       final ExecutorService subTaskExecutor,
       final DetectionPipelineConfiguration detectionPipelineConfiguration,
-      final EnumerationItemMaintainer enumerationItemMaintainer) {
+      final EnumerationItemMaintainer enumerationItemMaintainer,
+      final IncrementalQueryCache queryCache,
+      final SqlEngineSessionPool sqlEngineSessionPool) {
     this.dataSourceCache = dataSourceCache;
     this.detectionRegistry = detectionRegistry;
     this.postProcessorRegistry = postProcessorRegistry;
     this.eventManager = eventManager;
     this.subTaskExecutor = subTaskExecutor;
     this.enumerationItemMaintainer = enumerationItemMaintainer;
+    this.queryCache = queryCache;
+    this.sqlEngineSessionPool = sqlEngineSessionPool;
     configuration = detectionPipelineConfiguration;
     this.datasetConfigManager = datasetConfigManager;
   }
@@ -79,4 +87,12 @@ public class ApplicationContext {
   public EnumerationItemMaintainer getEnumerationItemMaintainer() {
     return enumerationItemMaintainer;
   }
+
+  public IncrementalQueryCache getQueryCache() {
+    return queryCache;
+  }
+
+  public SqlEngineSessionPool getSqlEngineSessionPool() {
+    return sqlEngineSessionPool;
+  }
 }
@@ -16,6 +16,12 @@ package ai.startree.thirdeye.detectionpipeline;
 public class DetectionPipelineConfiguration {
 
   private ForkJoinConfiguration forkjoin = new ForkJoinConfiguration();
+  /**
+   * If true, independent plan nodes are run concurrently on the fork-join executor. The
+   * pipeline must complete within the forkjoin timeout.
+   * If false, plan nodes are run one after the other on the task thread.
+   */
+  private boolean parallelPlanExecution = false;
 
   public ForkJoinConfiguration getForkjoin() {
     return forkjoin;
@@ -26,4 +32,14 @@ public class DetectionPipelineConfiguration {
     this.forkjoin = forkjoin;
     return this;
   }
+
+  public boolean isParallelPlanExecution() {
+    return parallelPlanExecution;
+  }
+
+  public DetectionPipelineConfiguration setParallelPlanExecution(
+      final boolean parallelPlanExecution) {
+    this.parallelPlanExecution = parallelPlanExecution;
+    return this;
+  }
 }
@@ -21,12 +21,15 @@ import static java.util.Collections.emptyList;
 
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.datasource.cache.IncrementalQueryCache;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.SqlEngineSessionPool;
 import ai.startree.thirdeye.detectionpipeline.persistence.CachedDatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
 import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -51,6 +54,9 @@ public class PlanExecutor implements AutoCloseable {
   private final DatasetConfigManager datasetConfigManager;
   private final DetectionPipelineConfiguration detectionPipelineConfiguration;
   private final EnumerationItemMaintainer enumerationItemMaintainer;
+  private final IncrementalQueryCache queryCache;
+  private final SqlEngineSessionPool sqlEngineSessionPool;
+  private final MetricRegistry metricRegistry;
 
   private final ExecutorService subTaskExecutor;
 
@@ -62,7 +68,10 @@ public class PlanExecutor implements AutoCloseable {
       final EventManager eventManager,
       final DatasetConfigManager datasetConfigManager,
       final DetectionPipelineConfiguration detectionPipelineConfiguration,
-      final EnumerationItemMaintainer enumerationItemMaintainer) {
+      final EnumerationItemMaintainer enumerationItemMaintainer,
+      final IncrementalQueryCache queryCache,
+      final SqlEngineSessionPool sqlEngineSessionPool,
+      final MetricRegistry metricRegistry) {
     this.planNodeFactory = planNodeFactory;
     this.dataSourceCache = dataSourceCache;
     this.detectionRegistry = detectionRegistry;
@@ -71,6 +80,9 @@ public class PlanExecutor implements AutoCloseable {
     this.datasetConfigManager = datasetConfigManager;
     this.detectionPipelineConfiguration = detectionPipelineConfiguration;
     this.enumerationItemMaintainer = enumerationItemMaintainer;
+    this.queryCache = queryCache;
+    this.sqlEngineSessionPool = sqlEngineSessionPool;
+    this.metricRegistry = metricRegistry;
 
     final int nThreads = detectionPipelineConfiguration.getForkjoin().getParallelism();
     subTaskExecutor = Executors.newFixedThreadPool(nThreads, threadsNamed("fork-join-%d"));
@@ -131,7 +143,9 @@ public class PlanExecutor implements AutoCloseable {
         new CachedDatasetConfigManager(datasetConfigManager),
         subTaskExecutor,
         detectionPipelineConfiguration,
-        enumerationItemMaintainer);
+        enumerationItemMaintainer,
+        queryCache,
+        sqlEngineSessionPool);
   }
 
   /**
@@ -173,7 +187,15 @@ public class PlanExecutor implements AutoCloseable {
 
     /* Execute the DAG */
     final PlanNode rootNode = pipelinePlanNodes.get(ROOT_OPERATOR_KEY);
-    executePlanNode(pipelinePlanNodes, rootNode, resultMap);
+    if (detectionPipelineConfiguration.isParallelPlanExecution()) {
+      new PlanNodeScheduler(pipelinePlanNodes,
+          subTaskExecutor,
+          detectionPipelineConfiguration.getForkjoin().getTimeout(),
+          metricRegistry)
+          .execute(rootNode, resultMap);
+    } else {
+      executePlanNode(pipelinePlanNodes, rootNode, resultMap);
+    }
 
     return resultMap;
   }
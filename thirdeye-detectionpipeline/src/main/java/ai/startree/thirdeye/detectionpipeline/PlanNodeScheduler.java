@@ -0,0 +1,356 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import static ai.startree.thirdeye.detectionpipeline.PlanExecutor.key;
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Collections.emptyList;
+
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import com.codahale.metrics.MetricRegistry;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs the plan nodes of a pipeline DAG in topological order. Nodes whose inputs are ready run
+ * concurrently on the executor.
+ *
+ * The calling thread coordinates the run: it sets the inputs of the nodes, collects the outputs
+ * and runs submitted nodes that no executor thread has picked up after a short delay. So a run
+ * makes progress even when all the executor threads are busy. When the timeout is reached, the
+ * running nodes are interrupted - including a node run by the calling thread - and the run fails
+ * with a {@link TimeoutException}.
+ *
+ * The wall time of each node is recorded, and published in a timer per node type. The critical
+ * path - the chain of dependencies that determined the total run time - is logged at debug level.
+ */
+public class PlanNodeScheduler {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PlanNodeScheduler.class);
+  private static final long HELP_DELAY_MILLIS = 50;
+
+  private final Map<String, PlanNode> pipelinePlanNodes;
+  private final ExecutorService executorService;
+  private final Duration timeout;
+  private final MetricRegistry metricRegistry;
+
+  private final Map<String, NodeTiming> timings = new LinkedHashMap<>();
+
+  public PlanNodeScheduler(final Map<String, PlanNode> pipelinePlanNodes,
+      final ExecutorService executorService,
+      final Duration timeout,
+      final MetricRegistry metricRegistry) {
+    this.pipelinePlanNodes = pipelinePlanNodes;
+    this.executorService = executorService;
+    this.timeout = timeout;
+    this.metricRegistry = metricRegistry;
+  }
+
+  private static List<InputBean> inputsOf(final PlanNode node) {
+    return optional(node.getPlanNodeInputs()).orElse(emptyList());
+  }
+
+  /**
+   * Executes the node and all the nodes it depends on. Outputs are put in the resultMap.
+   * Nodes whose outputs are already in the resultMap are not run again.
+   */
+  public void execute(final PlanNode rootNode, final Map<ContextKey, OperatorResult> resultMap)
+      throws Exception {
+    final long startNanos = System.nanoTime();
+    final long deadlineNanos = startNanos + timeout.toNanos();
+    final Map<String, Set<String>> dependencies = collectDependencies(rootNode, resultMap);
+    final Map<String, List<String>> dependents = new HashMap<>();
+    final Map<String, Integer> remainingDependencies = new HashMap<>();
+    for (final Entry<String, Set<String>> e : dependencies.entrySet()) {
+      remainingDependencies.put(e.getKey(), e.getValue().size());
+      for (final String dependency : e.getValue()) {
+        dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(e.getKey());
+      }
+    }
+
+    final BlockingQueue<NodeTask> completed = new LinkedBlockingQueue<>();
+    final Deque<NodeTask> submitted = new ArrayDeque<>();
+    int running = 0;
+    for (final Entry<String, Integer> e : remainingDependencies.entrySet()) {
+      if (e.getValue() == 0) {
+        submitted.add(submit(e.getKey(), resultMap, completed));
+        running++;
+      }
+    }
+    try {
+      while (running > 0) {
+        NodeTask done = completed.poll(
+            Math.min(HELP_DELAY_MILLIS, remainingMillis(deadlineNanos)),
+            TimeUnit.MILLISECONDS);
+        if (done == null) {
+          // the executor is busy: run a node no executor thread has started yet
+          final NodeTask unclaimed = pollUnclaimed(submitted);
+          if (unclaimed != null) {
+            runUntil(unclaimed, deadlineNanos);
+            if (System.nanoTime() - deadlineNanos >= 0) {
+              throw timeoutException(submitted);
+            }
+            continue;
+          }
+          done = completed.poll(remainingMillis(deadlineNanos), TimeUnit.MILLISECONDS);
+          if (done == null) {
+            throw timeoutException(submitted);
+          }
+        }
+        running--;
+        submitted.remove(done);
+        metricRegistry.timer(MetricRegistry.name("planNodeTimer", done.node.getType()))
+            .update(done.timing.endNanos - done.timing.startNanos, TimeUnit.NANOSECONDS);
+        if (done.error != null) {
+          throw done.error;
+        }
+        timings.put(done.node.getName(), done.timing);
+        for (final Entry<String, OperatorResult> output : done.outputs.entrySet()) {
+          resultMap.put(key(done.node.getName(), output.getKey()), output.getValue());
+        }
+        for (final String dependent : dependents.getOrDefault(done.node.getName(), emptyList())) {
+          if (remainingDependencies.merge(dependent, -1, Integer::sum) == 0) {
+            submitted.add(submit(dependent, resultMap, completed));
+            running++;
+          }
+        }
+      }
+    } finally {
+      // interrupts the nodes still running when the run failed
+      for (final NodeTask task : submitted) {
+        task.cancel();
+      }
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Pipeline executed in {} ms. Critical path: {}",
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+          criticalPath(rootNode.getName(), dependencies));
+    }
+  }
+
+  /**
+   * Wall time of each node executed, in execution completion order.
+   */
+  public Map<String, NodeTiming> getTimings() {
+    return Collections.unmodifiableMap(timings);
+  }
+
+  /**
+   * Walks the DAG from the root node and returns the dependencies of each node to run.
+   */
+  private Map<String, Set<String>> collectDependencies(final PlanNode rootNode,
+      final Map<ContextKey, OperatorResult> resultMap) {
+    final Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+    final Set<String> visiting = new LinkedHashSet<>();
+    collectDependencies(rootNode, resultMap, dependencies, visiting);
+    return dependencies;
+  }
+
+  private void collectDependencies(final PlanNode node,
+      final Map<ContextKey, OperatorResult> resultMap,
+      final Map<String, Set<String>> dependencies,
+      final Set<String> visiting) {
+    if (dependencies.containsKey(node.getName())) {
+      return;
+    }
+    checkArgument(visiting.add(node.getName()),
+        "Cycle detected in the pipeline: %s -> %s. Template is invalid.",
+        String.join(" -> ", visiting),
+        node.getName());
+    final Set<String> nodeDependencies = new LinkedHashSet<>();
+    for (final InputBean input : inputsOf(node)) {
+      final ContextKey contextKey = key(input.getSourcePlanNode(), input.getSourceProperty());
+      if (resultMap.containsKey(contextKey)) {
+        continue;
+      }
+      final PlanNode inputPlanNode = pipelinePlanNodes.get(input.getSourcePlanNode());
+      checkArgument(inputPlanNode != null,
+          "sourcePlanNode \"%s\" found in \"%s\" node configuration does not exist. Template is invalid.",
+          input.getSourcePlanNode(),
+          node.getName());
+      collectDependencies(inputPlanNode, resultMap, dependencies, visiting);
+      nodeDependencies.add(inputPlanNode.getName());
+    }
+    visiting.remove(node.getName());
+    dependencies.put(node.getName(), nodeDependencies);
+  }
+
+  private NodeTask submit(final String nodeName,
+      final Map<ContextKey, OperatorResult> resultMap,
+      final BlockingQueue<NodeTask> completed) {
+    final PlanNode node = pipelinePlanNodes.get(nodeName);
+    // inputs are set by the coordinating thread: the resultMap is not shared
+    for (final InputBean input : inputsOf(node)) {
+      final ContextKey contextKey = key(input.getSourcePlanNode(), input.getSourceProperty());
+      if (!resultMap.containsKey(contextKey)) {
+        throw new RuntimeException("Missing resultMap key - " + contextKey);
+      }
+      node.setInput(input.getTargetProperty(), resultMap.get(contextKey));
+    }
+    final NodeTask task = new NodeTask(node, completed);
+    executorService.execute(task);
+    return task;
+  }
+
+  /**
+   * Runs the task in the calling thread. The task is interrupted if it is still running at the
+   * deadline.
+   */
+  private static void runUntil(final NodeTask task, final long deadlineNanos) {
+    CompletableFuture.delayedExecutor(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)
+        .execute(task::cancel);
+    task.run();
+    // the interruption is not meant for the next operations of the calling thread
+    if (System.nanoTime() - deadlineNanos >= 0) {
+      Thread.interrupted();
+    }
+  }
+
+  private static long remainingMillis(final long deadlineNanos) {
+    return Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+  }
+
+  private TimeoutException timeoutException(final Deque<NodeTask> submitted) {
+    return new TimeoutException(String.format(
+        "Pipeline execution did not complete in %s. Running nodes: %s",
+        timeout,
+        runningNodes(submitted)));
+  }
+
+  private static NodeTask pollUnclaimed(final Deque<NodeTask> submitted) {
+    for (final NodeTask task : submitted) {
+      if (!task.claimed.get()) {
+        return task;
+      }
+    }
+    return null;
+  }
+
+  private static List<String> runningNodes(final Deque<NodeTask> submitted) {
+    return submitted.stream().map(t -> t.node.getName()).collect(Collectors.toList());
+  }
+
+  private List<String> criticalPath(final String rootNodeName,
+      final Map<String, Set<String>> dependencies) {
+    final List<String> path = new ArrayList<>();
+    String current = rootNodeName;
+    while (current != null && timings.containsKey(current)) {
+      final NodeTiming timing = timings.get(current);
+      path.add(String.format("%s(%d ms)", current, timing.getWallTimeMillis()));
+      // the dependency that completed last delayed the start of the node
+      current = dependencies.getOrDefault(current, Set.of()).stream()
+          .filter(timings::containsKey)
+          .max((a, b) -> Long.compare(timings.get(a).endNanos, timings.get(b).endNanos))
+          .orElse(null);
+    }
+    Collections.reverse(path);
+    return path;
+  }
+
+  public static class NodeTiming {
+
+    private final long startNanos;
+    private final long endNanos;
+
+    private NodeTiming(final long startNanos, final long endNanos) {
+      this.startNanos = startNanos;
+      this.endNanos = endNanos;
+    }
+
+    public long getWallTimeMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(endNanos - startNanos);
+    }
+  }
+
+  /**
+   * Runs a node once, on the first thread that claims it.
+   */
+  private static class NodeTask implements Runnable {
+
+    private final PlanNode node;
+    private final BlockingQueue<NodeTask> completed;
+    private final AtomicBoolean claimed = new AtomicBoolean(false);
+
+    private Map<String, OperatorResult> outputs;
+    private Exception error;
+    private NodeTiming timing;
+    // guarded by this: the thread running the node, null before and after the run
+    private Thread runner;
+
+    private NodeTask(final PlanNode node, final BlockingQueue<NodeTask> completed) {
+      this.node = node;
+      this.completed = completed;
+    }
+
+    @Override
+    public void run() {
+      if (!claimed.compareAndSet(false, true)) {
+        return;
+      }
+      synchronized (this) {
+        runner = Thread.currentThread();
+      }
+      final long startNanos = System.nanoTime();
+      try {
+        final Operator operator = node.buildOperator();
+        operator.execute();
+        outputs = operator.getOutputs();
+      } catch (final Exception e) {
+        error = e;
+      } catch (final Error e) {
+        error = new RuntimeException(e);
+      } finally {
+        synchronized (this) {
+          runner = null;
+        }
+      }
+      timing = new NodeTiming(startNanos, System.nanoTime());
+      completed.add(this);
+    }
+
+    /**
+     * Prevents the node from running if no thread has started it yet, interrupts it otherwise.
+     */
+    private void cancel() {
+      claimed.set(true);
+      synchronized (this) {
+        if (runner != null) {
+          runner.interrupt();
+        }
+      }
+    }
+  }
+}
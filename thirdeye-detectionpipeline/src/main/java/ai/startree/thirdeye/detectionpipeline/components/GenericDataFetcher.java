@@ -16,6 +16,7 @@ package ai.startree.thirdeye.detectionpipeline.components;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
+import ai.startree.thirdeye.datasource.cache.IncrementalQueryCache;
 import ai.startree.thirdeye.datasource.calcite.QueryPredicate;
 import ai.startree.thirdeye.detectionpipeline.spec.DataFetcherSpec;
 import ai.startree.thirdeye.detectionpipeline.sql.filter.FilterEngine;
@@ -25,7 +26,6 @@ import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.datalayer.dto.DatasetConfigDTO;
 import ai.startree.thirdeye.spi.datasource.DataSourceRequest;
 import ai.startree.thirdeye.spi.datasource.ThirdEyeDataSource;
-import ai.startree.thirdeye.spi.datasource.macro.SqlExpressionBuilder;
 import ai.startree.thirdeye.spi.datasource.macro.SqlLanguage;
 import ai.startree.thirdeye.spi.detection.DataFetcher;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
@@ -51,6 +51,7 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   private ThirdEyeDataSource thirdEyeDataSource;
   private DatasetConfigDTO datasetConfigDTO;
   private List<QueryPredicate> timeseriesFilters = List.of();
+  private IncrementalQueryCache queryCache;
 
   public String getQuery() {
     return query;
@@ -75,6 +76,7 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   public void init(final DataFetcherSpec dataFetcherSpec) {
     this.query = dataFetcherSpec.getQuery();
     this.tableName = dataFetcherSpec.getTableName();
+    this.queryCache = dataFetcherSpec.getQueryCache();
     if (tableName != null) {
       final DatasetConfigManager datasetDao = Objects.requireNonNull(dataFetcherSpec.getDatasetDao());
       this.datasetConfigDTO = Objects.requireNonNull(datasetDao.findByDataset(dataFetcherSpec.getTableName()),
@@ -101,6 +103,13 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
   @Override
   public DataTable getDataTable(Interval detectionInterval) throws Exception {
     String queryWithFilters = injectFilters(query);
+    if (queryCache != null && macrosSupported()) {
+      // the cache re-uses the results of the immutable time range and only queries the tail
+      return queryCache.getDataTable(thirdEyeDataSource,
+          datasetConfigDTO,
+          detectionInterval,
+          interval -> applyMacros(interval, queryWithFilters));
+    }
     DataSourceRequest preparedRequest = applyMacros(detectionInterval, queryWithFilters);
     DataTable result = thirdEyeDataSource.fetchDataTable(preparedRequest);
     result.addProperties(preparedRequest.getProperties());
@@ -120,12 +129,9 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
 
   private DataSourceRequest applyMacros(final Interval detectionInterval,
       final String queryWithFilters) {
-    SqlLanguage sqlLanguage = thirdEyeDataSource.getSqlLanguage();
-    SqlExpressionBuilder sqlExpressionBuilder = thirdEyeDataSource.getSqlExpressionBuilder();
-    boolean macrosSupported = sqlLanguage != null && sqlExpressionBuilder != null;
-    if (macrosSupported) {
-      return new MacroEngine(sqlLanguage,
-          sqlExpressionBuilder,
+    if (macrosSupported()) {
+      return new MacroEngine(thirdEyeDataSource.getSqlLanguage(),
+          thirdEyeDataSource.getSqlExpressionBuilder(),
           detectionInterval,
           datasetConfigDTO,
           queryWithFilters).prepareRequest();
@@ -135,6 +141,11 @@ public class GenericDataFetcher implements DataFetcher<DataFetcherSpec> {
     return new DataSourceRequest(tableName, query, customOptions, ImmutableMap.of());
   }
 
+  private boolean macrosSupported() {
+    return thirdEyeDataSource.getSqlLanguage() != null
+        && thirdEyeDataSource.getSqlExpressionBuilder() != null;
+  }
+
   @VisibleForTesting
   protected QueryPredicate toQueryPredicate(final Predicate p) {
     // pre-condition: tableName is not null
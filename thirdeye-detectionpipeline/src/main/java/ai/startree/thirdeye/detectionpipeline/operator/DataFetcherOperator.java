@@ -18,6 +18,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.datasource.cache.IncrementalQueryCache;
 import ai.startree.thirdeye.detectionpipeline.ApplicationContext;
 import ai.startree.thirdeye.detectionpipeline.OperatorContext;
 import ai.startree.thirdeye.detectionpipeline.components.GenericDataFetcher;
@@ -57,12 +58,13 @@ public class DataFetcherOperator extends DetectionPipelineOperator {
     final Map<String, Object> params = optional(planNode.getParams()).map(TemplatableMap::valueMap)
         .orElse(null);
     final List<Predicate> predicates = optional(context.getPredicates()).orElse(List.of());
-    dataFetcher = createDataFetcher(params, dataSourceCache, datasetDao, predicates);
+    dataFetcher = createDataFetcher(params, dataSourceCache, datasetDao, predicates,
+        applicationContext.getQueryCache());
   }
 
   protected DataFetcher<DataFetcherSpec> createDataFetcher(final Map<String, Object> params,
       final DataSourceCache dataSourceCache, final DatasetConfigManager datasetDao,
-      final List<Predicate> predicates) {
+      final List<Predicate> predicates, final IncrementalQueryCache queryCache) {
     final Map<String, Object> componentSpec = getComponentSpec(params);
     final DataFetcherSpec spec = requireNonNull(
         AbstractSpec.fromProperties(componentSpec, DataFetcherSpec.class),
@@ -70,6 +72,7 @@ public class DataFetcherOperator extends DetectionPipelineOperator {
     spec.setDataSourceCache(dataSourceCache);
     spec.setDatasetDao(datasetDao);
     spec.setTimeseriesFilters(predicates);
+    spec.setQueryCache(queryCache);
 
     final GenericDataFetcher genericDataFetcher = new GenericDataFetcher();
     genericDataFetcher.init(spec);
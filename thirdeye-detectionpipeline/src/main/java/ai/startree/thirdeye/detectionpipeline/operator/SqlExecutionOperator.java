@@ -17,23 +17,24 @@ import static ai.startree.thirdeye.detectionpipeline.DetectionPipelineUtils.getD
 import static com.google.common.base.Preconditions.checkArgument;
 
 import ai.startree.thirdeye.detectionpipeline.OperatorContext;
-import ai.startree.thirdeye.detectionpipeline.operator.sql.DataTableToSqlAdapterFactory;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.SqlEngineSession;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.SqlEngineSessionPool;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.OutputBean;
-import ai.startree.thirdeye.spi.detection.v2.DataTable;
-import ai.startree.thirdeye.spi.detection.v2.DataTableToSqlAdapter;
 import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Runs SQL queries on the input DataTables. The SQL engine connection is taken from the
+ * {@link SqlEngineSessionPool} of the application: connections and prepared queries are reused
+ * between runs.
+ */
 public class SqlExecutionOperator extends DetectionPipelineOperator {
 
   private static final Logger LOG = LoggerFactory.getLogger(SqlExecutionOperator.class);
@@ -47,8 +48,14 @@ public class SqlExecutionOperator extends DetectionPipelineOperator {
   private static final String JDBC_CONNECTION_PARAMS = "jdbc.parameters";
   private static final String DEFAULT_SQL_ENGINE = "HYPERSQL";
 
+  private final SqlEngineSessionPool sessionPool;
   private final List<String> queries = new ArrayList<>();
-  private DataTableToSqlAdapter dataTableToSqlAdapter;
+  private final Map<String, String> jdbcParameters = new HashMap<>();
+  private String sqlEngine;
+
+  public SqlExecutionOperator(final SqlEngineSessionPool sessionPool) {
+    this.sessionPool = sessionPool;
+  }
 
   @Override
   public void init(final OperatorContext context) {
@@ -64,56 +71,33 @@ public class SqlExecutionOperator extends DetectionPipelineOperator {
           "Missing property '" + SQL_QUERIES + "' in SqlExecutionOperator");
     }
 
-    dataTableToSqlAdapter = DataTableToSqlAdapterFactory.create(planNode.getParams().valueMap()
-        .getOrDefault(SQL_ENGINE, DEFAULT_SQL_ENGINE).toString());
+    sqlEngine = planNode.getParams().valueMap()
+        .getOrDefault(SQL_ENGINE, DEFAULT_SQL_ENGINE).toString();
     if (planNode.getParams().containsKey(JDBC_CONNECTION_PARAMS)) {
-      dataTableToSqlAdapter.jdbcProperties()
-          .putAll((Map<String, String>) planNode.getParams().getValue(JDBC_CONNECTION_PARAMS));
+      jdbcParameters.putAll(
+          (Map<String, String>) planNode.getParams().getValue(JDBC_CONNECTION_PARAMS));
     }
   }
 
   @Override
   public final void execute() throws Exception {
-    Connection connection = getConnection();
-    initTables(connection);
-    runQueries(connection);
-    dataTableToSqlAdapter.tearDown(connection);
-  }
-
-  private Connection getConnection() throws ClassNotFoundException, SQLException {
-    try {
-      Class.forName(dataTableToSqlAdapter.jdbcDriverClassName());
-    } catch (final Exception e) {
-      LOG.error("ERROR: failed to load JDBC driver class {}.",
-          dataTableToSqlAdapter.jdbcDriverClassName(),
-          e);
-      throw e;
-    }
-    final Connection connection = DriverManager.getConnection(dataTableToSqlAdapter.jdbcConnection(),
-        dataTableToSqlAdapter.jdbcProperties());
-    LOG.debug("Successfully connected to JDBC connection: {} with driver class: {} ",
-        dataTableToSqlAdapter.jdbcConnection(),
-        dataTableToSqlAdapter.jdbcDriverClassName());
-
-    return connection;
-  }
-
-  private void initTables(final Connection connection) throws SQLException {
-    final Map<String, DataTable> datatables = getDataTableMap(inputMap);
+    final SqlEngineSession session = sessionPool.acquire(sqlEngine, jdbcParameters);
+    boolean failed = true;
     try {
-      dataTableToSqlAdapter.loadTables(connection, datatables);
-    } catch (final SQLException e) {
-      LOG.error("Failed to load tables");
-      throw e;
+      session.loadTables(getDataTableMap(inputMap));
+      runQueries(session);
+      failed = false;
+    } finally {
+      sessionPool.release(session, failed);
     }
   }
 
-  private void runQueries(final Connection connection) throws SQLException {
+  private void runQueries(final SqlEngineSession session) throws SQLException {
     int i = 0;
     for (final String query : queries) {
       try {
-        DataTable dataTable = runQuery(query, connection);
-        setOutput(Integer.toString(i++), dataTable);
+        final DataFrame dataFrame = session.executeQuery(query);
+        setOutput(Integer.toString(i++), SimpleDataTable.fromDataFrame(dataFrame));
       } catch (final SQLException e) {
         LOG.error("Got exceptions when executing SQL query: {}", query, e);
         throw e;
@@ -121,12 +105,6 @@ public class SqlExecutionOperator extends DetectionPipelineOperator {
     }
   }
 
-  private DataTable runQuery(final String query, final Connection connection) throws SQLException {
-    final Statement stmt = connection.createStatement();
-    final ResultSet resultSet = stmt.executeQuery(query);
-    return SimpleDataTable.fromDataFrame(DataFrame.fromResultSet(resultSet));
-  }
-
   @Override
   public String getOperatorName() {
     return "SqlExecutionOperator";
@@ -78,7 +78,10 @@ public class CalciteDataTableToSqlAdapter implements DataTableToSqlAdapter {
   }
 
   @Override
-  public void tearDown(final Connection connection) {
-    // nothing to do - GC should be enough
+  public void tearDown(final Connection connection) throws SQLException {
+    // the connection can be reused - do not keep a reference to the dataframes
+    connection.unwrap(CalciteConnection.class)
+        .getRootSchema()
+        .add(DATAFRAME_DATABASE, new DataFrameSchema(Map.of()));
   }
 }
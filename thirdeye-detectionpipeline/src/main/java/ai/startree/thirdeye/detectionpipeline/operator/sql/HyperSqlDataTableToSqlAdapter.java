@@ -13,31 +13,53 @@
  */
 package ai.startree.thirdeye.detectionpipeline.operator.sql;
 
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series;
 import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.DataTableToSqlAdapter;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Loads DataTables in an in-memory HyperSQL database.
+ *
+ * The database is shared by all connections, so each adapter creates its own schema. Tables are
+ * truncated on tearDown and kept if the next load has the same columns: the definitions do not
+ * change and HyperSQL does not need to recompile the prepared statements of the session.
+ */
 public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
 
+  private static final int INSERT_BATCH_SIZE = 10_000;
+  private static final String SCHEMA_PREFIX = "SQL_SESSION_";
+  private static final AtomicLong SCHEMA_COUNTER = new AtomicLong();
+
   private final Logger LOG = LoggerFactory.getLogger(getClass());
 
+  // table name to table creation statement
+  private final Map<String, String> tableDefinitions = new HashMap<>();
   private final List<String> insertedTable = new ArrayList<>();
 
   private final Properties properties = new Properties();
 
+  private String schemaName;
+
   @Override
   public String jdbcConnection() {
-    return "jdbc:hsqldb:mem";
+    // a named in-memory database - "jdbc:hsqldb:mem" without a name is a file database
+    return "jdbc:hsqldb:mem:sql_execution";
   }
 
   @Override
@@ -50,9 +72,21 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     return properties;
   }
 
+  @Override
+  public boolean supportsStatementReuse() {
+    return true;
+  }
+
   @Override
   public void loadTables(final Connection connection, final Map<String, DataTable> dataTables)
       throws SQLException {
+    createSchemaIfNotExists(connection);
+    // tables of previous loads must not be visible to the queries
+    for (final String tableName : new ArrayList<>(tableDefinitions.keySet())) {
+      if (!dataTables.containsKey(tableName)) {
+        destroyTable(connection, tableName);
+      }
+    }
     for (final Entry<String, DataTable> entry : dataTables.entrySet()) {
       insertInput(connection, entry.getKey(), entry.getValue());
       insertedTable.add(entry.getKey());
@@ -61,17 +95,38 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
 
   @Override
   public void tearDown(final Connection connection) throws SQLException {
-    // Destroy database
-    LOG.debug("trying to drop all the tables to clean up the environment.");
+    LOG.debug("trying to truncate all the tables to clean up the environment.");
     for (final String tableName : insertedTable) {
-      destroyTable(connection, tableName);
+      truncateTable(connection, tableName);
+    }
+    insertedTable.clear();
+  }
+
+  @Override
+  public void close(final Connection connection) throws SQLException {
+    insertedTable.clear();
+    tableDefinitions.clear();
+    if (schemaName != null) {
+      connection.prepareCall("DROP SCHEMA " + schemaName + " IF EXISTS CASCADE").execute();
+      schemaName = null;
+    }
+  }
+
+  private void createSchemaIfNotExists(final Connection c) throws SQLException {
+    if (schemaName != null) {
+      return;
     }
+    final String name = SCHEMA_PREFIX + SCHEMA_COUNTER.incrementAndGet();
+    c.prepareCall("CREATE SCHEMA " + name + " AUTHORIZATION DBA").execute();
+    c.prepareCall("SET SCHEMA " + name).execute();
+    schemaName = name;
   }
 
   private void destroyTable(final Connection c, final String tableName) throws SQLException {
     final String dropTableStatement = "DROP TABLE " + tableName + " IF EXISTS";
     try {
       c.prepareCall(dropTableStatement).execute();
+      tableDefinitions.remove(tableName);
     } catch (final SQLException e) {
       LOG.error("Failed to drop table: {} with sql: {}",
           tableName,
@@ -81,37 +136,107 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     }
   }
 
+  private void truncateTable(final Connection c, final String tableName) throws SQLException {
+    // AND COMMIT: hsqldb releases the rows at once instead of deleting them one by one
+    final String truncateTableStatement = "TRUNCATE TABLE " + tableName + " AND COMMIT";
+    try {
+      c.prepareCall(truncateTableStatement).execute();
+    } catch (final SQLException e) {
+      LOG.error("Failed to truncate table: {} with sql: {}",
+          tableName,
+          truncateTableStatement,
+          e);
+      throw e;
+    }
+  }
+
   private void insertInput(final Connection c, final String tableName,
       final DataTable dataTable) throws SQLException {
-    // Drop the table in case.
-    destroyTable(c, tableName);
-
     final DataFrame df = dataTable.getDataFrame();
-    // Create the table.
-    createTable(c, tableName, df);
+    final String tableCreationStatement = getTableCreationStatement(tableName,
+        df.getSeriesNames(),
+        df.getSeriesTypes());
+    if (!tableCreationStatement.equals(tableDefinitions.get(tableName))) {
+      // Drop the table in case.
+      destroyTable(c, tableName);
+      // Create the table.
+      createTable(c, tableName, tableCreationStatement);
+    }
 
     // Insert all rows into the table
-    for (int rowIdx = 0; rowIdx < df.size(); rowIdx++) {
-      final String insertionStatement = getRowInsertionStatement(tableName, rowIdx, df);
-      try {
-        c.prepareCall(insertionStatement).execute();
-      } catch (final SQLException e) {
-        LOG.error("Failed to insert row idx: {}, insertion sql: {}",
-            rowIdx,
-            insertionStatement,
-            e);
-        throw e;
+    insertRows(c, tableName, df);
+  }
+
+  /**
+   * Inserts the rows with a single parameterized statement, executed in batches. Values are bound
+   * with the type of their series.
+   */
+  private void insertRows(final Connection c, final String tableName, final DataFrame df)
+      throws SQLException {
+    final List<String> seriesNames = df.getSeriesNames();
+    if (df.size() == 0 || seriesNames.isEmpty()) {
+      return;
+    }
+    final String insertionStatement = getInsertionStatement(tableName, seriesNames.size());
+    final Series[] series = new Series[seriesNames.size()];
+    for (int colIdx = 0; colIdx < series.length; colIdx++) {
+      series[colIdx] = df.get(seriesNames.get(colIdx));
+    }
+    int rowIdx = 0;
+    try (final PreparedStatement statement = c.prepareStatement(insertionStatement)) {
+      for (; rowIdx < df.size(); rowIdx++) {
+        for (int colIdx = 0; colIdx < series.length; colIdx++) {
+          bindValue(statement, colIdx + 1, series[colIdx], rowIdx);
+        }
+        statement.addBatch();
+        if ((rowIdx + 1) % INSERT_BATCH_SIZE == 0) {
+          statement.executeBatch();
+        }
+      }
+      // hsqldb fails on an empty batch
+      if (df.size() % INSERT_BATCH_SIZE != 0) {
+        statement.executeBatch();
       }
+    } catch (final SQLException e) {
+      LOG.error("Failed to insert rows into table: {}. Last row idx: {}, insertion sql: {}",
+          tableName,
+          rowIdx,
+          insertionStatement,
+          e);
+      throw e;
     }
   }
 
-  private void createTable(final Connection c, final String tableName, final DataFrame dataFrame)
-      throws SQLException {
-    final String tableCreationStatement = getTableCreationStatement(tableName,
-        dataFrame.getSeriesNames(),
-        dataFrame.getSeriesTypes());
+  private static void bindValue(final PreparedStatement statement, final int parameterIndex,
+      final Series series, final int rowIdx) throws SQLException {
+    final SeriesType type = series.type();
+    if (series.isNull(rowIdx)) {
+      statement.setNull(parameterIndex, getSqlType(type));
+      return;
+    }
+    switch (type) {
+      case LONG:
+        statement.setLong(parameterIndex, series.getLong(rowIdx));
+        break;
+      case DOUBLE:
+        statement.setDouble(parameterIndex, series.getDouble(rowIdx));
+        break;
+      case BOOLEAN:
+        statement.setBoolean(parameterIndex, series.getBoolean(rowIdx) != BooleanSeries.FALSE);
+        break;
+      case STRING:
+        statement.setString(parameterIndex, series.getString(rowIdx));
+        break;
+      default:
+        statement.setObject(parameterIndex, series.getObject(rowIdx));
+    }
+  }
+
+  private void createTable(final Connection c, final String tableName,
+      final String tableCreationStatement) throws SQLException {
     try {
       c.prepareCall(tableCreationStatement).execute();
+      tableDefinitions.put(tableName, tableCreationStatement);
       LOG.debug("Trying to create table with sql: {}", tableCreationStatement);
     } catch (final SQLException e) {
       LOG.error("Failed to create table: {} with sql: {}",
@@ -122,25 +247,10 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
     }
   }
 
-  private String getRowInsertionStatement(final String tableName,
-      final int rowIdx,
-      final DataFrame dataFrame) {
-    final StringBuilder sb = new StringBuilder(
-        "INSERT INTO " + tableName + " VALUES (");
-    final List<String> seriesNames = dataFrame.getSeriesNames();
-    for (int colIdx = 0; colIdx < seriesNames.size(); colIdx++) {
-      final Object value = dataFrame.getObject(seriesNames.get(colIdx), rowIdx);
-
-      // If string, then wrap with quotes
-      final String quoteWith = value instanceof String ? "'" : "";
-      sb
-          .append(quoteWith)
-          .append(value)
-          .append(quoteWith);
-
-      if (colIdx < seriesNames.size() - 1) {
-        sb.append(", ");
-      }
+  private String getInsertionStatement(final String tableName, final int columnCount) {
+    final StringBuilder sb = new StringBuilder("INSERT INTO " + tableName + " VALUES (");
+    for (int colIdx = 0; colIdx < columnCount; colIdx++) {
+      sb.append(colIdx == 0 ? "?" : ", ?");
     }
     sb.append(")");
     return sb.toString();
@@ -175,4 +285,21 @@ public class HyperSqlDataTableToSqlAdapter implements DataTableToSqlAdapter {
         throw new IllegalArgumentException("Unknown type " + seriesType.name());
     }
   }
+
+  private static int getSqlType(final SeriesType seriesType) {
+    switch (seriesType) {
+      case LONG:
+        return Types.BIGINT;
+      case DOUBLE:
+        return Types.DOUBLE;
+      case STRING:
+        return Types.VARCHAR;
+      case BOOLEAN:
+        return Types.BOOLEAN;
+      case OBJECT:
+        return Types.VARBINARY;
+      default:
+        throw new IllegalArgumentException("Unknown type " + seriesType.name());
+    }
+  }
 }
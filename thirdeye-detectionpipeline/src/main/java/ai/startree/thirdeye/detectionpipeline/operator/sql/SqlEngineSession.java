@@ -0,0 +1,125 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator.sql;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.DataTableToSqlAdapter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A jdbc connection to a SQL engine, with the adapter that loads DataTables in it.
+ *
+ * A session runs the SQL of one operator at a time: tables are loaded, queries are run, then the
+ * tables are torn down and the session can be used again. If the adapter supports it, the
+ * prepared statements of the queries are kept between runs, so the same queries are not parsed
+ * and planned again. Not thread-safe.
+ */
+public class SqlEngineSession implements AutoCloseable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SqlEngineSession.class);
+  private static final int MAX_CACHED_STATEMENTS = 64;
+
+  private final DataTableToSqlAdapter adapter;
+  private final Connection connection;
+  private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+  private SqlEngineSession(final DataTableToSqlAdapter adapter, final Connection connection) {
+    this.adapter = adapter;
+    this.connection = connection;
+  }
+
+  public static SqlEngineSession open(final DataTableToSqlAdapter adapter)
+      throws ClassNotFoundException, SQLException {
+    try {
+      Class.forName(adapter.jdbcDriverClassName());
+    } catch (final ClassNotFoundException e) {
+      LOG.error("ERROR: failed to load JDBC driver class {}.", adapter.jdbcDriverClassName(), e);
+      throw e;
+    }
+    final Connection connection = DriverManager.getConnection(adapter.jdbcConnection(),
+        adapter.jdbcProperties());
+    LOG.debug("Successfully connected to JDBC connection: {} with driver class: {} ",
+        adapter.jdbcConnection(),
+        adapter.jdbcDriverClassName());
+    return new SqlEngineSession(adapter, connection);
+  }
+
+  public void loadTables(final Map<String, DataTable> dataTables) throws SQLException {
+    try {
+      adapter.loadTables(connection, dataTables);
+    } catch (final SQLException e) {
+      LOG.error("Failed to load tables");
+      throw e;
+    }
+  }
+
+  public DataFrame executeQuery(final String query) throws SQLException {
+    if (!adapter.supportsStatementReuse()) {
+      try (final Statement statement = connection.createStatement();
+          final ResultSet resultSet = statement.executeQuery(query)) {
+        return DataFrame.fromResultSet(resultSet);
+      }
+    }
+    try (final ResultSet resultSet = prepare(query).executeQuery()) {
+      return DataFrame.fromResultSet(resultSet);
+    }
+  }
+
+  private PreparedStatement prepare(final String query) throws SQLException {
+    PreparedStatement statement = statements.get(query);
+    if (statement == null) {
+      statement = connection.prepareStatement(query);
+      statements.put(query, statement);
+      if (statements.size() > MAX_CACHED_STATEMENTS) {
+        final PreparedStatement eldest = statements.values().iterator().next();
+        statements.values().remove(eldest);
+        eldest.close();
+      }
+    }
+    return statement;
+  }
+
+  public void tearDown() throws SQLException {
+    adapter.tearDown(connection);
+  }
+
+  @Override
+  public void close() {
+    try {
+      for (final PreparedStatement statement : statements.values()) {
+        statement.close();
+      }
+      statements.clear();
+      adapter.close(connection);
+    } catch (final SQLException e) {
+      LOG.warn("Failed to clean up SQL engine session {}", adapter.jdbcConnection(), e);
+    } finally {
+      try {
+        connection.close();
+      } catch (final SQLException e) {
+        LOG.warn("Failed to close jdbc connection {}", adapter.jdbcConnection(), e);
+      }
+    }
+  }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator.sql;
+
+import static ai.startree.thirdeye.spi.Constants.DEFAULT_LOCALE;
+
+import ai.startree.thirdeye.spi.detection.v2.DataTableToSqlAdapter;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.sql.SQLException;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps idle {@link SqlEngineSession}s per SQL engine and jdbc parameters, so that operator runs
+ * re-use connections and prepared queries.
+ *
+ * A session is used by one operator run at a time. On release, its tables are torn down and it
+ * is returned to the pool. At most {@link #MAX_IDLE_SESSIONS} idle sessions are kept per engine
+ * and parameters: the others are closed, so the number of open sessions follows the concurrency
+ * of SQL operators, not the number of threads. A session released after a failure is closed
+ * too.
+ *
+ * The pool does not lock: idle sessions are kept in a concurrent deque per engine and
+ * parameters. Idle sessions are closed with {@link #close()}, when the plan executor is closed.
+ */
+@Singleton
+public class SqlEngineSessionPool implements AutoCloseable {
+
+  @VisibleForTesting
+  static final int MAX_IDLE_SESSIONS = 4;
+
+  private final Map<SessionKey, IdleSessions> idle = new ConcurrentHashMap<>();
+  // identity: SqlEngineSession does not override equals
+  private final Map<SqlEngineSession, SessionKey> inUse = new ConcurrentHashMap<>();
+  private volatile boolean closed = false;
+
+  @Inject
+  public SqlEngineSessionPool() {
+  }
+
+  public SqlEngineSession acquire(final String sqlEngine,
+      final Map<String, String> jdbcParameters) throws ClassNotFoundException, SQLException {
+    final SessionKey key = new SessionKey(sqlEngine.toUpperCase(DEFAULT_LOCALE), jdbcParameters);
+    SqlEngineSession session = idleSessions(key).poll();
+    if (session == null) {
+      session = open(sqlEngine, jdbcParameters);
+    }
+    inUse.put(session, key);
+    return session;
+  }
+
+  /**
+   * Tears down the tables of the session and returns it to the pool.
+   *
+   * @param failed if true, the session is closed
+   */
+  public void release(final SqlEngineSession session, final boolean failed) {
+    final SessionKey key = inUse.remove(session);
+    if (key != null && !failed && !closed) {
+      try {
+        session.tearDown();
+        if (idleSessions(key).offer(session)) {
+          if (closed) {
+            // closed concurrently: the session may not have been seen by close
+            closeIdleSessions();
+          }
+          return;
+        }
+      } catch (final SQLException e) {
+        // fall through: the session is in an unknown state
+      }
+    }
+    session.close();
+  }
+
+  /**
+   * Closes the idle sessions. Sessions in use are closed when they are released.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    closeIdleSessions();
+  }
+
+  @VisibleForTesting
+  int idleSessionCount() {
+    return idle.values().stream().mapToInt(sessions -> sessions.size.get()).sum();
+  }
+
+  private IdleSessions idleSessions(final SessionKey key) {
+    return idle.computeIfAbsent(key, k -> new IdleSessions());
+  }
+
+  private void closeIdleSessions() {
+    for (final IdleSessions sessions : idle.values()) {
+      SqlEngineSession session;
+      while ((session = sessions.poll()) != null) {
+        session.close();
+      }
+    }
+  }
+
+  private static SqlEngineSession open(final String sqlEngine,
+      final Map<String, String> jdbcParameters) throws ClassNotFoundException, SQLException {
+    final DataTableToSqlAdapter adapter = DataTableToSqlAdapterFactory.create(sqlEngine);
+    adapter.jdbcProperties().putAll(jdbcParameters);
+    return SqlEngineSession.open(adapter);
+  }
+
+  /**
+   * Bounded stack of idle sessions: the most recently used session is reused first.
+   */
+  private static class IdleSessions {
+
+    private final Deque<SqlEngineSession> sessions = new ConcurrentLinkedDeque<>();
+    // the size of a ConcurrentLinkedDeque is not constant time
+    private final AtomicInteger size = new AtomicInteger();
+
+    private SqlEngineSession poll() {
+      final SqlEngineSession session = sessions.pollFirst();
+      if (session != null) {
+        size.decrementAndGet();
+      }
+      return session;
+    }
+
+    /**
+     * @return false if the maximum number of idle sessions is reached
+     */
+    private boolean offer(final SqlEngineSession session) {
+      if (size.incrementAndGet() > MAX_IDLE_SESSIONS) {
+        size.decrementAndGet();
+        return false;
+      }
+      sessions.addFirst(session);
+      return true;
+    }
+  }
+
+  private static class SessionKey {
+
+    private final String sqlEngine;
+    private final Map<String, String> jdbcParameters;
+
+    private SessionKey(final String sqlEngine, final Map<String, String> jdbcParameters) {
+      this.sqlEngine = sqlEngine;
+      this.jdbcParameters = new TreeMap<>(jdbcParameters);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      final SessionKey that = (SessionKey) o;
+      return sqlEngine.equals(that.sqlEngine) && jdbcParameters.equals(that.jdbcParameters);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(sqlEngine, jdbcParameters);
+    }
+  }
+}
@@ -18,11 +18,14 @@ import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import ai.startree.thirdeye.detectionpipeline.Operator;
 import ai.startree.thirdeye.detectionpipeline.PlanNodeContext;
 import ai.startree.thirdeye.detectionpipeline.operator.SqlExecutionOperator;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.SqlEngineSessionPool;
 import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
 import java.util.Map;
 
 public class SqlExecutionPlanNode extends DetectionPipelinePlanNode {
 
+  private SqlEngineSessionPool sessionPool = null;
+
   public SqlExecutionPlanNode() {
     super();
   }
@@ -30,6 +33,7 @@ public class SqlExecutionPlanNode extends DetectionPipelinePlanNode {
   @Override
   public void init(final PlanNodeContext planNodeContext) {
     super.init(planNodeContext);
+    sessionPool = planNodeContext.getApplicationContext().getSqlEngineSessionPool();
   }
 
   @Override
@@ -44,7 +48,7 @@ public class SqlExecutionPlanNode extends DetectionPipelinePlanNode {
 
   @Override
   public Operator buildOperator() throws Exception {
-    final SqlExecutionOperator sqlExecutionOperator = new SqlExecutionOperator();
+    final SqlExecutionOperator sqlExecutionOperator = new SqlExecutionOperator(sessionPool);
     sqlExecutionOperator.init(createOperatorContext()
         .setPlanNode(planNodeBean)
         .setInputsMap(inputsMap)
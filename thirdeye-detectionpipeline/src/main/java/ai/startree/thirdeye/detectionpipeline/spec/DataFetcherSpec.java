@@ -14,6 +14,7 @@
 package ai.startree.thirdeye.detectionpipeline.spec;
 
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
+import ai.startree.thirdeye.datasource.cache.IncrementalQueryCache;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
 import ai.startree.thirdeye.spi.detection.AbstractSpec;
@@ -51,6 +52,13 @@ public class DataFetcherSpec extends AbstractSpec {
    */
   private List<Predicate> timeseriesFilters;
 
+  /**
+   * Expected to be set during DataFetcherOperator init.
+   *
+   * Optional - if not set, queries are always run on the datasource.
+   */
+  private IncrementalQueryCache queryCache;
+
   public String getDataSource() {
     return dataSource;
   }
@@ -104,4 +112,13 @@ public class DataFetcherSpec extends AbstractSpec {
     this.timeseriesFilters = timeseriesFilters;
     return this;
   }
+
+  public IncrementalQueryCache getQueryCache() {
+    return queryCache;
+  }
+
+  public DataFetcherSpec setQueryCache(final IncrementalQueryCache queryCache) {
+    this.queryCache = queryCache;
+    return this;
+  }
 }
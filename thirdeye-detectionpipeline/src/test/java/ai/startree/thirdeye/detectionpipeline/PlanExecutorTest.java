@@ -22,6 +22,7 @@ import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
 import ai.startree.thirdeye.datasource.cache.DataSourceCache;
 import ai.startree.thirdeye.detectionpipeline.operator.EchoOperator;
 import ai.startree.thirdeye.detectionpipeline.operator.EchoOperator.EchoResult;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.SqlEngineSessionPool;
 import ai.startree.thirdeye.detectionpipeline.plan.EchoPlanNode;
 import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
 import ai.startree.thirdeye.spi.datalayer.bao.DatasetConfigManager;
@@ -31,6 +32,7 @@ import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
 import ai.startree.thirdeye.spi.detection.Enumerator;
 import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import com.codahale.metrics.MetricRegistry;
 import java.util.Collections;
 import java.util.HashMap;
 import org.joda.time.DateTimeZone;
@@ -64,7 +66,10 @@ public class PlanExecutorTest {
         eventManager,
         datasetConfigManager,
         new DetectionPipelineConfiguration(),
-        mock(EnumerationItemMaintainer.class));
+        mock(EnumerationItemMaintainer.class),
+        null,
+        new SqlEngineSessionPool(),
+        new MetricRegistry());
     enumerator = mock(Enumerator.class);
 
     when(detectionRegistry.buildEnumerator("default")).thenReturn(enumerator);
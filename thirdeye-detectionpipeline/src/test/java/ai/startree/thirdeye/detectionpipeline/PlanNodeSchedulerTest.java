@@ -0,0 +1,234 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline;
+
+import static ai.startree.thirdeye.detectionpipeline.PlanExecutor.key;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.detectionpipeline.operator.EchoOperator.EchoResult;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
+import com.codahale.metrics.MetricRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class PlanNodeSchedulerTest {
+
+  private static final String OUTPUT = "output";
+
+  private ExecutorService executorService;
+  private MetricRegistry metricRegistry;
+
+  @BeforeClass
+  public void setUp() {
+    executorService = Executors.newFixedThreadPool(4);
+    metricRegistry = new MetricRegistry();
+  }
+
+  @AfterClass(alwaysRun = true)
+  public void tearDown() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * A node that runs the given action and outputs its name.
+   */
+  private static PlanNode node(final String name,
+      final ThrowingRunnable action,
+      final String... sourceNodes) throws Exception {
+    final PlanNode node = mock(PlanNode.class);
+    final List<InputBean> inputs = Arrays.stream(sourceNodes)
+        .map(source -> new InputBean()
+            .setSourcePlanNode(source)
+            .setSourceProperty(OUTPUT)
+            .setTargetProperty(source))
+        .collect(Collectors.toList());
+    when(node.getName()).thenReturn(name);
+    when(node.getType()).thenReturn("Test");
+    when(node.getPlanNodeInputs()).thenReturn(inputs);
+    when(node.buildOperator()).thenAnswer(invocation -> {
+      final Operator operator = mock(Operator.class);
+      when(operator.getOutputs()).thenAnswer(i -> {
+        action.run();
+        return Map.of(OUTPUT, new EchoResult(name));
+      });
+      return operator;
+    });
+    return node;
+  }
+
+  private static Map<String, PlanNode> nodeMap(final PlanNode... nodes) {
+    final Map<String, PlanNode> map = new HashMap<>();
+    for (final PlanNode node : nodes) {
+      map.put(node.getName(), node);
+    }
+    return map;
+  }
+
+  @Test
+  public void testIndependentNodesRunConcurrently() throws Exception {
+    // current and baseline wait for each other: the run only completes if they run concurrently
+    final CountDownLatch bothStarted = new CountDownLatch(2);
+    final ThrowingRunnable waitForOther = () -> {
+      bothStarted.countDown();
+      assertThat(bothStarted.await(10, TimeUnit.SECONDS)).isTrue();
+    };
+    final PlanNode current = node("current", waitForOther);
+    final PlanNode baseline = node("baseline", waitForOther);
+    final PlanNode root = node("root", () -> {}, "current", "baseline");
+    final Map<ContextKey, OperatorResult> resultMap = new HashMap<>();
+
+    final PlanNodeScheduler scheduler = new PlanNodeScheduler(nodeMap(current, baseline, root),
+        executorService,
+        Duration.ofSeconds(30),
+        metricRegistry);
+    scheduler.execute(root, resultMap);
+
+    assertThat(resultMap).containsOnlyKeys(key("current", OUTPUT),
+        key("baseline", OUTPUT),
+        key("root", OUTPUT));
+    assertThat(scheduler.getTimings()).containsOnlyKeys("current", "baseline", "root");
+    assertThat(scheduler.getTimings().keySet()).last().isEqualTo("root");
+    assertThat(metricRegistry.timer("planNodeTimer.Test").getCount()).isGreaterThanOrEqualTo(3);
+  }
+
+  @Test
+  public void testCallingThreadRunsNodesWhenExecutorIsBusy() throws Exception {
+    final ExecutorService busyExecutor = Executors.newSingleThreadExecutor();
+    final CountDownLatch release = new CountDownLatch(1);
+    try {
+      busyExecutor.execute(() -> {
+        try {
+          release.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      final PlanNode a = node("a", () -> {});
+      final PlanNode root = node("root", () -> {}, "a");
+      final Map<ContextKey, OperatorResult> resultMap = new HashMap<>();
+
+      new PlanNodeScheduler(nodeMap(a, root), busyExecutor, Duration.ofSeconds(30),
+          metricRegistry)
+          .execute(root, resultMap);
+
+      assertThat(resultMap).containsKey(key("root", OUTPUT));
+    } finally {
+      release.countDown();
+      busyExecutor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testFailureIsPropagated() throws Exception {
+    final PlanNode failing = node("failing", () -> {
+      throw new IllegalStateException("query failed");
+    });
+    final PlanNode root = node("root", () -> {}, "failing");
+
+    assertThatThrownBy(() -> new PlanNodeScheduler(nodeMap(failing, root),
+        executorService,
+        Duration.ofSeconds(30),
+        metricRegistry).execute(root, new HashMap<>()))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessage("query failed");
+  }
+
+  @Test
+  public void testTimeout() throws Exception {
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    final PlanNode slow = node("slow", () -> awaitInterruption(interrupted));
+    final PlanNode root = node("root", () -> {}, "slow");
+
+    assertThatThrownBy(() -> new PlanNodeScheduler(nodeMap(slow, root),
+        executorService,
+        Duration.ofMillis(100),
+        metricRegistry).execute(root, new HashMap<>()))
+        .isInstanceOf(TimeoutException.class);
+    assertThat(interrupted.await(10, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  public void testTimeoutInterruptsNodeRunByCallingThread() throws Exception {
+    final ExecutorService busyExecutor = Executors.newSingleThreadExecutor();
+    final CountDownLatch release = new CountDownLatch(1);
+    try {
+      busyExecutor.execute(() -> {
+        try {
+          release.await();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      final CountDownLatch interrupted = new CountDownLatch(1);
+      final PlanNode slow = node("slow", () -> awaitInterruption(interrupted));
+      final PlanNode root = node("root", () -> {}, "slow");
+
+      final long start = System.nanoTime();
+      assertThatThrownBy(() -> new PlanNodeScheduler(nodeMap(slow, root),
+          busyExecutor,
+          Duration.ofMillis(200),
+          metricRegistry).execute(root, new HashMap<>()))
+          .isInstanceOf(TimeoutException.class);
+      assertThat(interrupted.getCount()).isEqualTo(0);
+      assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).isLessThan(10);
+      assertThat(Thread.currentThread().isInterrupted()).isFalse();
+    } finally {
+      release.countDown();
+      busyExecutor.shutdownNow();
+    }
+  }
+
+  private static void awaitInterruption(final CountDownLatch interrupted) {
+    try {
+      new CountDownLatch(1).await(10, TimeUnit.SECONDS);
+    } catch (final InterruptedException e) {
+      interrupted.countDown();
+    }
+  }
+
+  @Test
+  public void testCycleIsRejected() throws Exception {
+    final PlanNode a = node("a", () -> {}, "b");
+    final PlanNode b = node("b", () -> {}, "a");
+    final PlanNode root = node("root", () -> {}, "a");
+
+    assertThatThrownBy(() -> new PlanNodeScheduler(nodeMap(a, b, root),
+        executorService,
+        Duration.ofSeconds(30),
+        metricRegistry).execute(root, new HashMap<>()))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("Cycle detected");
+  }
+
+  private interface ThrowingRunnable {
+
+    void run() throws Exception;
+  }
+}
@@ -73,7 +73,9 @@ public class DataFetcherOperatorTest {
                 datasetDao,
                 mock(ExecutorService.class),
                 new DetectionPipelineConfiguration(),
-                mock(EnumerationItemMaintainer.class))
+                mock(EnumerationItemMaintainer.class),
+                null,
+                null)
     ));
   }
 
@@ -102,7 +102,9 @@ public class EventFetcherOperatorTest {
                 mock(DatasetConfigManager.class),
                 mock(ExecutorService.class),
                 new DetectionPipelineConfiguration(),
-                mock(EnumerationItemMaintainer.class))
+                mock(EnumerationItemMaintainer.class),
+                null,
+                null)
         ));
   }
 
@@ -89,7 +89,9 @@ public class PostProcessorOperatorTest {
                 mock(DatasetConfigManager.class),
                 mock(ExecutorService.class),
                 new DetectionPipelineConfiguration(),
-                mock(EnumerationItemMaintainer.class))));
+                mock(EnumerationItemMaintainer.class),
+                null,
+                null)));
   }
 
   @Test
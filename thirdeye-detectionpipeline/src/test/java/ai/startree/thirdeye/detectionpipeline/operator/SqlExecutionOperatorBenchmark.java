@@ -0,0 +1,216 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator;
+
+import ai.startree.thirdeye.detectionpipeline.OperatorContext;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.SqlEngineSessionPool;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
+import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs SqlExecutionOperator on a large input with the HyperSql and Calcite engines. For
+ * reference, also measures loading the input in HyperSql with one INSERT statement per row.
+ */
+public class SqlExecutionOperatorBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SqlExecutionOperatorBenchmark.class);
+
+  private static final int N_ROUNDS = 10;
+  private static final int N_ROWS = 50_000;
+  private static final int N_DIMENSION_VALUES = 100;
+
+  private static final String[] SERIES_NAMES = new String[]{"task", "min", "mid", "max", "outer",
+      "checksum", "samples"};
+  private static final String QUERY = "SELECT dim, COUNT(*) AS cnt, SUM(met) AS met "
+      + "FROM input_data GROUP BY dim ORDER BY dim";
+
+  private static final long SEED = System.nanoTime();
+
+  private final DataFrame input = generateInput(N_ROWS);
+  private final SqlEngineSessionPool sessionPool = new SqlEngineSessionPool();
+
+  private long tStart;
+  private long tStartOuter;
+  private List<Long> times = new ArrayList<>();
+  private long timeOuter;
+  private final DataFrame.Builder results = DataFrame.builder(SERIES_NAMES);
+
+  private void benchmarkSqlExecution(final String engine) throws Exception {
+    startTimerOuter();
+    long checksum = 0;
+
+    for (int r = 0; r < N_ROUNDS; r++) {
+      startTimer();
+      final DataFrame df = runSqlExecution(engine);
+      stopTimer();
+
+      checksum += checksum(df);
+    }
+
+    logResults("benchmarkSqlExecution" + engine, checksum);
+  }
+
+  private void benchmarkRowByRowInsert() throws Exception {
+    startTimerOuter();
+    long checksum = 0;
+
+    Class.forName("org.hsqldb.jdbc.JDBCDriver");
+    for (int r = 0; r < N_ROUNDS; r++) {
+      startTimer();
+      try (final Connection c = DriverManager.getConnection("jdbc:hsqldb:mem:benchmark")) {
+        c.prepareCall("DROP TABLE input_data IF EXISTS").execute();
+        c.prepareCall("CREATE TABLE input_data (ts BIGINT, dim VARCHAR(128), met DOUBLE)")
+            .execute();
+        for (int i = 0; i < input.size(); i++) {
+          c.prepareCall(String.format("INSERT INTO input_data VALUES (%s, '%s', %s)",
+              input.getLong("ts", i),
+              input.getString("dim", i),
+              input.getDouble("met", i))).execute();
+        }
+        c.prepareCall("DROP TABLE input_data IF EXISTS").execute();
+      }
+      stopTimer();
+
+      checksum += input.size();
+    }
+
+    logResults("benchmarkRowByRowInsert", checksum);
+  }
+
+  private DataFrame runSqlExecution(final String engine) throws Exception {
+    final DetectionPipelineOperator operator = new SqlExecutionOperator(sessionPool);
+    final PlanNodeBean planNodeBean = new PlanNodeBean().setName("root")
+        .setType("SqlExecution")
+        .setParams(TemplatableMap.fromValueMap(ImmutableMap.of(
+            "sql.engine", engine,
+            "sql.queries", ImmutableList.of(QUERY))))
+        .setInputs(ImmutableList.of(new InputBean().setTargetProperty("input_data")
+            .setSourceProperty("output")
+            .setSourcePlanNode("dataFetcher")))
+        .setOutputs(ImmutableList.of());
+    operator.init(new OperatorContext()
+        .setDetectionInterval(new Interval(0L, 1000L, DateTimeZone.UTC))
+        .setPlanNode(planNodeBean)
+        .setInputsMap(ImmutableMap.of("input_data", SimpleDataTable.fromDataFrame(input)))
+        .setProperties(ImmutableMap.of()));
+    operator.execute();
+    return ((DataTable) operator.getOutputs().get("0")).getDataFrame();
+  }
+
+  private void benchmarkAll() throws Exception {
+    benchmarkRowByRowInsert();
+    benchmarkSqlExecution("HyperSql");
+    benchmarkSqlExecution("Calcite");
+    sessionPool.close();
+  }
+
+  private void startTimer() {
+    this.tStart = System.nanoTime();
+  }
+
+  private void stopTimer() {
+    long tDelta = System.nanoTime() - this.tStart;
+    this.times.add(tDelta);
+  }
+
+  private void startTimerOuter() {
+    this.tStartOuter = System.nanoTime();
+  }
+
+  private void stopTimerOuter() {
+    this.timeOuter = System.nanoTime() - this.tStartOuter;
+  }
+
+  private void logResults(String name, long checksum) {
+    stopTimerOuter();
+    Collections.sort(this.times);
+    long tMid = this.times.get(this.times.size() / 2);
+    long tMin = Collections.min(this.times);
+    long tMax = Collections.max(this.times);
+    LOG.info("{}: min/mid/max = {}ms {}ms {}ms [all={}ms, chk={}, cnt={}]", name, tMin / 1000000,
+        tMid / 1000000, tMax / 1000000, timeOuter / 1000000, checksum % 1000, this.times.size());
+    this.results.append(name, tMin, tMid, tMax, this.timeOuter, checksum, this.times.size());
+
+    // reset timer stats
+    this.times = new ArrayList<>();
+  }
+
+  public static void main(String[] args) throws Exception {
+    LOG.info("Press Enter key to start.");
+    System.in.read();
+
+    LOG.info("Running SqlExecutionOperator benchmark ...");
+    SqlExecutionOperatorBenchmark b = new SqlExecutionOperatorBenchmark();
+    b.benchmarkAll();
+
+    Series.LongFunction toMillis = values -> values[0] / 1000000;
+
+    DataFrame df = b.results.build();
+    df.mapInPlace(toMillis, "min");
+    df.mapInPlace(toMillis, "mid");
+    df.mapInPlace(toMillis, "max");
+    df.mapInPlace(toMillis, "outer");
+    df.mapInPlace((Series.LongFunction) values -> values[0] % 1000, "checksum");
+
+    LOG.info("Summary:\n{}", df.toString(40, SERIES_NAMES));
+    LOG.info("done.");
+  }
+
+  private static long checksum(final DataFrame df) {
+    long bits = df.size();
+    for (final double v : df.getDoubles("met").values()) {
+      bits ^= Double.doubleToLongBits(v);
+    }
+    return bits;
+  }
+
+  private static DataFrame generateInput(final int n) {
+    final Random r = new Random();
+    r.setSeed(SEED);
+
+    final long[] ts = new long[n];
+    final String[] dim = new String[n];
+    final double[] met = new double[n];
+    final long start = 1_600_000_000_000L;
+    for (int i = 0; i < n; i++) {
+      ts[i] = start + i * 60_000L;
+      dim[i] = "value_" + r.nextInt(N_DIMENSION_VALUES);
+      met[i] = r.nextInt(1000);
+    }
+    return new DataFrame()
+        .addSeries("ts", LongSeries.buildFrom(ts))
+        .addSeries("dim", StringSeries.buildFrom(dim))
+        .addSeries("met", DoubleSeries.buildFrom(met));
+  }
+}
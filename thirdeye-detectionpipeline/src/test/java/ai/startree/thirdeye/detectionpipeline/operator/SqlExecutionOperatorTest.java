@@ -14,27 +14,41 @@
 package ai.startree.thirdeye.detectionpipeline.operator;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import ai.startree.thirdeye.detectionpipeline.OperatorContext;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.SqlEngineSessionPool;
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
 import ai.startree.thirdeye.spi.dataframe.DataFrame;
 import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
 import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
 import ai.startree.thirdeye.spi.datalayer.TemplatableMap;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.InputBean;
 import ai.startree.thirdeye.spi.datalayer.dto.PlanNodeBean.OutputBean;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.OperatorResult;
 import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
 public class SqlExecutionOperatorTest {
 
+  private static final SqlEngineSessionPool SESSION_POOL = new SqlEngineSessionPool();
+
+  @AfterClass(alwaysRun = true)
+  public void closeSessions() {
+    SESSION_POOL.close();
+  }
+
   @Test
   public void testSqlExecutionDefaultAdapter() throws Exception {
     testSqlExecution(new HashMap<>());
@@ -50,6 +64,114 @@ public class SqlExecutionOperatorTest {
     testSqlExecution(ImmutableMap.of("sql.engine", "Calcite"));
   }
 
+  @Test
+  public void testSqlExecutionHyperSQLAdapterWithStringsAndNulls() throws Exception {
+    final DetectionPipelineOperator sqlExecutionOperator = new SqlExecutionOperator(SESSION_POOL);
+    final PlanNodeBean planNodeBean = new PlanNodeBean().setName("root")
+        .setType("SqlExecution")
+        .setParams(TemplatableMap.fromValueMap(ImmutableMap.of(
+            "sql.engine", "HyperSql",
+            "sql.queries", ImmutableList.of("SELECT dim, met, flag FROM input_data ORDER BY ts"))))
+        .setInputs(ImmutableList.of(new InputBean().setTargetProperty("input_data")
+            .setSourceProperty("output")
+            .setSourcePlanNode("dataFetcher")))
+        .setOutputs(ImmutableList.of());
+    final OperatorContext context = new OperatorContext()
+        .setDetectionInterval(new Interval(0L, 1000L, DateTimeZone.UTC))
+        .setPlanNode(planNodeBean)
+        .setInputsMap(ImmutableMap.of("input_data",
+            SimpleDataTable.fromDataFrame(new DataFrame()
+                .addSeries("ts", LongSeries.buildFrom(1L, 2L))
+                .addSeries("dim", StringSeries.buildFrom("it's", null))
+                .addSeries("met", DoubleSeries.buildFrom(DoubleSeries.NULL, 0.5))
+                .addSeries("flag", BooleanSeries.buildFrom(BooleanSeries.TRUE,
+                    BooleanSeries.NULL)))))
+        .setProperties(ImmutableMap.of());
+    sqlExecutionOperator.init(context);
+    sqlExecutionOperator.execute();
+
+    final DataFrame dataFrame = ((DataTable) sqlExecutionOperator.getOutputs()
+        .get("0")).getDataFrame();
+    assertThat(dataFrame.size()).isEqualTo(2);
+    assertThat(dataFrame.getString("dim", 0)).isEqualTo("it's");
+    assertThat(dataFrame.isNull("dim", 1)).isTrue();
+    assertThat(dataFrame.isNull("met", 0)).isTrue();
+    assertThat(dataFrame.getDouble("met", 1)).isEqualTo(0.5);
+    assertThat(dataFrame.getBoolean("flag", 0)).isEqualTo(BooleanSeries.TRUE);
+    assertThat(dataFrame.isNull("flag", 1)).isTrue();
+  }
+
+  @Test
+  public void testSqlExecutionHyperSQLAdapterWithMultipleBatches() throws Exception {
+    // a multiple of the insert batch size: the last batch is full
+    final int size = 20_000;
+    final long[] ts = new long[size];
+    for (int i = 0; i < size; i++) {
+      ts[i] = i;
+    }
+    final DetectionPipelineOperator sqlExecutionOperator = new SqlExecutionOperator(SESSION_POOL);
+    final PlanNodeBean planNodeBean = new PlanNodeBean().setName("root")
+        .setType("SqlExecution")
+        .setParams(TemplatableMap.fromValueMap(ImmutableMap.of(
+            "sql.engine", "HyperSql",
+            "sql.queries", ImmutableList.of("SELECT COUNT(*) AS cnt, SUM(ts) AS total FROM data"))))
+        .setInputs(ImmutableList.of(new InputBean().setTargetProperty("data")
+            .setSourceProperty("output")
+            .setSourcePlanNode("dataFetcher")))
+        .setOutputs(ImmutableList.of());
+    sqlExecutionOperator.init(new OperatorContext()
+        .setDetectionInterval(new Interval(0L, 1000L, DateTimeZone.UTC))
+        .setPlanNode(planNodeBean)
+        .setInputsMap(ImmutableMap.of("data", SimpleDataTable.fromDataFrame(new DataFrame()
+            .addSeries("ts", LongSeries.buildFrom(ts)))))
+        .setProperties(ImmutableMap.of()));
+    sqlExecutionOperator.execute();
+
+    final DataFrame dataFrame = ((DataTable) sqlExecutionOperator.getOutputs()
+        .get("0")).getDataFrame();
+    assertThat(dataFrame.getLong("cnt", 0)).isEqualTo(size);
+    assertThat(dataFrame.getLong("total", 0)).isEqualTo((long) size * (size - 1) / 2);
+  }
+
+  @Test
+  public void testSqlExecutionHyperSQLAdapterReusesSessionBetweenRuns() throws Exception {
+    final String query = "SELECT COUNT(*) AS cnt FROM data";
+    final DataFrame longs = new DataFrame().addSeries("val", LongSeries.buildFrom(1L, 2L));
+    assertThat(runQuery(query, ImmutableMap.of("data", longs)).getLong("cnt", 0)).isEqualTo(2);
+    // same table, data of the previous run is not visible
+    assertThat(runQuery(query, ImmutableMap.of("data", longs.head(1))).getLong("cnt", 0))
+        .isEqualTo(1);
+    // same table with different columns
+    final DataFrame strings = new DataFrame().addSeries("val", StringSeries.buildFrom("a", "b",
+        "c"));
+    assertThat(runQuery("SELECT MAX(val) AS val FROM data", ImmutableMap.of("data", strings))
+        .getString("val", 0)).isEqualTo("c");
+    // tables of previous runs are not visible
+    assertThatThrownBy(() -> runQuery(query, ImmutableMap.of("other", longs)))
+        .isInstanceOf(SQLException.class);
+    assertThat(runQuery(query, ImmutableMap.of("data", longs)).getLong("cnt", 0)).isEqualTo(2);
+  }
+
+  private static DataFrame runQuery(final String query, final Map<String, DataFrame> inputs)
+      throws Exception {
+    final DetectionPipelineOperator sqlExecutionOperator = new SqlExecutionOperator(SESSION_POOL);
+    final PlanNodeBean planNodeBean = new PlanNodeBean().setName("root")
+        .setType("SqlExecution")
+        .setParams(TemplatableMap.fromValueMap(ImmutableMap.of(
+            "sql.engine", "HyperSql",
+            "sql.queries", ImmutableList.of(query))))
+        .setOutputs(ImmutableList.of());
+    final Map<String, OperatorResult> inputsMap = new HashMap<>();
+    inputs.forEach((name, df) -> inputsMap.put(name, SimpleDataTable.fromDataFrame(df)));
+    sqlExecutionOperator.init(new OperatorContext()
+        .setDetectionInterval(new Interval(0L, 1000L, DateTimeZone.UTC))
+        .setPlanNode(planNodeBean)
+        .setInputsMap(inputsMap)
+        .setProperties(ImmutableMap.of()));
+    sqlExecutionOperator.execute();
+    return ((DataTable) sqlExecutionOperator.getOutputs().get("0")).getDataFrame();
+  }
+
   private void testSqlExecution(Map<String, Object> customParams) throws Exception {
     Map<String, Object> params = new HashMap<>();
     params.put("sql.queries",
@@ -59,7 +181,7 @@ public class SqlExecutionOperatorTest {
     // put custom params
     params.putAll(customParams);
 
-    final DetectionPipelineOperator sqlExecutionOperator = new SqlExecutionOperator();
+    final DetectionPipelineOperator sqlExecutionOperator = new SqlExecutionOperator(SESSION_POOL);
     final PlanNodeBean planNodeBean = new PlanNodeBean().setName("root")
         .setType("SqlExecution")
         .setParams(TemplatableMap.fromValueMap(params))
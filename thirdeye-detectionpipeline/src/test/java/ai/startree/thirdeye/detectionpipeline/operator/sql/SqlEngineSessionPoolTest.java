@@ -0,0 +1,125 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.detectionpipeline.operator.sql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SqlEngineSessionPoolTest {
+
+  private static final String HYPERSQL = "HYPERSQL";
+  private static final Map<String, DataTable> TABLES = Map.of("data",
+      SimpleDataTable.fromDataFrame(new DataFrame().addSeries("val", LongSeries.buildFrom(1L))));
+
+  private static int sessionSchemaCount() throws SQLException {
+    try (final Connection connection = DriverManager.getConnection(
+        "jdbc:hsqldb:mem:sql_execution");
+        final Statement statement = connection.createStatement();
+        final ResultSet resultSet = statement.executeQuery(
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.SCHEMATA "
+                + "WHERE SCHEMA_NAME LIKE 'SQL_SESSION_%'")) {
+      resultSet.next();
+      return resultSet.getInt(1);
+    }
+  }
+
+  private SqlEngineSessionPool pool;
+
+  @BeforeMethod
+  public void createPool() {
+    pool = new SqlEngineSessionPool();
+  }
+
+  @AfterMethod
+  public void closeSessions() {
+    pool.close();
+  }
+
+  @Test
+  public void testSessionIsReused() throws Exception {
+    final SqlEngineSession session = pool.acquire(HYPERSQL, Map.of());
+    session.loadTables(TABLES);
+    pool.release(session, false);
+
+    assertThat(pool.acquire("HyperSql", Map.of())).isSameAs(session);
+    // in use: a new session is opened
+    final SqlEngineSession other = pool.acquire(HYPERSQL, Map.of());
+    assertThat(other).isNotSameAs(session);
+    pool.release(session, false);
+    pool.release(other, false);
+  }
+
+  @Test
+  public void testIdleSessionsAreBounded() throws Exception {
+    final List<SqlEngineSession> sessions = new ArrayList<>();
+    for (int i = 0; i < SqlEngineSessionPool.MAX_IDLE_SESSIONS + 2; i++) {
+      final SqlEngineSession session = pool.acquire(HYPERSQL, Map.of());
+      session.loadTables(TABLES);
+      sessions.add(session);
+    }
+    assertThat(sessionSchemaCount()).isEqualTo(SqlEngineSessionPool.MAX_IDLE_SESSIONS + 2);
+
+    sessions.forEach(s -> pool.release(s, false));
+
+    // sessions over the bound are closed and their schemas dropped
+    assertThat(pool.idleSessionCount())
+        .isEqualTo(SqlEngineSessionPool.MAX_IDLE_SESSIONS);
+    assertThat(sessionSchemaCount()).isEqualTo(SqlEngineSessionPool.MAX_IDLE_SESSIONS);
+  }
+
+  @Test
+  public void testCloseSessionsDropsSchemas() throws Exception {
+    final SqlEngineSession idle = pool.acquire(HYPERSQL, Map.of());
+    final SqlEngineSession inUse = pool.acquire(HYPERSQL, Map.of());
+    idle.loadTables(TABLES);
+    inUse.loadTables(TABLES);
+    pool.release(idle, false);
+    assertThat(sessionSchemaCount()).isEqualTo(2);
+
+    pool.close();
+    assertThat(pool.idleSessionCount()).isEqualTo(0);
+    assertThat(sessionSchemaCount()).isEqualTo(1);
+
+    // a session in use when the pool is closed is closed on release
+    pool.release(inUse, false);
+    assertThat(pool.idleSessionCount()).isEqualTo(0);
+    assertThat(sessionSchemaCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void testFailedSessionIsClosed() throws Exception {
+    final SqlEngineSession session = pool.acquire(HYPERSQL, Map.of());
+    session.loadTables(TABLES);
+    pool.release(session, true);
+
+    assertThat(pool.idleSessionCount()).isEqualTo(0);
+    assertThat(sessionSchemaCount()).isEqualTo(0);
+    assertThat(pool.acquire(HYPERSQL, Map.of())).isNotSameAs(session);
+  }
+}
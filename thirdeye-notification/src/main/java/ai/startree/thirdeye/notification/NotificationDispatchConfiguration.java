@@ -0,0 +1,93 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.notification;
+
+import java.time.Duration;
+
+/**
+ * Controls how a subscription group is fanned out to its notification services.
+ */
+public class NotificationDispatchConfiguration {
+
+  /**
+   * Maximum number of notification services called concurrently.
+   */
+  private int threads = 8;
+
+  /**
+   * Maximum duration of a single call to a notification service.
+   */
+  private Duration timeout = Duration.ofMinutes(1);
+
+  /**
+   * Number of times a failed call is retried, if the failure is safe to retry: see
+   * NotificationService#isRetryable. Timed out calls are not retried.
+   */
+  private int maxRetries = 2;
+
+  /**
+   * Delay before the first retry. The delay is doubled for each following retry.
+   */
+  private Duration retryBackoff = Duration.ofSeconds(1);
+
+  /**
+   * Maximum duration of a dispatch: calls waiting for a thread, calls, retries and their backoff.
+   */
+  private Duration dispatchTimeout = Duration.ofMinutes(5);
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public NotificationDispatchConfiguration setThreads(final int threads) {
+    this.threads = threads;
+    return this;
+  }
+
+  public Duration getTimeout() {
+    return timeout;
+  }
+
+  public NotificationDispatchConfiguration setTimeout(final Duration timeout) {
+    this.timeout = timeout;
+    return this;
+  }
+
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  public NotificationDispatchConfiguration setMaxRetries(final int maxRetries) {
+    this.maxRetries = maxRetries;
+    return this;
+  }
+
+  public Duration getRetryBackoff() {
+    return retryBackoff;
+  }
+
+  public NotificationDispatchConfiguration setRetryBackoff(final Duration retryBackoff) {
+    this.retryBackoff = retryBackoff;
+    return this;
+  }
+
+  public Duration getDispatchTimeout() {
+    return dispatchTimeout;
+  }
+
+  public NotificationDispatchConfiguration setDispatchTimeout(final Duration dispatchTimeout) {
+    this.dispatchTimeout = dispatchTimeout;
+    return this;
+  }
+}
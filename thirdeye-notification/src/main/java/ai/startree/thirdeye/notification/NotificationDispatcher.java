@@ -13,7 +13,10 @@
  */
 package ai.startree.thirdeye.notification;
 
+import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.shutdownExecutionService;
+import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.threadsNamed;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static java.util.stream.Collectors.toList;
 
 import ai.startree.thirdeye.spi.api.NotificationPayloadApi;
 import ai.startree.thirdeye.spi.datalayer.dto.NotificationSpecDTO;
@@ -26,45 +29,213 @@ import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * Fans a notification payload out to all the notification services of a subscription group.
+ * Services are called concurrently on a bounded pool. Each call is subject to a timeout and the
+ * whole dispatch, including the time calls wait for a thread, to the dispatch timeout.
+ * Failed calls are retried with an exponential backoff, only if the service reports the failure
+ * as safe to retry, see {@link NotificationService#isRetryable(Exception)}. A timed out call may
+ * already have been sent: it is not retried. The dispatch fails if any service still fails.
+ */
 @Singleton
 public class NotificationDispatcher {
 
+  private static final Logger LOG = LoggerFactory.getLogger(NotificationDispatcher.class);
+
   private final NotificationServiceRegistry notificationServiceRegistry;
   private final NotificationSchemesMigrator notificationSchemesMigrator;
+  private final ExecutorService executorService;
+  private final long timeoutMillis;
+  private final int maxRetries;
+  private final long retryBackoffMillis;
+  private final long dispatchTimeoutMillis;
   private final Counter notificationDispatchCounter;
   private final Counter notificationDispatchSuccessCounter;
   private final Counter notificationDispatchExceptionCounter;
+  private final Counter notificationDispatchTimeoutCounter;
+  private final Counter notificationDispatchRetryCounter;
   private final Histogram notificationDispatchDuration;
 
   @Inject
   public NotificationDispatcher(
       final NotificationServiceRegistry notificationServiceRegistry,
       final NotificationSchemesMigrator notificationSchemesMigrator,
+      final NotificationConfiguration notificationConfiguration,
       final MetricRegistry metricRegistry) {
     this.notificationServiceRegistry = notificationServiceRegistry;
     this.notificationSchemesMigrator = notificationSchemesMigrator;
 
+    final NotificationDispatchConfiguration config = optional(
+        notificationConfiguration.getDispatch())
+        .orElseGet(NotificationDispatchConfiguration::new);
+    this.executorService = Executors.newFixedThreadPool(config.getThreads(),
+        threadsNamed("notification-dispatcher-%d"));
+    this.timeoutMillis = config.getTimeout().toMillis();
+    this.maxRetries = config.getMaxRetries();
+    this.retryBackoffMillis = config.getRetryBackoff().toMillis();
+    this.dispatchTimeoutMillis = config.getDispatchTimeout().toMillis();
+
     this.notificationDispatchCounter = metricRegistry.counter("notificationDispatchCounter");
     this.notificationDispatchSuccessCounter = metricRegistry.counter(
         "notificationDispatchSuccessCounter");
     this.notificationDispatchExceptionCounter = metricRegistry.counter(
         "notificationDispatchExceptionCounter");
+    this.notificationDispatchTimeoutCounter = metricRegistry.counter(
+        "notificationDispatchTimeoutCounter");
+    this.notificationDispatchRetryCounter = metricRegistry.counter(
+        "notificationDispatchRetryCounter");
     this.notificationDispatchDuration = metricRegistry.histogram(
         "notificationDispatchDuration");
   }
 
   public void dispatch(final SubscriptionGroupDTO subscriptionGroup,
       final NotificationPayloadApi payload) {
-    optional(subscriptionGroup.getSpecs())
+    final List<NotificationService> services = optional(subscriptionGroup.getSpecs())
         .orElseGet(() -> notificationSchemesMigrator.getSpecsFromNotificationSchemes(
             subscriptionGroup))
         .stream()
         .map(this::substituteEnvironmentVariables)
         .map(this::getNotificationService)
-        .forEach(service -> notifyService(service, payload));
+        .collect(toList());
+
+    final long deadline = System.currentTimeMillis() + dispatchTimeoutMillis;
+    final List<Exception> failures = new ArrayList<>();
+    List<Call> retryable = new ArrayList<>();
+    List<NotificationService> pending = services;
+    for (int attempt = 0; !pending.isEmpty(); attempt++) {
+      if (attempt > 0) {
+        if (attempt > maxRetries || !backoff(attempt, deadline)) {
+          break;
+        }
+        LOG.warn("Retrying {} notification service(s) for subscription group {}. attempt: {}",
+            pending.size(), subscriptionGroup.getId(), attempt);
+        notificationDispatchRetryCounter.inc(pending.size());
+      }
+      final List<Call> calls = pending.stream()
+          .map(service -> submit(service, payload))
+          .collect(toList());
+
+      retryable = new ArrayList<>();
+      for (final Call call : calls) {
+        await(call, deadline);
+        if (call.failure != null) {
+          LOG.warn("Notification service {} failed for subscription group {}. retryable: {}",
+              call.service.getClass().getSimpleName(), subscriptionGroup.getId(),
+              call.retryable, call.failure);
+          if (call.retryable) {
+            retryable.add(call);
+          } else {
+            failures.add(call.failure);
+          }
+        }
+      }
+      pending = retryable.stream().map(call -> call.service).collect(toList());
+    }
+    retryable.forEach(call -> failures.add(call.failure));
+    if (!failures.isEmpty()) {
+      throw asRuntimeException(failures);
+    }
+  }
+
+  /**
+   * Waits before a retry. The delay doubles with each attempt.
+   *
+   * @return false if the retry would end after the dispatch deadline or the thread is interrupted
+   */
+  private boolean backoff(final int attempt, final long deadline) {
+    final long delayMillis = retryBackoffMillis << Math.min(attempt - 1, 20);
+    if (Thread.currentThread().isInterrupted()
+        || System.currentTimeMillis() + delayMillis >= deadline) {
+      return false;
+    }
+    try {
+      Thread.sleep(delayMillis);
+      return true;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private Call submit(final NotificationService service, final NotificationPayloadApi payload) {
+    final Call call = new Call(service);
+    call.future = executorService.submit(() -> {
+      if (call.start()) {
+        notifyService(service, payload);
+      }
+    });
+    return call;
+  }
+
+  /**
+   * Waits for a call to complete and records its failure in the call. The call timeout counts
+   * from the moment the call starts running so that calls queued behind a busy pool are not
+   * penalized, but no call is waited for after the dispatch deadline. A call still queued at the
+   * deadline is abandoned: it is never sent.
+   */
+  private void await(final Call call, final long deadline) {
+    try {
+      while (true) {
+        final long startTime = call.startTime.get();
+        // a queued call is polled so that its timeout applies soon after it starts
+        final long waitUntil = Math.min(
+            (startTime > 0 ? startTime : System.currentTimeMillis()) + timeoutMillis,
+            deadline);
+        try {
+          call.future.get(Math.max(waitUntil - System.currentTimeMillis(), 0),
+              TimeUnit.MILLISECONDS);
+          return;
+        } catch (final TimeoutException e) {
+          final long now = System.currentTimeMillis();
+          if (call.startTime.get() == 0 && now < deadline) {
+            continue;
+          }
+          if (call.abandon()) {
+            call.future.cancel(false);
+            notificationDispatchTimeoutCounter.inc();
+            call.fail(e, false);
+            return;
+          }
+          if (now >= deadline || now >= call.startTime.get() + timeoutMillis) {
+            call.future.cancel(true);
+            notificationDispatchTimeoutCounter.inc();
+            call.fail(e, false);
+            return;
+          }
+        }
+      }
+    } catch (final ExecutionException e) {
+      final Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+      call.fail(cause, call.service.isRetryable(cause));
+    } catch (final InterruptedException e) {
+      call.abandon();
+      call.future.cancel(true);
+      Thread.currentThread().interrupt();
+      call.fail(e, false);
+    }
+  }
+
+  private static RuntimeException asRuntimeException(final List<Exception> failures) {
+    final Exception first = failures.get(0);
+    final RuntimeException exception = first instanceof RuntimeException
+        ? (RuntimeException) first
+        : new RuntimeException("Notification dispatch failed", first);
+    failures.stream().skip(1).forEach(exception::addSuppressed);
+    return exception;
   }
 
   private void notifyService(final NotificationService service,
@@ -94,4 +265,43 @@ public class NotificationDispatcher {
       throw new RuntimeException("Error while replacing env variables in notification spec. spec: " + spec);
     }
   }
+
+  public void close() {
+    shutdownExecutionService(executorService);
+  }
+
+  private static class Call {
+
+    private final NotificationService service;
+    /**
+     * 0 while the call is queued, the start time once it runs, -1 once abandoned.
+     */
+    private final AtomicLong startTime = new AtomicLong();
+    private Future<?> future;
+    private Exception failure;
+    private boolean retryable;
+
+    private Call(final NotificationService service) {
+      this.service = service;
+    }
+
+    /**
+     * @return false if the call was abandoned before it started: it must not be sent
+     */
+    private boolean start() {
+      return startTime.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    /**
+     * @return true if the call had not started: it will never be sent
+     */
+    private boolean abandon() {
+      return startTime.compareAndSet(0, -1);
+    }
+
+    private void fail(final Exception failure, final boolean retryable) {
+      this.failure = failure;
+      this.retryable = retryable;
+    }
+  }
 }
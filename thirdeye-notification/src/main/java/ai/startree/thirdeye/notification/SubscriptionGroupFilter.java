@@ -17,9 +17,11 @@ import static ai.startree.thirdeye.notification.SubscriptionGroupWatermarkManage
 import static ai.startree.thirdeye.notification.SubscriptionGroupWatermarkManager.newVectorClocks;
 import static ai.startree.thirdeye.spi.util.AnomalyUtils.isIgnore;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 
-import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
@@ -31,11 +33,12 @@ import ai.startree.thirdeye.spi.detection.AnomalyResultSource;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
-import org.joda.time.Interval;
 
 /**
  * The Subscription Group filter collects all anomalies and returns back a Result
@@ -51,12 +54,15 @@ public class SubscriptionGroupFilter {
 
   private final AnomalyManager anomalyManager;
   private final AlertManager alertManager;
+  private final SubscriptionGroupWatermarkManager watermarkManager;
 
   @Inject
   public SubscriptionGroupFilter(final AnomalyManager anomalyManager,
-      final AlertManager alertManager) {
+      final AlertManager alertManager,
+      final SubscriptionGroupWatermarkManager watermarkManager) {
     this.anomalyManager = anomalyManager;
     this.alertManager = alertManager;
+    this.watermarkManager = watermarkManager;
   }
 
   /**
@@ -96,11 +102,23 @@ public class SubscriptionGroupFilter {
     final List<AlertAssociationDto> alertAssociations = optional(sg.getAlertAssociations())
         .orElseGet(() -> generate(sg));
 
+    final Set<Long> activeAlertIds = findActiveAlertIds(alertAssociations);
+    final List<AlertAssociationDto> activeAlertAssociations = alertAssociations.stream()
+        .filter(aa -> activeAlertIds.contains(aa.getAlert().getId()))
+        .collect(toList());
+    if (activeAlertAssociations.isEmpty()) {
+      return new HashSet<>();
+    }
+
     // Fetch all the anomalies to be notified to the recipients
-    final Map<Long, Long> vectorClocks = newVectorClocks(alertAssociations, sg.getVectorClocks());
-    return alertAssociations.stream()
-        .filter(aa -> isAlertActive(aa.getAlert().getId()))
+    final Map<Long, Long> vectorClocks = newVectorClocks(alertAssociations,
+        watermarkManager.getVectorClocks(sg));
+    final Map<Long, List<AnomalyDTO>> candidatesByAlertId = findCandidates(activeAlertIds,
+        vectorClocks,
+        endTime);
+    return activeAlertAssociations.stream()
         .map(alertAssociation -> findAnomaliesForAlertAssociation(alertAssociation,
+            candidatesByAlertId,
             vectorClocks,
             endTime))
         .flatMap(Collection::stream)
@@ -122,29 +140,60 @@ public class SubscriptionGroupFilter {
         .collect(Collectors.toList());
   }
 
-  private boolean isAlertActive(final long alertId) {
-    final AlertDTO alert = alertManager.findById(alertId);
-    return alert != null && alert.isActive();
+  /**
+   * Looks up all the alerts of the subscription group in a single query.
+   *
+   * @return ids of the alerts that exist and are active
+   */
+  private Set<Long> findActiveAlertIds(final List<AlertAssociationDto> alertAssociations) {
+    final List<Long> alertIds = alertAssociations.stream()
+        .map(aa -> aa.getAlert().getId())
+        .distinct()
+        .collect(toList());
+    if (alertIds.isEmpty()) {
+      return Set.of();
+    }
+    return alertManager.findByIds(alertIds).stream()
+        .filter(Objects::nonNull)
+        .filter(AlertDTO::isActive)
+        .map(AbstractDTO::getId)
+        .collect(toSet());
+  }
+
+  /**
+   * Fetches the candidate anomalies of all the alerts in a single query: one create time range
+   * per alert, from its watermark to the end time.
+   *
+   * @return candidate anomalies grouped by alert id
+   */
+  private Map<Long, List<AnomalyDTO>> findCandidates(final Set<Long> alertIds,
+      final Map<Long, Long> vectorClocks,
+      final long endTime) {
+    final Map<Long, Long> startTimes = alertIds.stream()
+        .collect(toMap(alertId -> alertId,
+            alertId -> findStartTime(vectorClocks, endTime, alertId)));
+
+    return anomalyManager.findByCreateTimeWatermarks(startTimes, endTime).stream()
+        .filter(anomaly -> anomaly.getDetectionConfigId() != null)
+        .collect(groupingBy(AnomalyDTO::getDetectionConfigId));
   }
 
   private Set<AnomalyDTO> findAnomaliesForAlertAssociation(
       final AlertAssociationDto aa,
+      final Map<Long, List<AnomalyDTO>> candidatesByAlertId,
       final Map<Long, Long> vectorClocks,
       final long endTime) {
     final long alertId = aa.getAlert().getId();
     final long startTime = findStartTime(vectorClocks, endTime, alertId);
-
-    final AnomalyFilter anomalyFilter = new AnomalyFilter()
-        .setCreateTimeWindow(new Interval(startTime + 1, endTime))
-        .setAlertId(alertId);
-
-    optional(aa.getEnumerationItem())
+    final Long enumerationItemId = optional(aa.getEnumerationItem())
         .map(AbstractDTO::getId)
-        .ifPresent(anomalyFilter::setEnumerationItemId);
-
-    final Collection<AnomalyDTO> candidates = anomalyManager.filter(anomalyFilter);
+        .orElse(null);
 
-    return candidates.stream()
+    return candidatesByAlertId.getOrDefault(alertId, List.of()).stream()
+        .filter(anomaly -> enumerationItemId == null
+            || enumerationItemId.equals(optional(anomaly.getEnumerationItem())
+            .map(AbstractDTO::getId)
+            .orElse(null)))
         .filter(anomaly -> shouldFilter(anomaly, startTime))
         .collect(toSet());
   }
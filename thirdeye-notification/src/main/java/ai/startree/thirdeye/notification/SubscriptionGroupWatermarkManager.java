@@ -18,6 +18,7 @@ import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static java.util.stream.Collectors.toMap;
 
 import ai.startree.thirdeye.spi.Constants;
+import ai.startree.thirdeye.spi.datalayer.bao.NotificationWatermarkManager;
 import ai.startree.thirdeye.spi.datalayer.bao.SubscriptionGroupManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AlertAssociationDto;
@@ -35,7 +36,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * The Subscription Group Watermark Manager manages the watermark for each subscription group.
- * The watermark is stored in the subscriptionGroup.vectorClocks field.
+ * Watermarks are advanced in the subscription_group_watermark table, one row per alert. The
+ * subscriptionGroup.vectorClocks field holds the initial watermarks set on creation or update
+ * of the subscription group: the effective watermark is the max of both.
  */
 @Singleton
 public class SubscriptionGroupWatermarkManager {
@@ -43,11 +46,14 @@ public class SubscriptionGroupWatermarkManager {
   private static final Logger LOG = LoggerFactory.getLogger(SubscriptionGroupWatermarkManager.class);
 
   private final SubscriptionGroupManager subscriptionGroupManager;
+  private final NotificationWatermarkManager notificationWatermarkManager;
 
   @Inject
   public SubscriptionGroupWatermarkManager(
-      final SubscriptionGroupManager subscriptionGroupManager) {
+      final SubscriptionGroupManager subscriptionGroupManager,
+      final NotificationWatermarkManager notificationWatermarkManager) {
     this.subscriptionGroupManager = subscriptionGroupManager;
+    this.notificationWatermarkManager = notificationWatermarkManager;
   }
 
   public static Map<Long, Long> buildVectorClock(Collection<AnomalyDTO> anomalies) {
@@ -103,15 +109,40 @@ public class SubscriptionGroupWatermarkManager {
     return startTime;
   }
 
+  /**
+   * @return the watermark by alert id of the subscription group
+   */
+  public Map<Long, Long> getVectorClocks(final SubscriptionGroupDTO sg) {
+    if (sg.getId() == null) {
+      return sg.getVectorClocks();
+    }
+    return mergeWatermarks(sg.getVectorClocks(),
+        notificationWatermarkManager.findBySubscriptionGroupId(sg.getId()));
+  }
+
   public void updateWatermarks(final SubscriptionGroupDTO sg,
       final Collection<AnomalyDTO> anomalies) {
     if (anomalies.isEmpty()) {
       return;
     }
-    final var merged = mergeWatermarks(sg.getVectorClocks(), buildVectorClock(anomalies));
-    sg.setVectorClocks(merged);
+    final Map<Long, Long> vectorClock = buildVectorClock(anomalies);
+    sg.setVectorClocks(mergeWatermarks(sg.getVectorClocks(), vectorClock));
 
     LOG.info("Updating watermarks for subscription config : {}", sg.getId());
+    notificationWatermarkManager.advance(sg.getId(), vectorClock);
+  }
+
+  /**
+   * Clear the watermarks of the subscription group: all the anomalies in the lookback period are
+   * notified again.
+   */
+  public void resetWatermarks(final SubscriptionGroupDTO sg) {
+    sg.setVectorClocks(null);
     subscriptionGroupManager.save(sg);
+    deleteWatermarks(sg);
+  }
+
+  public void deleteWatermarks(final SubscriptionGroupDTO sg) {
+    notificationWatermarkManager.deleteBySubscriptionGroupId(sg.getId());
   }
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.notification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.api.NotificationPayloadApi;
+import ai.startree.thirdeye.spi.datalayer.dto.NotificationSpecDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.SubscriptionGroupDTO;
+import ai.startree.thirdeye.spi.notification.NotificationService;
+import com.codahale.metrics.MetricRegistry;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class NotificationDispatcherTest {
+
+  private static final NotificationPayloadApi PAYLOAD = new NotificationPayloadApi();
+
+  private NotificationServiceRegistry registry;
+  private MetricRegistry metricRegistry;
+  private NotificationDispatcher dispatcher;
+
+  @BeforeMethod
+  public void setUp() {
+    registry = mock(NotificationServiceRegistry.class);
+    metricRegistry = new MetricRegistry();
+    dispatcher = newDispatcher(new NotificationDispatchConfiguration()
+        .setThreads(2)
+        .setTimeout(Duration.ofMillis(200))
+        .setMaxRetries(1)
+        .setRetryBackoff(Duration.ofMillis(50))
+        .setDispatchTimeout(Duration.ofSeconds(2)));
+  }
+
+  private NotificationDispatcher newDispatcher(final NotificationDispatchConfiguration config) {
+    return new NotificationDispatcher(registry,
+        mock(NotificationSchemesMigrator.class),
+        new NotificationConfiguration().setDispatch(config),
+        metricRegistry);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    dispatcher.close();
+  }
+
+  private static SubscriptionGroupDTO subscriptionGroup(final String... types) {
+    final List<NotificationSpecDTO> specs = new ArrayList<>();
+    for (final String type : types) {
+      specs.add(new NotificationSpecDTO().setType(type).setParams(Map.of()));
+    }
+    return new SubscriptionGroupDTO().setSpecs(specs);
+  }
+
+  private NotificationService register(final String type) {
+    final NotificationService service = mock(NotificationService.class);
+    when(service.isRetryable(any())).thenCallRealMethod();
+    when(registry.get(eq(type), anyMap())).thenReturn(service);
+    return service;
+  }
+
+  @Test
+  public void testServicesAreNotifiedConcurrently() {
+    final NotificationService a = register("a");
+    final NotificationService b = register("b");
+
+    // each service only returns once the other one has started
+    final CountDownLatch started = new CountDownLatch(2);
+    doAnswer(invocation -> {
+      started.countDown();
+      assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+      return null;
+    }).when(a).notify(any());
+    doAnswer(invocation -> {
+      started.countDown();
+      assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+      return null;
+    }).when(b).notify(any());
+
+    dispatcher.dispatch(subscriptionGroup("a", "b"), PAYLOAD);
+
+    verify(a).notify(PAYLOAD);
+    verify(b).notify(PAYLOAD);
+    assertThat(metricRegistry.counter("notificationDispatchSuccessCounter").getCount())
+        .isEqualTo(2);
+  }
+
+  @Test
+  public void testFailureToConnectIsRetriedWithBackoff() {
+    final NotificationService a = register("a");
+    final NotificationService b = register("b");
+    doThrow(new IllegalStateException(new ConnectException("transient")))
+        .doNothing()
+        .when(a).notify(any());
+
+    final long start = System.currentTimeMillis();
+    dispatcher.dispatch(subscriptionGroup("a", "b"), PAYLOAD);
+
+    assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(50);
+    verify(a, times(2)).notify(PAYLOAD);
+    verify(b, times(1)).notify(PAYLOAD);
+    assertThat(metricRegistry.counter("notificationDispatchRetryCounter").getCount())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void testFailureAfterSendingIsNotRetried() {
+    final NotificationService a = register("a");
+    doThrow(new IllegalStateException("HTTP 500"))
+        .doNothing()
+        .when(a).notify(any());
+
+    assertThatThrownBy(() -> dispatcher.dispatch(subscriptionGroup("a"), PAYLOAD))
+        .hasMessage("HTTP 500");
+
+    verify(a, times(1)).notify(PAYLOAD);
+    assertThat(metricRegistry.counter("notificationDispatchRetryCounter").getCount())
+        .isEqualTo(0);
+  }
+
+  @Test
+  public void testServiceCanOptInToRetries() {
+    final NotificationService a = register("a");
+    when(a.isRetryable(any())).thenReturn(true);
+    doThrow(new IllegalStateException("HTTP 500")).when(a).notify(any());
+
+    assertThatThrownBy(() -> dispatcher.dispatch(subscriptionGroup("a"), PAYLOAD))
+        .hasMessage("HTTP 500");
+
+    verify(a, times(2)).notify(PAYLOAD);
+    assertThat(metricRegistry.counter("notificationDispatchRetryCounter").getCount())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void testTimedOutServiceIsNotRetried() {
+    final NotificationService a = register("a");
+    final NotificationService b = register("b");
+    when(a.isRetryable(any())).thenReturn(true);
+    doAnswer(invocation -> {
+      Thread.sleep(5_000);
+      return null;
+    }).when(a).notify(any());
+    doNothing().when(b).notify(any());
+
+    assertThatThrownBy(() -> dispatcher.dispatch(subscriptionGroup("a", "b"), PAYLOAD))
+        .hasCauseInstanceOf(TimeoutException.class);
+
+    verify(a, times(1)).notify(PAYLOAD);
+    verify(b, times(1)).notify(PAYLOAD);
+    assertThat(metricRegistry.counter("notificationDispatchTimeoutCounter").getCount())
+        .isEqualTo(1);
+  }
+
+  @Test
+  public void testQueuedServiceIsBoundedByDispatchTimeout() throws InterruptedException {
+    dispatcher.close();
+    dispatcher = newDispatcher(new NotificationDispatchConfiguration()
+        .setThreads(1)
+        .setTimeout(Duration.ofSeconds(10))
+        .setDispatchTimeout(Duration.ofMillis(300)));
+    final NotificationService a = register("a");
+    final NotificationService b = register("b");
+    final CountDownLatch release = new CountDownLatch(1);
+    // ignores interruptions: keeps the only thread busy past the dispatch timeout
+    doAnswer(invocation -> {
+      while (true) {
+        try {
+          release.await();
+          return null;
+        } catch (final InterruptedException ignored) {
+        }
+      }
+    }).when(a).notify(any());
+
+    final long start = System.currentTimeMillis();
+    try {
+      assertThatThrownBy(() -> dispatcher.dispatch(subscriptionGroup("a", "b"), PAYLOAD))
+          .hasCauseInstanceOf(TimeoutException.class);
+      assertThat(System.currentTimeMillis() - start).isLessThan(2_000);
+    } finally {
+      release.countDown();
+    }
+
+    // the queued call was abandoned: it is not sent once the thread is free
+    Thread.sleep(100);
+    verify(b, never()).notify(any());
+    assertThat(metricRegistry.counter("notificationDispatchTimeoutCounter").getCount())
+        .isEqualTo(2);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.notification;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.datalayer.bao.NotificationWatermarkManager;
+import ai.startree.thirdeye.spi.datalayer.bao.SubscriptionGroupManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.SubscriptionGroupDTO;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import org.mockito.InOrder;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SubscriptionGroupWatermarkManagerTest {
+
+  private static final long SUBSCRIPTION_GROUP_ID = 1L;
+
+  private SubscriptionGroupManager subscriptionGroupManager;
+  private NotificationWatermarkManager notificationWatermarkManager;
+  private SubscriptionGroupWatermarkManager watermarkManager;
+
+  private static SubscriptionGroupDTO subscriptionGroup(final Map<Long, Long> vectorClocks) {
+    final SubscriptionGroupDTO sg = new SubscriptionGroupDTO().setVectorClocks(vectorClocks);
+    sg.setId(SUBSCRIPTION_GROUP_ID);
+    return sg;
+  }
+
+  private static AnomalyDTO anomaly(final long alertId, final long createTime) {
+    final AnomalyDTO anomaly = new AnomalyDTO().setDetectionConfigId(alertId);
+    anomaly.setCreateTime(new Timestamp(createTime));
+    return anomaly;
+  }
+
+  @BeforeMethod
+  public void setUp() {
+    subscriptionGroupManager = mock(SubscriptionGroupManager.class);
+    notificationWatermarkManager = mock(NotificationWatermarkManager.class);
+    watermarkManager = new SubscriptionGroupWatermarkManager(subscriptionGroupManager,
+        notificationWatermarkManager);
+  }
+
+  @Test
+  public void testGetVectorClocksIsTheMaxOfFieldAndTable() {
+    when(notificationWatermarkManager.findBySubscriptionGroupId(SUBSCRIPTION_GROUP_ID))
+        .thenReturn(Map.of(10L, 200L, 11L, 50L, 12L, 120L));
+    final SubscriptionGroupDTO sg = subscriptionGroup(Map.of(10L, 100L, 11L, 110L, 13L, 130L));
+
+    assertThat(watermarkManager.getVectorClocks(sg))
+        .isEqualTo(Map.of(10L, 200L, 11L, 110L, 12L, 120L, 13L, 130L));
+  }
+
+  @Test
+  public void testGetVectorClocksWithoutFieldOrTableRows() {
+    when(notificationWatermarkManager.findBySubscriptionGroupId(SUBSCRIPTION_GROUP_ID))
+        .thenReturn(Map.of(10L, 200L));
+    assertThat(watermarkManager.getVectorClocks(subscriptionGroup(null)))
+        .isEqualTo(Map.of(10L, 200L));
+
+    when(notificationWatermarkManager.findBySubscriptionGroupId(SUBSCRIPTION_GROUP_ID))
+        .thenReturn(Map.of());
+    assertThat(watermarkManager.getVectorClocks(subscriptionGroup(Map.of(10L, 100L))))
+        .isEqualTo(Map.of(10L, 100L));
+  }
+
+  @Test
+  public void testGetVectorClocksOfUnsavedSubscriptionGroup() {
+    final SubscriptionGroupDTO sg = new SubscriptionGroupDTO().setVectorClocks(Map.of(10L, 100L));
+
+    assertThat(watermarkManager.getVectorClocks(sg)).isEqualTo(Map.of(10L, 100L));
+    verify(notificationWatermarkManager, never()).findBySubscriptionGroupId(anyLong());
+  }
+
+  @Test
+  public void testUpdateWatermarksAdvancesTheMaxCreateTimeByAlert() {
+    final SubscriptionGroupDTO sg = subscriptionGroup(null);
+
+    watermarkManager.updateWatermarks(sg,
+        List.of(anomaly(10L, 100L), anomaly(10L, 300L), anomaly(11L, 110L)));
+
+    verify(notificationWatermarkManager).advance(SUBSCRIPTION_GROUP_ID,
+        Map.of(10L, 300L, 11L, 110L));
+    assertThat(sg.getVectorClocks()).isEqualTo(Map.of(10L, 300L, 11L, 110L));
+  }
+
+  @Test
+  public void testResetWatermarksClearsFieldAndTable() {
+    final SubscriptionGroupDTO sg = subscriptionGroup(Map.of(10L, 100L));
+
+    watermarkManager.resetWatermarks(sg);
+
+    assertThat(sg.getVectorClocks()).isNull();
+    final InOrder inOrder = inOrder(subscriptionGroupManager, notificationWatermarkManager);
+    inOrder.verify(subscriptionGroupManager).save(sg);
+    inOrder.verify(notificationWatermarkManager).deleteBySubscriptionGroupId(SUBSCRIPTION_GROUP_ID);
+  }
+}
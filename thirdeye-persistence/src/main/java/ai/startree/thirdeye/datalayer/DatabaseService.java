@@ -13,10 +13,13 @@
  */
 package ai.startree.thirdeye.datalayer;
 
+import static com.google.common.base.Preconditions.checkState;
+
 import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
 import ai.startree.thirdeye.datalayer.entity.AbstractIndexEntity;
 import ai.startree.thirdeye.datalayer.util.GenericResultSetMapper;
 import ai.startree.thirdeye.datalayer.util.SqlQueryBuilder;
+import ai.startree.thirdeye.datalayer.util.SqlQueryBuilder.ParameterizedSql;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.Histogram;
@@ -26,8 +29,14 @@ import com.google.inject.Singleton;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Singleton
 public class DatabaseService {
@@ -104,6 +113,140 @@ public class DatabaseService {
     }
   }
 
+  /**
+   * Finds the entities whose index row matches the predicate, with a single query joining the
+   * index table.
+   */
+  public <E extends AbstractEntity> List<E> findAllByIndex(final Predicate predicate,
+      final Long afterId, final Long limit, final Long offset, final Class<E> clazz,
+      final Class<? extends AbstractIndexEntity> indexClazz, final Connection connection)
+      throws Exception {
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement selectStatement = sqlQueryBuilder
+          .createFindByIndexJoinStatement(connection,
+              clazz,
+              indexClazz,
+              predicate,
+              afterId,
+              limit,
+              offset)) {
+        try (final ResultSet resultSet = selectStatement.executeQuery()) {
+          return genericResultSetMapper.mapAll(resultSet, clazz);
+        }
+      }
+    } finally {
+      dbReadCallCounter.inc();
+      dbReadDuration.update(System.nanoTime() - tStart);
+    }
+  }
+
+  /**
+   * Inserts the entities with a single jdbc batch. All entities must be of the same class.
+   *
+   * @return the generated keys, in the order of the entities. Empty if
+   *     returnGeneratedKeys is false.
+   */
+  public <E extends AbstractEntity> List<Long> saveAll(final List<E> entities,
+      final boolean returnGeneratedKeys, final Connection connection) throws Exception {
+    if (entities.isEmpty()) {
+      return List.of();
+    }
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement insertStatement = sqlQueryBuilder.createBatchInsertStatement(
+          connection, entities.get(0).getClass(), returnGeneratedKeys)) {
+        for (final E entity : entities) {
+          sqlQueryBuilder.setInsertParameters(connection, insertStatement, entity);
+          insertStatement.addBatch();
+        }
+        final int[] affectedRows = insertStatement.executeBatch();
+        checkState(affectedRows.length == entities.size(),
+            "Expected %s inserted rows, got %s", entities.size(), affectedRows.length);
+        if (!returnGeneratedKeys) {
+          return List.of();
+        }
+        final List<Long> generatedKeys = new ArrayList<>(entities.size());
+        try (final ResultSet resultSet = insertStatement.getGeneratedKeys()) {
+          while (resultSet.next()) {
+            generatedKeys.add(resultSet.getLong(1));
+          }
+        }
+        checkState(generatedKeys.size() == entities.size(),
+            "Expected %s generated keys, got %s", entities.size(), generatedKeys.size());
+        return generatedKeys;
+      }
+    } finally {
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+    }
+  }
+
+  /**
+   * Updates the entities by id with jdbc batches: one batch per distinct update query. Unlike
+   * {@link #update}, entities are not read first: the create time column is never updated.
+   *
+   * @return the number of updated rows, in the order of the entities.
+   */
+  public <E extends AbstractEntity> int[] updateAll(final List<E> entities,
+      final Connection connection) throws Exception {
+    return updateAll(entities, null, null, connection);
+  }
+
+  /**
+   * See {@link #updateAll(List, Connection)}.
+   *
+   * @param fieldsToUpdate the fields to update. If null, all non-null fields are updated.
+   * @param conditions if not null, the condition of each entity, in the order of the entities.
+   *     An entity whose row does not match its condition is not updated.
+   */
+  public <E extends AbstractEntity> int[] updateAll(final List<E> entities,
+      final Set<String> fieldsToUpdate, final List<Predicate> conditions,
+      final Connection connection) throws Exception {
+    final int[] updatedRows = new int[entities.size()];
+    if (entities.isEmpty()) {
+      return updatedRows;
+    }
+    final long tStart = System.nanoTime();
+    try {
+      // null fields are not updated, so the query depends on the entity
+      final Map<String, List<Integer>> indicesBySql = new LinkedHashMap<>();
+      final List<ParameterizedSql> updates = new ArrayList<>(entities.size());
+      for (int i = 0; i < entities.size(); i++) {
+        final E entity = entities.get(i);
+        entity.setCreateTime(null);
+        final Predicate idPredicate = Predicate.EQ(getIdColumnName(entity.getClass()),
+            entity.getId());
+        final Predicate predicate = conditions == null || conditions.get(i) == null
+            ? idPredicate
+            : Predicate.AND(idPredicate, conditions.get(i));
+        final ParameterizedSql update = sqlQueryBuilder.buildUpdateSql(entity, fieldsToUpdate,
+            predicate);
+        updates.add(update);
+        indicesBySql.computeIfAbsent(update.getSql(), k -> new ArrayList<>()).add(i);
+      }
+      for (final Map.Entry<String, List<Integer>> entry : indicesBySql.entrySet()) {
+        try (final PreparedStatement updateStatement = connection.prepareStatement(
+            entry.getKey())) {
+          for (final int i : entry.getValue()) {
+            updates.get(i).setParameters(updateStatement);
+            updateStatement.addBatch();
+          }
+          final int[] batchRows = updateStatement.executeBatch();
+          for (int j = 0; j < batchRows.length; j++) {
+            // some drivers do not report the count of batched statements
+            updatedRows[entry.getValue().get(j)] =
+                batchRows[j] == Statement.SUCCESS_NO_INFO ? 1 : batchRows[j];
+          }
+        }
+      }
+      return updatedRows;
+    } finally {
+      dbWriteCallCounter.inc();
+      dbWriteDuration.update(System.nanoTime() - tStart);
+    }
+  }
+
   public <E extends AbstractEntity> Integer update(final E entity, final Predicate predicate,
       final Connection connection)
       throws Exception {
@@ -172,6 +315,86 @@ public class DatabaseService {
     }
   }
 
+  /**
+   * Returns the number of distinct tuples of the given columns among the rows matching the
+   * predicate.
+   */
+  public <E extends AbstractEntity> long countDistinct(final List<String> columns,
+      final Predicate predicate, final Class<E> clazz, final Connection connection)
+      throws Exception {
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement selectStatement = sqlQueryBuilder
+          .createCountDistinctStatement(connection, columns, predicate, clazz)) {
+        try (final ResultSet resultSet = selectStatement.executeQuery()) {
+          if (resultSet.next()) {
+            return resultSet.getLong(1);
+          }
+        }
+      }
+      return -1L;
+    } finally {
+      dbReadCallCounter.inc();
+      dbReadDuration.update(System.nanoTime() - tStart);
+    }
+  }
+
+  /**
+   * Returns the number of index rows matching the predicate, by value of a column of the
+   * index of the entities they reference.
+   */
+  public <E extends AbstractEntity> Map<Object, Long> countByReference(
+      final Predicate predicate, final Class<E> indexClazz, final String referenceColumn,
+      final Class<? extends AbstractEntity> referencedIndexClazz, final String groupByColumn,
+      final Connection connection) throws Exception {
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement selectStatement = sqlQueryBuilder
+          .createCountByReferenceStatement(connection,
+              indexClazz,
+              predicate,
+              referenceColumn,
+              referencedIndexClazz,
+              groupByColumn)) {
+        try (final ResultSet resultSet = selectStatement.executeQuery()) {
+          final Map<Object, Long> counts = new HashMap<>();
+          while (resultSet.next()) {
+            counts.put(resultSet.getObject(1), resultSet.getLong(2));
+          }
+          return counts;
+        }
+      }
+    } finally {
+      dbReadCallCounter.inc();
+      dbReadDuration.update(System.nanoTime() - tStart);
+    }
+  }
+
+  /**
+   * Returns the row count, the max id and the max update time of the rows matching the
+   * predicate. The returned list changes whenever a matching row is inserted, updated or deleted.
+   */
+  public <E extends AbstractEntity> List<Object> findWatermark(final Predicate predicate,
+      final Class<E> clazz, final Connection connection) throws Exception {
+    final long tStart = System.nanoTime();
+    try {
+      try (final PreparedStatement selectStatement = sqlQueryBuilder
+          .createWatermarkStatement(connection, predicate, clazz)) {
+        try (final ResultSet resultSet = selectStatement.executeQuery()) {
+          if (resultSet.next()) {
+            return Arrays.asList(resultSet.getLong(1),
+                resultSet.getObject(2),
+                resultSet.getTimestamp(3));
+          }
+        }
+      }
+      return null;
+    } finally {
+      dbReadCallCounter.inc();
+      dbReadDuration.update(System.nanoTime() - tStart);
+    }
+  }
+
   public <E extends AbstractEntity> List<E> runSQL(
       final String parameterizedSQL,
       final Map<String, Object> parameterMap,
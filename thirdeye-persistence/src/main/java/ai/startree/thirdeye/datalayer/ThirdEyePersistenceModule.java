@@ -28,6 +28,7 @@ import ai.startree.thirdeye.datalayer.bao.EnumerationItemManagerImpl;
 import ai.startree.thirdeye.datalayer.bao.EventManagerImpl;
 import ai.startree.thirdeye.datalayer.bao.JobManagerImpl;
 import ai.startree.thirdeye.datalayer.bao.MetricConfigManagerImpl;
+import ai.startree.thirdeye.datalayer.bao.NotificationWatermarkManagerImpl;
 import ai.startree.thirdeye.datalayer.bao.OnboardDatasetMetricManagerImpl;
 import ai.startree.thirdeye.datalayer.bao.OnlineDetectionDataManagerImpl;
 import ai.startree.thirdeye.datalayer.bao.OverrideConfigManagerImpl;
@@ -58,6 +59,9 @@ import ai.startree.thirdeye.datalayer.entity.RcaInvestigationIndex;
 import ai.startree.thirdeye.datalayer.entity.RootcauseTemplateIndex;
 import ai.startree.thirdeye.datalayer.entity.TaskEntity;
 import ai.startree.thirdeye.datalayer.entity.TaskIndex;
+import ai.startree.thirdeye.datalayer.mapper.PayloadCodecs;
+import ai.startree.thirdeye.datalayer.util.DatabaseConfiguration;
+import ai.startree.thirdeye.datalayer.util.EntityCacheConfiguration;
 import ai.startree.thirdeye.datalayer.util.EntityMappingHolder;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertTemplateManager;
@@ -71,6 +75,7 @@ import ai.startree.thirdeye.spi.datalayer.bao.EnumerationItemManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EventManager;
 import ai.startree.thirdeye.spi.datalayer.bao.JobManager;
 import ai.startree.thirdeye.spi.datalayer.bao.MetricConfigManager;
+import ai.startree.thirdeye.spi.datalayer.bao.NotificationWatermarkManager;
 import ai.startree.thirdeye.spi.datalayer.bao.OnboardDatasetMetricManager;
 import ai.startree.thirdeye.spi.datalayer.bao.OnlineDetectionDataManager;
 import ai.startree.thirdeye.spi.datalayer.bao.OverrideConfigManager;
@@ -118,9 +123,16 @@ public class ThirdEyePersistenceModule extends AbstractModule {
   );
 
   private final DataSource dataSource;
+  private final DatabaseConfiguration databaseConfiguration;
 
   public ThirdEyePersistenceModule(DataSource dataSource) {
+    this(dataSource, new DatabaseConfiguration());
+  }
+
+  public ThirdEyePersistenceModule(final DataSource dataSource,
+      final DatabaseConfiguration databaseConfiguration) {
     this.dataSource = dataSource;
+    this.databaseConfiguration = databaseConfiguration;
   }
 
   public static String camelCaseToUnderscore(String str) {
@@ -131,6 +143,9 @@ public class ThirdEyePersistenceModule extends AbstractModule {
   protected void configure() {
     bind(javax.sql.DataSource.class).toInstance(dataSource);
     bind(DataSource.class).toInstance(dataSource);
+    bind(PayloadCodecs.class).toInstance(
+        new PayloadCodecs(databaseConfiguration.getPayloadCodecs()));
+    bind(EntityCacheConfiguration.class).toInstance(databaseConfiguration.getEntityCache());
 
     bind(AnomalyManager.class).to(AnomalyManagerImpl.class).in(
         Scopes.SINGLETON);
@@ -159,6 +174,8 @@ public class ThirdEyePersistenceModule extends AbstractModule {
     bind(AnomalySubscriptionGroupNotificationManager.class)
         .to(AnomalySubscriptionGroupNotificationManagerImpl.class)
         .in(Scopes.SINGLETON);
+    bind(NotificationWatermarkManager.class).to(NotificationWatermarkManagerImpl.class).in(
+        Scopes.SINGLETON);
   }
 
   @Singleton
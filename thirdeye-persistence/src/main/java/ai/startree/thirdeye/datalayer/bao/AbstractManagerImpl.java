@@ -22,6 +22,7 @@ import com.google.inject.persist.Transactional;
 import java.sql.Timestamp;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 
@@ -64,6 +65,16 @@ public abstract class AbstractManagerImpl<E extends AbstractDTO> implements Abst
     return genericPojoDao.update(entities);
   }
 
+  @Override
+  public int createAll(final List<E> entities) {
+    return genericPojoDao.createAll(entities);
+  }
+
+  @Override
+  public int updateAll(final List<E> entities) {
+    return genericPojoDao.updateAll(entities);
+  }
+
   @Override
   public E findById(final Long id) {
     return (E) genericPojoDao.get(id, dtoClass);
@@ -95,6 +106,17 @@ public abstract class AbstractManagerImpl<E extends AbstractDTO> implements Abst
     return genericPojoDao.delete(ids, dtoClass);
   }
 
+  @Override
+  public int deleteAll(final List<E> entities) {
+    if (entities.isEmpty()) {
+      return 0;
+    }
+    final List<Long> ids = entities.stream()
+        .map(AbstractDTO::getId)
+        .collect(Collectors.toList());
+    return genericPojoDao.delete(ids, dtoClass);
+  }
+
   @Override
   public int deleteByPredicate(final Predicate predicate) {
     return genericPojoDao.deleteByPredicate(predicate, dtoClass);
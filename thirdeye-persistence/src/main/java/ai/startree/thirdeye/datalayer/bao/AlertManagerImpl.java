@@ -15,6 +15,7 @@ package ai.startree.thirdeye.datalayer.bao;
 
 import static ai.startree.thirdeye.spi.Constants.METRICS_CACHE_TIMEOUT;
 
+import ai.startree.thirdeye.datalayer.dao.AlertHealthDao;
 import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
@@ -31,10 +32,14 @@ import java.util.concurrent.TimeUnit;
 public class AlertManagerImpl extends AbstractManagerImpl<AlertDTO> implements
     AlertManager {
 
+  private final AlertHealthDao alertHealthDao;
+
   @Inject
   public AlertManagerImpl(final GenericPojoDao genericPojoDao,
+      final AlertHealthDao alertHealthDao,
       final MetricRegistry metricRegistry) {
     super(AlertDTO.class, genericPojoDao);
+    this.alertHealthDao = alertHealthDao;
     metricRegistry.register("activeAlertsCount",
         new CachedGauge<Long>(METRICS_CACHE_TIMEOUT.toMinutes(), TimeUnit.MINUTES) {
       @Override
@@ -90,4 +95,33 @@ public class AlertManagerImpl extends AbstractManagerImpl<AlertDTO> implements
   public Long countActive() {
     return count(Predicate.EQ("active", true));
   }
+
+  @Override
+  public long countActiveMonitoredMetrics() {
+    // alerts not indexed yet have null columns: count distinct skips them
+    return genericPojoDao.countDistinct(
+        List.of("monitoredDatasource", "monitoredDataset", "monitoredMetric"),
+        Predicate.AND(
+            Predicate.EQ("active", true),
+            Predicate.NEQ("monitoredMetric", AlertDTO.NO_MONITORED_METRIC)),
+        AlertDTO.class);
+  }
+
+  @Override
+  public List<AlertDTO> findActiveFailingSince(final long lastSuccessTime) {
+    return findByPredicate(Predicate.AND(
+        Predicate.EQ("active", true),
+        Predicate.LE("lastSuccessTime", lastSuccessTime),
+        Predicate.GT("consecutiveFailureCount", 0)));
+  }
+
+  @Override
+  public int recordFailure(final long alertId) {
+    return alertHealthDao.recordFailure(alertId);
+  }
+
+  @Override
+  public int recordSuccess(final long alertId) {
+    return alertHealthDao.recordSuccess(alertId, System.currentTimeMillis());
+  }
 }
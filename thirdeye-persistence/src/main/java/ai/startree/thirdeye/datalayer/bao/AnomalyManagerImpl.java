@@ -15,6 +15,7 @@ package ai.startree.thirdeye.datalayer.bao;
 
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
 import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
@@ -23,25 +24,24 @@ import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyFeedbackDTO;
+import ai.startree.thirdeye.spi.detection.AnomalyFeedbackType;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Preconditions;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.commons.collections4.CollectionUtils;
@@ -61,13 +61,13 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
 
   private static final String FIND_BY_FUNCTION_ID = "where functionId=:functionId";
 
-  // TODO inject as dependency
-  private static final ExecutorService EXECUTOR_SERVICE = Executors.newFixedThreadPool(10,
-      new ThreadFactoryBuilder().setNameFormat("anomaly-manager-%d").build());
+  private final Histogram decorationQueries;
 
   @Inject
-  public AnomalyManagerImpl(final GenericPojoDao genericPojoDao) {
+  public AnomalyManagerImpl(final GenericPojoDao genericPojoDao,
+      final MetricRegistry metricRegistry) {
     super(AnomalyDTO.class, genericPojoDao);
+    decorationQueries = metricRegistry.histogram("anomalyDecorationQueries");
   }
 
   @Override
@@ -105,6 +105,99 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     }
   }
 
+  /**
+   * Saves the anomalies and their children with batch writes. Children are written before their
+   * parent, which references their ids: anomalies are written level by level, from the leaves.
+   *
+   * @return the number of saved anomalies, children included
+   */
+  @Override
+  public int saveAll(final List<AnomalyDTO> anomalies) {
+    final List<List<AnomalyDTO>> levels = new ArrayList<>();
+    final Map<AnomalyDTO, Integer> heights = new IdentityHashMap<>();
+    final Set<AnomalyDTO> ancestors = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (final AnomalyDTO anomaly : anomalies) {
+      Preconditions.checkNotNull(anomaly);
+      addToLevel(anomaly, levels, heights, ancestors);
+    }
+    int saved = 0;
+    for (final List<AnomalyDTO> level : levels) {
+      final List<AnomalyDTO> toCreate = new ArrayList<>();
+      final List<AnomalyDTO> toUpdate = new ArrayList<>();
+      for (final AnomalyDTO anomaly : level) {
+        final AnomalyDTO mergeAnomalyBean = convertMergeAnomalyDTO2Bean(anomaly);
+        final Set<Long> childAnomalyIds = new HashSet<>();
+        optional(anomaly.getChildren()).ifPresent(children -> children.stream()
+            .map(AnomalyDTO::getId)
+            .forEach(childAnomalyIds::add));
+        mergeAnomalyBean.setChildIds(childAnomalyIds);
+        (anomaly.getId() == null ? toCreate : toUpdate).add(mergeAnomalyBean);
+      }
+      final int created = genericPojoDao.createAll(toCreate);
+      if (created != toCreate.size()) {
+        LOG.error("Failed to store anomalies: {}", toCreate);
+      }
+      saved += created + genericPojoDao.updateAll(toUpdate);
+    }
+    return saved;
+  }
+
+  /**
+   * Creates the anomalies with {@link #saveAll(List)}. Their children can be new or existing
+   * anomalies.
+   */
+  @Override
+  public int createAll(final List<AnomalyDTO> anomalies) {
+    for (final AnomalyDTO anomaly : anomalies) {
+      checkArgument(anomaly.getId() == null, "Cannot create an existing anomaly: %s",
+          anomaly.getId());
+    }
+    return saveAll(anomalies);
+  }
+
+  /**
+   * Updates the anomalies with {@link #saveAll(List)}. Their children can be new or existing
+   * anomalies.
+   */
+  @Override
+  public int updateAll(final List<AnomalyDTO> anomalies) {
+    for (final AnomalyDTO anomaly : anomalies) {
+      checkNotNull(anomaly.getId(), "An id is required to update the anomaly: %s", anomaly);
+    }
+    return saveAll(anomalies);
+  }
+
+  /**
+   * Adds the anomaly and its children to the level of their height in the anomaly tree. The
+   * height of an anomaly without children is 0.
+   *
+   * @return the height of the anomaly
+   */
+  private int addToLevel(final AnomalyDTO anomaly, final List<List<AnomalyDTO>> levels,
+      final Map<AnomalyDTO, Integer> heights, final Set<AnomalyDTO> ancestors) {
+    final Integer knownHeight = heights.get(anomaly);
+    if (knownHeight != null) {
+      return knownHeight;
+    }
+    // Prevent cycles
+    if (!ancestors.add(anomaly)) {
+      throw new IllegalArgumentException("Loop detected! Child anomaly referencing ancestor");
+    }
+    int height = 0;
+    for (final AnomalyDTO child : optional(anomaly.getChildren()).orElse(Set.of())) {
+      child.setAuth(anomaly.getAuth());
+      child.setChild(true);
+      height = Math.max(height, addToLevel(child, levels, heights, ancestors) + 1);
+    }
+    ancestors.remove(anomaly);
+    heights.put(anomaly, height);
+    while (levels.size() <= height) {
+      levels.add(new ArrayList<>());
+    }
+    levels.get(height).add(anomaly);
+    return height;
+  }
+
   private Long saveAnomaly(final AnomalyDTO anomalyDTO,
       final Set<AnomalyDTO> visitedAnomalies) {
     Preconditions.checkNotNull(anomalyDTO);
@@ -176,7 +269,7 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     if (anomaly == null) {
       return null;
     }
-    return decorate(anomaly, new HashSet<>());
+    return decorate(anomaly);
   }
 
   @Override
@@ -276,8 +369,7 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
       if (candidate.getChildIds() != null && !candidate.getChildIds().isEmpty()) {
         for (final Long id : candidate.getChildIds()) {
           if (entity.getId().equals(id)) {
-            return decorate(candidate,
-                new HashSet<>(Collections.singleton(candidate.getId())));
+            return decorate(candidate);
           }
         }
       }
@@ -295,63 +387,96 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     return entity;
   }
 
-  public AnomalyDTO decorate(final AnomalyDTO anomaly,
-      final Set<Long> visitedAnomalyIds) {
-
-    if (anomaly.getAnomalyFeedbackId() != null) {
-      final AnomalyFeedbackDTO anomalyFeedbackDTO = genericPojoDao
-          .get(anomaly.getAnomalyFeedbackId(), AnomalyFeedbackDTO.class);
-      anomaly.setFeedback(anomalyFeedbackDTO);
-    }
-
-    visitedAnomalyIds.add(anomaly.getId());
-    anomaly
-        .setChildren(getChildAnomalies(anomaly, visitedAnomalyIds));
-
-    return anomaly;
+  private AnomalyDTO decorate(final AnomalyDTO anomaly) {
+    return decorate(List.of(anomaly)).get(0);
   }
 
-  private Set<AnomalyDTO> getChildAnomalies(
-      final AnomalyDTO anomalyDTO, final Set<Long> visitedAnomalyIds) {
-    final Set<AnomalyDTO> children = new HashSet<>();
-    if (anomalyDTO.getChildIds() != null) {
-      for (final Long id : anomalyDTO.getChildIds()) {
-        if (id == null || visitedAnomalyIds.contains(id)) {
-          continue;
-        }
-
-        final AnomalyDTO childBean = genericPojoDao.get(id,
-            AnomalyDTO.class);
-        final AnomalyDTO child = decorate(childBean, visitedAnomalyIds);
-        children.add(child);
+  /**
+   * Sets the feedback and the children of the anomalies. Children are loaded level by level:
+   * each level of the anomaly trees is loaded with a single query, then the feedbacks of all the
+   * anomalies are loaded with a single query. A child shared by several anomalies is loaded once
+   * and the same instance is used in the trees of these anomalies. A child that is already in the
+   * list is not loaded again: the instance of the list is used in the tree.
+   */
+  @Override
+  public List<AnomalyDTO> decorate(final List<AnomalyDTO> anomalies) {
+    int queries = 0;
+    final Map<Long, AnomalyDTO> childrenById = new HashMap<>();
+    for (final AnomalyDTO anomaly : anomalies) {
+      if (anomaly.getId() != null) {
+        childrenById.put(anomaly.getId(), anomaly);
       }
     }
-    return children;
-  }
+    final List<AnomalyDTO> decorated = new ArrayList<>(anomalies);
+    List<AnomalyDTO> level = anomalies;
+    while (!level.isEmpty()) {
+      final Set<Long> childIds = new LinkedHashSet<>();
+      for (final AnomalyDTO anomaly : level) {
+        optional(anomaly.getChildIds()).ifPresent(ids -> ids.stream()
+            .filter(id -> id != null && !childrenById.containsKey(id))
+            .forEach(childIds::add));
+      }
+      if (childIds.isEmpty()) {
+        break;
+      }
+      level = genericPojoDao.get(new ArrayList<>(childIds), AnomalyDTO.class);
+      queries++;
+      for (final AnomalyDTO child : level) {
+        childrenById.put(child.getId(), child);
+      }
+      decorated.addAll(level);
+    }
+    if (setFeedbacks(decorated)) {
+      queries++;
+    }
 
-  @Override
-  public List<AnomalyDTO> decorate(final List<AnomalyDTO> l) {
-    final List<Future<AnomalyDTO>> fList = l.stream()
-        .map(anomalyDTO -> EXECUTOR_SERVICE.submit(() -> decorate(anomalyDTO, new HashSet<>())))
-        .collect(Collectors.toList());
+    final Set<AnomalyDTO> withChildren = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (final AnomalyDTO anomaly : anomalies) {
+      setChildren(anomaly, childrenById, new HashSet<>(), withChildren);
+    }
+    decorationQueries.update(queries);
+    return new ArrayList<>(anomalies);
+  }
 
-    final List<AnomalyDTO> outList = new ArrayList<>(l.size());
-    for (final Future<AnomalyDTO> f : fList) {
-      try {
-        outList.add(f.get(60, TimeUnit.SECONDS));
-      } catch (final InterruptedException | TimeoutException | ExecutionException e) {
-        LOG.warn("Failed to convert MergedAnomalyResultDTO from bean: {}", e.toString());
+  /**
+   * Sets the children of the tree of an anomaly. A child that is an ancestor of its parent is
+   * skipped, so that trees have no cycle.
+   */
+  private static void setChildren(final AnomalyDTO anomaly,
+      final Map<Long, AnomalyDTO> childrenById,
+      final Set<Long> ancestorIds,
+      final Set<AnomalyDTO> withChildren) {
+    if (!withChildren.add(anomaly)) {
+      return;
+    }
+    ancestorIds.add(anomaly.getId());
+    final Set<AnomalyDTO> children = new HashSet<>();
+    for (final Long id : optional(anomaly.getChildIds()).orElse(Collections.emptySet())) {
+      final AnomalyDTO child = childrenById.get(id);
+      if (child == null || ancestorIds.contains(id)) {
+        continue;
       }
+      setChildren(child, childrenById, ancestorIds, withChildren);
+      children.add(child);
     }
-
-    return outList;
+    anomaly.setChildren(children);
+    ancestorIds.remove(anomaly.getId());
   }
 
-  private List<AnomalyDTO> decorateWithFeedback(final List<AnomalyDTO> anomalies) {
+  /**
+   * Sets the feedback of the anomalies, with a single query.
+   *
+   * @return true if a query was run
+   */
+  private boolean setFeedbacks(final List<AnomalyDTO> anomalies) {
     final List<Long> feedbackIds = anomalies.stream()
         .map(AnomalyDTO::getAnomalyFeedbackId)
         .filter(Objects::nonNull)
+        .distinct()
         .collect(Collectors.toList());
+    if (feedbackIds.isEmpty()) {
+      return false;
+    }
 
     final List<AnomalyFeedbackDTO> feedbacks = genericPojoDao.get(feedbackIds, AnomalyFeedbackDTO.class);
     final Map<Long, AnomalyFeedbackDTO> feedbackMap = feedbacks.stream()
@@ -359,6 +484,11 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     anomalies.stream()
         .filter(anomaly -> anomaly.getAnomalyFeedbackId() != null)
         .forEach(anomaly -> anomaly.setFeedback(feedbackMap.get(anomaly.getAnomalyFeedbackId())));
+    return true;
+  }
+
+  private List<AnomalyDTO> decorateWithFeedback(final List<AnomalyDTO> anomalies) {
+    setFeedbacks(anomalies);
     return anomalies;
   }
 
@@ -386,9 +516,45 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
     if (filters != null && filters.getPredicate() != null) {
       predicate = Predicate.AND(predicate, filters.getPredicate());
     }
-    return findByPredicate(predicate).stream()
-        .map(anomaly -> decorate(anomaly, new HashSet<>()))
-        .collect(Collectors.toList());
+    return findByPredicate(predicate);
+  }
+
+  @Override
+  public Map<AnomalyFeedbackType, Long> countParentAnomaliesByFeedbackType(
+      final DaoFilter filter) {
+    Predicate predicate = Predicate.AND(
+        Predicate.NEQ("anomalyFeedbackId", 0),
+        Predicate.EQ("child", false)
+    );
+    if (filter != null && filter.getPredicate() != null) {
+      predicate = Predicate.AND(predicate, filter.getPredicate());
+    }
+    final Map<Object, Long> countByType = genericPojoDao.countByReference(predicate,
+        AnomalyDTO.class,
+        "anomalyFeedbackId",
+        AnomalyFeedbackDTO.class,
+        "type");
+    final Map<AnomalyFeedbackType, Long> counts = new EnumMap<>(AnomalyFeedbackType.class);
+    countByType.forEach((type, count) -> counts.put(
+        AnomalyFeedbackType.valueOf(type.toString()), count));
+    return counts;
+  }
+
+  @Override
+  public List<AnomalyDTO> findByCreateTimeWatermarks(final Map<Long, Long> watermarks,
+      final long endTime) {
+    if (watermarks.isEmpty()) {
+      return new ArrayList<>();
+    }
+    // one (detection_config_id, create_time) range per alert
+    final Timestamp end = new Timestamp(endTime);
+    final Predicate[] ranges = watermarks.entrySet().stream()
+        .map(e -> Predicate.AND(
+            Predicate.EQ("detectionConfigId", e.getKey()),
+            Predicate.GT("createTime", new Timestamp(e.getValue())),
+            Predicate.LT("createTime", end)))
+        .toArray(Predicate[]::new);
+    return findByPredicate(Predicate.OR(ranges));
   }
 
   @Override
@@ -411,6 +577,10 @@ public class AnomalyManagerImpl extends AbstractManagerImpl<AnomalyDTO>
         .map(id -> Predicate.EQ("detectionConfigId", id))
         .ifPresent(predicates::add);
 
+    optional(af.getAlertIds())
+        .map(ids -> Predicate.IN("detectionConfigId", ids.toArray()))
+        .ifPresent(predicates::add);
+
     optional(af.getEnumerationItemId())
         .map(id -> Predicate.EQ("enumerationItemId", id))
         .ifPresent(predicates::add);
@@ -74,6 +74,21 @@ public class JobManagerImpl extends AbstractManagerImpl<JobDTO> implements JobMa
     }
   }
 
+  @Override
+  public int updateJobStatusAndEndTimeByIds(final List<Long> jobIds, final JobStatus newStatus,
+      final long newEndTime) {
+    Preconditions.checkNotNull(newStatus);
+    if (CollectionUtils.isEmpty(jobIds)) {
+      return 0;
+    }
+    final List<JobDTO> jobs = findByIds(jobIds);
+    for (final JobDTO jobDTO : jobs) {
+      jobDTO.setStatus(newStatus);
+      jobDTO.setScheduleEndTime(newEndTime);
+    }
+    return updateAll(jobs);
+  }
+
   @Override
   @Transactional
   public int deleteRecordsOlderThanDaysWithStatus(int days, JobStatus status) {
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.bao;
+
+import ai.startree.thirdeye.datalayer.dao.NotificationWatermarkDao;
+import ai.startree.thirdeye.spi.datalayer.bao.NotificationWatermarkManager;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Map;
+
+@Singleton
+public class NotificationWatermarkManagerImpl implements NotificationWatermarkManager {
+
+  private final NotificationWatermarkDao dao;
+
+  @Inject
+  public NotificationWatermarkManagerImpl(final NotificationWatermarkDao dao) {
+    this.dao = dao;
+  }
+
+  @Override
+  public Map<Long, Long> findBySubscriptionGroupId(final long subscriptionGroupId) {
+    return dao.get(subscriptionGroupId);
+  }
+
+  @Override
+  public void advance(final long subscriptionGroupId, final Map<Long, Long> watermarks) {
+    dao.advance(subscriptionGroupId, watermarks);
+  }
+
+  @Override
+  public int deleteBySubscriptionGroupId(final long subscriptionGroupId) {
+    return dao.delete(subscriptionGroupId);
+  }
+}
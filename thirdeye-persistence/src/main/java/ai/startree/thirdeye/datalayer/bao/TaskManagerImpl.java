@@ -18,11 +18,14 @@ import static ai.startree.thirdeye.spi.Constants.TASK_EXPIRY_DURATION;
 import static ai.startree.thirdeye.spi.Constants.TASK_MAX_DELETES_PER_CLEANUP;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 
+import ai.startree.thirdeye.datalayer.core.TaskNotificationChannel;
 import ai.startree.thirdeye.datalayer.dao.TaskDao;
+import ai.startree.thirdeye.spi.Constants.JobStatus;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskAcquisition;
 import ai.startree.thirdeye.spi.task.TaskInfo;
 import ai.startree.thirdeye.spi.task.TaskStatus;
 import ai.startree.thirdeye.spi.task.TaskType;
@@ -72,11 +75,14 @@ public class TaskManagerImpl implements TaskManager {
 
   private final Meter orphanTasksCount;
   private final MetricRegistry metricRegistry;
+  private final TaskNotificationChannel taskNotificationChannel;
 
   @Inject
   public TaskManagerImpl(final TaskDao dao,
-      final MetricRegistry metricRegistry) {
+      final MetricRegistry metricRegistry,
+      final TaskNotificationChannel taskNotificationChannel) {
     this.dao = dao;
+    this.taskNotificationChannel = taskNotificationChannel;
     orphanTasksCount = metricRegistry.meter("orphanTasksCount");
     this.metricRegistry = metricRegistry;
     registerMetrics();
@@ -105,6 +111,10 @@ public class TaskManagerImpl implements TaskManager {
     }
     final Long id = dao.put(entity);
     entity.setId(id);
+    if (id != null && entity.getStatus() == TaskStatus.WAITING) {
+      // wake up workers waiting in this JVM
+      taskNotificationChannel.notifyTaskAvailable();
+    }
     return id;
   }
 
@@ -157,6 +167,11 @@ public class TaskManagerImpl implements TaskManager {
     }
   }
 
+  @Override
+  public TaskAcquisition acquireTasks(final Long workerId, final int limit) {
+    return dao.acquireTasks(workerId, limit);
+  }
+
   @Override
   public void updateStatusAndTaskEndTime(final Long id, final TaskStatus oldStatus,
       final TaskStatus newStatus,
@@ -229,6 +244,20 @@ public class TaskManagerImpl implements TaskManager {
         Predicate.AND(statusPredicate, daysTimestampPredicate, timeoutTimestampPredicate));
   }
 
+  @Override
+  public int updateTimeoutTasksWithinDays(final int days, final long maxTaskTime) {
+    final DateTime activeDate = new DateTime(DateTimeZone.UTC).minusDays(days);
+    final DateTime timeoutDate = new DateTime(DateTimeZone.UTC).minus(maxTaskTime);
+    return dao.timeoutTasks(new Timestamp(activeDate.getMillis()),
+        new Timestamp(timeoutDate.getMillis()));
+  }
+
+  @Override
+  public Map<JobStatus, List<Long>> findScheduledJobTransitionsWithinDays(final int days) {
+    final DateTime activeDate = new DateTime(DateTimeZone.UTC).minusDays(days);
+    return dao.findScheduledJobTransitions(new Timestamp(activeDate.getMillis()));
+  }
+
   @Override
   public List<TaskDTO> findByStatusAndWorkerId(final Long workerId, final TaskStatus status) {
     final Predicate statusPredicate = Predicate.EQ("status", status.toString());
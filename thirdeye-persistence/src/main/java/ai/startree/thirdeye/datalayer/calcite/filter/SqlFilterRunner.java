@@ -17,17 +17,24 @@ import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_CALCITE_FILTERING;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_INVALID_SQL;
 import static com.google.common.base.Preconditions.checkArgument;
 
+import ai.startree.thirdeye.datalayer.calcite.object.ObjectDataContext;
 import ai.startree.thirdeye.datalayer.calcite.object.ObjectSchema;
 import ai.startree.thirdeye.spi.ThirdEyeException;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.adapter.enumerable.EnumerableInterpretable;
+import org.apache.calcite.adapter.enumerable.EnumerableRel;
 import org.apache.calcite.rel.RelNode;
-import org.apache.calcite.rel.RelRoot;
+import org.apache.calcite.runtime.Bindable;
 import org.apache.calcite.schema.SchemaPlus;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.parser.SqlParseException;
@@ -36,8 +43,8 @@ import org.apache.calcite.sql2rel.SqlToRelConverter;
 import org.apache.calcite.tools.FrameworkConfig;
 import org.apache.calcite.tools.Frameworks;
 import org.apache.calcite.tools.Planner;
+import org.apache.calcite.tools.Programs;
 import org.apache.calcite.tools.RelConversionException;
-import org.apache.calcite.tools.RelRunners;
 import org.apache.calcite.tools.ValidationException;
 import org.apache.commons.lang3.StringUtils;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -45,13 +52,28 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Run sql filter predicates on any list of objects with a given ObjectWithIdToRelationAdapter
+ *
+ * Parsing, validating, planning and generating code for a filter is much more expensive than
+ * running it. Compiled filters are cached by filter text and executed on the list of objects
+ * bound at execution time.
  */
 public class SqlFilterRunner<T> {
 
+  private static final int PLAN_CACHE_SIZE = 1000;
+
   private final ObjectWithIdToRelationAdapter<T> adapter;
+  private final ObjectSchema<T> objectSchema;
+  private final SchemaPlus rootSchema;
+  private final SchemaPlus querySchema;
+  private final Cache<String, CompiledFilter> planCache = CacheBuilder.newBuilder()
+      .maximumSize(PLAN_CACHE_SIZE)
+      .build();
 
   public SqlFilterRunner(final ObjectWithIdToRelationAdapter<T> adapter) {
     this.adapter = adapter;
+    this.objectSchema = new ObjectSchema<>(adapter);
+    this.rootSchema = Frameworks.createRootSchema(true);
+    this.querySchema = rootSchema.add(objectSchema.singleTableName(), objectSchema);
   }
 
   public List<T> applyFilter(@NonNull final List<T> elements, @Nullable final String queryFilter) {
@@ -65,46 +87,65 @@ public class SqlFilterRunner<T> {
           e);
     }
 
-    final ObjectSchema<T> objectSchema = new ObjectSchema<>(elements, adapter);
-    final SchemaPlus querySchema = Frameworks.createRootSchema(true)
-        .add(objectSchema.singleTableName(), objectSchema);
-    final Planner planner = buildPlanner(querySchema);
-    final String sqlQuery = buildQueryString(queryFilter, objectSchema.singleTableName());
+    final CompiledFilter plan = getPlan(queryFilter);
+    final Set<Long> matchingIds = getIdsFrom(plan, elements);
+    //return the original collection filtered by the matching ids
+    return elements.stream()
+        .filter(e -> matchingIds.contains(adapter.idOf(e)))
+        .collect(Collectors.toList());
+  }
+
+  private CompiledFilter getPlan(final String queryFilter) {
     try {
-      final ResultSet resultSet = runQuery(planner, sqlQuery);
-      final Set<Long> matchingIds = getIdsFrom(resultSet);
-      //return the original collection filtered by the matching ids
-      return elements.stream()
-          .filter(e -> matchingIds.contains(adapter.idOf(e)))
-          .collect(Collectors.toList());
-    } catch (RelConversionException | SQLException | ValidationException e) {
-      throw new ThirdEyeException(e, ERR_CALCITE_FILTERING, queryFilter);
+      return planCache.get(queryFilter, () -> compile(queryFilter));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof ThirdEyeException) {
+        throw (ThirdEyeException) e.getCause();
+      }
+      throw new ThirdEyeException(e.getCause(), ERR_CALCITE_FILTERING, queryFilter);
     }
   }
 
   @NonNull
-  private Set<Long> getIdsFrom(final ResultSet resultSet) throws SQLException {
+  private Set<Long> getIdsFrom(final CompiledFilter plan, final List<T> elements) {
     final Set<Long> matchingIds = new HashSet<>();
-    while (resultSet.next()) {
-      final Long id = resultSet.getLong(adapter.idColumn());
-      matchingIds.add(id);
+    final ObjectDataContext dataContext = new ObjectDataContext(rootSchema,
+        elements,
+        plan.internalParameters);
+    for (final Object row : plan.bindable.bind(dataContext)) {
+      // a single column projection yields scalar rows
+      final Object id = row instanceof Object[] ? ((Object[]) row)[0] : row;
+      matchingIds.add(((Number) id).longValue());
     }
     return matchingIds;
   }
 
-  private static ResultSet runQuery(final Planner planner, final String sqlQuery)
-      throws ValidationException, RelConversionException, SQLException {
+  private CompiledFilter compile(final String queryFilter) {
+    final Planner planner = buildPlanner(querySchema);
+    final String sqlQuery = buildQueryString(queryFilter, objectSchema.singleTableName());
     final SqlNode sqlNode;
     try {
       sqlNode = planner.parse(sqlQuery);
     } catch (SqlParseException e) {
       throw new ThirdEyeException(e, ERR_INVALID_SQL, sqlQuery);
     }
-    final SqlNode sqlNodeValidated = planner.validate(sqlNode);
-    final RelRoot relRoot = planner.rel(sqlNodeValidated);
-    final RelNode relNode = relRoot.project();
-    final PreparedStatement run = RelRunners.run(relNode);
-    return run.executeQuery();
+    try {
+      final SqlNode sqlNodeValidated = planner.validate(sqlNode);
+      final RelNode relNode = planner.rel(sqlNodeValidated).project();
+      final RelNode enumerableRelNode = planner.transform(0,
+          relNode.getTraitSet().replace(EnumerableConvention.INSTANCE),
+          relNode);
+      final Map<String, Object> internalParameters = new HashMap<>();
+      final Bindable<?> bindable = EnumerableInterpretable.toBindable(internalParameters,
+          null,
+          (EnumerableRel) enumerableRelNode,
+          EnumerableRel.Prefer.ARRAY);
+      return new CompiledFilter(bindable, internalParameters);
+    } catch (RelConversionException | ValidationException e) {
+      throw new ThirdEyeException(e, ERR_CALCITE_FILTERING, queryFilter);
+    } finally {
+      planner.close();
+    }
   }
 
   @NonNull
@@ -122,6 +163,7 @@ public class SqlFilterRunner<T> {
         .sqlToRelConverterConfig(SqlToRelConverter.config().withExpand(false))
         .parserConfig(insensitiveParser)
         .defaultSchema(querySchema)
+        .programs(Programs.standard())
         .build();
 
     return Frameworks.getPlanner(config);
@@ -132,4 +174,16 @@ public class SqlFilterRunner<T> {
   public static String cleanFreeTextPredicate(final String freeTextPredicate) {
     return freeTextPredicate.replaceFirst("^ *[aA][nN][dD] +", "");
   }
+
+  private static class CompiledFilter {
+
+    private final Bindable<?> bindable;
+    private final Map<String, Object> internalParameters;
+
+    private CompiledFilter(final Bindable<?> bindable,
+        final Map<String, Object> internalParameters) {
+      this.bindable = bindable;
+      this.internalParameters = internalParameters;
+    }
+  }
 }
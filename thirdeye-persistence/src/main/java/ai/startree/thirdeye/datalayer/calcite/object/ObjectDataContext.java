@@ -0,0 +1,92 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.calcite.object;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.linq4j.QueryProvider;
+import org.apache.calcite.schema.SchemaPlus;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Binds a list of objects to the ObjectTable of a compiled query. This allows a query to be
+ * planned once and executed on different lists of objects.
+ */
+public class ObjectDataContext implements DataContext {
+
+  /**
+   * Name of the variable holding the elements scanned by ObjectTable.
+   */
+  public static final String ELEMENTS = "elements";
+
+  private static final JavaTypeFactory TYPE_FACTORY = new JavaTypeFactoryImpl();
+
+  private final @NonNull SchemaPlus rootSchema;
+  private final @NonNull List<?> elements;
+  private final @NonNull Map<String, Object> internalParameters;
+  private final AtomicBoolean cancelFlag = new AtomicBoolean(false);
+  private final long currentTimestamp = System.currentTimeMillis();
+
+  /**
+   * @param internalParameters values stashed by the code generation of the compiled query
+   */
+  public ObjectDataContext(final @NonNull SchemaPlus rootSchema, final @NonNull List<?> elements,
+      final @NonNull Map<String, Object> internalParameters) {
+    this.rootSchema = rootSchema;
+    this.elements = elements;
+    this.internalParameters = internalParameters;
+  }
+
+  @Override
+  public SchemaPlus getRootSchema() {
+    return rootSchema;
+  }
+
+  @Override
+  public JavaTypeFactory getTypeFactory() {
+    return TYPE_FACTORY;
+  }
+
+  @Override
+  public @Nullable QueryProvider getQueryProvider() {
+    return null;
+  }
+
+  @Override
+  public @Nullable Object get(final String name) {
+    if (ELEMENTS.equals(name)) {
+      return elements;
+    }
+    if (Variable.CANCEL_FLAG.camelName.equals(name)) {
+      return cancelFlag;
+    }
+    if (Variable.UTC_TIMESTAMP.camelName.equals(name)) {
+      return currentTimestamp;
+    }
+    if (Variable.CURRENT_TIMESTAMP.camelName.equals(name)
+        || Variable.LOCAL_TIMESTAMP.camelName.equals(name)) {
+      return currentTimestamp + TimeZone.getDefault().getOffset(currentTimestamp);
+    }
+    if (Variable.TIME_ZONE.camelName.equals(name)) {
+      return TimeZone.getDefault();
+    }
+    return internalParameters.get(name);
+  }
+}
@@ -13,13 +13,13 @@
  */
 package ai.startree.thirdeye.datalayer.calcite.object;
 
-import java.util.List;
 import java.util.Map;
 import org.apache.calcite.schema.Table;
 import org.apache.calcite.schema.impl.AbstractSchema;
 
 /**
- * Allow SQL on any list of Object with an ObjectToRelationAdapter.
+ * Allow SQL on any list of Object with an ObjectToRelationAdapter. The list of objects is bound
+ * at execution time with an ObjectDataContext.
  *
  * There is only one table in this schema, it corresponds to the list of objects.
  *
@@ -29,13 +29,11 @@ public class ObjectSchema<T> extends AbstractSchema {
 
   private static final String SINGLE_TABLE_NAME = "objects";
 
-  private final List<T> elements;
   private final ObjectToRelationAdapter<T> adapter;
   private Map<String, Table> tableMap;
 
-  public ObjectSchema(final List<T> elements, final ObjectToRelationAdapter<T> adapter) {
+  public ObjectSchema(final ObjectToRelationAdapter<T> adapter) {
     super();
-    this.elements = elements;
     this.adapter = adapter;
   }
 
@@ -46,7 +44,7 @@ public class ObjectSchema<T> extends AbstractSchema {
   @Override
   protected Map<String, Table> getTableMap() {
     if (tableMap == null) {
-      final Table table = new ObjectTable<>(elements, adapter);
+      final Table table = new ObjectTable<>(adapter);
       tableMap = Map.of(SINGLE_TABLE_NAME, table);
     }
     return tableMap;
@@ -13,6 +13,8 @@
  */
 package ai.startree.thirdeye.datalayer.calcite.object;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.apache.calcite.DataContext;
@@ -28,21 +30,23 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 /**
  * Table from a list of objects. The conversion from object to columns is given by the
- * ObjectToRelationAdapter.
+ * ObjectToRelationAdapter. The objects are read from the ObjectDataContext at scan time, so
+ * that a query planned on this table can be executed on different lists of objects.
  */
 public class ObjectTable<T> extends AbstractTable implements ScannableTable {
 
-  private final @NonNull List<T> elements;
   private final @NonNull ObjectToRelationAdapter<T> adapter;
   private @Nullable RelDataType rowType;
 
-  public ObjectTable(final @NonNull List<T> elements, final @NonNull ObjectToRelationAdapter<T> adapter) {
-    this.elements = elements;
+  public ObjectTable(final @NonNull ObjectToRelationAdapter<T> adapter) {
     this.adapter = adapter;
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public Enumerable<Object[]> scan(final DataContext root) {
+    final List<T> elements = (List<T>) requireNonNull(root.get(ObjectDataContext.ELEMENTS),
+        "No elements bound to the data context");
     final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
     return new AbstractEnumerable<>() {
       @Override
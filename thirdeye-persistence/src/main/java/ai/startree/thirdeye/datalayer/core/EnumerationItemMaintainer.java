@@ -30,12 +30,15 @@ import ai.startree.thirdeye.spi.datalayer.EnumerationItemFilter;
 import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
 import ai.startree.thirdeye.spi.datalayer.bao.EnumerationItemManager;
 import ai.startree.thirdeye.spi.datalayer.bao.SubscriptionGroupManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.SubscriptionGroupDTO;
 import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
 import ai.startree.thirdeye.spi.util.ExceptionHandledRunnable;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -125,10 +128,14 @@ public class EnumerationItemMaintainer {
     final List<EnumerationItemDTO> existing = enumerationItemManager.filter(
         new EnumerationItemFilter().setAlertId(alertId));
 
-    final List<EnumerationItemDTO> synced = enumerationItems.stream()
+    final List<EnumerationItemDTO> sources = enumerationItems.stream()
         .map(source -> source.setAlert(alertRef(alertId)))
-        .map(source -> findExistingOrCreate(source, idKeys, existing))
         .collect(toList());
+    final List<EnumerationItemDTO> synced = idKeys != null && !idKeys.isEmpty()
+        ? findExistingOrCreateAll(sources, idKeys, existing)
+        : sources.stream()
+            .map(source -> findExistingOrCreate(source, idKeys, existing))
+            .collect(toList());
 
     runAsync(() -> performCleanup(existing, synced));
     return synced;
@@ -226,8 +233,48 @@ public class EnumerationItemMaintainer {
     return source;
   }
 
+  /**
+   * Same as {@link #findExistingOrCreate(EnumerationItemDTO, List, List)} with idKeys. The
+   * enumeration items to create and to update are written in batches.
+   */
+  private List<EnumerationItemDTO> findExistingOrCreateAll(
+      final List<EnumerationItemDTO> sources,
+      final List<String> idKeys,
+      final List<EnumerationItemDTO> existingEnumerationItems) {
+    final List<EnumerationItemDTO> synced = new ArrayList<>(sources.size());
+    final List<EnumerationItemDTO> toCreate = new ArrayList<>();
+    final List<EnumerationItemDTO> toUpdate = new ArrayList<>();
+    for (final EnumerationItemDTO source : sources) {
+      requireNonNull(source.getName(), "enumeration item name does not exist!");
+      final EnumerationItemDTO existing = findUsingIdKeys(source, idKeys, existingEnumerationItems);
+      if (existing == null) {
+        toCreate.add(source);
+        synced.add(source);
+      } else {
+        if (overwriteIfReqd(existing, source)) {
+          toUpdate.add(existing);
+        }
+        synced.add(existing);
+      }
+    }
+    enumerationItemManager.updateAll(toUpdate);
+    enumerationItemManager.createAll(toCreate);
+    toCreate.forEach(created -> requireNonNull(created.getId(), "expecting a generated ID"));
+    return synced;
+  }
+
   private void updateExistingIfReqd(final EnumerationItemDTO existing,
       final EnumerationItemDTO source) {
+    if (overwriteIfReqd(existing, source)) {
+      enumerationItemManager.save(existing);
+    }
+  }
+
+  /**
+   * @return true if existing was modified
+   */
+  private static boolean overwriteIfReqd(final EnumerationItemDTO existing,
+      final EnumerationItemDTO source) {
     if (!existing.getParams().equals(source.getParams()) ||
         !existing.getName().equals(source.getName()) ||
         !Objects.equals(existing.getAuth(), source.getAuth()) // auth can be null
@@ -236,13 +283,14 @@ public class EnumerationItemMaintainer {
        * Overwrite existing params with new params for the same key. The alert is the
        * source of truth.
        */
-      final EnumerationItemDTO updated = existing
+      existing
           .setParams(source.getParams())
           .setName(source.getName());
 
-      updated.setAuth(source.getAuth());
-      enumerationItemManager.save(updated);
+      existing.setAuth(source.getAuth());
+      return true;
     }
+    return false;
   }
 
   @VisibleForTesting
@@ -316,17 +364,18 @@ public class EnumerationItemMaintainer {
         .setEnumerationItemId(from.getId())
         .setAlertId(alertId);
 
-    anomalyManager.filter(filter).stream()
+    final List<AnomalyDTO> anomalies = anomalyManager.filter(filter).stream()
         .filter(Objects::nonNull)
         .map(a -> a.setEnumerationItem(enumerationItemRef(toId)))
-        .forEach(anomalyManager::update);
+        .collect(toList());
+    anomalyManager.updateAll(anomalies);
 
     /* Migrate subscription groups */
     migrateSubscriptionGroups(from.getId(), toId, alertId);
   }
 
   private void migrateSubscriptionGroups(final Long fromId, final Long toId, final Long alertId) {
-    subscriptionGroupManager.findAll().stream()
+    final List<SubscriptionGroupDTO> updated = subscriptionGroupManager.findAll().stream()
         .filter(Objects::nonNull)
         .filter(sg -> sg.getAlertAssociations() != null)
         .filter(sg -> sg.getAlertAssociations().stream()
@@ -335,14 +384,16 @@ public class EnumerationItemMaintainer {
             .anyMatch(aa -> fromId.equals(aa.getEnumerationItem().getId())
                 && alertId.equals(aa.getAlert().getId()))
         )
-        .forEach(sg -> {
+        .map(sg -> {
           sg.getAlertAssociations().stream()
               .filter(aa -> aa.getEnumerationItem() != null)
               .filter(aa -> fromId.equals(aa.getEnumerationItem().getId())
                   && alertId.equals(aa.getAlert().getId()))
               .forEach(aa -> aa.setEnumerationItem(enumerationItemRef(toId)));
-          subscriptionGroupManager.update(sg);
-        });
+          return sg;
+        })
+        .collect(toList());
+    subscriptionGroupManager.updateAll(updated);
   }
 
   public void migrateAndRemove(final EnumerationItemDTO from, final EnumerationItemDTO to) {
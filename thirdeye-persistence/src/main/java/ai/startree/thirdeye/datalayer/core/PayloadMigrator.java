@@ -0,0 +1,93 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.core;
+
+import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.shutdownExecutionService;
+import static ai.startree.thirdeye.datalayer.util.PersistenceUtils.threadsNamed;
+
+import ai.startree.thirdeye.datalayer.dao.GenericPojoDao;
+import ai.startree.thirdeye.datalayer.dao.SubEntities;
+import ai.startree.thirdeye.datalayer.dao.TaskDao;
+import ai.startree.thirdeye.datalayer.entity.SubEntityType;
+import ai.startree.thirdeye.datalayer.mapper.PayloadCodecs;
+import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rewrites in the background the payloads of the entity types whose codec is configured, so
+ * that existing rows get the codec of their type.
+ */
+@Singleton
+public class PayloadMigrator {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PayloadMigrator.class);
+  private static final int BATCH_SIZE = 500;
+
+  private final GenericPojoDao genericPojoDao;
+  private final TaskDao taskDao;
+  private final PayloadCodecs payloadCodecs;
+
+  private final ExecutorService executorService = Executors.newSingleThreadExecutor(
+      threadsNamed("payload-migrator-%d"));
+
+  @Inject
+  public PayloadMigrator(final GenericPojoDao genericPojoDao,
+      final TaskDao taskDao,
+      final PayloadCodecs payloadCodecs) {
+    this.genericPojoDao = genericPojoDao;
+    this.taskDao = taskDao;
+    this.payloadCodecs = payloadCodecs;
+  }
+
+  public void start() {
+    executorService.submit(this::migrate);
+  }
+
+  public void migrate() {
+    for (final SubEntityType type : payloadCodecs.getCodecs().keySet()) {
+      final int migrated;
+      if (type == SubEntityType.TASK) {
+        migrated = taskDao.migratePayloads(BATCH_SIZE);
+      } else {
+        final Class<? extends AbstractDTO> beanClass = beanClass(type);
+        if (beanClass == null) {
+          LOG.warn("No entity of type {}. Skipping payload migration.", type);
+          continue;
+        }
+        migrated = genericPojoDao.migratePayloads(beanClass, BATCH_SIZE);
+      }
+      LOG.info("Migrated {} payloads of {} to {}", migrated, type, payloadCodecs.get(type));
+    }
+  }
+
+  private static Class<? extends AbstractDTO> beanClass(final SubEntityType type) {
+    for (final Entry<Class<? extends AbstractDTO>, SubEntityType> entry :
+        SubEntities.BEAN_TYPE_MAP.entrySet()) {
+      if (entry.getValue() == type) {
+        return entry.getKey();
+      }
+    }
+    return null;
+  }
+
+  public void close() throws Exception {
+    shutdownExecutionService(executorService);
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.core;
+
+import com.google.inject.Singleton;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process channel used to signal that new tasks are available.
+ *
+ * The task manager publishes on this channel when a WAITING task is created. Workers running in
+ * the same JVM subscribe to it so that they can pick up tasks without waiting for the next
+ * polling cycle. Workers running on other nodes rely on their periodic database check instead.
+ */
+@Singleton
+public class TaskNotificationChannel {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TaskNotificationChannel.class);
+
+  private final Set<Runnable> listeners = new CopyOnWriteArraySet<>();
+
+  public void subscribe(final Runnable listener) {
+    listeners.add(listener);
+  }
+
+  public void unsubscribe(final Runnable listener) {
+    listeners.remove(listener);
+  }
+
+  public void notifyTaskAvailable() {
+    for (final Runnable listener : listeners) {
+      try {
+        listener.run();
+      } catch (final Exception e) {
+        LOG.warn("Task notification listener failed", e);
+      }
+    }
+  }
+}
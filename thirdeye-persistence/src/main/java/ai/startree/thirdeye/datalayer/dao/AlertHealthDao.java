@@ -0,0 +1,96 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.dao;
+
+import ai.startree.thirdeye.datalayer.DatabaseTransactionService;
+import ai.startree.thirdeye.datalayer.entity.SubEntityType;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the health columns of detection_config_index without reading nor rewriting the alert:
+ * a failure does not race with the edits of the alert. These columns are the only copy of the
+ * health of an alert: they are not in the alert json, and saving an alert does not write them.
+ *
+ * The update time of the index row is bumped, so that the {@link EntityCache} of other nodes
+ * sees the change, and the alert lookups of this node are invalidated.
+ */
+@Singleton
+public class AlertHealthDao {
+
+  private static final Logger LOG = LoggerFactory.getLogger(AlertHealthDao.class);
+
+  // no success recorded yet: the health window starts at the last update or the creation of
+  // the alert. The update time of an alert that was never updated is null. Assignments are
+  // evaluated left to right: update_time is changed last.
+  private static final String RECORD_FAILURE = "UPDATE detection_config_index"
+      + " SET consecutive_failure_count = COALESCE(consecutive_failure_count, 0) + 1,"
+      + " last_success_time = COALESCE(last_success_time,"
+      + " UNIX_TIMESTAMP(COALESCE(update_time, create_time)) * 1000),"
+      + " update_time = CURRENT_TIMESTAMP"
+      + " WHERE base_id = ?";
+  private static final String RECORD_SUCCESS = "UPDATE detection_config_index"
+      + " SET consecutive_failure_count = 0, last_success_time = ?,"
+      + " update_time = CURRENT_TIMESTAMP"
+      + " WHERE base_id = ?";
+
+  private final DatabaseTransactionService transactionService;
+  private final EntityCache entityCache;
+
+  @Inject
+  public AlertHealthDao(final DatabaseTransactionService transactionService,
+      final EntityCache entityCache) {
+    this.transactionService = transactionService;
+    this.entityCache = entityCache;
+  }
+
+  /**
+   * @return the number of updated rows: 0 if the alert does not exist
+   */
+  public int recordFailure(final long alertId) {
+    return executeUpdate(RECORD_FAILURE, alertId);
+  }
+
+  /**
+   * Resets the failure count and starts a new health window at the given time.
+   *
+   * @param successTime epoch millis
+   * @return the number of updated rows: 0 if the alert does not exist
+   */
+  public int recordSuccess(final long alertId, final long successTime) {
+    return executeUpdate(RECORD_SUCCESS, successTime, alertId);
+  }
+
+  private int executeUpdate(final String sql, final long... parameters) {
+    try {
+      return transactionService.executeTransaction(connection -> {
+        try (final PreparedStatement statement = connection.prepareStatement(sql)) {
+          for (int i = 0; i < parameters.length; i++) {
+            statement.setLong(i + 1, parameters[i]);
+          }
+          return statement.executeUpdate();
+        }
+      }, 0);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return 0;
+    } finally {
+      entityCache.invalidate(SubEntityType.ALERT);
+    }
+  }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.dao;
+
+import ai.startree.thirdeye.datalayer.DatabaseService;
+import ai.startree.thirdeye.datalayer.DatabaseTransactionService;
+import ai.startree.thirdeye.datalayer.entity.AbstractIndexEntity;
+import ai.startree.thirdeye.datalayer.entity.GenericJsonEntity;
+import ai.startree.thirdeye.datalayer.entity.SubEntityType;
+import ai.startree.thirdeye.datalayer.util.EntityCacheConfiguration;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-through cache of the rows of low-churn entity types, e.g. alerts, templates and data
+ * sources. Lookups - by id, by predicate or all entities of a type - are cached per type. Rows are
+ * cached, not DTOs: each read gets new DTO instances.
+ *
+ * Writes through {@link GenericPojoDao} invalidate all the lookups of the type. Writes of other
+ * nodes are detected with a cheap watermark query - row count, max id and max update time of the
+ * entities of the type and of their index table - run at most once per staleness check interval:
+ * if the watermark changed, all the lookups of the type are invalidated. A write to the index
+ * table that does not go through {@link GenericPojoDao} must update the update_time of the rows
+ * it changes, and invalidate the type.
+ */
+@Singleton
+public class EntityCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(EntityCache.class);
+
+  private final DatabaseService databaseService;
+  private final DatabaseTransactionService transactionService;
+  private final long stalenessCheckIntervalNanos;
+  private final Map<SubEntityType, TypeCache> caches = new EnumMap<>(SubEntityType.class);
+
+  @Inject
+  public EntityCache(final DatabaseService databaseService,
+      final DatabaseTransactionService transactionService,
+      final EntityCacheConfiguration configuration,
+      final MetricRegistry metricRegistry) {
+    this.databaseService = databaseService;
+    this.transactionService = transactionService;
+    stalenessCheckIntervalNanos = configuration.getStalenessCheckInterval().toNanos();
+    if (configuration.isEnabled()) {
+      for (final SubEntityType type : configuration.getTypes()) {
+        caches.put(type, new TypeCache(type, configuration, metricRegistry));
+      }
+    }
+  }
+
+  public boolean isCached(final SubEntityType type) {
+    return caches.containsKey(type);
+  }
+
+  /**
+   * Returns the cached rows of the lookup. On a miss, the rows are loaded and cached. A null
+   * result of the loader means the load failed: it is returned but not cached.
+   *
+   * @param key the lookup: an id, a predicate, or any other key with equals and hashCode
+   */
+  public List<GenericJsonEntity> get(final SubEntityType type, final Object key,
+      final EntityLoader loader) throws SQLException {
+    final TypeCache typeCache = caches.get(type);
+    if (typeCache == null) {
+      return loader.load();
+    }
+    typeCache.checkStaleness();
+    final List<GenericJsonEntity> cached = typeCache.cache.getIfPresent(key);
+    if (cached != null) {
+      typeCache.hits.inc();
+      return cached;
+    }
+    typeCache.misses.inc();
+    // a load that raced with an invalidation may have read stale rows: it is not cached
+    final long generation = typeCache.generation;
+    final List<GenericJsonEntity> entities = loader.load();
+    if (entities != null) {
+      synchronized (typeCache) {
+        if (generation == typeCache.generation) {
+          typeCache.cache.put(key, entities);
+        }
+      }
+    }
+    return entities;
+  }
+
+  /**
+   * Invalidates the lookups of the type. The watermark is checked again on the next read.
+   */
+  public void invalidate(final SubEntityType type) {
+    final TypeCache typeCache = caches.get(type);
+    if (typeCache != null) {
+      typeCache.invalidate();
+    }
+  }
+
+  @FunctionalInterface
+  public interface EntityLoader {
+
+    List<GenericJsonEntity> load() throws SQLException;
+  }
+
+  private class TypeCache {
+
+    private final SubEntityType type;
+    private final Class<? extends AbstractIndexEntity> indexClass;
+    private final Cache<Object, List<GenericJsonEntity>> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private volatile long generation = 0;
+    private volatile long nextCheck = System.nanoTime();
+    private List<Object> watermark = null;
+
+    private TypeCache(final SubEntityType type, final EntityCacheConfiguration configuration,
+        final MetricRegistry metricRegistry) {
+      this.type = type;
+      indexClass = SubEntities.BEAN_TYPE_MAP.entrySet().stream()
+          .filter(e -> e.getValue() == type)
+          .map(e -> SubEntities.BEAN_INDEX_MAP.get(e.getKey()))
+          .findFirst()
+          .orElse(null);
+      cache = CacheBuilder.newBuilder()
+          .maximumSize(configuration.getMaxSize())
+          .expireAfterWrite(configuration.getTtl().toMillis(), TimeUnit.MILLISECONDS)
+          .build();
+      hits = metricRegistry.counter(String.format("entityCacheHitCount_%s", type));
+      misses = metricRegistry.counter(String.format("entityCacheMissCount_%s", type));
+      metricRegistry.register(String.format("entityCacheHitRate_%s", type), new RatioGauge() {
+        @Override
+        protected Ratio getRatio() {
+          return Ratio.of(hits.getCount(), hits.getCount() + misses.getCount());
+        }
+      });
+    }
+
+    private synchronized void invalidate() {
+      generation++;
+      cache.invalidateAll();
+      nextCheck = System.nanoTime();
+    }
+
+    private void checkStaleness() throws SQLException {
+      if (System.nanoTime() - nextCheck < 0) {
+        return;
+      }
+      synchronized (this) {
+        if (System.nanoTime() - nextCheck < 0) {
+          // checked by another thread
+          return;
+        }
+        final List<Object> current = transactionService.executeTransaction(
+            (connection) -> {
+              final List<Object> entities = databaseService.findWatermark(
+                  Predicate.EQ("type", type.toString()),
+                  GenericJsonEntity.class,
+                  connection);
+              if (entities == null || indexClass == null) {
+                return entities;
+              }
+              final List<Object> indexes = databaseService.findWatermark(null,
+                  indexClass,
+                  connection);
+              if (indexes == null) {
+                return null;
+              }
+              final List<Object> watermark = new ArrayList<>(entities);
+              watermark.addAll(indexes);
+              return watermark;
+            }, null);
+        if (current == null || !Objects.equals(current, watermark)) {
+          if (watermark != null) {
+            LOG.debug("Entities of type {} changed. Invalidating cached lookups.", type);
+          }
+          generation++;
+          cache.invalidateAll();
+        }
+        watermark = current;
+        nextCheck = System.nanoTime() + stalenessCheckIntervalNanos;
+      }
+    }
+  }
+}
@@ -17,6 +17,7 @@ import static ai.startree.thirdeye.datalayer.dao.SubEntities.BEAN_INDEX_MAP;
 import static ai.startree.thirdeye.datalayer.mapper.DtoIndexMapper.toAbstractIndexEntity;
 import static ai.startree.thirdeye.datalayer.mapper.GenericJsonEntityDtoMapper.toDto;
 import static ai.startree.thirdeye.datalayer.mapper.GenericJsonEntityDtoMapper.toGenericJsonEntity;
+import static ai.startree.thirdeye.datalayer.mapper.GenericJsonEntityDtoMapper.toJsonString;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_NEGATIVE_LIMIT_VALUE;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_NEGATIVE_OFFSET_VALUE;
 import static ai.startree.thirdeye.spi.ThirdEyeStatus.ERR_OFFSET_WITHOUT_LIMIT;
@@ -33,6 +34,8 @@ import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
 import ai.startree.thirdeye.datalayer.entity.AbstractIndexEntity;
 import ai.startree.thirdeye.datalayer.entity.GenericJsonEntity;
 import ai.startree.thirdeye.datalayer.entity.SubEntityType;
+import ai.startree.thirdeye.datalayer.mapper.PayloadCodec;
+import ai.startree.thirdeye.datalayer.mapper.PayloadCodecs;
 import ai.startree.thirdeye.spi.ThirdEyeException;
 import ai.startree.thirdeye.spi.ThirdEyeStatus;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
@@ -46,6 +49,7 @@ import java.lang.reflect.Field;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -60,15 +64,24 @@ public class GenericPojoDao {
 
   private static final Logger LOG = LoggerFactory.getLogger(GenericPojoDao.class);
   private static final boolean IS_DEBUG = LOG.isDebugEnabled();
+  private static final String FIND_PAYLOADS_AFTER_ID =
+      "WHERE type = :type AND id > :id ORDER BY id LIMIT ";
+  private static final Object ALL_ENTITIES_KEY = new Object();
 
   private final DatabaseService databaseService;
   private final DatabaseTransactionService transactionService;
+  private final PayloadCodecs payloadCodecs;
+  private final EntityCache entityCache;
 
   @Inject
   public GenericPojoDao(final DatabaseService databaseService,
-      final DatabaseTransactionService transactionService) {
+      final DatabaseTransactionService transactionService,
+      final PayloadCodecs payloadCodecs,
+      final EntityCache entityCache) {
     this.databaseService = databaseService;
     this.transactionService = transactionService;
+    this.payloadCodecs = payloadCodecs;
+    this.entityCache = entityCache;
 
     checkState(BEAN_INDEX_MAP.size() == SubEntities.BEAN_TYPE_MAP.size(),
         "Entity Metadata is inconsistent!");
@@ -84,6 +97,18 @@ public class GenericPojoDao {
     });
   }
 
+  private PayloadCodec codecOf(final AbstractDTO pojo) {
+    return payloadCodecs.get(SubEntities.BEAN_TYPE_MAP.get(pojo.getClass()));
+  }
+
+  private void invalidateCache(final Class<?> beanClass) {
+    entityCache.invalidate(SubEntities.BEAN_TYPE_MAP.get(beanClass));
+  }
+
+  private void invalidateCache(final List<? extends AbstractDTO> pojos) {
+    pojos.stream().map(Object::getClass).distinct().forEach(this::invalidateCache);
+  }
+
   public Set<Class<? extends AbstractDTO>> getAllBeanClasses() {
     return BEAN_INDEX_MAP.keySet();
   }
@@ -109,7 +134,9 @@ public class GenericPojoDao {
     }
     try {
       return transactionService.executeTransaction((connection) -> {
-        final GenericJsonEntity e = toGenericJsonEntity(pojo);
+        // the json is serialized once: the index table gets it as is, the entity gets it encoded
+        final String json = toJsonString(pojo);
+        final GenericJsonEntity e = toGenericJsonEntity(pojo, codecOf(pojo), json);
         final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(pojo.getClass());
         final Long generatedKey = databaseService.save(e, connection);
         pojo.setId(generatedKey);
@@ -117,7 +144,7 @@ public class GenericPojoDao {
           final AbstractIndexEntity abstractIndexEntity = toAbstractIndexEntity(
               pojo,
               indexClass,
-              e.getJsonVal());
+              json);
           abstractIndexEntity.setVersion(1);
           abstractIndexEntity.setCreateTime(pojo.getCreateTime());
           return databaseService.save(abstractIndexEntity, connection);
@@ -128,29 +155,182 @@ public class GenericPojoDao {
     } catch (final SQLException e) {
       LOG.error(e.getMessage(), e);
       return null;
+    } finally {
+      invalidateCache(pojo.getClass());
     }
   }
 
+  /**
+   * Create the list of pojos in a single transaction. Rows of the base table and of the index
+   * tables are inserted with jdbc batches. The pojos get their generated id.
+   *
+   * @param pojos the pojos to be created, whose ID must be null.
+   * @return the number of created pojos: all of them, or 0 if the transaction failed.
+   */
+  public <E extends AbstractDTO> int createAll(final List<E> pojos) {
+    if (CollectionUtils.isEmpty(pojos)) {
+      return 0;
+    }
+    final Timestamp now = new Timestamp(System.currentTimeMillis());
+    for (final E pojo : pojos) {
+      requireNonNull(pojo, "entity is null");
+      checkArgument(pojo.getId() == null, "id must be null for create flow.");
+      /* Populate createTime before DB insert if not present already */
+      if (pojo.getCreateTime() == null) {
+        pojo.setCreateTime(now);
+      }
+    }
+    try {
+      final List<String> jsons = new ArrayList<>(pojos.size());
+      final List<GenericJsonEntity> entities = new ArrayList<>(pojos.size());
+      for (final E pojo : pojos) {
+        final String json = toJsonString(pojo);
+        jsons.add(json);
+        entities.add(toGenericJsonEntity(pojo, codecOf(pojo), json));
+      }
+      final int created = transactionService.executeTransaction((connection) -> {
+        final List<Long> generatedKeys = databaseService.saveAll(entities, true, connection);
+        final Map<Class<? extends AbstractIndexEntity>, List<AbstractIndexEntity>> indexEntities =
+            new LinkedHashMap<>();
+        for (int i = 0; i < pojos.size(); i++) {
+          final E pojo = pojos.get(i);
+          pojo.setId(generatedKeys.get(i));
+          final Class<? extends AbstractIndexEntity> indexClass =
+              BEAN_INDEX_MAP.get(pojo.getClass());
+          if (indexClass != null) {
+            final AbstractIndexEntity abstractIndexEntity = toAbstractIndexEntity(
+                pojo,
+                indexClass,
+                jsons.get(i));
+            abstractIndexEntity.setVersion(1);
+            abstractIndexEntity.setCreateTime(pojo.getCreateTime());
+            indexEntities.computeIfAbsent(indexClass, k -> new ArrayList<>())
+                .add(abstractIndexEntity);
+          }
+        }
+        for (final List<AbstractIndexEntity> indexEntitiesOfClass : indexEntities.values()) {
+          databaseService.saveAll(indexEntitiesOfClass, false, connection);
+        }
+        return pojos.size();
+      }, 0);
+      if (created == 0) {
+        // the transaction was rolled back
+        pojos.forEach(pojo -> pojo.setId(null));
+      }
+      return created;
+    } catch (final JsonProcessingException | SQLException e) {
+      LOG.error(e.getMessage(), e);
+      pojos.forEach(pojo -> pojo.setId(null));
+      return 0;
+    } finally {
+      invalidateCache(pojos);
+    }
+  }
+
+  /**
+   * Updates a single pojo. The entity is read first: its create time is kept and 0 is returned
+   * if it does not exist.
+   *
+   * @throws NullPointerException if the pojo has no id
+   */
   public <E extends AbstractDTO> int update(final E pojo) {
-    return update(List.of(pojo));
+    return update(pojo, null);
   }
 
   /**
-   * Update the list of pojos in transaction mode. Every transaction contains MAX_BATCH_SIZE of
-   * entries. By default,
-   * this method update the entries in one transaction. If any entries cause an exception, this
-   * method will
-   * update the entries one-by-one (i.e., in separated transactions) and skip the one that causes
-   * exceptions.
+   * Update the list of pojos in transaction mode. By default, this method updates the entries in
+   * one transaction, with jdbc batch updates of the base table and of the index tables. If the
+   * transaction fails, this method will update the entries one-by-one (i.e., in separated
+   * transactions) and skip the one that causes exceptions. Entities are not read first: the
+   * create time column is not updated.
    *
    * @param pojos the pojo to be updated, whose ID cannot be null; otherwise, it will be
    *     ignored.
    * @return the number of rows that are affected.
    */
   public <E extends AbstractDTO> int update(final List<E> pojos) {
-    if (CollectionUtils.isEmpty(pojos)) {
+    return updateAll(pojos);
+  }
+
+  /**
+   * See {@link #update(List)}.
+   */
+  public <E extends AbstractDTO> int updateAll(final List<E> allPojos) {
+    if (CollectionUtils.isEmpty(allPojos)) {
+      return 0;
+    }
+    final List<E> pojos = new ArrayList<>(allPojos.size());
+    for (final E pojo : allPojos) {
+      if (pojo.getId() == null) {
+        LOG.error("Could not update entity : {}. An id is required to update the entity", pojo);
+      } else {
+        pojos.add(pojo);
+      }
+    }
+    if (pojos.isEmpty()) {
       return 0;
     }
+    /* Update updateTime before DB update. Restore if update fails */
+    final List<Timestamp> lastUpdateTimes = new ArrayList<>(pojos.size());
+    final Timestamp now = new Timestamp(System.currentTimeMillis());
+    for (final E pojo : pojos) {
+      lastUpdateTimes.add(pojo.getUpdateTime());
+      pojo.setUpdateTime(now);
+    }
+    try {
+      final List<String> jsons = new ArrayList<>(pojos.size());
+      final List<GenericJsonEntity> entities = new ArrayList<>(pojos.size());
+      for (final E pojo : pojos) {
+        final String json = toJsonString(pojo);
+        jsons.add(json);
+        entities.add(toGenericJsonEntity(pojo, codecOf(pojo), json));
+      }
+      final Integer updated = transactionService.executeTransaction((connection) -> {
+        final int[] updatedRows = databaseService.updateAll(entities, connection);
+        final List<AbstractIndexEntity> indexEntities = new ArrayList<>();
+        int updateCounter = 0;
+        for (int i = 0; i < pojos.size(); i++) {
+          if (updatedRows[i] > 1) {
+            throw new ThirdEyeException(ThirdEyeStatus.ERR_UNKNOWN, "Too many rows updated");
+          }
+          if (updatedRows[i] == 1) {
+            final E pojo = pojos.get(i);
+            final Class<? extends AbstractIndexEntity> indexClass =
+                BEAN_INDEX_MAP.get(pojo.getClass());
+            if (indexClass == null) {
+              updateCounter++;
+            } else {
+              indexEntities.add(toAbstractIndexEntity(pojo,
+                  indexClass,
+                  jsons.get(i)));
+            }
+          }
+        }
+        //updates all columns in the index tables by default
+        final int[] updatedIndexRows = databaseService.updateAll(indexEntities, connection);
+        for (final int indexRows : updatedIndexRows) {
+          if (indexRows > 1) {
+            throw new ThirdEyeException(ThirdEyeStatus.ERR_UNKNOWN, "Too many rows updated");
+          }
+          updateCounter += indexRows;
+        }
+        return updateCounter;
+      }, null);
+      if (updated != null) {
+        return updated;
+      }
+    } catch (final Exception e) {
+      LOG.error("Could not update entities in batch", e);
+    } finally {
+      invalidateCache(pojos);
+    }
+    for (int i = 0; i < pojos.size(); i++) {
+      pojos.get(i).setUpdateTime(lastUpdateTimes.get(i));
+    }
+    if (pojos.size() == 1) {
+      return 0;
+    }
+    LOG.warn("Batch update of {} entities failed. Updating them one by one.", pojos.size());
     int updateCounter = 0;
     for (final E pojo : pojos) {
       try {
@@ -170,7 +350,8 @@ public class GenericPojoDao {
     pojo.setUpdateTime(new Timestamp(System.currentTimeMillis()));
 
     try {
-      final GenericJsonEntity genericJsonEntity = toGenericJsonEntity(pojo);
+      final String json = toJsonString(pojo);
+      final GenericJsonEntity genericJsonEntity = toGenericJsonEntity(pojo, codecOf(pojo), json);
       final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(pojo.getClass());
       return transactionService.executeTransaction((connection) -> {
         Integer ret = databaseService.update(genericJsonEntity, predicate, connection);
@@ -179,7 +360,7 @@ public class GenericPojoDao {
           if (indexClass != null) {
             final AbstractIndexEntity abstractIndexEntity = toAbstractIndexEntity(pojo,
                 indexClass,
-                genericJsonEntity.getJsonVal());
+                json);
             //updates all columns in the index table by default
             ret = databaseService.update(abstractIndexEntity, null, connection);
           }
@@ -193,6 +374,8 @@ public class GenericPojoDao {
       pojo.setUpdateTime(lastUpdateTime);
       LOG.error("Could not update entity : {}", pojo, e);
       return 0;
+    } finally {
+      invalidateCache(pojo.getClass());
     }
   }
 
@@ -245,14 +428,66 @@ public class GenericPojoDao {
     }
   }
 
+  /**
+   * Counts the distinct tuples of the given index columns among the beans matching the predicate.
+   * As in sql count(distinct ...), the tuples with a null column are not counted.
+   */
+  public <E extends AbstractDTO> long countDistinct(final List<String> columns,
+      final Predicate predicate, final Class<E> beanClass) {
+    final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(beanClass);
+    try {
+      return transactionService.executeTransaction(
+          (connection) -> databaseService.countDistinct(columns, predicate, indexClass,
+              connection),
+          -1L);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return -1L;
+    }
+  }
+
+  /**
+   * Counts the beans matching the predicate by value of an index column of the bean they
+   * reference, in a single grouped query.
+   *
+   * @param referenceColumn index column of beanClass holding the id of the referenced bean
+   * @param groupByColumn index column of referencedBeanClass to group by
+   */
+  public <E extends AbstractDTO> Map<Object, Long> countByReference(final Predicate predicate,
+      final Class<E> beanClass, final String referenceColumn,
+      final Class<? extends AbstractDTO> referencedBeanClass, final String groupByColumn) {
+    final Class<? extends AbstractIndexEntity> indexClass = BEAN_INDEX_MAP.get(beanClass);
+    final Class<? extends AbstractIndexEntity> referencedIndexClass = BEAN_INDEX_MAP.get(
+        referencedBeanClass);
+    try {
+      return transactionService.executeTransaction(
+          (connection) -> databaseService.countByReference(predicate,
+              indexClass,
+              referenceColumn,
+              referencedIndexClass,
+              groupByColumn,
+              connection),
+          Map.of());
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return Map.of();
+    }
+  }
+
   public <E extends AbstractDTO> E get(final Long id, final Class<E> pojoClass) {
     try {
-      final GenericJsonEntity genericJsonEntity = transactionService.executeTransaction(
-          (connection) -> databaseService.find(id, GenericJsonEntity.class, connection),
-          null);
-      if (genericJsonEntity == null) {
+      final List<GenericJsonEntity> entities = entityCache.get(
+          SubEntities.BEAN_TYPE_MAP.get(pojoClass),
+          id,
+          () -> transactionService.executeTransaction((connection) -> {
+            final GenericJsonEntity e = databaseService.find(id, GenericJsonEntity.class,
+                connection);
+            return e == null ? List.of() : List.of(e);
+          }, null));
+      if (entities == null || entities.isEmpty()) {
         return null;
       }
+      final GenericJsonEntity genericJsonEntity = entities.get(0);
       final String type = SubEntities.getType(pojoClass);
       /* Object with id just not match type. Hence, return null */
       if (!type.equals(genericJsonEntity.getType())) {
@@ -283,7 +518,7 @@ public class GenericPojoDao {
 
   public <E extends AbstractDTO> List<E> get(final List<Long> idList, final Class<E> pojoClass) {
     try {
-      return filter(pojoClass, Predicate.IN("id", idList.toArray()));
+      return toDtos(findAll(Predicate.IN("id", idList.toArray())), pojoClass);
     } catch (final JsonProcessingException | SQLException e) {
       LOG.error(e.getMessage(), e);
       return emptyList();
@@ -292,49 +527,76 @@ public class GenericPojoDao {
 
   public <E extends AbstractDTO> List<E> getAll(final Class<E> pojoClass) {
     try {
-      return filter(pojoClass, Predicate.EQ("type", SubEntities.getType(pojoClass)));
+      final Predicate predicate = Predicate.EQ("type", SubEntities.getType(pojoClass));
+      return toDtos(entityCache.get(SubEntities.BEAN_TYPE_MAP.get(pojoClass),
+          ALL_ENTITIES_KEY,
+          () -> findAll(predicate)), pojoClass);
     } catch (final JsonProcessingException | SQLException e) {
       LOG.error(e.getMessage(), e);
       return emptyList();
     }
   }
 
-  private <E extends AbstractDTO> List<E> filter(final Class<E> pojoClass,
-      final Predicate predicate)
-      throws SQLException, JsonProcessingException {
-    final List<GenericJsonEntity> entities = transactionService.executeTransaction(
+  /**
+   * @return the entities of the base table matching the predicate, or null if the query failed.
+   */
+  private List<GenericJsonEntity> findAll(final Predicate predicate) throws SQLException {
+    return transactionService.executeTransaction(
         (connection) -> databaseService.findAll(predicate,
             null,
             null,
             GenericJsonEntity.class,
-            connection), emptyList());
-    final List<E> results = new ArrayList<>();
-    if (CollectionUtils.isNotEmpty(entities)) {
-      for (final GenericJsonEntity entity : entities) {
-        final E e = toDto(entity, pojoClass);
-        results.add(e);
-      }
+            connection), null);
+  }
+
+  private static <E extends AbstractDTO> List<E> toDtos(final List<GenericJsonEntity> entities,
+      final Class<E> pojoClass) throws JsonProcessingException {
+    if (CollectionUtils.isEmpty(entities)) {
+      return new ArrayList<>();
+    }
+    final List<E> results = new ArrayList<>(entities.size());
+    for (final GenericJsonEntity entity : entities) {
+      results.add(toDto(entity, pojoClass));
     }
     return results;
   }
 
   /**
    * Use this method when you want to filter out a subset of the entities based on predicates,
-   * limits, offsets, etc.
-   * If you wish to get all the entities then please use {@link #getAll} as the filter method does a
-   * two-step operation to get the entities whereas {@link #getAll} gets the entities in a single
-   * operation.
+   * limits, offsets, etc. The index table and the base table are joined in a single query.
+   * Entities are sorted by id. For large result sets, prefer keyset pagination
+   * ({@link DaoFilter#setAfterId}) over offsets.
+   * If you wish to get all the entities then please use {@link #getAll} as it does not need the
+   * index table.
    *
    * @param daoFilter required filters to filter the result
    */
   @SuppressWarnings("unchecked")
   public <E extends AbstractDTO> List<E> filter(final DaoFilter daoFilter) {
-    final Class<? extends AbstractDTO> beanClass = daoFilter.getBeanClass();
-    final List<Long> ids = filterIds(daoFilter);
-    if (ids.isEmpty()) {
+    final Class<E> beanClass = (Class<E>) daoFilter.getBeanClass();
+    try {
+      validate(daoFilter);
+      return toDtos(findAllByIndex(daoFilter), beanClass);
+    } catch (final JsonProcessingException | SQLException e) {
+      LOG.error(e.getMessage(), e);
       return emptyList();
     }
-    return (List<E>) get(ids, beanClass);
+  }
+
+  /**
+   * @return the entities matching the filter, or null if the query failed.
+   */
+  private List<GenericJsonEntity> findAllByIndex(final DaoFilter daoFilter) throws SQLException {
+    final Class<? extends AbstractIndexEntity> indexClass =
+        BEAN_INDEX_MAP.get(daoFilter.getBeanClass());
+    return transactionService.executeTransaction(
+        (connection) -> databaseService.findAllByIndex(daoFilter.getPredicate(),
+            daoFilter.getAfterId(),
+            daoFilter.getLimit(),
+            daoFilter.getOffset(),
+            GenericJsonEntity.class,
+            indexClass,
+            connection), null);
   }
 
   /**
@@ -378,8 +640,18 @@ public class GenericPojoDao {
   }
 
   public <E extends AbstractDTO> List<E> get(final Predicate predicate, final Class<E> pojoClass) {
-    final List<Long> idsToFind = getIdsByPredicate(predicate, pojoClass);
-    return get(idsToFind, pojoClass);
+    final DaoFilter daoFilter = new DaoFilter().setPredicate(predicate).setBeanClass(pojoClass);
+    if (predicate == null) {
+      return filter(daoFilter);
+    }
+    try {
+      return toDtos(entityCache.get(SubEntities.BEAN_TYPE_MAP.get(pojoClass),
+          predicate,
+          () -> findAllByIndex(daoFilter)), pojoClass);
+    } catch (final JsonProcessingException | SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return emptyList();
+    }
   }
 
   public <E extends AbstractDTO> List<Long> getIdsByPredicate(final Predicate predicate,
@@ -462,6 +734,8 @@ public class GenericPojoDao {
     } catch (final SQLException e) {
       LOG.error(e.getMessage(), e);
       return 0;
+    } finally {
+      invalidateCache(pojoClass);
     }
   }
 
@@ -470,4 +744,58 @@ public class GenericPojoDao {
     final List<Long> idsToDelete = getIdsByPredicate(predicate, pojoClass);
     return delete(idsToDelete, pojoClass);
   }
+
+  /**
+   * Rewrites the payloads of the entities of a type with the codec of the type. Rows are read in
+   * batches by increasing id. Rows already encoded with the codec are not rewritten. A row is only rewritten if its
+   * payload did not change since it was read: concurrent updates are never overwritten.
+   *
+   * @return the number of rewritten rows.
+   */
+  public <E extends AbstractDTO> int migratePayloads(final Class<E> beanClass,
+      final int batchSize) {
+    final SubEntityType type = SubEntities.BEAN_TYPE_MAP.get(beanClass);
+    final PayloadCodec codec = payloadCodecs.get(type);
+    int migrated = 0;
+    long lastId = Long.MIN_VALUE;
+    try {
+      while (true) {
+        final Map<String, Object> parameters = Map.of("type", type.toString(), "id", lastId);
+        final List<GenericJsonEntity> entities = transactionService.executeTransaction(
+            (connection) -> databaseService.runSQL(FIND_PAYLOADS_AFTER_ID + batchSize,
+                parameters,
+                GenericJsonEntity.class,
+                connection), emptyList());
+        if (entities.isEmpty()) {
+          return migrated;
+        }
+        final List<GenericJsonEntity> rewritten = new ArrayList<>();
+        final List<Predicate> conditions = new ArrayList<>();
+        for (final GenericJsonEntity entity : entities) {
+          final String payload = codec.encode(PayloadCodec.toJson(entity.getJsonVal()));
+          if (!payload.equals(entity.getJsonVal())) {
+            final GenericJsonEntity e = new GenericJsonEntity().setJsonVal(payload);
+            e.setId(entity.getId());
+            rewritten.add(e);
+            conditions.add(Predicate.EQ("jsonVal", entity.getJsonVal()));
+          }
+        }
+        if (!rewritten.isEmpty()) {
+          final int[] updatedRows = transactionService.executeTransaction(
+              (connection) -> databaseService.updateAll(rewritten,
+                  Set.of("jsonVal"),
+                  conditions,
+                  connection), new int[0]);
+          for (final int rows : updatedRows) {
+            migrated += rows;
+          }
+          invalidateCache(beanClass);
+        }
+        lastId = entities.get(entities.size() - 1).getId();
+      }
+    } catch (final JsonProcessingException | SQLException e) {
+      LOG.error("Could not migrate payloads of {} after id {}", type, lastId, e);
+      return migrated;
+    }
+  }
 }
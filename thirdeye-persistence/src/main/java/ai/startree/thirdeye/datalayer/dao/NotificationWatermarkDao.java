@@ -0,0 +1,120 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.dao;
+
+import ai.startree.thirdeye.datalayer.DatabaseTransactionService;
+import ai.startree.thirdeye.datalayer.DatabaseTransactionService.DBOperation;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Reads and writes the subscription_group_watermark table: one narrow row per subscription group
+ * and alert, so that advancing a watermark does not rewrite the subscription group json.
+ *
+ * Database errors are thrown, not swallowed: a notification must not be sent again or skipped
+ * silently because its watermark could not be read or written.
+ */
+@Singleton
+public class NotificationWatermarkDao {
+
+  private static final String FIND_BY_SUBSCRIPTION_GROUP_ID = "SELECT alert_id, watermark"
+      + " FROM subscription_group_watermark WHERE subscription_group_id = ?";
+  private static final String UPSERT = "INSERT INTO subscription_group_watermark"
+      + " (subscription_group_id, alert_id, watermark) VALUES (?, ?, ?)"
+      + " ON DUPLICATE KEY UPDATE watermark = GREATEST(watermark, VALUES(watermark))";
+  private static final String DELETE_BY_SUBSCRIPTION_GROUP_ID =
+      "DELETE FROM subscription_group_watermark WHERE subscription_group_id = ?";
+
+  private final DatabaseTransactionService transactionService;
+
+  @Inject
+  public NotificationWatermarkDao(final DatabaseTransactionService transactionService) {
+    this.transactionService = transactionService;
+  }
+
+  public Map<Long, Long> get(final long subscriptionGroupId) {
+    return execute(connection -> {
+      final Map<Long, Long> watermarks = new HashMap<>();
+      try (final PreparedStatement statement = connection.prepareStatement(
+          FIND_BY_SUBSCRIPTION_GROUP_ID)) {
+        statement.setLong(1, subscriptionGroupId);
+        try (final ResultSet resultSet = statement.executeQuery()) {
+          while (resultSet.next()) {
+            watermarks.put(resultSet.getLong(1), resultSet.getLong(2));
+          }
+        }
+      }
+      return watermarks;
+    }, "read", subscriptionGroupId);
+  }
+
+  /**
+   * Upsert the watermarks in a single batch. Stored watermarks are only moved forward.
+   */
+  public void advance(final long subscriptionGroupId, final Map<Long, Long> watermarks) {
+    if (watermarks.isEmpty()) {
+      return;
+    }
+    execute(connection -> {
+      try (final PreparedStatement statement = connection.prepareStatement(UPSERT)) {
+        for (final Entry<Long, Long> e : watermarks.entrySet()) {
+          statement.setLong(1, subscriptionGroupId);
+          statement.setLong(2, e.getKey());
+          statement.setLong(3, e.getValue());
+          statement.addBatch();
+        }
+        statement.executeBatch();
+      }
+      return true;
+    }, "advance", subscriptionGroupId);
+  }
+
+  public int delete(final long subscriptionGroupId) {
+    return execute(connection -> {
+      try (final PreparedStatement statement = connection.prepareStatement(
+          DELETE_BY_SUBSCRIPTION_GROUP_ID)) {
+        statement.setLong(1, subscriptionGroupId);
+        return statement.executeUpdate();
+      }
+    }, "delete", subscriptionGroupId);
+  }
+
+  /**
+   * Runs the operation in a transaction. The transaction service logs and rolls back a failed
+   * operation and returns the default value: null here, so that the failure is thrown.
+   */
+  private <T> T execute(final DBOperation<T> operation, final String action,
+      final long subscriptionGroupId) {
+    final String message = String.format(
+        "Failed to %s the notification watermarks of subscription group %d",
+        action,
+        subscriptionGroupId);
+    final T result;
+    try {
+      result = transactionService.executeTransaction(operation, null);
+    } catch (final SQLException e) {
+      throw new RuntimeException(message, e);
+    }
+    if (result == null) {
+      throw new RuntimeException(message);
+    }
+    return result;
+  }
+}
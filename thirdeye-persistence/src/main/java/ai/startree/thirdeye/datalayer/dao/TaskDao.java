@@ -17,24 +17,37 @@ import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.datalayer.DatabaseService;
 import ai.startree.thirdeye.datalayer.DatabaseTransactionService;
+import ai.startree.thirdeye.datalayer.entity.SubEntityType;
 import ai.startree.thirdeye.datalayer.entity.TaskEntity;
+import ai.startree.thirdeye.datalayer.mapper.PayloadCodec;
+import ai.startree.thirdeye.datalayer.mapper.PayloadCodecs;
 import ai.startree.thirdeye.datalayer.mapper.TaskEntityMapper;
+import ai.startree.thirdeye.spi.Constants.JobStatus;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
 import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
+import ai.startree.thirdeye.spi.task.TaskAcquisition;
+import ai.startree.thirdeye.spi.task.TaskStatus;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import org.apache.commons.collections4.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,14 +59,44 @@ public class TaskDao {
   private static final boolean IS_DEBUG = LOG.isDebugEnabled();
   private static final ObjectMapper OBJECT_MAPPER = ThirdEyeSerialization.getObjectMapper();
 
+  private static final String FIND_WAITING_TASK_IDS =
+      "SELECT id FROM task_entity WHERE status = ? ORDER BY start_time ASC LIMIT ?";
+  // MySQL 8+: skip rows being acquired by other workers instead of waiting for their locks
+  private static final String SKIP_LOCKED = " FOR UPDATE SKIP LOCKED";
+  // without SKIP LOCKED, candidates are picked at random in a wider window, so that concurrent
+  // workers do not all try to acquire the same tasks
+  private static final int CANDIDATE_WINDOW_FACTOR = 10;
+  private static final String ACQUIRE_TASK = "UPDATE task_entity"
+      + " SET status = ?, worker_id = ?, start_time = ?, last_active = ?, update_time = ?,"
+      + " version = version + 1"
+      + " WHERE id = ? AND status = ?";
+
+  private static final String TIMEOUT_TASKS = "UPDATE task_entity"
+      + " SET status = ?, end_time = ?, update_time = ?, version = version + 1"
+      + " WHERE status = ? AND create_time >= ? AND update_time < ?";
+  // one row per SCHEDULED job with the number of its WAITING, TIMEOUT and FAILED tasks
+  private static final String FIND_SCHEDULED_JOB_TASK_COUNTS = "SELECT j.base_id,"
+      + " SUM(CASE WHEN t.status = ? THEN 1 ELSE 0 END),"
+      + " SUM(CASE WHEN t.status = ? THEN 1 ELSE 0 END),"
+      + " SUM(CASE WHEN t.status = ? THEN 1 ELSE 0 END)"
+      + " FROM job_index j LEFT JOIN task_entity t"
+      + " ON t.job_id = j.base_id AND t.create_time >= ? AND t.status IN (?, ?, ?)"
+      + " WHERE j.status = ? AND j.create_time >= ?"
+      + " GROUP BY j.base_id";
+
+  private static final String FIND_PAYLOADS_AFTER_ID = "WHERE id > :id ORDER BY id LIMIT ";
+
   private final DatabaseService databaseService;
   private final DatabaseTransactionService transactionService;
+  private final PayloadCodec payloadCodec;
 
   @Inject
   public TaskDao(final DatabaseService databaseService,
-      final DatabaseTransactionService transactionService) {
+      final DatabaseTransactionService transactionService,
+      final PayloadCodecs payloadCodecs) {
     this.databaseService = databaseService;
     this.transactionService = transactionService;
+    this.payloadCodec = payloadCodecs.get(SubEntityType.TASK);
   }
 
   private TaskEntity toEntity(final TaskDTO dto)
@@ -69,11 +112,17 @@ public class TaskDao {
   }
 
   private TaskDTO toDto(final TaskEntity entity) throws JsonProcessingException {
-    TaskDTO dto = OBJECT_MAPPER.readValue(entity.getJsonVal(), TaskDTO.class);
+    TaskDTO dto = PayloadCodec.read(OBJECT_MAPPER, entity.getJsonVal(), TaskDTO.class);
     dto.setId(entity.getId());
     dto.setCreateTime(entity.getCreateTime());
     dto.setUpdateTime(entity.getUpdateTime());
     dto.setVersion(entity.getVersion());
+    // columns are the source of truth: they can be updated without rewriting json_val
+    dto.setStatus(TaskStatus.valueOf(entity.getStatus()));
+    dto.setWorkerId(entity.getWorkerId());
+    dto.setStartTime(entity.getStartTime());
+    dto.setLastActive(entity.getLastActive());
+    dto.setEndTime(entity.getEndTime());
     return dto;
   }
 
@@ -89,7 +138,7 @@ public class TaskDao {
   }
 
   private String toJsonString(final TaskDTO dto) throws JsonProcessingException {
-    return OBJECT_MAPPER.writeValueAsString(dto);
+    return payloadCodec.write(OBJECT_MAPPER, dto);
   }
 
   public Long put(final TaskDTO pojo) {
@@ -155,6 +204,169 @@ public class TaskDao {
     }
   }
 
+  /**
+   * Acquire up to limit WAITING tasks for the given worker in a single transaction.
+   *
+   * Candidates are selected with FOR UPDATE SKIP LOCKED when the database supports it, so
+   * concurrent workers do not compete for the same rows. Otherwise, candidates are picked at
+   * random among the oldest WAITING tasks. Each candidate is then acquired with a conditional
+   * UPDATE on the status column; all the UPDATEs are sent in one batch. Only the columns of
+   * task_entity are updated: json_val is not read nor rewritten.
+   *
+   * @return the acquired tasks, in RUNNING status, and whether WAITING tasks were found.
+   */
+  public TaskAcquisition acquireTasks(final long workerId, final int limit) {
+    try {
+      final List<Long> candidateIds = new ArrayList<>();
+      final List<TaskEntity> entities = transactionService.executeTransaction(
+          (connection) -> acquireTasks(workerId, limit, candidateIds, connection),
+          Collections.emptyList());
+      return new TaskAcquisition(toDto(entities), !candidateIds.isEmpty());
+    } catch (final JsonProcessingException | SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return TaskAcquisition.NONE;
+    }
+  }
+
+  private List<TaskEntity> acquireTasks(final long workerId, final int limit,
+      final List<Long> candidateIds, final Connection connection) throws Exception {
+    candidateIds.addAll(findWaitingTaskIds(limit, connection));
+    if (candidateIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    final Timestamp now = new Timestamp(System.currentTimeMillis());
+    final List<Long> acquiredIds = new ArrayList<>();
+    try (final PreparedStatement statement = connection.prepareStatement(ACQUIRE_TASK)) {
+      for (final Long id : candidateIds) {
+        statement.setString(1, TaskStatus.RUNNING.toString());
+        statement.setLong(2, workerId);
+        statement.setLong(3, now.getTime());
+        statement.setTimestamp(4, now);
+        statement.setTimestamp(5, now);
+        statement.setLong(6, id);
+        statement.setString(7, TaskStatus.WAITING.toString());
+        statement.addBatch();
+      }
+      final int[] updateCounts = statement.executeBatch();
+      for (int i = 0; i < updateCounts.length; i++) {
+        if (updateCounts[i] > 0 || updateCounts[i] == Statement.SUCCESS_NO_INFO) {
+          acquiredIds.add(candidateIds.get(i));
+        }
+      }
+    }
+    if (acquiredIds.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return databaseService.findAll(Predicate.AND(
+            Predicate.IN("id", acquiredIds.toArray()),
+            Predicate.EQ("status", TaskStatus.RUNNING.toString()),
+            Predicate.EQ("workerId", workerId)),
+        null,
+        null,
+        TaskEntity.class,
+        connection);
+  }
+
+  private List<Long> findWaitingTaskIds(final int limit, final Connection connection)
+      throws SQLException {
+    final boolean skipLocked = supportsSkipLocked(connection);
+    final String sql = skipLocked
+        ? FIND_WAITING_TASK_IDS + SKIP_LOCKED
+        : FIND_WAITING_TASK_IDS;
+    final List<Long> ids = new ArrayList<>();
+    try (final PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setString(1, TaskStatus.WAITING.toString());
+      statement.setInt(2, skipLocked ? limit : limit * CANDIDATE_WINDOW_FACTOR);
+      try (final ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          ids.add(resultSet.getLong(1));
+        }
+      }
+    }
+    if (ids.size() <= limit) {
+      return ids;
+    }
+    Collections.shuffle(ids);
+    return new ArrayList<>(ids.subList(0, limit));
+  }
+
+  private static boolean supportsSkipLocked(final Connection connection) throws SQLException {
+    final DatabaseMetaData metaData = connection.getMetaData();
+    return "MySQL".equalsIgnoreCase(metaData.getDatabaseProductName())
+        && metaData.getDatabaseMajorVersion() >= 8;
+  }
+
+  /**
+   * Mark RUNNING tasks created after createdAfter and not updated since activeBefore as TIMEOUT,
+   * with a single UPDATE statement.
+   *
+   * @return the number of tasks marked as TIMEOUT
+   */
+  public int timeoutTasks(final Timestamp createdAfter, final Timestamp activeBefore) {
+    final long now = System.currentTimeMillis();
+    try {
+      return transactionService.executeTransaction(connection -> {
+        try (final PreparedStatement statement = connection.prepareStatement(TIMEOUT_TASKS)) {
+          statement.setString(1, TaskStatus.TIMEOUT.toString());
+          statement.setLong(2, now);
+          statement.setTimestamp(3, new Timestamp(now));
+          statement.setString(4, TaskStatus.RUNNING.toString());
+          statement.setTimestamp(5, createdAfter);
+          statement.setTimestamp(6, activeBefore);
+          return statement.executeUpdate();
+        }
+      }, 0);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return 0;
+    }
+  }
+
+  /**
+   * Find the next status of the SCHEDULED jobs created after createdAfter, from the status of
+   * their tasks created after createdAfter, with a single query. Jobs with WAITING tasks are
+   * left SCHEDULED. Otherwise, a job with a TIMEOUT task is TIMEOUT, a job with a FAILED task is
+   * FAILED and any other job is COMPLETED.
+   *
+   * @return the ids of the jobs to move to each status
+   */
+  public Map<JobStatus, List<Long>> findScheduledJobTransitions(final Timestamp createdAfter) {
+    final Map<JobStatus, List<Long>> transitions = new EnumMap<>(JobStatus.class);
+    try {
+      return transactionService.executeTransaction(connection -> {
+        try (final PreparedStatement statement = connection.prepareStatement(
+            FIND_SCHEDULED_JOB_TASK_COUNTS)) {
+          statement.setString(1, TaskStatus.WAITING.toString());
+          statement.setString(2, TaskStatus.TIMEOUT.toString());
+          statement.setString(3, TaskStatus.FAILED.toString());
+          statement.setTimestamp(4, createdAfter);
+          statement.setString(5, TaskStatus.WAITING.toString());
+          statement.setString(6, TaskStatus.TIMEOUT.toString());
+          statement.setString(7, TaskStatus.FAILED.toString());
+          statement.setString(8, JobStatus.SCHEDULED.toString());
+          statement.setTimestamp(9, createdAfter);
+          try (final ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+              if (resultSet.getLong(2) > 0) {
+                // WAITING tasks: the job is still running
+                continue;
+              }
+              final JobStatus next = resultSet.getLong(3) > 0 ? JobStatus.TIMEOUT
+                  : resultSet.getLong(4) > 0 ? JobStatus.FAILED
+                      : JobStatus.COMPLETED;
+              transitions.computeIfAbsent(next, k -> new ArrayList<>()).add(resultSet.getLong(1));
+            }
+          }
+        }
+        return transitions;
+      }, transitions);
+    } catch (final SQLException e) {
+      LOG.error(e.getMessage(), e);
+      return Collections.emptyMap();
+    }
+  }
+
   public List<TaskDTO> getAll() {
     try {
       final List<TaskEntity> entities = transactionService.executeTransaction(
@@ -312,4 +524,50 @@ public class TaskDao {
       return 0;
     }
   }
+
+  /**
+   * See {@link GenericPojoDao#migratePayloads(Class, int)}.
+   */
+  public int migratePayloads(final int batchSize) {
+    int migrated = 0;
+    long lastId = Long.MIN_VALUE;
+    try {
+      while (true) {
+        final Map<String, Object> parameters = Map.of("id", lastId);
+        final List<TaskEntity> entities = transactionService.executeTransaction(
+            (connection) -> databaseService.runSQL(FIND_PAYLOADS_AFTER_ID + batchSize,
+                parameters,
+                TaskEntity.class,
+                connection), Collections.emptyList());
+        if (entities.isEmpty()) {
+          return migrated;
+        }
+        final List<TaskEntity> rewritten = new ArrayList<>();
+        final List<Predicate> conditions = new ArrayList<>();
+        for (final TaskEntity entity : entities) {
+          final String payload = payloadCodec.encode(PayloadCodec.toJson(entity.getJsonVal()));
+          if (!payload.equals(entity.getJsonVal())) {
+            final TaskEntity e = new TaskEntity().setJsonVal(payload);
+            e.setId(entity.getId());
+            rewritten.add(e);
+            conditions.add(Predicate.EQ("jsonVal", entity.getJsonVal()));
+          }
+        }
+        if (!rewritten.isEmpty()) {
+          final int[] updatedRows = transactionService.executeTransaction(
+              (connection) -> databaseService.updateAll(rewritten,
+                  Set.of("jsonVal"),
+                  conditions,
+                  connection), new int[0]);
+          for (final int rows : updatedRows) {
+            migrated += rows;
+          }
+        }
+        lastId = entities.get(entities.size() - 1).getId();
+      }
+    } catch (final JsonProcessingException | SQLException e) {
+      LOG.error("Could not migrate payloads of tasks after id {}", lastId, e);
+      return migrated;
+    }
+  }
 }
@@ -18,6 +18,15 @@ public class DetectionConfigIndex extends AbstractIndexEntity {
   String name;
   boolean active;
   String createdBy;
+  // health columns, written by AlertHealthDao only: null, they are not written on alert updates
+  Long lastSuccessTime;
+  Integer consecutiveFailureCount;
+  String monitoredDatasource;
+  String monitoredDataset;
+  String monitoredMetric;
+  // template reference of the alert: to find the alerts using a template
+  Long templateId;
+  String templateName;
 
   public String getName() {
     return name;
@@ -42,4 +51,60 @@ public class DetectionConfigIndex extends AbstractIndexEntity {
   public void setCreatedBy(String createdBy) {
     this.createdBy = createdBy;
   }
+
+  public Long getLastSuccessTime() {
+    return lastSuccessTime;
+  }
+
+  public void setLastSuccessTime(Long lastSuccessTime) {
+    this.lastSuccessTime = lastSuccessTime;
+  }
+
+  public Integer getConsecutiveFailureCount() {
+    return consecutiveFailureCount;
+  }
+
+  public void setConsecutiveFailureCount(Integer consecutiveFailureCount) {
+    this.consecutiveFailureCount = consecutiveFailureCount;
+  }
+
+  public String getMonitoredDatasource() {
+    return monitoredDatasource;
+  }
+
+  public void setMonitoredDatasource(String monitoredDatasource) {
+    this.monitoredDatasource = monitoredDatasource;
+  }
+
+  public String getMonitoredDataset() {
+    return monitoredDataset;
+  }
+
+  public void setMonitoredDataset(String monitoredDataset) {
+    this.monitoredDataset = monitoredDataset;
+  }
+
+  public String getMonitoredMetric() {
+    return monitoredMetric;
+  }
+
+  public void setMonitoredMetric(String monitoredMetric) {
+    this.monitoredMetric = monitoredMetric;
+  }
+
+  public Long getTemplateId() {
+    return templateId;
+  }
+
+  public void setTemplateId(Long templateId) {
+    this.templateId = templateId;
+  }
+
+  public String getTemplateName() {
+    return templateName;
+  }
+
+  public void setTemplateName(String templateName) {
+    this.templateName = templateName;
+  }
 }
@@ -23,7 +23,7 @@ public class TaskEntity extends AbstractEntity implements HasJsonVal<TaskEntity>
   private long startTime;
   private long endTime;
   private long jobId;
-  private long workerId;
+  private Long workerId;
   private Timestamp lastActive;
   private String jsonVal;
 
@@ -92,11 +92,11 @@ public class TaskEntity extends AbstractEntity implements HasJsonVal<TaskEntity>
     return this;
   }
 
-  public long getWorkerId() {
+  public Long getWorkerId() {
     return workerId;
   }
 
-  public TaskEntity setWorkerId(final long workerId) {
+  public TaskEntity setWorkerId(final Long workerId) {
     this.workerId = workerId;
     return this;
   }
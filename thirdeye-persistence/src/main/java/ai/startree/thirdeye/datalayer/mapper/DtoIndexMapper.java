@@ -16,6 +16,7 @@ package ai.startree.thirdeye.datalayer.mapper;
 import ai.startree.thirdeye.datalayer.entity.AbstractIndexEntity;
 import ai.startree.thirdeye.datalayer.entity.HasJsonVal;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.RcaInvestigationDTO;
@@ -37,6 +38,7 @@ public class DtoIndexMapper {
     final AbstractIndexEntity abstractIndexEntity = buildAbstractIndexEntity(pojo, indexClass);
 
     if (abstractIndexEntity instanceof HasJsonVal) {
+      // index columns are searched: they always hold plain json
       ((HasJsonVal) abstractIndexEntity).setJsonVal(jsonVal);
     }
     abstractIndexEntity.setBaseId(pojo.getId());
@@ -48,7 +50,9 @@ public class DtoIndexMapper {
   private static <E extends AbstractDTO> AbstractIndexEntity buildAbstractIndexEntity(final E pojo,
       final Class<? extends AbstractIndexEntity> indexClass)
       throws InstantiationException, IllegalAccessException {
-    if (pojo instanceof AnomalyDTO) {
+    if (pojo instanceof AlertDTO) {
+      return IndexMapper.INSTANCE.toIndexEntity((AlertDTO) pojo);
+    } else if (pojo instanceof AnomalyDTO) {
       return IndexMapper.INSTANCE.toIndexEntity((AnomalyDTO) pojo);
     } else if (pojo instanceof EnumerationItemDTO) {
       return IndexMapper.INSTANCE.toIndexEntity((EnumerationItemDTO) pojo);
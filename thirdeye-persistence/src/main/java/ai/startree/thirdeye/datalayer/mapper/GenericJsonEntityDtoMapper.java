@@ -32,8 +32,23 @@ public class GenericJsonEntityDtoMapper {
 
   public static <E extends AbstractDTO> GenericJsonEntity toGenericJsonEntity(final E pojo)
       throws JsonProcessingException {
+    return toGenericJsonEntity(pojo, PayloadCodec.JSON);
+  }
+
+  public static <E extends AbstractDTO> GenericJsonEntity toGenericJsonEntity(final E pojo,
+      final PayloadCodec codec)
+      throws JsonProcessingException {
+    return toGenericJsonEntity(pojo, codec, toJsonString(pojo));
+  }
+
+  /**
+   * Builds the entity from the json of the pojo, when the json is also needed elsewhere.
+   */
+  public static <E extends AbstractDTO> GenericJsonEntity toGenericJsonEntity(final E pojo,
+      final PayloadCodec codec, final String json)
+      throws JsonProcessingException {
     final int version = pojo.getVersion() == 0 ? 1 : pojo.getVersion();
-    final String jsonVal = toJsonString(pojo);
+    final String jsonVal = codec.encode(json);
 
     final GenericJsonEntity entity = new GenericJsonEntity()
         .setType(SubEntities.getType(pojo.getClass()))
@@ -51,7 +66,7 @@ public class GenericJsonEntityDtoMapper {
   public static <DtoT extends AbstractDTO> DtoT toDto(final GenericJsonEntity entity,
       final Class<DtoT> beanClass)
       throws JsonProcessingException {
-    DtoT dto = OBJECT_MAPPER.readValue(entity.getJsonVal(), beanClass);
+    DtoT dto = PayloadCodec.read(OBJECT_MAPPER, entity.getJsonVal(), beanClass);
     dto
         .setId(entity.getId())
         .setVersion(entity.getVersion())
@@ -15,9 +15,11 @@ package ai.startree.thirdeye.datalayer.mapper;
 
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 
+import ai.startree.thirdeye.datalayer.entity.DetectionConfigIndex;
 import ai.startree.thirdeye.datalayer.entity.EnumerationItemIndex;
 import ai.startree.thirdeye.datalayer.entity.MergedAnomalyResultIndex;
 import ai.startree.thirdeye.datalayer.entity.RcaInvestigationIndex;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyLabelDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.EnumerationItemDTO;
@@ -37,6 +39,13 @@ public interface IndexMapper {
   @Mapping(source = "alert.id", target = "alertId")
   EnumerationItemIndex toIndexEntity(EnumerationItemDTO dto);
 
+  // the health columns are written by AlertHealthDao only: null columns are not updated
+  @Mapping(source = "template.id", target = "templateId")
+  @Mapping(source = "template.name", target = "templateName")
+  @Mapping(target = "lastSuccessTime", ignore = true)
+  @Mapping(target = "consecutiveFailureCount", ignore = true)
+  DetectionConfigIndex toIndexEntity(AlertDTO dto);
+
   @Mapping(source = "enumerationItem.id", target = "enumerationItemId")
   @Mapping(target = "dimensions", ignore = true)
   @Mapping(source = "anomalyLabels", target = "ignored", qualifiedByName = "labelsToIgnoredMapper")
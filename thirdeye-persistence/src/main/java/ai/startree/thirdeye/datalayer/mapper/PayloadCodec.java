@@ -0,0 +1,174 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.mapper;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encoding of the json_val payload of entities.
+ *
+ * Payloads are self-describing: an encoded payload starts with the prefix of its codec, and a
+ * payload without prefix is plain json. Rows written with any codec can always be read, so the
+ * codec of an entity type can be changed without migrating the existing rows first.
+ */
+public enum PayloadCodec {
+
+  /**
+   * Plain json.
+   */
+  JSON(null) {
+    @Override
+    public String write(final ObjectMapper objectMapper, final Object value)
+        throws JsonProcessingException {
+      return objectMapper.writeValueAsString(value);
+    }
+
+    @Override
+    public String encode(final String json) {
+      return json;
+    }
+
+    @Override
+    InputStream decode(final String payload) {
+      return new ByteArrayInputStream(payload.getBytes(UTF_8));
+    }
+  },
+
+  /**
+   * Deflate compressed json, in base64 so that it fits in the text columns. Small payloads that
+   * do not get smaller are kept as plain json.
+   *
+   * Binary json formats - smile, cbor - are not smaller than plain json once in base64, so they
+   * do not reduce the size of the rows. The zlib state is reused by each thread.
+   */
+  DEFLATE("deflate:") {
+    @Override
+    public String write(final ObjectMapper objectMapper, final Object value)
+        throws JsonProcessingException {
+      return encode(objectMapper.writeValueAsBytes(value));
+    }
+
+    @Override
+    public String encode(final String json) throws JsonProcessingException {
+      return encode(json.getBytes(UTF_8));
+    }
+
+    private String encode(final byte[] json) {
+      final String payload = prefix + deflate(json);
+      return payload.length() < json.length ? payload : new String(json, UTF_8);
+    }
+
+    @Override
+    InputStream decode(final String payload) {
+      final byte[] compressed = Base64.getDecoder()
+          .decode(payload.substring(prefix.length()).getBytes(UTF_8));
+      final Inflater inflater = INFLATER.get();
+      inflater.reset();
+      // the stream does not end an inflater it did not create
+      return new InflaterInputStream(new ByteArrayInputStream(compressed), inflater);
+    }
+  };
+
+  private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(
+      () -> new Deflater(Deflater.BEST_SPEED));
+  private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+  private static final int DEFLATE_BUFFER_SIZE = 4096;
+
+  final String prefix;
+
+  PayloadCodec(final String prefix) {
+    this.prefix = prefix;
+  }
+
+  /**
+   * Returns the codec a payload was written with.
+   */
+  public static PayloadCodec of(final String payload) {
+    if (payload != null && payload.startsWith(DEFLATE.prefix)) {
+      return DEFLATE;
+    }
+    return JSON;
+  }
+
+  /**
+   * Reads a payload written with any codec.
+   */
+  public static <T> T read(final ObjectMapper objectMapper, final String payload,
+      final Class<T> type) throws JsonProcessingException {
+    final PayloadCodec codec = of(payload);
+    if (codec == JSON) {
+      return objectMapper.readValue(payload, type);
+    }
+    try (final InputStream in = codec.decode(payload)) {
+      return objectMapper.readValue(in, type);
+    } catch (final JsonProcessingException e) {
+      throw e;
+    } catch (final IOException e) {
+      throw JsonMappingException.fromUnexpectedIOE(e);
+    }
+  }
+
+  /**
+   * Returns the plain json of a payload written with any codec.
+   */
+  public static String toJson(final String payload) throws JsonProcessingException {
+    final PayloadCodec codec = of(payload);
+    if (codec == JSON) {
+      return payload;
+    }
+    try (final InputStream in = codec.decode(payload)) {
+      return new String(in.readAllBytes(), UTF_8);
+    } catch (final IOException e) {
+      throw JsonMappingException.fromUnexpectedIOE(e);
+    }
+  }
+
+  /**
+   * Serializes the value and encodes it.
+   */
+  public abstract String write(ObjectMapper objectMapper, Object value)
+      throws JsonProcessingException;
+
+  /**
+   * Encodes plain json.
+   */
+  public abstract String encode(String json) throws JsonProcessingException;
+
+  abstract InputStream decode(String payload);
+
+  private static String deflate(final byte[] json) {
+    final Deflater deflater = DEFLATER.get();
+    deflater.reset();
+    deflater.setInput(json);
+    deflater.finish();
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 2);
+    final byte[] buffer = new byte[DEFLATE_BUFFER_SIZE];
+    while (!deflater.finished()) {
+      bytes.write(buffer, 0, deflater.deflate(buffer));
+    }
+    return Base64.getEncoder().encodeToString(bytes.toByteArray());
+  }
+}
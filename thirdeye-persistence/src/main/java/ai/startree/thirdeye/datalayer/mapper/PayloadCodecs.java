@@ -0,0 +1,42 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.mapper;
+
+import ai.startree.thirdeye.datalayer.entity.SubEntityType;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The codec used to write the payloads of each entity type. Entity types without codec are
+ * written as plain json.
+ */
+public class PayloadCodecs {
+
+  private final Map<SubEntityType, PayloadCodec> codecs = new EnumMap<>(SubEntityType.class);
+
+  public PayloadCodecs(final Map<SubEntityType, PayloadCodec> codecs) {
+    this.codecs.putAll(codecs);
+  }
+
+  public PayloadCodec get(final SubEntityType type) {
+    return codecs.getOrDefault(type, PayloadCodec.JSON);
+  }
+
+  /**
+   * The entity types whose codec is configured.
+   */
+  public Map<SubEntityType, PayloadCodec> getCodecs() {
+    return codecs;
+  }
+}
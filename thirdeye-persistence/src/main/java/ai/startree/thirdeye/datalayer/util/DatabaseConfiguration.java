@@ -13,8 +13,11 @@
  */
 package ai.startree.thirdeye.datalayer.util;
 
+import ai.startree.thirdeye.datalayer.entity.SubEntityType;
+import ai.startree.thirdeye.datalayer.mapper.PayloadCodec;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.google.common.collect.Maps;
+import java.util.HashMap;
 import java.util.Map;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -25,6 +28,15 @@ public class DatabaseConfiguration {
   private String url;
   private String driver;
   private Map<String, String> properties = Maps.newLinkedHashMap();
+  /**
+   * Codec of the json_val payloads per entity type. Entity types not listed are plain json.
+   */
+  private Map<SubEntityType, PayloadCodec> payloadCodecs = new HashMap<>();
+  /**
+   * If true, payloads written with another codec are rewritten in the background on startup.
+   */
+  private boolean migratePayloads = false;
+  private EntityCacheConfiguration entityCache = new EntityCacheConfiguration();
 
   public String getUser() {
     return user;
@@ -71,4 +83,32 @@ public class DatabaseConfiguration {
     this.properties = properties;
     return this;
   }
+
+  public Map<SubEntityType, PayloadCodec> getPayloadCodecs() {
+    return payloadCodecs;
+  }
+
+  public DatabaseConfiguration setPayloadCodecs(
+      final Map<SubEntityType, PayloadCodec> payloadCodecs) {
+    this.payloadCodecs = payloadCodecs;
+    return this;
+  }
+
+  public boolean isMigratePayloads() {
+    return migratePayloads;
+  }
+
+  public DatabaseConfiguration setMigratePayloads(final boolean migratePayloads) {
+    this.migratePayloads = migratePayloads;
+    return this;
+  }
+
+  public EntityCacheConfiguration getEntityCache() {
+    return entityCache;
+  }
+
+  public DatabaseConfiguration setEntityCache(final EntityCacheConfiguration entityCache) {
+    this.entityCache = entityCache;
+    return this;
+  }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.util;
+
+import ai.startree.thirdeye.datalayer.entity.SubEntityType;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Configuration of the read-through cache of low-churn entities. See
+ * {@link ai.startree.thirdeye.datalayer.dao.EntityCache}.
+ */
+public class EntityCacheConfiguration {
+
+  private boolean enabled = false;
+  /**
+   * Max number of cached lookups - by id, by predicate or all entities - per entity type.
+   */
+  private long maxSize = 10_000;
+  /**
+   * Cached lookups are evicted after this duration, even if the entities did not change.
+   */
+  private Duration ttl = Duration.ofMinutes(10);
+  /**
+   * The entities of a type are checked for changes made by other nodes at most once per interval.
+   * This is the max staleness of a cached lookup.
+   */
+  private Duration stalenessCheckInterval = Duration.ofSeconds(1);
+  private Set<SubEntityType> types = EnumSet.of(SubEntityType.ALERT,
+      SubEntityType.ALERT_TEMPLATE,
+      SubEntityType.DATASET,
+      SubEntityType.DATA_SOURCE,
+      SubEntityType.SUBSCRIPTION_GROUP);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public EntityCacheConfiguration setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+    return this;
+  }
+
+  public long getMaxSize() {
+    return maxSize;
+  }
+
+  public EntityCacheConfiguration setMaxSize(final long maxSize) {
+    this.maxSize = maxSize;
+    return this;
+  }
+
+  public Duration getTtl() {
+    return ttl;
+  }
+
+  public EntityCacheConfiguration setTtl(final Duration ttl) {
+    this.ttl = ttl;
+    return this;
+  }
+
+  public Duration getStalenessCheckInterval() {
+    return stalenessCheckInterval;
+  }
+
+  public EntityCacheConfiguration setStalenessCheckInterval(
+      final Duration stalenessCheckInterval) {
+    this.stalenessCheckInterval = stalenessCheckInterval;
+    return this;
+  }
+
+  public Set<SubEntityType> getTypes() {
+    return types;
+  }
+
+  public EntityCacheConfiguration setTypes(final Set<SubEntityType> types) {
+    this.types = types;
+    return this;
+  }
+}
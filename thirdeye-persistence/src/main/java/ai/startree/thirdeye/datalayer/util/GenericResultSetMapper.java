@@ -13,25 +13,44 @@
  */
 package ai.startree.thirdeye.datalayer.util;
 
+import static com.google.common.base.Preconditions.checkState;
+
 import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.sql.Clob;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Maps result set rows to entities.
+ *
+ * The mapping of an entity class is compiled once from the column info of its table: each column
+ * gets a reader that gets the typed jdbc value and sets the entity field with a method handle.
+ * The columns of a result set are resolved once per result set, not per row.
+ */
 @Singleton
 public class GenericResultSetMapper {
 
+  private static final MethodType SETTER_TYPE =
+      MethodType.methodType(void.class, Object.class, Object.class);
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
   private final EntityMappingHolder entityMappingHolder;
+  private final Map<Class<?>, EntityMapper> entityMappers = new ConcurrentHashMap<>();
 
   @Inject
   public GenericResultSetMapper(final EntityMappingHolder entityMappingHolder) {
@@ -43,44 +62,136 @@ public class GenericResultSetMapper {
     return toEntityList(rs, entityClass);
   }
 
+  @SuppressWarnings("unchecked")
   private <E extends AbstractEntity> List<E> toEntityList(final ResultSet rs,
       final Class<E> entityClass) throws Exception {
+    final EntityMapper entityMapper = entityMappers.computeIfAbsent(entityClass,
+        this::compile);
+    final ColumnReader[] readers = entityMapper.resolve(rs.getMetaData());
+    final List<E> entityList = new ArrayList<>();
+    try {
+      while (rs.next()) {
+        final Object entity = entityMapper.constructor.invokeExact();
+        for (int i = 0; i < readers.length; i++) {
+          if (readers[i] != null) {
+            readers[i].read(rs, i + 1, entity);
+          }
+        }
+        entityList.add((E) entity);
+      }
+    } catch (final SQLException | RuntimeException e) {
+      throw e;
+    } catch (final Throwable e) {
+      throw new IllegalStateException("Failed to map row to " + entityClass.getSimpleName(), e);
+    }
+    return entityList;
+  }
+
+  private EntityMapper compile(final Class<?> entityClass) {
     final String tableName =
         entityMappingHolder.tableToEntityNameMap.inverse().get(entityClass.getSimpleName());
-    final LinkedHashMap<String, ColumnInfo> columnInfoMap =
+    final Map<String, ColumnInfo> columnInfoMap =
         entityMappingHolder.columnInfoPerTable.get(tableName);
-    final List<E> entityList = new ArrayList<>();
+    checkState(columnInfoMap != null, "Entity not registered: " + entityClass.getSimpleName());
+    try {
+      final MethodHandles.Lookup lookup = MethodHandles.lookup();
+      final MethodHandle constructor = lookup
+          .unreflectConstructor(entityClass.getDeclaredConstructor())
+          .asType(CONSTRUCTOR_TYPE);
+      final Map<String, ColumnReader> readers = new HashMap<>();
+      for (final Entry<String, ColumnInfo> entry : columnInfoMap.entrySet()) {
+        final ColumnInfo columnInfo = entry.getValue();
+        if (columnInfo.getField() != null) {
+          readers.put(entry.getKey(), columnReader(lookup, columnInfo));
+        }
+      }
+      return new EntityMapper(constructor, readers);
+    } catch (final ReflectiveOperationException e) {
+      throw new IllegalStateException("Failed to compile mapper of "
+          + entityClass.getSimpleName(), e);
+    }
+  }
 
-    final ObjectMapper mapper = new ObjectMapper();
-    while (rs.next()) {
-      final AbstractEntity entityObj;
-      final ResultSetMetaData resultSetMetaData = rs.getMetaData();
-      final int numColumns = resultSetMetaData.getColumnCount();
-      final ObjectNode objectNode = mapper.createObjectNode();
-      for (int i = 1; i <= numColumns; i++) {
-        final String dbColumnName = resultSetMetaData.getColumnLabel(i).toLowerCase();
-        final ColumnInfo columnInfo = columnInfoMap.get(dbColumnName);
-        final Field field = columnInfo.getField();
-        final Object val;
-        if (columnInfo.getSqlType() == Types.CLOB) {
-          final Clob clob = rs.getClob(i);
-          val = clob.getSubString(1, (int) clob.length());
-        } else {
-          val = rs.getObject(i);
+  private static ColumnReader columnReader(final MethodHandles.Lookup lookup,
+      final ColumnInfo columnInfo) throws IllegalAccessException {
+    final Field field = columnInfo.getField();
+    final MethodHandle setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+    final Class<?> type = field.getType();
+    if (columnInfo.getSqlType() == Types.CLOB) {
+      return (rs, i, entity) -> {
+        final Clob clob = rs.getClob(i);
+        if (clob != null) {
+          setter.invokeExact(entity, (Object) clob.getSubString(1, (int) clob.length()));
         }
-        if (val == null) {
-          continue;
+      };
+    }
+    if (type == String.class) {
+      return (rs, i, entity) -> {
+        final String value = rs.getString(i);
+        if (value != null) {
+          setter.invokeExact(entity, (Object) value);
         }
-        if (field.getType().isAssignableFrom(Timestamp.class)) {
-          objectNode.put(field.getName(), ((Timestamp) val).getTime());
-        } else {
-          objectNode.put(field.getName(), val.toString());
+      };
+    }
+    if (type == Long.class || type == long.class) {
+      return (rs, i, entity) -> {
+        final long value = rs.getLong(i);
+        if (!rs.wasNull()) {
+          setter.invokeExact(entity, (Object) value);
+        }
+      };
+    }
+    if (type == Integer.class || type == int.class) {
+      return (rs, i, entity) -> {
+        final int value = rs.getInt(i);
+        if (!rs.wasNull()) {
+          setter.invokeExact(entity, (Object) value);
+        }
+      };
+    }
+    if (type == Timestamp.class) {
+      return (rs, i, entity) -> {
+        final Timestamp value = rs.getTimestamp(i);
+        if (value != null) {
+          setter.invokeExact(entity, (Object) value);
         }
+      };
+    }
+    return (rs, i, entity) -> {
+      final Object value = rs.getObject(i, type);
+      if (value != null) {
+        setter.invokeExact(entity, value);
       }
-      entityObj = mapper.treeToValue(objectNode, entityClass);
-      entityList.add((E) entityObj);
+    };
+  }
+
+  @FunctionalInterface
+  private interface ColumnReader {
+
+    void read(ResultSet rs, int columnIndex, Object entity) throws Throwable;
+  }
+
+  private static class EntityMapper {
+
+    private final MethodHandle constructor;
+    private final Map<String, ColumnReader> readers;
+
+    private EntityMapper(final MethodHandle constructor,
+        final Map<String, ColumnReader> readers) {
+      this.constructor = constructor;
+      this.readers = readers;
     }
 
-    return entityList;
+    /**
+     * Returns the reader of each column of the result set. Columns that do not map to a field
+     * of the entity get a null reader.
+     */
+    private ColumnReader[] resolve(final ResultSetMetaData metaData) throws SQLException {
+      final ColumnReader[] columnReaders = new ColumnReader[metaData.getColumnCount()];
+      for (int i = 0; i < columnReaders.length; i++) {
+        columnReaders[i] = readers.get(metaData.getColumnLabel(i + 1).toLowerCase());
+      }
+      return columnReaders;
+    }
   }
 }
@@ -17,6 +17,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
+import ai.startree.thirdeye.datalayer.entity.AbstractIndexEntity;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.Sets;
@@ -26,15 +27,16 @@ import java.lang.reflect.Array;
 import java.sql.Clob;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.commons.lang3.tuple.ImmutablePair;
@@ -54,7 +56,7 @@ public class SqlQueryBuilder {
   private static final Set<String> AUTO_UPDATE_COLUMN_SET =
       Sets.newHashSet("id", "last_modified");
   //insert sql per table
-  private final Map<String, String> insertSqlMap = new HashMap<>();
+  private final Map<String, String> insertSqlMap = new ConcurrentHashMap<>();
   private final EntityMappingHolder entityMappingHolder;
 
   @Inject
@@ -95,15 +97,41 @@ public class SqlQueryBuilder {
 
   public PreparedStatement createInsertStatement(final Connection conn, final String tableName,
       final AbstractEntity entity) throws Exception {
-    if (!insertSqlMap.containsKey(tableName)) {
-      final String insertSql = generateInsertSql(tableName,
-          entityMappingHolder.columnInfoPerTable.get(tableName.toLowerCase()));
-      insertSqlMap.put(tableName, insertSql);
-    }
-
-    final String sql = insertSqlMap.get(tableName);
     final PreparedStatement preparedStatement =
-        conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        conn.prepareStatement(insertSql(tableName), Statement.RETURN_GENERATED_KEYS);
+    setInsertParameters(conn, preparedStatement, tableName, entity);
+    return preparedStatement;
+  }
+
+  /**
+   * Prepares the insert statement of an entity class, to be used with
+   * {@link #setInsertParameters(Connection, PreparedStatement, AbstractEntity)} in a jdbc batch.
+   */
+  public PreparedStatement createBatchInsertStatement(final Connection conn,
+      final Class<? extends AbstractEntity> entityClass, final boolean returnGeneratedKeys)
+      throws Exception {
+    final String tableName = requireNonNull(
+        entityMappingHolder.tableToEntityNameMap.inverse().get(entityClass.getSimpleName()));
+    return returnGeneratedKeys
+        ? conn.prepareStatement(insertSql(tableName), Statement.RETURN_GENERATED_KEYS)
+        : conn.prepareStatement(insertSql(tableName));
+  }
+
+  public void setInsertParameters(final Connection conn,
+      final PreparedStatement preparedStatement, final AbstractEntity entity) throws Exception {
+    final String tableName = requireNonNull(
+        entityMappingHolder.tableToEntityNameMap.inverse().get(entity.getClass().getSimpleName()));
+    setInsertParameters(conn, preparedStatement, tableName, entity);
+  }
+
+  private String insertSql(final String tableName) {
+    return insertSqlMap.computeIfAbsent(tableName, t -> generateInsertSql(t,
+        entityMappingHolder.columnInfoPerTable.get(t.toLowerCase())));
+  }
+
+  private void setInsertParameters(final Connection conn,
+      final PreparedStatement preparedStatement, final String tableName,
+      final AbstractEntity entity) throws Exception {
     final LinkedHashMap<String, ColumnInfo> columnInfoMap =
         entityMappingHolder.columnInfoPerTable.get(tableName);
     int parameterIndex = 1;
@@ -126,11 +154,22 @@ public class SqlQueryBuilder {
         }
       }
     }
-    return preparedStatement;
   }
 
   public PreparedStatement createUpdateStatement(final Connection connection, final AbstractEntity entity,
       final Set<String> fieldsToUpdate, final Predicate predicate) throws Exception {
+    final ParameterizedSql update = buildUpdateSql(entity, fieldsToUpdate, predicate);
+    final PreparedStatement prepareStatement = connection.prepareStatement(update.getSql());
+    update.setParameters(prepareStatement);
+    return prepareStatement;
+  }
+
+  /**
+   * Builds the update query of an entity. Null fields are not updated, so entities of the same
+   * class can have different queries.
+   */
+  public ParameterizedSql buildUpdateSql(final AbstractEntity entity,
+      final Set<String> fieldsToUpdate, final Predicate predicate) throws Exception {
     final String tableName =
         entityMappingHolder.tableToEntityNameMap.inverse().get(entity.getClass().getSimpleName());
     final LinkedHashMap<String, ColumnInfo> columnInfoMap =
@@ -162,14 +201,13 @@ public class SqlQueryBuilder {
     final StringBuilder whereClause = new StringBuilder(" WHERE ");
     generateWhereClause(entityNameToDBNameMapping, predicate, parametersList, whereClause);
     sqlBuilder.append(whereClause);
-    int parameterIndex = 1;
-    final PreparedStatement prepareStatement = connection.prepareStatement(sqlBuilder.toString());
+    final List<Pair<Object, Integer>> parameters = new ArrayList<>();
     for (final Pair<String, Object> paramEntry : parametersList) {
       final String dbFieldName = paramEntry.getKey();
       final ColumnInfo info = columnInfoMap.get(dbFieldName);
-      prepareStatement.setObject(parameterIndex++, paramEntry.getValue(), info.getSqlType());
+      parameters.add(ImmutablePair.of(paramEntry.getValue(), info.getSqlType()));
     }
-    return prepareStatement;
+    return new ParameterizedSql(sqlBuilder.toString(), parameters);
   }
 
   public PreparedStatement createDeleteStatement(final Connection connection,
@@ -235,14 +273,177 @@ public class SqlQueryBuilder {
     return prepareStatement;
   }
 
+  /**
+   * Selects the rows of a base table whose row in the index table matches the predicate, in a
+   * single query joining both tables. Rows are sorted by id.
+   *
+   * @param afterId if not null, only rows with a greater id are selected: for keyset pagination
+   */
+  public PreparedStatement createFindByIndexJoinStatement(final Connection connection,
+      final Class<? extends AbstractEntity> entityClass,
+      final Class<? extends AbstractEntity> indexEntityClass,
+      final Predicate predicate, final Long afterId, final Long limit, final Long offset)
+      throws Exception {
+    final String tableName = requireNonNull(entityMappingHolder.tableToEntityNameMap.inverse()
+        .get(entityClass.getSimpleName()));
+    final String indexTableName = requireNonNull(entityMappingHolder.tableToEntityNameMap.inverse()
+        .get(indexEntityClass.getSimpleName()));
+    final StringBuilder sqlBuilder = new StringBuilder("SELECT b.* FROM ")
+        .append(tableName).append(" b JOIN ").append(indexTableName)
+        .append(" i ON b.id = i.base_id");
+    final List<Pair<String, Object>> parametersList = new ArrayList<>();
+    final List<String> conditions = new ArrayList<>();
+    if (predicate != null) {
+      final BiMap<String, String> entityNameToDBNameMapping =
+          entityMappingHolder.columnMappingPerTable.get(indexTableName).inverse();
+      final StringBuilder whereClause = new StringBuilder();
+      generateWhereClause(entityNameToDBNameMapping,
+          predicate,
+          parametersList,
+          whereClause,
+          "i.");
+      conditions.add(whereClause.toString());
+    }
+    if (afterId != null) {
+      conditions.add("b.id > ?");
+    }
+    if (!conditions.isEmpty()) {
+      sqlBuilder.append(" WHERE ").append(String.join(" AND ", conditions));
+    }
+    sqlBuilder.append(" ORDER BY b.id");
+    if (limit != null) {
+      sqlBuilder.append(" LIMIT ").append(limit);
+    }
+    if (offset != null) {
+      sqlBuilder.append(" OFFSET ").append(offset);
+    }
+    final PreparedStatement prepareStatement = connection.prepareStatement(sqlBuilder.toString());
+    int parameterIndex = 1;
+    final LinkedHashMap<String, ColumnInfo> columnInfoMap =
+        entityMappingHolder.columnInfoPerTable.get(indexTableName);
+    for (final Pair<String, Object> pair : parametersList) {
+      final String dbFieldName = pair.getKey();
+      final ColumnInfo info = columnInfoMap.get(dbFieldName);
+      checkNotNull(info,
+          "Found field '%s' but expected %s", dbFieldName, columnInfoMap.keySet());
+      prepareStatement.setObject(parameterIndex++, pair.getValue(), info.getSqlType());
+    }
+    if (afterId != null) {
+      prepareStatement.setLong(parameterIndex, afterId);
+    }
+    return prepareStatement;
+  }
+
   public PreparedStatement createCountStatement(final Connection connection, final Predicate predicate,
       final Class<? extends AbstractEntity> entityClass) throws Exception {
+    return createAggregateStatement(connection, "count(*)", predicate, entityClass);
+  }
+
+  /**
+   * Selects the row count, the max id and the max update time of the rows matching the
+   * predicate. Any insert, update or delete of these rows changes at least one of the values.
+   * Index tables have no id column: the max base id is selected instead.
+   */
+  public PreparedStatement createWatermarkStatement(final Connection connection,
+      final Predicate predicate, final Class<? extends AbstractEntity> entityClass)
+      throws Exception {
+    final String idColumn = AbstractIndexEntity.class.isAssignableFrom(entityClass)
+        ? "base_id"
+        : "id";
+    return createAggregateStatement(connection,
+        "count(*), max(" + idColumn + "), max(update_time)",
+        predicate,
+        entityClass);
+  }
+
+  /**
+   * Selects the number of distinct tuples of the given columns among the rows matching the
+   * predicate. Rows with a null value in any of the columns are not counted.
+   */
+  public PreparedStatement createCountDistinctStatement(final Connection connection,
+      final List<String> columns, final Predicate predicate,
+      final Class<? extends AbstractEntity> entityClass) throws Exception {
     final String tableName =
         entityMappingHolder.tableToEntityNameMap.inverse().get(entityClass.getSimpleName());
     final BiMap<String, String> entityNameToDBNameMapping =
         entityMappingHolder.columnMappingPerTable.get(tableName).inverse();
+    final List<String> dbColumns = new ArrayList<>(columns.size());
+    for (final String column : columns) {
+      dbColumns.add(checkNotNull(entityNameToDBNameMapping.get(column),
+          "Found field '%s' but expected %s", column, entityNameToDBNameMapping.keySet()));
+    }
+    return createAggregateStatement(connection,
+        "count(distinct " + String.join(", ", dbColumns) + ")",
+        predicate,
+        entityClass);
+  }
 
-    final StringBuilder sqlBuilder = new StringBuilder("SELECT count(*) FROM " + tableName);
+  /**
+   * Selects the number of rows of an index table matching the predicate, grouped by a column of
+   * the index table of the entities they reference. Rows are joined on
+   * {@code referenceColumn = base_id}.
+   */
+  public PreparedStatement createCountByReferenceStatement(final Connection connection,
+      final Class<? extends AbstractEntity> indexEntityClass, final Predicate predicate,
+      final String referenceColumn,
+      final Class<? extends AbstractEntity> referencedIndexEntityClass,
+      final String groupByColumn) throws Exception {
+    final String indexTableName = requireNonNull(entityMappingHolder.tableToEntityNameMap.inverse()
+        .get(indexEntityClass.getSimpleName()));
+    final String referencedTableName = requireNonNull(
+        entityMappingHolder.tableToEntityNameMap.inverse()
+            .get(referencedIndexEntityClass.getSimpleName()));
+    final BiMap<String, String> entityNameToDBNameMapping =
+        entityMappingHolder.columnMappingPerTable.get(indexTableName).inverse();
+    final String referenceDbColumn = checkNotNull(
+        entityNameToDBNameMapping.get(referenceColumn),
+        "Found field '%s' but expected %s", referenceColumn, entityNameToDBNameMapping.keySet());
+    final BiMap<String, String> referencedNameToDBNameMapping =
+        entityMappingHolder.columnMappingPerTable.get(referencedTableName).inverse();
+    final String groupByDbColumn = checkNotNull(
+        referencedNameToDBNameMapping.get(groupByColumn),
+        "Found field '%s' but expected %s", groupByColumn, referencedNameToDBNameMapping.keySet());
+
+    final StringBuilder sqlBuilder = new StringBuilder("SELECT r.").append(groupByDbColumn)
+        .append(", count(*) FROM ").append(indexTableName)
+        .append(" i JOIN ").append(referencedTableName)
+        .append(" r ON i.").append(referenceDbColumn).append(" = r.base_id");
+    final List<Pair<String, Object>> parametersList = new ArrayList<>();
+    if (predicate != null) {
+      final StringBuilder whereClause = new StringBuilder(" WHERE ");
+      generateWhereClause(entityNameToDBNameMapping,
+          predicate,
+          parametersList,
+          whereClause,
+          "i.");
+      sqlBuilder.append(whereClause);
+    }
+    sqlBuilder.append(" GROUP BY r.").append(groupByDbColumn);
+
+    final PreparedStatement prepareStatement = connection.prepareStatement(sqlBuilder.toString());
+    int parameterIndex = 1;
+    final LinkedHashMap<String, ColumnInfo> columnInfoMap =
+        entityMappingHolder.columnInfoPerTable.get(indexTableName);
+    for (final Pair<String, Object> pair : parametersList) {
+      final String dbFieldName = pair.getKey();
+      final ColumnInfo info = columnInfoMap.get(dbFieldName);
+      checkNotNull(info,
+          "Found field '%s' but expected %s", dbFieldName, columnInfoMap.keySet());
+      prepareStatement.setObject(parameterIndex++, pair.getValue(), info.getSqlType());
+    }
+    return prepareStatement;
+  }
+
+  private PreparedStatement createAggregateStatement(final Connection connection,
+      final String selectList, final Predicate predicate,
+      final Class<? extends AbstractEntity> entityClass) throws Exception {
+    final String tableName =
+        entityMappingHolder.tableToEntityNameMap.inverse().get(entityClass.getSimpleName());
+    final BiMap<String, String> entityNameToDBNameMapping =
+        entityMappingHolder.columnMappingPerTable.get(tableName).inverse();
+
+    final StringBuilder sqlBuilder = new StringBuilder(
+        "SELECT " + selectList + " FROM " + tableName);
     final List<Pair<String, Object>> parametersList = new ArrayList<>();
 
     if(predicate != null) {
@@ -272,6 +473,16 @@ public class SqlQueryBuilder {
 
   private void generateWhereClause(final BiMap<String, String> entityNameToDBNameMapping,
       final Predicate predicate, final List<Pair<String, Object>> parametersList, final StringBuilder whereClause) {
+    generateWhereClause(entityNameToDBNameMapping, predicate, parametersList, whereClause, "");
+  }
+
+  /**
+   * @param columnPrefix prefix of the column names in the sql, e.g. a table alias. Column
+   *     names in parametersList are not prefixed.
+   */
+  private void generateWhereClause(final BiMap<String, String> entityNameToDBNameMapping,
+      final Predicate predicate, final List<Pair<String, Object>> parametersList,
+      final StringBuilder whereClause, final String columnPrefix) {
     String columnName = null;
 
     if (predicate.getLhs() != null) {
@@ -280,6 +491,7 @@ public class SqlQueryBuilder {
           .format("Found field '%s' but expected %s", predicate.getLhs(),
               entityNameToDBNameMapping.keySet()));
     }
+    final String sqlColumnName = columnPrefix + columnName;
 
     switch (predicate.getOper()) {
       case AND:
@@ -289,19 +501,28 @@ public class SqlQueryBuilder {
         for (final Predicate childPredicate : predicate.getChildPredicates()) {
           whereClause.append(delim);
           generateWhereClause(entityNameToDBNameMapping, childPredicate, parametersList,
-              whereClause);
+              whereClause, columnPrefix);
           delim = "  " + predicate.getOper().toString() + " ";
         }
         whereClause.append(")");
         break;
       case EQ:
+      case NEQ:
+        if (predicate.getRhs() == null) {
+          whereClause.append(sqlColumnName)
+              .append(predicate.getOper() == Predicate.OPER.EQ ? " IS NULL" : " IS NOT NULL");
+          break;
+        }
+        whereClause.append(sqlColumnName).append(" ").append(predicate.getOper().toString())
+            .append(" ?");
+        parametersList.add(ImmutablePair.of(columnName, predicate.getRhs()));
+        break;
       case LIKE:
       case GT:
       case LT:
-      case NEQ:
       case LE:
       case GE:
-        whereClause.append(columnName).append(" ").append(predicate.getOper().toString())
+        whereClause.append(sqlColumnName).append(" ").append(predicate.getOper().toString())
             .append(" ?");
         parametersList.add(ImmutablePair.of(columnName, predicate.getRhs()));
         break;
@@ -311,7 +532,7 @@ public class SqlQueryBuilder {
           if (!rhs.getClass().isArray()) {
             rhs = rhs.toString().split(",");
           }
-          whereClause.append(columnName).append(" ").append(Predicate.OPER.IN)
+          whereClause.append(sqlColumnName).append(" ").append(Predicate.OPER.IN)
               .append("(");
           delim = "";
           final int length = Array.getLength(rhs);
@@ -328,7 +549,7 @@ public class SqlQueryBuilder {
         }
         break;
       case BETWEEN:
-        whereClause.append(columnName).append(predicate.getOper().toString()).append("? AND ?");
+        whereClause.append(sqlColumnName).append(predicate.getOper().toString()).append("? AND ?");
         final ImmutablePair<Object, Object> pair = (ImmutablePair<Object, Object>) predicate.getRhs();
         parametersList.add(ImmutablePair.of(columnName, pair.getLeft()));
         parametersList.add(ImmutablePair.of(columnName, pair.getRight()));
@@ -390,4 +611,29 @@ public class SqlQueryBuilder {
 
     return ps;
   }
+
+  /**
+   * A sql query with its parameter values and sql types.
+   */
+  public static class ParameterizedSql {
+
+    private final String sql;
+    private final List<Pair<Object, Integer>> parameters;
+
+    private ParameterizedSql(final String sql, final List<Pair<Object, Integer>> parameters) {
+      this.sql = sql;
+      this.parameters = parameters;
+    }
+
+    public String getSql() {
+      return sql;
+    }
+
+    public void setParameters(final PreparedStatement preparedStatement) throws SQLException {
+      int parameterIndex = 1;
+      for (final Pair<Object, Integer> parameter : parameters) {
+        preparedStatement.setObject(parameterIndex++, parameter.getLeft(), parameter.getRight());
+      }
+    }
+  }
 }
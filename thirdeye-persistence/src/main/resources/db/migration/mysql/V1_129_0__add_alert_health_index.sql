@@ -0,0 +1,19 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+ALTER TABLE detection_config_index
+    ADD COLUMN last_success_time bigint(20) DEFAULT NULL;
+ALTER TABLE detection_config_index
+    ADD COLUMN consecutive_failure_count int(10) DEFAULT 0;
+CREATE INDEX detection_config_health_idx ON detection_config_index (active, last_success_time);
@@ -0,0 +1,22 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+ALTER TABLE detection_config_index
+    ADD COLUMN monitored_datasource varchar(200) DEFAULT NULL;
+ALTER TABLE detection_config_index
+    ADD COLUMN monitored_dataset varchar(200) DEFAULT NULL;
+ALTER TABLE detection_config_index
+    ADD COLUMN monitored_metric varchar(200) DEFAULT NULL;
+CREATE INDEX detection_config_monitored_metric_idx
+    ON detection_config_index (active, monitored_datasource, monitored_dataset, monitored_metric);
@@ -0,0 +1,24 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+CREATE TABLE IF NOT EXISTS subscription_group_watermark
+(
+    subscription_group_id bigint(20) NOT NULL,
+    alert_id              bigint(20) NOT NULL,
+    watermark             bigint(20) NOT NULL,
+    PRIMARY KEY (subscription_group_id, alert_id)
+    ) ENGINE = InnoDB;
+
+CREATE INDEX merged_anomaly_result_alert_create_time_idx
+    ON merged_anomaly_result_index (detection_config_id, create_time);
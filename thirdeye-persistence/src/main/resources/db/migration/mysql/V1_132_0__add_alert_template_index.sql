@@ -0,0 +1,27 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+ALTER TABLE detection_config_index
+    ADD COLUMN template_id bigint(20) DEFAULT NULL;
+ALTER TABLE detection_config_index
+    ADD COLUMN template_name varchar(256) DEFAULT NULL;
+CREATE INDEX detection_config_template_id_idx ON detection_config_index (template_id);
+CREATE INDEX detection_config_template_name_idx ON detection_config_index (template_name);
+-- alerts with a null monitored metric are indexed again at startup: this fills the template
+-- columns, and the monitored metric of the alerts saved before V1_130_0.
+UPDATE detection_config_index
+SET monitored_datasource = NULL,
+    monitored_dataset    = NULL,
+    monitored_metric     = NULL;
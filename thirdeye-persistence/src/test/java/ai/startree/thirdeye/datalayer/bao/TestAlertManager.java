@@ -0,0 +1,210 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.bao;
+
+import static ai.startree.thirdeye.spi.datalayer.dto.AlertDTO.NO_MONITORED_METRIC;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.startree.thirdeye.datalayer.MySqlTestDatabase;
+import ai.startree.thirdeye.datalayer.dao.AlertHealthDao;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
+import ai.startree.thirdeye.spi.datalayer.dto.AlertTemplateDTO;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestAlertManager {
+
+  private static final long NOW = System.currentTimeMillis();
+  private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+  private AlertManager alertManager;
+  private AlertHealthDao alertHealthDao;
+
+  private static AlertDTO alert(final String name, final boolean active) {
+    final AlertDTO alert = new AlertDTO();
+    alert.setName(name);
+    alert.setActive(active);
+    alert.setCron("0 0 * * * ? *");
+    return alert;
+  }
+
+  @BeforeClass
+  void beforeClass() {
+    alertManager = MySqlTestDatabase.sharedInjector().getInstance(AlertManager.class);
+    alertHealthDao = MySqlTestDatabase.sharedInjector().getInstance(AlertHealthDao.class);
+  }
+
+  private AlertDTO save(final AlertDTO alert, final Long lastSuccessTime,
+      final int consecutiveFailureCount) {
+    alertManager.save(alert);
+    if (lastSuccessTime != null) {
+      alertHealthDao.recordSuccess(alert.getId(), lastSuccessTime);
+    }
+    for (int i = 0; i < consecutiveFailureCount; i++) {
+      alertManager.recordFailure(alert.getId());
+    }
+    return alert;
+  }
+
+  @AfterMethod(alwaysRun = true)
+  void afterMethod() {
+    alertManager.findAll().forEach(alertManager::delete);
+  }
+
+  private int failureCount(final long alertId) {
+    for (int count = 0; count < 10; count++) {
+      if (!alertManager.findByPredicate(Predicate.AND(Predicate.EQ("baseId", alertId),
+          Predicate.EQ("consecutiveFailureCount", count))).isEmpty()) {
+        return count;
+      }
+    }
+    throw new AssertionError("failure count not found for alert " + alertId);
+  }
+
+  @Test
+  public void testFindActiveFailingSince() {
+    save(alert("failing", true), NOW - 40 * DAY, 3);
+    save(alert("recentSuccess", true), NOW - DAY, 2);
+    save(alert("notFailing", true), NOW - 40 * DAY, 0);
+    save(alert("inactive", false), NOW - 40 * DAY, 3);
+    save(alert("neverRan", true), null, 0);
+
+    assertThat(alertManager.findActiveFailingSince(NOW - 30 * DAY))
+        .extracting(AlertDTO::getName)
+        .containsExactly("failing");
+    assertThat(alertManager.findActiveFailingSince(NOW))
+        .extracting(AlertDTO::getName)
+        .containsExactlyInAnyOrder("failing", "recentSuccess");
+  }
+
+  @Test
+  public void testRecordFailure() {
+    final long lastSuccessTime = NOW - 40 * DAY;
+    final AlertDTO alert = save(alert("alert", true), lastSuccessTime, 0);
+
+    assertThat(alertManager.recordFailure(alert.getId())).isEqualTo(1);
+    assertThat(alertManager.recordFailure(alert.getId())).isEqualTo(1);
+
+    assertThat(failureCount(alert.getId())).isEqualTo(2);
+    // the health window start does not move
+    assertThat(alertManager.findActiveFailingSince(lastSuccessTime)).hasSize(1);
+    assertThat(alertManager.findActiveFailingSince(lastSuccessTime - 1)).isEmpty();
+
+    assertThat(alertManager.recordFailure(alert.getId() + 1_000_000)).isEqualTo(0);
+  }
+
+  @Test
+  public void testRecordFailureWithoutSuccessStartsAtCreation() {
+    final AlertDTO alert = alert("neverSucceeded", true);
+    // timestamps are stored with a precision of one second or more
+    final long beforeCreation = System.currentTimeMillis() - 1000;
+    alertManager.save(alert);
+
+    alertManager.recordFailure(alert.getId());
+    final long afterFailure = System.currentTimeMillis();
+
+    assertThat(failureCount(alert.getId())).isEqualTo(1);
+    assertThat(alertManager.findActiveFailingSince(afterFailure)).hasSize(1);
+    assertThat(alertManager.findActiveFailingSince(beforeCreation - 1)).isEmpty();
+  }
+
+  @Test
+  public void testRecordFailureKeepsConcurrentEdits() {
+    final AlertDTO alert = save(alert("beforeEdit", true), NOW, 0);
+    final AlertDTO edited = alertManager.findById(alert.getId());
+    edited.setDescription("edited");
+    alertManager.update(edited);
+
+    alertManager.recordFailure(alert.getId());
+
+    assertThat(alertManager.findById(alert.getId()).getDescription()).isEqualTo("edited");
+    assertThat(failureCount(alert.getId())).isEqualTo(1);
+  }
+
+  @Test
+  public void testUpdateKeepsHealth() {
+    final long lastSuccessTime = NOW - 40 * DAY;
+    final AlertDTO alert = save(alert("alert", true), lastSuccessTime, 0);
+    // read before the failures: saving it must not write back the health it was read with
+    final AlertDTO stale = alertManager.findById(alert.getId());
+    alertManager.recordFailure(alert.getId());
+    alertManager.recordFailure(alert.getId());
+
+    stale.setDescription("edited");
+    alertManager.update(stale);
+    alertManager.updateAll(alertManager.findActiveFailingSince(lastSuccessTime));
+
+    assertThat(failureCount(alert.getId())).isEqualTo(2);
+    assertThat(alertManager.findActiveFailingSince(lastSuccessTime))
+        .extracting(AlertDTO::getDescription)
+        .containsExactly("edited");
+  }
+
+  @Test
+  public void testRecordSuccessResetsFailures() {
+    final AlertDTO alert = save(alert("alert", true), NOW - 40 * DAY, 2);
+
+    assertThat(alertManager.recordSuccess(alert.getId())).isEqualTo(1);
+
+    assertThat(failureCount(alert.getId())).isEqualTo(0);
+    assertThat(alertManager.findActiveFailingSince(System.currentTimeMillis())).isEmpty();
+    assertThat(alertManager.recordSuccess(alert.getId() + 1_000_000)).isEqualTo(0);
+  }
+
+  @Test
+  public void testFindByIndexedTemplateReference() {
+    final AlertTemplateDTO idReference = new AlertTemplateDTO();
+    idReference.setId(7L);
+    alertManager.save(alert("byId", true).setTemplate(idReference));
+    alertManager.save(alert("byName", true).setTemplate(new AlertTemplateDTO().setName("t"))
+        .setMonitoredMetric("metric"));
+    alertManager.save(alert("other", true).setTemplate(new AlertTemplateDTO().setName("o")));
+
+    assertThat(alertManager.findByPredicate(Predicate.OR(
+        Predicate.IN("templateId", new Object[]{7L}),
+        Predicate.IN("templateName", new Object[]{"t"}))))
+        .extracting(AlertDTO::getName)
+        .containsExactlyInAnyOrder("byId", "byName");
+    assertThat(alertManager.findByPredicate(Predicate.EQ("monitoredMetric", null)))
+        .extracting(AlertDTO::getName)
+        .containsExactlyInAnyOrder("byId", "other");
+  }
+
+  @Test
+  public void testCountActiveMonitoredMetrics() {
+    final String[][] monitored = {
+        {"pinot", "dataset", "metric1"},
+        {"pinot", "dataset", "metric1"},
+        {"pinot", "dataset", "metric2"},
+        // not indexed yet
+        {null, null, null},
+        {NO_MONITORED_METRIC, NO_MONITORED_METRIC, NO_MONITORED_METRIC}};
+    for (int i = 0; i < monitored.length; i++) {
+      alertManager.save(alert("alert" + i, true)
+          .setMonitoredDatasource(monitored[i][0])
+          .setMonitoredDataset(monitored[i][1])
+          .setMonitoredMetric(monitored[i][2]));
+    }
+    alertManager.save(alert("inactive", false)
+        .setMonitoredDatasource("pinot")
+        .setMonitoredDataset("dataset")
+        .setMonitoredMetric("metric3"));
+
+    assertThat(alertManager.countActiveMonitoredMetrics()).isEqualTo(2);
+  }
+}
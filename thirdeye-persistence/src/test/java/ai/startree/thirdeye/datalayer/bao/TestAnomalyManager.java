@@ -42,6 +42,7 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
@@ -281,6 +282,42 @@ public class TestAnomalyManager {
     assertThat(findAnomalyById(filterAnomalies, id2).getFeedback()).isNull();
   }
 
+  @Test
+  public void testCountParentAnomaliesByFeedbackType() {
+    final Long id1 = mergedAnomalyResultDAO.save(anomaly(900000, 900100));
+    final Long id2 = mergedAnomalyResultDAO.save(anomaly(900100, 900200));
+    final Long id3 = mergedAnomalyResultDAO.save(anomaly(900200, 900300));
+    mergedAnomalyResultDAO.save(anomaly(900300, 900400));
+    provideFeedbackToAnomaly(id1, AnomalyFeedbackType.ANOMALY, "c1");
+    provideFeedbackToAnomaly(id2, AnomalyFeedbackType.ANOMALY, "c2");
+    provideFeedbackToAnomaly(id3, AnomalyFeedbackType.NOT_ANOMALY, "c3");
+
+    final DaoFilter filter = new DaoFilter().setPredicate(Predicate.AND(
+        Predicate.GE("startTime", 900000),
+        Predicate.LT("startTime", 901000)));
+    final Map<AnomalyFeedbackType, Long> counts =
+        mergedAnomalyResultDAO.countParentAnomaliesByFeedbackType(filter);
+    assertThat(counts).isEqualTo(Map.of(
+        AnomalyFeedbackType.ANOMALY, 2L,
+        AnomalyFeedbackType.NOT_ANOMALY, 1L));
+  }
+
+  @Test
+  public void testFindByCreateTimeWatermarks() {
+    final AnomalyDTO a1 = anomaly(1000, 2000);
+    a1.setDetectionConfigId(910001L);
+    final AnomalyDTO a2 = anomaly(1000, 2000);
+    a2.setDetectionConfigId(910002L);
+    mergedAnomalyResultDAO.save(a1);
+    mergedAnomalyResultDAO.save(a2);
+
+    final long now = System.currentTimeMillis();
+    final List<AnomalyDTO> anomalies = mergedAnomalyResultDAO.findByCreateTimeWatermarks(Map.of(
+        910001L, now - 600_000L,
+        910002L, now + 600_000L), now + 60_000L);
+    assertThat(collectIds(anomalies)).isEqualTo(Set.of(a1.getId()));
+  }
+
   @Test
   public void testSaveChildren() {
     mergedResult = anomaly(1000, 2000);
@@ -422,6 +459,86 @@ public class TestAnomalyManager {
     Assert.assertEquals(readChildren.get(1).getChildren().iterator().next().getEndTime(), 1800);
   }
 
+  @Test
+  public void testSaveAllAnomalyHierarchies() {
+    final AnomalyDTO parent = anomaly(1000, 2000);
+    final AnomalyDTO child1 = anomaly(1000, 1500);
+    final AnomalyDTO child2 = anomaly(1500, 2000);
+    final AnomalyDTO child3 = anomaly(1600, 1800);
+    child2.setChildren(new HashSet<>(Arrays.asList(child3)));
+    parent.setChildren(new HashSet<>(Arrays.asList(child1, child2)));
+    final AnomalyDTO single = anomaly(3000, 4000);
+
+    final int saved = mergedAnomalyResultDAO.saveAll(Arrays.asList(parent, single));
+    Assert.assertEquals(saved, 5);
+    Assert.assertNotNull(single.getId());
+    Assert.assertNotNull(child3.getId());
+
+    final AnomalyDTO read = mergedAnomalyResultDAO.findById(parent.getId());
+    Assert.assertEquals(read.getChildIds(), Set.of(child1.getId(), child2.getId()));
+    Assert.assertEquals(mergedAnomalyResultDAO.findById(child2.getId()).getChildIds(),
+        Set.of(child3.getId()));
+    Assert.assertTrue(mergedAnomalyResultDAO.findById(child3.getId()).isChild());
+
+    parent.setNotified(true);
+    single.setNotified(true);
+    mergedAnomalyResultDAO.updateAll(Arrays.asList(parent, single));
+    Assert.assertTrue(mergedAnomalyResultDAO.findById(parent.getId()).isNotified());
+    Assert.assertTrue(mergedAnomalyResultDAO.findById(single.getId()).isNotified());
+    // the index table is updated too
+    final Predicate notified = Predicate.AND(Predicate.EQ("notified", true),
+        Predicate.IN("baseId", new Long[]{parent.getId(), child1.getId(), single.getId()}));
+    Assert.assertEquals(collectIds(mergedAnomalyResultDAO.findByPredicate(notified)),
+        Set.of(parent.getId(), single.getId()));
+  }
+
+  @Test
+  public void testCreateAllAndUpdateAllCheckIds() {
+    final AnomalyDTO existing = anomaly(1000, 2000);
+    mergedAnomalyResultDAO.save(existing);
+
+    Assert.assertThrows(IllegalArgumentException.class,
+        () -> mergedAnomalyResultDAO.createAll(Arrays.asList(anomaly(3000, 4000), existing)));
+    Assert.assertThrows(NullPointerException.class,
+        () -> mergedAnomalyResultDAO.updateAll(Arrays.asList(existing, anomaly(3000, 4000))));
+
+    // children of an anomaly to create can be new or existing anomalies
+    final AnomalyDTO parent = anomaly(1000, 4000);
+    final AnomalyDTO newChild = anomaly(3000, 4000);
+    parent.setChildren(new HashSet<>(Arrays.asList(existing, newChild)));
+    Assert.assertEquals(mergedAnomalyResultDAO.createAll(Arrays.asList(parent)), 3);
+    Assert.assertEquals(mergedAnomalyResultDAO.findById(parent.getId()).getChildIds(),
+        Set.of(existing.getId(), newChild.getId()));
+  }
+
+  @Test
+  public void testDecorateAnomalyTrees() {
+    final AnomalyDTO parent1 = anomaly(1000, 2000);
+    final AnomalyDTO child1 = anomaly(1000, 1500);
+    final AnomalyDTO grandChild1 = anomaly(1000, 1200);
+    child1.setChildren(new HashSet<>(Arrays.asList(grandChild1)));
+    parent1.setChildren(new HashSet<>(Arrays.asList(child1)));
+    final AnomalyDTO parent2 = anomaly(3000, 4000);
+    final AnomalyDTO child2 = anomaly(3000, 3500);
+    parent2.setChildren(new HashSet<>(Arrays.asList(child2)));
+    mergedAnomalyResultDAO.saveAll(Arrays.asList(parent1, parent2));
+
+    // the child of the first tree is also decorated as a root
+    final List<AnomalyDTO> decorated = mergedAnomalyResultDAO.decorate(Arrays.asList(
+        mergedAnomalyResultDAO.findById(parent1.getId()),
+        mergedAnomalyResultDAO.findById(parent2.getId()),
+        mergedAnomalyResultDAO.findById(child1.getId())));
+
+    Assert.assertEquals(decorated.size(), 3);
+    final AnomalyDTO readChild1 = decorated.get(0).getChildren().iterator().next();
+    Assert.assertEquals(readChild1.getId(), child1.getId());
+    // the child already in the list is not loaded again
+    Assert.assertSame(readChild1, decorated.get(2));
+    Assert.assertEquals(collectIds(readChild1.getChildren()), Set.of(grandChild1.getId()));
+    Assert.assertEquals(collectIds(decorated.get(1).getChildren()), Set.of(child2.getId()));
+    Assert.assertEquals(collectIds(decorated.get(2).getChildren()), Set.of(grandChild1.getId()));
+  }
+
   @Test
   public void testUpdateToAnomalyHierarchy() {
     final AnomalyDTO parent = new AnomalyDTO();
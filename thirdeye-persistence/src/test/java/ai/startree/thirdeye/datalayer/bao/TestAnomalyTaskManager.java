@@ -18,6 +18,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import ai.startree.thirdeye.aspect.TimeProvider;
 import ai.startree.thirdeye.datalayer.DatalayerTestUtils;
 import ai.startree.thirdeye.datalayer.MySqlTestDatabase;
+import ai.startree.thirdeye.spi.Constants.JobStatus;
 import ai.startree.thirdeye.spi.datalayer.bao.JobManager;
 import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.JobDTO;
@@ -30,6 +31,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.Injector;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -188,6 +190,31 @@ public class TestAnomalyTaskManager {
     Assert.assertTrue(timeoutTasksWithinOneDays.size() > 0);
   }
 
+  @Test(dependsOnMethods = {"testFindTimeoutTasksWithinDays"})
+  public void testSetBasedTimeoutAndJobTransitions() throws JsonProcessingException {
+    final JobDTO job = DatalayerTestUtils.getTestJobSpec();
+    final Long jobId = jobDAO.save(job);
+    final TaskDTO task = getTestTaskSpec(job);
+    task.setStatus(TaskStatus.RUNNING);
+    final Long taskId = taskDAO.save(task);
+
+    CLOCK.tick(55); // To ensure the task has been updated more than 50 ms ago
+    assertThat(taskDAO.updateTimeoutTasksWithinDays(7, 50)).isGreaterThan(0);
+    assertThat(taskDAO.findById(taskId).getStatus()).isEqualTo(TaskStatus.TIMEOUT);
+
+    final Map<JobStatus, List<Long>> transitions = taskDAO
+        .findScheduledJobTransitionsWithinDays(7);
+    assertThat(transitions.get(JobStatus.TIMEOUT)).contains(jobId);
+
+    assertThat(jobDAO.updateJobStatusAndEndTimeByIds(List.of(jobId), JobStatus.TIMEOUT, 42L))
+        .isEqualTo(1);
+    final JobDTO updated = jobDAO.findById(jobId);
+    assertThat(updated.getStatus()).isEqualTo(JobStatus.TIMEOUT);
+    assertThat(updated.getScheduleEndTime()).isEqualTo(42L);
+    assertThat(taskDAO.findScheduledJobTransitionsWithinDays(7).values())
+        .noneMatch(jobIds -> jobIds.contains(jobId));
+  }
+
   TaskDTO getTestTaskSpec(JobDTO anomalyJobSpec) throws JsonProcessingException {
     TaskDTO jobSpec = new TaskDTO();
     jobSpec.setJobName("Test_Anomaly_Task");
@@ -17,6 +17,7 @@ import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
+import ai.startree.thirdeye.datalayer.core.TaskNotificationChannel;
 import ai.startree.thirdeye.datalayer.dao.TaskDao;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
 import ai.startree.thirdeye.spi.task.TaskStatus;
@@ -67,7 +68,7 @@ public class TestTaskManager {
     final TaskDao dao = Mockito.mock(TaskDao.class);
     when(dao.filter(any())).thenReturn(tasks);
     final MetricRegistry metricRegistry = new MetricRegistry();
-    new TaskManagerImpl(dao, metricRegistry);
+    new TaskManagerImpl(dao, metricRegistry, new TaskNotificationChannel());
     return (Long) metricRegistry.getGauges().get(gaugeName).getValue();
   }
 
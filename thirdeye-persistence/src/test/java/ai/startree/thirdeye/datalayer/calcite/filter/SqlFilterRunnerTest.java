@@ -17,6 +17,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import ai.startree.thirdeye.datalayer.calcite.object.adapter.EventToRelationAdapter;
+import ai.startree.thirdeye.spi.ThirdEyeException;
 import ai.startree.thirdeye.spi.datalayer.dto.EventDTO;
 import java.util.List;
 import java.util.Map;
@@ -149,6 +150,27 @@ public class SqlFilterRunnerTest {
         sqlFiler)).isEqualTo(List.of(DEV_ENV_ONLY_EVENT));
   }
 
+  @Test
+  public void testCompiledFilterIsReusedOnOtherElements() {
+    final SqlFilterRunner<EventDTO> filterRunner = new SqlFilterRunner<>(
+        new EventToRelationAdapter());
+    final String sqlFiler = "type = 'CUSTOM' and 'prod' member of dimensionMap['environment']";
+    assertThat(filterRunner.applyFilter(EVENT_LIST, sqlFiler)).isEqualTo(List.of(FR_ONLY_EVENT));
+    assertThat(filterRunner.applyFilter(List.of(CHRISTMAS_EVENT, DEV_ENV_ONLY_EVENT),
+        sqlFiler)).isEqualTo(List.of());
+    assertThat(filterRunner.applyFilter(List.of(FR_ONLY_EVENT, EASTER_EVENT),
+        sqlFiler)).isEqualTo(List.of(FR_ONLY_EVENT));
+  }
+
+  @Test
+  public void testInvalidFilterThrows() {
+    assertThatThrownBy(() -> FILTER_RUNNER.applyFilter(EVENT_LIST, "type = ")).isInstanceOf(
+        ThirdEyeException.class);
+    // a failed compilation is not cached
+    assertThatThrownBy(() -> FILTER_RUNNER.applyFilter(EVENT_LIST, "type = ")).isInstanceOf(
+        ThirdEyeException.class);
+  }
+
   @Test()
   @Ignore
   // fixme cyril breaks if the left MULTISET contains strings with different length - looks like a Calcite issue
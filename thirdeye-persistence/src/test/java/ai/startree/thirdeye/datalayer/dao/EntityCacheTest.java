@@ -0,0 +1,142 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.DatabaseService;
+import ai.startree.thirdeye.datalayer.DatabaseTransactionService;
+import ai.startree.thirdeye.datalayer.DatabaseTransactionService.DBOperation;
+import ai.startree.thirdeye.datalayer.entity.DetectionConfigIndex;
+import ai.startree.thirdeye.datalayer.entity.GenericJsonEntity;
+import ai.startree.thirdeye.datalayer.entity.SubEntityType;
+import ai.startree.thirdeye.datalayer.util.EntityCacheConfiguration;
+import ai.startree.thirdeye.spi.datalayer.Predicate;
+import com.codahale.metrics.MetricRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class EntityCacheTest {
+
+  private final AtomicReference<List<Object>> watermark = new AtomicReference<>();
+  private final AtomicReference<List<Object>> indexWatermark = new AtomicReference<>();
+  private final AtomicInteger loads = new AtomicInteger();
+  private MetricRegistry metricRegistry;
+  private EntityCache entityCache;
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    watermark.set(List.of(1L, 1L));
+    indexWatermark.set(List.of(1L, 1L));
+    loads.set(0);
+    final DatabaseService databaseService = mock(DatabaseService.class);
+    when(databaseService.findWatermark(any(), eq(GenericJsonEntity.class), any()))
+        .thenAnswer(invocation -> watermark.get());
+    when(databaseService.findWatermark(any(), eq(DetectionConfigIndex.class), any()))
+        .thenAnswer(invocation -> indexWatermark.get());
+    final DatabaseTransactionService transactionService = mock(DatabaseTransactionService.class);
+    when(transactionService.executeTransaction(any(), any()))
+        .thenAnswer(invocation -> ((DBOperation<?>) invocation.getArgument(0)).handle(null));
+    metricRegistry = new MetricRegistry();
+    entityCache = new EntityCache(databaseService,
+        transactionService,
+        new EntityCacheConfiguration()
+            .setEnabled(true)
+            .setStalenessCheckInterval(Duration.ZERO),
+        metricRegistry);
+  }
+
+  private List<GenericJsonEntity> get(final SubEntityType type, final Object key)
+      throws Exception {
+    return entityCache.get(type, key, () -> {
+      loads.incrementAndGet();
+      return List.of(new GenericJsonEntity().setType(type.toString()));
+    });
+  }
+
+  @Test
+  public void testLookupsAreCached() throws Exception {
+    get(SubEntityType.ALERT, 1L);
+    get(SubEntityType.ALERT, 1L);
+    get(SubEntityType.ALERT, 2L);
+
+    assertThat(loads.get()).isEqualTo(2);
+    assertThat(metricRegistry.getGauges().get("entityCacheHitRate_ALERT").getValue())
+        .isEqualTo(1 / 3d);
+  }
+
+  @Test
+  public void testTypesNotCachedAreAlwaysLoaded() throws Exception {
+    get(SubEntityType.ANOMALY, 1L);
+    get(SubEntityType.ANOMALY, 1L);
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testInvalidateOnLocalWrite() throws Exception {
+    get(SubEntityType.ALERT, 1L);
+    get(SubEntityType.DATA_SOURCE, 1L);
+    entityCache.invalidate(SubEntityType.ALERT);
+    get(SubEntityType.ALERT, 1L);
+    get(SubEntityType.DATA_SOURCE, 1L);
+
+    assertThat(loads.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void testInvalidateOnWatermarkChange() throws Exception {
+    get(SubEntityType.ALERT, 1L);
+    watermark.set(List.of(1L, 2L));
+    get(SubEntityType.ALERT, 1L);
+    get(SubEntityType.ALERT, 1L);
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testInvalidateOnIndexWatermarkChange() throws Exception {
+    get(SubEntityType.ALERT, 1L);
+    // a direct write to the index table
+    indexWatermark.set(List.of(1L, 2L));
+    get(SubEntityType.ALERT, 1L);
+    get(SubEntityType.ALERT, 1L);
+
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  public void testInPredicateLookupsAreCached() throws Exception {
+    get(SubEntityType.ALERT, Predicate.IN("name", new String[]{"a", "b"}));
+    get(SubEntityType.ALERT, Predicate.IN("name", new String[]{"a", "b"}));
+
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testFailedLoadIsNotCached() throws Exception {
+    assertThat(entityCache.get(SubEntityType.ALERT, 1L, () -> null)).isNull();
+    get(SubEntityType.ALERT, 1L);
+
+    assertThat(loads.get()).isEqualTo(1);
+  }
+}
@@ -24,8 +24,11 @@ import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
 import ai.startree.thirdeye.spi.datalayer.dto.DataSourceDTO;
+import java.sql.Timestamp;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
@@ -112,6 +115,31 @@ public class TestGenericPojoDao {
     assertThat(dtoAfterUpdate.get(0).getId()).isEqualTo(idBeforeUpdate);
   }
 
+  @Test
+  public void updateSingleEntityTest() {
+    final DataSourceDTO dto = new DataSourceDTO().setName("update-single").setType("update");
+    final Long id = dao.create(dto);
+    try {
+      final DataSourceDTO read = dao.get(id, DataSourceDTO.class);
+      final Timestamp createTime = read.getCreateTime();
+      assertThat(createTime).isNotNull();
+
+      read.setType("updated").setCreateTime(null);
+      assertThat(dao.update(read)).isEqualTo(1);
+      final DataSourceDTO updated = dao.get(id, DataSourceDTO.class);
+      assertThat(updated.getType()).isEqualTo("updated");
+      assertThat(updated.getCreateTime()).isEqualTo(createTime);
+
+      // the entity is read first: a missing entity is not updated
+      assertThat(dao.update(new DataSourceDTO().setName("missing").setId(id + 1_000_000)))
+          .isEqualTo(0);
+      assertThatThrownBy(() -> dao.update(new DataSourceDTO().setName("no id")))
+          .isInstanceOf(NullPointerException.class);
+    } finally {
+      dao.delete(id, DataSourceDTO.class);
+    }
+  }
+
   @Test(dependsOnMethods = "updateEntityTest", timeOut = 60000L)
   public void deleteEntityTest() {
     final int deletedEntries = dao.deleteByPredicate(
@@ -201,4 +229,28 @@ public class TestGenericPojoDao {
     }
     assertThat(entryCount).isEqualTo(TOTAL_ANOMALIES);
   }
+
+  @Test
+  public void keysetPaginationTest() {
+    final long limit = TOTAL_ANOMALIES / 3;
+    final DaoFilter filter = new DaoFilter()
+        .setBeanClass(AnomalyDTO.class)
+        .setLimit(limit);
+    final Set<Long> ids = new HashSet<>();
+    Long lastId = null;
+    while (true) {
+      final List<AnomalyDTO> anomalies = dao.filter(filter.setAfterId(lastId));
+      if (anomalies.isEmpty()) {
+        break;
+      }
+      assertThat(anomalies.size()).isLessThanOrEqualTo((int) limit);
+      for (final AnomalyDTO anomaly : anomalies) {
+        // sorted by id
+        assertThat(lastId == null || anomaly.getId() > lastId).isTrue();
+        lastId = anomaly.getId();
+        ids.add(anomaly.getId());
+      }
+    }
+    assertThat(ids.size()).isEqualTo(TOTAL_ANOMALIES);
+  }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.dao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.DatabaseTransactionService;
+import ai.startree.thirdeye.datalayer.MySqlTestDatabase;
+import java.sql.SQLException;
+import java.util.Map;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class TestNotificationWatermarkDao {
+
+  private static final long SUBSCRIPTION_GROUP_ID = 1L;
+  private static final long OTHER_SUBSCRIPTION_GROUP_ID = 2L;
+
+  private NotificationWatermarkDao dao;
+
+  @BeforeClass
+  void beforeClass() {
+    dao = MySqlTestDatabase.sharedInjector().getInstance(NotificationWatermarkDao.class);
+  }
+
+  @AfterMethod(alwaysRun = true)
+  void afterMethod() {
+    dao.delete(SUBSCRIPTION_GROUP_ID);
+    dao.delete(OTHER_SUBSCRIPTION_GROUP_ID);
+  }
+
+  @Test
+  public void testAdvance() {
+    assertThat(dao.get(SUBSCRIPTION_GROUP_ID)).isEmpty();
+
+    dao.advance(SUBSCRIPTION_GROUP_ID, Map.of(10L, 100L, 11L, 110L));
+    assertThat(dao.get(SUBSCRIPTION_GROUP_ID)).isEqualTo(Map.of(10L, 100L, 11L, 110L));
+
+    dao.advance(SUBSCRIPTION_GROUP_ID, Map.of(10L, 200L, 12L, 120L));
+    assertThat(dao.get(SUBSCRIPTION_GROUP_ID)).isEqualTo(Map.of(10L, 200L, 11L, 110L, 12L, 120L));
+
+    dao.advance(SUBSCRIPTION_GROUP_ID, Map.of());
+    assertThat(dao.get(SUBSCRIPTION_GROUP_ID)).hasSize(3);
+  }
+
+  @Test
+  public void testAdvanceNeverMovesBackwards() {
+    dao.advance(SUBSCRIPTION_GROUP_ID, Map.of(10L, 200L, 11L, 110L));
+
+    dao.advance(SUBSCRIPTION_GROUP_ID, Map.of(10L, 100L, 11L, 110L));
+
+    assertThat(dao.get(SUBSCRIPTION_GROUP_ID)).isEqualTo(Map.of(10L, 200L, 11L, 110L));
+  }
+
+  @Test
+  public void testAdvanceIsScopedToTheSubscriptionGroup() {
+    dao.advance(SUBSCRIPTION_GROUP_ID, Map.of(10L, 200L));
+
+    dao.advance(OTHER_SUBSCRIPTION_GROUP_ID, Map.of(10L, 100L));
+
+    assertThat(dao.get(SUBSCRIPTION_GROUP_ID)).isEqualTo(Map.of(10L, 200L));
+    assertThat(dao.get(OTHER_SUBSCRIPTION_GROUP_ID)).isEqualTo(Map.of(10L, 100L));
+  }
+
+  @Test
+  public void testDelete() {
+    dao.advance(SUBSCRIPTION_GROUP_ID, Map.of(10L, 100L, 11L, 110L));
+    dao.advance(OTHER_SUBSCRIPTION_GROUP_ID, Map.of(10L, 100L));
+
+    assertThat(dao.delete(SUBSCRIPTION_GROUP_ID)).isEqualTo(2);
+
+    assertThat(dao.get(SUBSCRIPTION_GROUP_ID)).isEmpty();
+    assertThat(dao.get(OTHER_SUBSCRIPTION_GROUP_ID)).isEqualTo(Map.of(10L, 100L));
+    assertThat(dao.delete(SUBSCRIPTION_GROUP_ID)).isEqualTo(0);
+
+    // a cleared watermark can be set back in time
+    dao.advance(SUBSCRIPTION_GROUP_ID, Map.of(10L, 50L));
+    assertThat(dao.get(SUBSCRIPTION_GROUP_ID)).isEqualTo(Map.of(10L, 50L));
+  }
+
+  @Test
+  public void testDatabaseErrorsAreThrown() throws Exception {
+    // a failed transaction is rolled back and returns the default value
+    final NotificationWatermarkDao failing = new NotificationWatermarkDao(
+        mock(DatabaseTransactionService.class));
+    assertThatThrownBy(() -> failing.get(SUBSCRIPTION_GROUP_ID))
+        .hasMessageContaining("subscription group " + SUBSCRIPTION_GROUP_ID);
+    assertThatThrownBy(() -> failing.advance(SUBSCRIPTION_GROUP_ID, Map.of(10L, 100L)))
+        .isInstanceOf(RuntimeException.class);
+    assertThatThrownBy(() -> failing.delete(SUBSCRIPTION_GROUP_ID))
+        .isInstanceOf(RuntimeException.class);
+
+    final DatabaseTransactionService unavailable = mock(DatabaseTransactionService.class);
+    final SQLException cause = new SQLException("no connection");
+    when(unavailable.executeTransaction(any(), any())).thenThrow(cause);
+    assertThatThrownBy(() -> new NotificationWatermarkDao(unavailable).get(SUBSCRIPTION_GROUP_ID))
+        .hasCause(cause);
+  }
+}
@@ -18,6 +18,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import ai.startree.thirdeye.datalayer.MySqlTestDatabase;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskAcquisition;
 import ai.startree.thirdeye.spi.task.TaskStatus;
 import ai.startree.thirdeye.spi.task.TaskType;
 import com.google.inject.Injector;
@@ -86,4 +87,30 @@ public class TestTaskDao {
     assertThat(dao.deleteByPredicate(Predicate.EQ("name", dto.getJobName()))).isEqualTo(1);
     assertThat(dao.get(dto.getId())).isNull();
   }
+
+  @Test(dependsOnMethods = {"deleteTest", "deleteByPredicateTest"})
+  public void acquireTasksTest() {
+    dao.getAll().forEach(task -> dao.delete(task.getId()));
+    for (int i = 0; i < 3; i++) {
+      dao.put(buildTask().setJobName("acquireTasksTest" + i));
+    }
+
+    final long workerId = 42L;
+    final TaskAcquisition acquisition = dao.acquireTasks(workerId, 2);
+    assertThat(acquisition.isCandidatesFound()).isTrue();
+    final List<TaskDTO> acquired = acquisition.getTasks();
+    assertThat(acquired).hasSize(2);
+    for (final TaskDTO task : acquired) {
+      assertThat(task.getStatus()).isEqualTo(TaskStatus.RUNNING);
+      assertThat(task.getWorkerId()).isEqualTo(workerId);
+      final TaskDTO dbTask = dao.get(task.getId());
+      assertThat(dbTask.getStatus()).isEqualTo(TaskStatus.RUNNING);
+      assertThat(dbTask.getVersion()).isEqualTo(2);
+    }
+
+    assertThat(dao.acquireTasks(workerId, 2).getTasks()).hasSize(1);
+    final TaskAcquisition noTask = dao.acquireTasks(workerId, 2);
+    assertThat(noTask.getTasks()).isEmpty();
+    assertThat(noTask.isCandidatesFound()).isFalse();
+  }
 }
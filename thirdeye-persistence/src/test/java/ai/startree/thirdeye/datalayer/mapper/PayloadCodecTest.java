@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.json.ThirdEyeSerialization;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.HashMap;
+import java.util.Map;
+import org.testng.annotations.Test;
+
+public class PayloadCodecTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = ThirdEyeSerialization.getObjectMapper();
+
+  private static AnomalyDTO anomaly() {
+    final Map<String, String> properties = new HashMap<>();
+    for (int i = 0; i < 20; i++) {
+      properties.put("key" + i, "value" + i);
+    }
+    final AnomalyDTO anomaly = new AnomalyDTO()
+        .setStartTime(1000L)
+        .setEndTime(2000L)
+        .setMetric("views")
+        .setProperties(properties);
+    anomaly.setDetectionConfigId(42L);
+    return anomaly;
+  }
+
+  @Test
+  public void testDeflateRoundTrip() throws Exception {
+    final AnomalyDTO anomaly = anomaly();
+    final String payload = PayloadCodec.DEFLATE.write(OBJECT_MAPPER, anomaly);
+
+    assertThat(PayloadCodec.of(payload)).isEqualTo(PayloadCodec.DEFLATE);
+    assertThat(PayloadCodec.read(OBJECT_MAPPER, payload, AnomalyDTO.class)).isEqualTo(anomaly);
+    assertThat(PayloadCodec.toJson(payload))
+        .isEqualTo(PayloadCodec.JSON.write(OBJECT_MAPPER, anomaly));
+  }
+
+  @Test
+  public void testDeflateRoundTripsReuseTheCompressor() throws Exception {
+    final AnomalyDTO first = anomaly();
+    final AnomalyDTO second = anomaly().setMetric("clicks");
+    final String firstPayload = PayloadCodec.DEFLATE.write(OBJECT_MAPPER, first);
+    final String secondPayload = PayloadCodec.DEFLATE.write(OBJECT_MAPPER, second);
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(PayloadCodec.read(OBJECT_MAPPER, secondPayload, AnomalyDTO.class))
+          .isEqualTo(second);
+      assertThat(PayloadCodec.read(OBJECT_MAPPER, firstPayload, AnomalyDTO.class))
+          .isEqualTo(first);
+      assertThat(PayloadCodec.DEFLATE.write(OBJECT_MAPPER, first)).isEqualTo(firstPayload);
+    }
+  }
+
+  @Test
+  public void testReadLegacyJson() throws Exception {
+    final AnomalyDTO anomaly = anomaly();
+    final String json = OBJECT_MAPPER.writeValueAsString(anomaly);
+
+    assertThat(PayloadCodec.of(json)).isEqualTo(PayloadCodec.JSON);
+    assertThat(PayloadCodec.read(OBJECT_MAPPER, json, AnomalyDTO.class)).isEqualTo(anomaly);
+    assertThat(PayloadCodec.toJson(json)).isSameAs(json);
+  }
+
+  @Test
+  public void testEncodeJson() throws Exception {
+    final String json = OBJECT_MAPPER.writeValueAsString(anomaly());
+    final String payload = PayloadCodec.DEFLATE.encode(json);
+
+    assertThat(PayloadCodec.toJson(payload)).isEqualTo(json);
+    assertThat(PayloadCodec.JSON.encode(json)).isSameAs(json);
+  }
+
+  @Test
+  public void testSmallPayloadIsKeptAsJson() throws Exception {
+    final String json = "{\"id\":1}";
+
+    assertThat(PayloadCodec.DEFLATE.encode(json)).isEqualTo(json);
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.datalayer.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.entity.AbstractEntity;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import javax.sql.rowset.serial.SerialClob;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class GenericResultSetMapperTest {
+
+  private static final String TABLE = "mapper_test_entity";
+  private static final String[] COLUMNS = {"id", "create_time", "version", "name", "total",
+      "base_id", "json_val"};
+  private static final int[] TYPES = {Types.BIGINT, Types.TIMESTAMP, Types.INTEGER,
+      Types.VARCHAR, Types.BIGINT, Types.BIGINT, Types.CLOB};
+
+  private EntityMappingHolder entityMappingHolder;
+  private GenericResultSetMapper mapper;
+
+  /**
+   * In memory result set. Rows are in the order of the columns.
+   */
+  private static CachedRowSet resultSet(final String[] columns, final int[] types,
+      final Object[]... rows) throws SQLException {
+    final RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+    metaData.setColumnCount(columns.length);
+    for (int i = 0; i < columns.length; i++) {
+      metaData.setColumnName(i + 1, columns[i]);
+      metaData.setColumnLabel(i + 1, columns[i]);
+      metaData.setColumnType(i + 1, types[i]);
+    }
+    final CachedRowSet rowSet = RowSetProvider.newFactory().createCachedRowSet();
+    rowSet.setMetaData(metaData);
+    for (final Object[] row : rows) {
+      rowSet.moveToInsertRow();
+      for (int i = 0; i < row.length; i++) {
+        if (row[i] == null) {
+          rowSet.updateNull(i + 1);
+        } else {
+          rowSet.updateObject(i + 1, row[i]);
+        }
+      }
+      rowSet.insertRow();
+      rowSet.moveToCurrentRow();
+    }
+    rowSet.beforeFirst();
+    return rowSet;
+  }
+
+  /**
+   * Columns of the table, as returned by {@link DatabaseMetaData#getColumns}.
+   */
+  private static CachedRowSet tableColumns() throws SQLException {
+    final Object[][] rows = new Object[COLUMNS.length][];
+    for (int i = 0; i < COLUMNS.length; i++) {
+      rows[i] = new Object[]{"db", "", TABLE, COLUMNS[i], TYPES[i]};
+    }
+    return resultSet(new String[]{"TABLE_CAT", "TABLE_SCHEM", "TABLE_NAME", "COLUMN_NAME",
+            "DATA_TYPE"},
+        new int[]{Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER},
+        rows);
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    final Connection connection = mock(Connection.class);
+    final DatabaseMetaData databaseMetaData = mock(DatabaseMetaData.class);
+    when(connection.getMetaData()).thenReturn(databaseMetaData);
+    when(connection.getCatalog()).thenReturn("db");
+    when(databaseMetaData.getConnection()).thenReturn(connection);
+    final CachedRowSet noColumns = resultSet(new String[]{"COLUMN_NAME"},
+        new int[]{Types.VARCHAR});
+    when(databaseMetaData.getColumns(eq("db"), isNull(), any(), isNull()))
+        .thenReturn(noColumns);
+    when(databaseMetaData.getColumns(eq("db"), isNull(), eq(TABLE), isNull()))
+        .thenReturn(tableColumns());
+
+    entityMappingHolder = new EntityMappingHolder();
+    entityMappingHolder.register(connection, MapperTestEntity.class, TABLE);
+    mapper = new GenericResultSetMapper(entityMappingHolder);
+  }
+
+  @Test
+  public void testMapAllFieldTypes() throws Exception {
+    final Timestamp createTime = new Timestamp(1_600_000_000_000L);
+    final List<MapperTestEntity> entities = mapper.mapAll(resultSet(COLUMNS, TYPES,
+            new Object[]{1L, createTime, 3, "name1", 12L, 7L, new SerialClob("{}".toCharArray())}),
+        MapperTestEntity.class);
+
+    assertThat(entities).hasSize(1);
+    final MapperTestEntity entity = entities.get(0);
+    assertThat(entity.getId()).isEqualTo(1L);
+    assertThat(entity.getCreateTime()).isEqualTo(createTime);
+    assertThat(entity.getVersion()).isEqualTo(3);
+    assertThat(entity.name).isEqualTo("name1");
+    assertThat(entity.total).isEqualTo(12L);
+    assertThat(entity.baseId).isEqualTo(7L);
+    assertThat(entity.jsonVal).isEqualTo("{}");
+  }
+
+  @Test
+  public void testNullColumnsKeepFieldDefaults() throws Exception {
+    final List<MapperTestEntity> entities = mapper.mapAll(resultSet(COLUMNS, TYPES,
+            new Object[]{2L, null, null, null, null, null, null}),
+        MapperTestEntity.class);
+
+    final MapperTestEntity entity = entities.get(0);
+    assertThat(entity.getId()).isEqualTo(2L);
+    assertThat(entity.getCreateTime()).isNull();
+    assertThat(entity.getVersion()).isEqualTo(0);
+    assertThat(entity.name).isNull();
+    assertThat(entity.total).isEqualTo(-1L);
+    assertThat(entity.baseId).isNull();
+    assertThat(entity.jsonVal).isNull();
+  }
+
+  @Test
+  public void testColumnsAreResolvedByLabel() throws Exception {
+    // subset of the columns, in another order, with a column that does not map to a field
+    final List<MapperTestEntity> entities = mapper.mapAll(resultSet(
+            new String[]{"NAME", "unknown", "ID"},
+            new int[]{Types.VARCHAR, Types.VARCHAR, Types.BIGINT},
+            new Object[]{"name1", "ignored", 1L},
+            new Object[]{"name2", "ignored", 2L}),
+        MapperTestEntity.class);
+
+    // the in memory result set does not keep the insertion order
+    assertThat(entities).extracting(AbstractEntity::getId, e -> e.name, e -> e.total)
+        .containsExactlyInAnyOrder(tuple(1L, "name1", -1L), tuple(2L, "name2", -1L));
+  }
+
+  @Test
+  public void testMapperIsCompiledOnce() throws Exception {
+    mapper.mapAll(resultSet(COLUMNS, TYPES), MapperTestEntity.class);
+    // the compiled mapper does not read the column info again
+    entityMappingHolder.columnInfoPerTable.clear();
+
+    final List<MapperTestEntity> entities = mapper.mapAll(resultSet(new String[]{"id"},
+        new int[]{Types.BIGINT}, new Object[]{5L}), MapperTestEntity.class);
+    assertThat(entities).extracting(AbstractEntity::getId).containsExactly(5L);
+  }
+
+  public static class MapperTestEntity extends AbstractEntity {
+
+    private String name;
+    private long total = -1;
+    private Long baseId;
+    private String jsonVal;
+  }
+}
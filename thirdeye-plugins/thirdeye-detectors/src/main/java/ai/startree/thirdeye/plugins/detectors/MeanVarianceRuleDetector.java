@@ -34,10 +34,9 @@ import ai.startree.thirdeye.spi.detection.AnomalyDetector;
 import ai.startree.thirdeye.spi.detection.AnomalyDetectorResult;
 import ai.startree.thirdeye.spi.detection.Pattern;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.Set;
-import org.joda.time.DateTime;
-import org.joda.time.DateTimeZone;
+import java.util.concurrent.TimeUnit;
 import org.joda.time.Interval;
 import org.joda.time.Period;
 import org.joda.time.ReadableInterval;
@@ -51,17 +50,21 @@ import org.slf4j.LoggerFactory;
 public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRuleDetectorSpec> {
 
   private static final Logger LOG = LoggerFactory.getLogger(MeanVarianceRuleDetector.class);
-  private static final Set<Period> SUPPORTED_SEASONALITIES = Set.of(
-      Period.days(7), // weekly seasonality
-      Period.days(1), // daily seasonality
-      Period.ZERO     // special value for no seasonality
+  /**
+   * Supported seasonalities and their length. Phases are matched with a modulo of this length:
+   * only periods that are a fixed number of days - no DST, no month - are supported.
+   */
+  private static final Map<Period, Long> SUPPORTED_SEASONALITIES = Map.of(
+      Period.days(7), TimeUnit.DAYS.toMillis(7), // weekly seasonality
+      Period.days(1), TimeUnit.DAYS.toMillis(1), // daily seasonality
+      Period.ZERO, 0L                            // special value for no seasonality
   );
 
   private Pattern pattern;
   private double sensitivity;
   private int lookback;
   private MeanVarianceRuleDetectorSpec spec;
-  private Period seasonality = Period.ZERO; // PT0S: special period for no seasonality
+  private long seasonalityMillis = 0; // 0: no seasonality
 
   /**
    * Mapping of sensitivity to sigma on range of 0.5 - 1.5
@@ -114,8 +117,8 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
       checkArgument(spec.getMonitoringGranularity() != null,
           "monitoringGranularity is required when seasonalityPeriod is used");
       final Period seasonality = isoPeriod(spec.getSeasonalityPeriod());
-      checkArgument(SUPPORTED_SEASONALITIES.contains(seasonality),
-              "Unsupported period %s. Supported periods are P7D and P1D, or PTOS for no seasonality.",
+      checkArgument(SUPPORTED_SEASONALITIES.containsKey(seasonality),
+              "Unsupported period %s. Supported periods are P7D and P1D, or PT0S for no seasonality.",
               seasonality);
       int minimumLookbackRequired =
           2 * computeSteps(spec.getSeasonalityPeriod(), spec.getMonitoringGranularity());
@@ -127,7 +130,7 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
               spec.getSeasonalityPeriod(),
               minimumLookbackRequired));
 
-      this.seasonality = seasonality;
+      this.seasonalityMillis = SUPPORTED_SEASONALITIES.get(seasonality);
     }
 
     checkArgument(lookback >= 5, "Lookback is %s points. Lookback should be greater than 5 points.", lookback);
@@ -177,16 +180,28 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
     final double[] lowerBoundArray = new double[size];
     final long[] resultTimeArray = new long[size];
 
-    // todo cyril compute mean and std in a single pass
-    // https://nestedsoftware.com/2018/03/20/calculating-a-moving-average-on-streaming-data-5a7k.22879.html
-    // https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance#Welford's_online_algorithm
+    final long[] times = inputDF.getLongs(COL_TIME).values();
+    final SlidingWindowStatistics statistics = new SlidingWindowStatistics(times,
+        inputDF.getDoubles(COL_VALUE).values(),
+        seasonalityMillis);
+    final Map<Long, Integer> firstIndexOfTime = new HashMap<>();
+    for (int i = times.length - 1; i >= 0; i--) {
+      firstIndexOfTime.put(times[i], i);
+    }
+    // todo cyril implement median
     for (int k = 0; k < size; k++) {
       final long forecastTime = forecastDF.getLong(COL_TIME, k);
-      final DataFrame lookbackDf = getLookbackDf(inputDF, forecastTime);
-      final DoubleSeries periodMask = buildPeriodMask(lookbackDf, forecastTime);
-      // todo cyril implement median
-      final double mean = lookbackDf.getDoubles(COL_VALUE).multiply(periodMask).mean().value();
-      final double std = lookbackDf.getDoubles(COL_VALUE).multiply(periodMask).std().value();
+      final Integer indexEnd = firstIndexOfTime.get(forecastTime);
+      checkArgument(indexEnd != null,
+          "Could not find index of endTime. endTime should exist in inputDf. This should not happen.");
+      final int indexStart = indexEnd - lookback;
+      checkArgument(indexStart >= 0,
+          "Invalid index. Insufficient data to compute mean/variance on lookback. index: "
+              + indexStart);
+      // mean and std of the lookback values in the same seasonality phase as the forecast time
+      statistics.moveTo(indexStart, indexEnd);
+      final double mean = statistics.mean(forecastTime);
+      final double std = statistics.std(forecastTime);
       //calculate baseline, error , upper and lower bound for prediction window.
       resultTimeArray[k] = forecastTime;
       baselineArray[k] = mean;
@@ -206,48 +221,4 @@ public class MeanVarianceRuleDetector implements AnomalyDetector<MeanVarianceRul
 
     return resultDF;
   }
-
-  private DoubleSeries buildPeriodMask(final DataFrame lookbackDf, final long forecastTime) {
-    if (seasonality.equals(Period.ZERO)) {
-      // no seasonality --> no mask
-      return DoubleSeries.fillValues(lookbackDf.size(), 1);
-    }
-    // fixme cyril this implem does not not fail at DST - but datetimeZone is hardcoded to UTC so not DST
-    DateTime forecastDateTime = new DateTime(forecastTime, DateTimeZone.UTC);
-    DoubleSeries.Builder mask = DoubleSeries.builder();
-    LongSeries lookbackEpochs = lookbackDf.get(COL_TIME).getLongs();
-    for (int idx = 0; idx < lookbackEpochs.size(); idx++) {
-      DateTime lookbackDateTime = new DateTime(lookbackEpochs.get(idx), DateTimeZone.UTC);
-      mask.addValues(isSeasonalityMatch(forecastDateTime, lookbackDateTime) ? 1. : null);
-    }
-    return mask.build();
-  }
-
-  private boolean isSeasonalityMatch(final DateTime dt1, final DateTime dt2) {
-    final boolean isSameTimeInDay =
-        dt1.getHourOfDay() == dt2.getHourOfDay() && dt1.getMinuteOfHour() == dt2.getMinuteOfHour()
-            && dt1.getSecondOfMinute() == dt2.getSecondOfMinute()
-            && dt1.getMillisOfSecond() == dt2.getMillisOfSecond();
-    if (seasonality.equals(Period.days(7))) {
-      return isSameTimeInDay && dt1.getDayOfWeek() == dt2.getDayOfWeek();
-    } else if (seasonality.equals(Period.days(1))) {
-      return isSameTimeInDay;
-    } else {
-      throw new UnsupportedOperationException();
-    }
-  }
-
-  private DataFrame getLookbackDf(final DataFrame inputDF, final long endTimeMillis) {
-    final int indexEnd = inputDF.getLongs(COL_TIME).find(endTimeMillis);
-    checkArgument(indexEnd != -1,
-        "Could not find index of endTime. endTime should exist in inputDf. This should not happen.");
-
-    DataFrame loobackDf = DataFrame.builder(COL_TIME, COL_VALUE).build();
-    final int indexStart = indexEnd - lookback;
-    checkArgument(indexStart >= 0,
-        "Invalid index. Insufficient data to compute mean/variance on lookback. index: "
-            + indexStart);
-    loobackDf = loobackDf.append(inputDF.slice(indexStart, indexEnd));
-    return loobackDf;
-  }
 }
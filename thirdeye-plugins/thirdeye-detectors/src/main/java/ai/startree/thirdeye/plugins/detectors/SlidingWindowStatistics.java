@@ -0,0 +1,196 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.detectors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mean and standard deviation of a window of rows that slides over a time series.
+ *
+ * Rows are grouped by seasonality phase: with a seasonality of 1 day, the statistics for a time
+ * are computed with the rows at the same time of day only. With no seasonality, all the rows of
+ * the window are used. Phases are computed in UTC.
+ *
+ * Moving the window forward updates the statistics in O(1) per row entering or leaving the
+ * window. Null values are ignored, like in {@link DoubleSeries#mean()} and
+ * {@link DoubleSeries#std()}. The standard deviation is the sample standard deviation.
+ *
+ * Sums are computed on values shifted by a reference value of the series, to limit cancellation
+ * errors, and are recomputed from scratch regularly, to limit the accumulation of rounding
+ * errors.
+ */
+public class SlidingWindowStatistics {
+
+  private static final int MIN_ROWS_BEFORE_RECOMPUTE = 64;
+
+  private final double[] values;
+  private final int[] phaseOfRow;
+  private final Map<Long, Integer> phaseIds;
+  private final long seasonalityMillis;
+  private final double shift;
+
+  // per phase
+  private final int[] counts;
+  private final int[] nonFiniteCounts;
+  private final double[] sums;
+  private final double[] sumsOfSquares;
+
+  private int windowStart = 0;
+  private int windowEnd = 0;
+  private int removedSinceRecompute = 0;
+
+  /**
+   * @param times epoch millis of the rows
+   * @param values values of the rows. Nulls are NaN.
+   * @param seasonalityMillis length of the seasonality. 0 for no seasonality.
+   */
+  public SlidingWindowStatistics(final long[] times,
+      final double[] values,
+      final long seasonalityMillis) {
+    checkArgument(times.length == values.length, "times and values must have the same length");
+    checkArgument(seasonalityMillis >= 0, "seasonality cannot be negative");
+    this.values = values;
+    this.seasonalityMillis = seasonalityMillis;
+
+    phaseOfRow = new int[times.length];
+    phaseIds = new HashMap<>();
+    for (int i = 0; i < times.length; i++) {
+      phaseOfRow[i] = phaseIds.computeIfAbsent(phase(times[i]), k -> phaseIds.size());
+    }
+    counts = new int[phaseIds.size()];
+    nonFiniteCounts = new int[phaseIds.size()];
+    sums = new double[phaseIds.size()];
+    sumsOfSquares = new double[phaseIds.size()];
+    shift = referenceValue(values);
+  }
+
+  private static double referenceValue(final double[] values) {
+    for (final double value : values) {
+      if (Double.isFinite(value)) {
+        return value;
+      }
+    }
+    return 0;
+  }
+
+  private long phase(final long time) {
+    return seasonalityMillis == 0 ? 0 : Math.floorMod(time, seasonalityMillis);
+  }
+
+  /**
+   * Moves the window to the rows [start, end). Moving the window forward is incremental.
+   * Moving it backward recomputes the statistics of the window.
+   */
+  public void moveTo(final int start, final int end) {
+    checkArgument(0 <= start && start <= end && end <= values.length,
+        "Invalid window [%s, %s) for %s rows", start, end, values.length);
+    if (start < windowStart || start >= windowEnd || end < windowEnd) {
+      reset(start, end);
+      return;
+    }
+    for (int i = windowEnd; i < end; i++) {
+      add(i);
+    }
+    for (int i = windowStart; i < start; i++) {
+      remove(i);
+    }
+    windowStart = start;
+    windowEnd = end;
+    if (removedSinceRecompute > Math.max(end - start, MIN_ROWS_BEFORE_RECOMPUTE)) {
+      reset(start, end);
+    }
+  }
+
+  /**
+   * @return the mean of the values of the window in the same phase as time. Null if there is no
+   *     such value.
+   */
+  public double mean(final long time) {
+    final int phaseId = phaseId(time);
+    if (phaseId < 0 || counts[phaseId] == 0 || nonFiniteCounts[phaseId] > 0) {
+      return DoubleSeries.NULL;
+    }
+    return shift + sums[phaseId] / counts[phaseId];
+  }
+
+  /**
+   * @return the sample standard deviation of the values of the window in the same phase as time.
+   *     Null if there are less than 2 such values.
+   */
+  public double std(final long time) {
+    final int phaseId = phaseId(time);
+    if (phaseId < 0 || counts[phaseId] <= 1 || nonFiniteCounts[phaseId] > 0) {
+      return DoubleSeries.NULL;
+    }
+    final int n = counts[phaseId];
+    final double sum = sums[phaseId];
+    final double variance = (sumsOfSquares[phaseId] - sum * sum / n) / (n - 1);
+    return Math.sqrt(Math.max(variance, 0));
+  }
+
+  private int phaseId(final long time) {
+    return phaseIds.getOrDefault(phase(time), -1);
+  }
+
+  private void reset(final int start, final int end) {
+    Arrays.fill(counts, 0);
+    Arrays.fill(nonFiniteCounts, 0);
+    Arrays.fill(sums, 0);
+    Arrays.fill(sumsOfSquares, 0);
+    for (int i = start; i < end; i++) {
+      add(i);
+    }
+    windowStart = start;
+    windowEnd = end;
+    removedSinceRecompute = 0;
+  }
+
+  private void add(final int row) {
+    final double value = values[row];
+    if (DoubleSeries.isNull(value)) {
+      return;
+    }
+    final int phaseId = phaseOfRow[row];
+    counts[phaseId]++;
+    if (Double.isInfinite(value)) {
+      nonFiniteCounts[phaseId]++;
+      return;
+    }
+    final double shifted = value - shift;
+    sums[phaseId] += shifted;
+    sumsOfSquares[phaseId] += shifted * shifted;
+  }
+
+  private void remove(final int row) {
+    final double value = values[row];
+    if (DoubleSeries.isNull(value)) {
+      return;
+    }
+    removedSinceRecompute++;
+    final int phaseId = phaseOfRow[row];
+    counts[phaseId]--;
+    if (Double.isInfinite(value)) {
+      nonFiniteCounts[phaseId]--;
+      return;
+    }
+    final double shifted = value - shift;
+    sums[phaseId] -= shifted;
+    sumsOfSquares[phaseId] -= shifted * shifted;
+  }
+}
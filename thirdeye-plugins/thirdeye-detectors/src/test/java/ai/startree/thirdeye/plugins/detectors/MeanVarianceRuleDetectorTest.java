@@ -15,6 +15,7 @@ package ai.startree.thirdeye.plugins.detectors;
 
 import static ai.startree.thirdeye.plugins.detectors.MeanVarianceRuleDetector.computeSteps;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import ai.startree.thirdeye.spi.Constants;
 import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
@@ -27,6 +28,7 @@ import ai.startree.thirdeye.spi.detection.Pattern;
 import ai.startree.thirdeye.spi.detection.v2.DataTable;
 import ai.startree.thirdeye.spi.detection.v2.SimpleDataTable;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
@@ -441,4 +443,18 @@ public class MeanVarianceRuleDetectorTest {
     int output = computeSteps(period, monitoringGranularity);
     assertThat(output).isEqualTo(365);
   }
+
+  @Test
+  public void testInitFailsOnUnsupportedSeasonality() {
+    for (final String seasonality : List.of("P1M", "PT12H", "P2D", "P1W")) {
+      final MeanVarianceRuleDetectorSpec spec = new MeanVarianceRuleDetectorSpec();
+      spec.setMonitoringGranularity("PT1H");
+      spec.setLookbackPeriod("P28D");
+      spec.setSeasonalityPeriod(seasonality);
+
+      assertThatThrownBy(() -> new MeanVarianceRuleDetector().init(spec))
+          .isInstanceOf(IllegalArgumentException.class)
+          .hasMessageContaining("Unsupported period");
+    }
+  }
 }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.detectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import java.util.Random;
+import org.testng.annotations.Test;
+
+public class SlidingWindowStatisticsTest {
+
+  private static final long HOUR_MILLIS = 3_600_000L;
+  private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+  private static void assertMatchesTwoPassComputation(final long seasonalityMillis) {
+    final Random random = new Random(42);
+    final int size = 24 * 60;
+    final int lookback = 24 * 28;
+    final long[] times = new long[size];
+    final double[] values = new double[size];
+    for (int i = 0; i < size; i++) {
+      times[i] = 1_600_000_000_000L + i * HOUR_MILLIS;
+      // large offset to check cancellation errors, some nulls
+      values[i] = i % 17 == 0 ? DoubleSeries.NULL : 1e9 + random.nextGaussian() * 1000;
+    }
+
+    final SlidingWindowStatistics statistics = new SlidingWindowStatistics(times,
+        values,
+        seasonalityMillis);
+    for (int end = lookback; end < size; end++) {
+      final long forecastTime = times[end];
+      statistics.moveTo(end - lookback, end);
+
+      final DoubleSeries.Builder window = DoubleSeries.builder();
+      for (int i = end - lookback; i < end; i++) {
+        if (seasonalityMillis == 0 || (forecastTime - times[i]) % seasonalityMillis == 0) {
+          window.addValues(values[i]);
+        }
+      }
+      final DoubleSeries expected = window.build();
+      assertThat(statistics.mean(forecastTime))
+          .isCloseTo(expected.mean().value(), within(1e-3));
+      assertThat(statistics.std(forecastTime))
+          .isCloseTo(expected.std().value(), within(1e-6));
+    }
+  }
+
+  @Test
+  public void testNoSeasonality() {
+    assertMatchesTwoPassComputation(0);
+  }
+
+  @Test
+  public void testDailySeasonality() {
+    assertMatchesTwoPassComputation(DAY_MILLIS);
+  }
+
+  @Test
+  public void testWeeklySeasonality() {
+    assertMatchesTwoPassComputation(7 * DAY_MILLIS);
+  }
+
+  @Test
+  public void testNullWhenNotEnoughValues() {
+    final SlidingWindowStatistics statistics = new SlidingWindowStatistics(
+        new long[]{0, HOUR_MILLIS, 2 * HOUR_MILLIS},
+        new double[]{1., DoubleSeries.NULL, 3.},
+        DAY_MILLIS);
+    statistics.moveTo(0, 2);
+
+    assertThat(statistics.mean(DAY_MILLIS)).isEqualTo(1.);
+    assertThat(DoubleSeries.isNull(statistics.std(DAY_MILLIS))).isTrue();
+    // no value at this time of day in the window
+    assertThat(DoubleSeries.isNull(statistics.mean(DAY_MILLIS + HOUR_MILLIS))).isTrue();
+    // no row at this time of day at all
+    assertThat(DoubleSeries.isNull(statistics.mean(DAY_MILLIS + 5 * HOUR_MILLIS))).isTrue();
+  }
+}
@@ -0,0 +1,403 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.ObjectSeries;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonParser.NumberType;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.pinot.client.ResultSet;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Builds a single DataFrame column from the values of a Pinot result table, read from a
+ * streaming parser or from a Pinot client {@link ResultSet}.
+ *
+ * Numeric and boolean columns are written directly into primitive arrays, using the data type
+ * reported by Pinot. A LONG column that receives a fractional value is promoted to a DOUBLE column.
+ * Other columns are collected as strings and their type is inferred, like
+ * {@link ai.startree.thirdeye.spi.dataframe.DataFrame.Builder} does.
+ */
+abstract class PinotColumnBuilder {
+
+  private static final int MIN_CAPACITY = 16;
+  // the Pinot client returns json nulls as this string
+  private static final String JSON_NULL = "null";
+
+  protected int size = 0;
+
+  /**
+   * @param pinotDataType the column data type reported by Pinot. Eg INT, DOUBLE, STRING.
+   */
+  static PinotColumnBuilder forDataType(final @Nullable String pinotDataType) {
+    if (pinotDataType != null) {
+      switch (pinotDataType) {
+        case "INT":
+        case "LONG":
+          return new LongColumnBuilder(MIN_CAPACITY);
+        case "FLOAT":
+        case "DOUBLE":
+          return new DoubleColumnBuilder(new double[MIN_CAPACITY], 0);
+        case "BOOLEAN":
+          return new BooleanColumnBuilder(MIN_CAPACITY);
+        default:
+          break;
+      }
+    }
+    return new InferredColumnBuilder(MIN_CAPACITY);
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Appends the value at the current token of the parser. Arrays and objects - eg multi-value
+   * columns - are consumed entirely and appended as their json string.
+   *
+   * @return the builder to use for the next values: this builder, or a builder of a wider type
+   *     that contains the values appended so far.
+   */
+  PinotColumnBuilder append(final JsonParser parser) throws IOException {
+    ensureCapacity();
+    final JsonToken token = parser.currentToken();
+    if (token == null) {
+      throw new IOException("Unexpected end of Pinot result table");
+    }
+    switch (token) {
+      case VALUE_NULL:
+        appendNull();
+        return this;
+      case VALUE_NUMBER_INT:
+        if (parser.getNumberType() == NumberType.BIG_INTEGER) {
+          return appendDouble(parser.getDoubleValue());
+        }
+        return appendLong(parser.getLongValue());
+      case VALUE_NUMBER_FLOAT:
+        return appendDouble(parser.getDoubleValue());
+      case VALUE_TRUE:
+        return appendBoolean(true);
+      case VALUE_FALSE:
+        return appendBoolean(false);
+      case VALUE_STRING:
+        return appendText(parser.getText());
+      default:
+        return appendText(parser.readValueAsTree().toString());
+    }
+  }
+
+  /**
+   * Appends the value of a cell of a result set, read with the accessor of the column type: eg
+   * {@link ResultSet#getLong(int, int)} for a LONG column.
+   *
+   * @return the builder to use for the next values. See {@link #append(JsonParser)}.
+   */
+  PinotColumnBuilder append(final ResultSet resultSet, final int rowIdx, final int columnIdx) {
+    ensureCapacity();
+    return appendCell(resultSet, rowIdx, columnIdx);
+  }
+
+  /**
+   * Appends a null, for a value missing at the end of a row.
+   */
+  void appendMissing() {
+    ensureCapacity();
+    appendNull();
+  }
+
+  abstract Series build();
+
+  /**
+   * Makes sure one more value can be appended.
+   */
+  protected abstract void ensureCapacity();
+
+  protected abstract void appendNull();
+
+  protected PinotColumnBuilder appendCell(final ResultSet resultSet, final int rowIdx,
+      final int columnIdx) {
+    final String value;
+    try {
+      value = resultSet.getString(rowIdx, columnIdx);
+    } catch (final Exception e) {
+      // Do nothing and insert a null value to the current series.
+      appendNull();
+      return this;
+    }
+    return appendText(value);
+  }
+
+  /**
+   * Appends a cell of a typed column that could not be read with the accessor of the type.
+   */
+  protected PinotColumnBuilder appendTypedCell(final ResultSet resultSet, final int rowIdx,
+      final int columnIdx) {
+    final String value;
+    try {
+      value = resultSet.getString(rowIdx, columnIdx);
+    } catch (final Exception e) {
+      appendNull();
+      return this;
+    }
+    if (JSON_NULL.equals(value)) {
+      appendNull();
+      return this;
+    }
+    return appendText(value);
+  }
+
+  /**
+   * Appends a string value. Non-numeric values in numeric columns - eg "-Infinity" - are parsed.
+   */
+  protected abstract PinotColumnBuilder appendText(String value);
+
+  protected PinotColumnBuilder appendLong(final long value) {
+    return appendText(Long.toString(value));
+  }
+
+  protected PinotColumnBuilder appendDouble(final double value) {
+    return appendText(Double.toString(value));
+  }
+
+  protected PinotColumnBuilder appendBoolean(final boolean value) {
+    return appendText(Boolean.toString(value));
+  }
+
+  private static class LongColumnBuilder extends PinotColumnBuilder {
+
+    private long[] values;
+
+    private LongColumnBuilder(final int capacity) {
+      values = new long[capacity];
+    }
+
+    @Override
+    protected void ensureCapacity() {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+    }
+
+    @Override
+    protected void appendNull() {
+      values[size++] = LongSeries.NULL;
+    }
+
+    @Override
+    protected PinotColumnBuilder appendText(final String value) {
+      if (StringSeries.isNull(value) || value.isEmpty()) {
+        appendNull();
+        return this;
+      }
+      final long longValue;
+      try {
+        longValue = Long.parseLong(value);
+      } catch (final NumberFormatException e) {
+        return toDoubleColumn().appendText(value);
+      }
+      return appendLong(longValue);
+    }
+
+    @Override
+    protected PinotColumnBuilder appendCell(final ResultSet resultSet, final int rowIdx,
+        final int columnIdx) {
+      try {
+        return appendLong(resultSet.getLong(rowIdx, columnIdx));
+      } catch (final NumberFormatException e) {
+        // null or fractional value
+        return appendTypedCell(resultSet, rowIdx, columnIdx);
+      }
+    }
+
+    @Override
+    protected PinotColumnBuilder appendLong(final long value) {
+      values[size++] = value;
+      return this;
+    }
+
+    @Override
+    protected PinotColumnBuilder appendDouble(final double value) {
+      return toDoubleColumn().appendDouble(value);
+    }
+
+    /**
+     * Converts the values appended so far, keeping the capacity for the next value.
+     */
+    private DoubleColumnBuilder toDoubleColumn() {
+      final double[] doubleValues = new double[values.length];
+      for (int i = 0; i < size; i++) {
+        doubleValues[i] = values[i] == LongSeries.NULL ? DoubleSeries.NULL : values[i];
+      }
+      return new DoubleColumnBuilder(doubleValues, size);
+    }
+
+    @Override
+    Series build() {
+      return LongSeries.buildFrom(Arrays.copyOf(values, size));
+    }
+  }
+
+  private static class DoubleColumnBuilder extends PinotColumnBuilder {
+
+    private double[] values;
+
+    private DoubleColumnBuilder(final double[] values, final int size) {
+      this.values = values;
+      this.size = size;
+    }
+
+    @Override
+    protected void ensureCapacity() {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+    }
+
+    @Override
+    protected void appendNull() {
+      values[size++] = DoubleSeries.NULL;
+    }
+
+    @Override
+    protected PinotColumnBuilder appendText(final String value) {
+      // Pinot serializes non-finite doubles as strings. Eg "-Infinity"
+      return appendDouble(StringSeries.getDouble(value));
+    }
+
+    @Override
+    protected PinotColumnBuilder appendLong(final long value) {
+      return appendDouble(value);
+    }
+
+    @Override
+    protected PinotColumnBuilder appendCell(final ResultSet resultSet, final int rowIdx,
+        final int columnIdx) {
+      try {
+        return appendDouble(resultSet.getDouble(rowIdx, columnIdx));
+      } catch (final NumberFormatException e) {
+        // null or non-finite value. Eg "-Infinity"
+        return appendTypedCell(resultSet, rowIdx, columnIdx);
+      }
+    }
+
+    @Override
+    protected PinotColumnBuilder appendDouble(final double value) {
+      values[size++] = value;
+      return this;
+    }
+
+    @Override
+    Series build() {
+      return DoubleSeries.buildFrom(Arrays.copyOf(values, size));
+    }
+  }
+
+  private static class BooleanColumnBuilder extends PinotColumnBuilder {
+
+    private byte[] values;
+
+    private BooleanColumnBuilder(final int capacity) {
+      values = new byte[capacity];
+    }
+
+    @Override
+    protected void ensureCapacity() {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+    }
+
+    @Override
+    protected void appendNull() {
+      values[size++] = BooleanSeries.NULL;
+    }
+
+    @Override
+    protected PinotColumnBuilder appendText(final String value) {
+      values[size++] = StringSeries.getBoolean(value);
+      return this;
+    }
+
+    @Override
+    protected PinotColumnBuilder appendLong(final long value) {
+      return appendBoolean(value != 0);
+    }
+
+    @Override
+    protected PinotColumnBuilder appendDouble(final double value) {
+      return appendBoolean(value != 0.0d);
+    }
+
+    @Override
+    protected PinotColumnBuilder appendCell(final ResultSet resultSet, final int rowIdx,
+        final int columnIdx) {
+      return appendTypedCell(resultSet, rowIdx, columnIdx);
+    }
+
+    @Override
+    protected PinotColumnBuilder appendBoolean(final boolean value) {
+      values[size++] = BooleanSeries.valueOf(value);
+      return this;
+    }
+
+    @Override
+    Series build() {
+      return BooleanSeries.buildFrom(Arrays.copyOf(values, size));
+    }
+  }
+
+  /**
+   * STRING, TIMESTAMP, BYTES, JSON and unknown types. Pinot often returns numbers in STRING
+   * columns, for instance time columns, so the type is inferred from the values.
+   */
+  private static class InferredColumnBuilder extends PinotColumnBuilder {
+
+    private String[] values;
+
+    private InferredColumnBuilder(final int capacity) {
+      values = new String[capacity];
+    }
+
+    @Override
+    protected void ensureCapacity() {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+    }
+
+    @Override
+    protected void appendNull() {
+      values[size++] = null;
+    }
+
+    @Override
+    protected PinotColumnBuilder appendText(final String value) {
+      values[size++] = value;
+      return this;
+    }
+
+    @Override
+    Series build() {
+      final ObjectSeries series = ObjectSeries.buildFrom((Object[]) Arrays.copyOf(values, size));
+      return series.get(series.inferType());
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import com.fasterxml.jackson.databind.JsonNode;
+import java.util.List;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * A Pinot broker response whose sql result table was decoded directly into a {@link DataFrame}.
+ * See {@link PinotDataFrameResponseReader}.
+ */
+public class PinotDataFrameResponse {
+
+  private List<String> columnNames;
+  private List<String> columnDataTypes;
+  private DataFrame dataFrame;
+  private JsonNode exceptions;
+
+  public boolean hasResultTable() {
+    return dataFrame != null;
+  }
+
+  /**
+   * @return the names of the columns, in result table order.
+   */
+  public @Nullable List<String> getColumnNames() {
+    return columnNames;
+  }
+
+  public PinotDataFrameResponse setColumnNames(final List<String> columnNames) {
+    this.columnNames = columnNames;
+    return this;
+  }
+
+  /**
+   * @return the data types reported by Pinot, in the same order as the names.
+   */
+  public @Nullable List<String> getColumnDataTypes() {
+    return columnDataTypes;
+  }
+
+  public PinotDataFrameResponse setColumnDataTypes(final List<String> columnDataTypes) {
+    this.columnDataTypes = columnDataTypes;
+    return this;
+  }
+
+  public @Nullable DataFrame getDataFrame() {
+    return dataFrame;
+  }
+
+  public PinotDataFrameResponse setDataFrame(final DataFrame dataFrame) {
+    this.dataFrame = dataFrame;
+    return this;
+  }
+
+  public boolean hasExceptions() {
+    return exceptions != null && exceptions.size() > 0;
+  }
+
+  public @Nullable JsonNode getExceptions() {
+    return exceptions;
+  }
+
+  public PinotDataFrameResponse setExceptions(final JsonNode exceptions) {
+    this.exceptions = exceptions;
+    return this;
+  }
+}
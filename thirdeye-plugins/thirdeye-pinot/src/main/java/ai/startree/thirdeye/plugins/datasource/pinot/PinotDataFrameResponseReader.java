@@ -0,0 +1,177 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads a Pinot broker response with a streaming parser.
+ *
+ * The rows of the sql result table are written directly into typed column builders, without
+ * materializing a json tree. The exceptions of the response are read as a json tree. Other
+ * fields - eg stats - are skipped.
+ */
+public class PinotDataFrameResponseReader {
+
+  private static final String RESULT_TABLE = "resultTable";
+  private static final String EXCEPTIONS = "exceptions";
+  private static final String DATA_SCHEMA = "dataSchema";
+  private static final String COLUMN_NAMES = "columnNames";
+  private static final String COLUMN_DATA_TYPES = "columnDataTypes";
+  private static final String ROWS = "rows";
+
+  private final ObjectReader objectReader;
+
+  public PinotDataFrameResponseReader(final ObjectReader objectReader) {
+    this.objectReader = objectReader;
+  }
+
+  private static void expect(final JsonParser parser, final JsonToken expected)
+      throws IOException {
+    if (parser.currentToken() != expected) {
+      throw new IOException(String.format("Invalid Pinot broker response. Expected %s, got %s",
+          expected,
+          parser.currentToken()));
+    }
+  }
+
+  private static List<String> textValues(final JsonNode array) {
+    final List<String> values = new ArrayList<>(array.size());
+    for (final JsonNode value : array) {
+      values.add(value.asText());
+    }
+    return values;
+  }
+
+  public PinotDataFrameResponse read(final InputStream inputStream) throws IOException {
+    try (final JsonParser parser = objectReader.createParser(inputStream)) {
+      parser.nextToken();
+      expect(parser, JsonToken.START_OBJECT);
+      final PinotDataFrameResponse response = new PinotDataFrameResponse();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        final String fieldName = parser.getCurrentName();
+        parser.nextToken();
+        if (RESULT_TABLE.equals(fieldName) && parser.currentToken() == JsonToken.START_OBJECT) {
+          readResultTable(parser, response);
+        } else if (EXCEPTIONS.equals(fieldName)) {
+          response.setExceptions(parser.readValueAsTree());
+        } else {
+          parser.skipChildren();
+        }
+      }
+      expect(parser, JsonToken.END_OBJECT);
+      return response;
+    }
+  }
+
+  private void readResultTable(final JsonParser parser, final PinotDataFrameResponse response)
+      throws IOException {
+    JsonNode rowsBeforeSchema = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String fieldName = parser.getCurrentName();
+      parser.nextToken();
+      if (DATA_SCHEMA.equals(fieldName)) {
+        final JsonNode dataSchema = parser.readValueAsTree();
+        final List<String> columnNames = textValues(dataSchema.path(COLUMN_NAMES));
+        checkUniqueColumnNames(columnNames);
+        response.setColumnNames(columnNames)
+            .setColumnDataTypes(textValues(dataSchema.path(COLUMN_DATA_TYPES)));
+      } else if (ROWS.equals(fieldName) && response.getColumnNames() == null) {
+        // the column types are not known yet: keep the rows as a tree
+        rowsBeforeSchema = parser.readValueAsTree();
+      } else if (ROWS.equals(fieldName)) {
+        response.setDataFrame(readRows(parser, response));
+      } else {
+        parser.skipChildren();
+      }
+    }
+    expect(parser, JsonToken.END_OBJECT);
+    if (response.getColumnNames() == null) {
+      throw new IOException("Invalid Pinot broker response. The result table has no dataSchema");
+    }
+    if (rowsBeforeSchema != null) {
+      try (final JsonParser rowsParser = rowsBeforeSchema.traverse(parser.getCodec())) {
+        rowsParser.nextToken();
+        response.setDataFrame(readRows(rowsParser, response));
+      }
+    }
+    if (response.getDataFrame() == null) {
+      response.setDataFrame(buildDataFrame(response.getColumnNames(), newBuilders(response)));
+    }
+  }
+
+  private static void checkUniqueColumnNames(final List<String> columnNames) throws IOException {
+    final Set<String> uniqueNames = new HashSet<>();
+    for (final String columnName : columnNames) {
+      if (!uniqueNames.add(columnName)) {
+        throw new IOException(String.format(
+            "Duplicate column name in Pinot result table: %s. Use an alias for each column.",
+            columnName));
+      }
+    }
+  }
+
+  private static PinotColumnBuilder[] newBuilders(final PinotDataFrameResponse response) {
+    final List<String> columnDataTypes = response.getColumnDataTypes();
+    final PinotColumnBuilder[] builders = new PinotColumnBuilder[response.getColumnNames().size()];
+    for (int columnIdx = 0; columnIdx < builders.length; columnIdx++) {
+      builders[columnIdx] = PinotColumnBuilder.forDataType(columnIdx < columnDataTypes.size()
+          ? columnDataTypes.get(columnIdx)
+          : null);
+    }
+    return builders;
+  }
+
+  private static DataFrame readRows(final JsonParser parser,
+      final PinotDataFrameResponse response) throws IOException {
+    expect(parser, JsonToken.START_ARRAY);
+    final PinotColumnBuilder[] builders = newBuilders(response);
+    final int columnCount = builders.length;
+    while (parser.nextToken() == JsonToken.START_ARRAY) {
+      int columnIdx = 0;
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (columnIdx >= columnCount) {
+          throw new IOException("Pinot result table row has more values than columns");
+        }
+        builders[columnIdx] = builders[columnIdx].append(parser);
+        columnIdx++;
+      }
+      // missing values in a row are nulls
+      for (; columnIdx < columnCount; columnIdx++) {
+        builders[columnIdx].appendMissing();
+      }
+    }
+    expect(parser, JsonToken.END_ARRAY);
+    return buildDataFrame(response.getColumnNames(), builders);
+  }
+
+  private static DataFrame buildDataFrame(final List<String> columnNames,
+      final PinotColumnBuilder[] builders) {
+    final DataFrame dataFrame = new DataFrame();
+    for (int columnIdx = 0; columnIdx < builders.length; columnIdx++) {
+      dataFrame.addSeries(columnNames.get(columnIdx), builders[columnIdx].build());
+    }
+    return dataFrame;
+  }
+}
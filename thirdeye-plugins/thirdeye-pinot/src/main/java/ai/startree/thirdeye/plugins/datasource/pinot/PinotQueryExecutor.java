@@ -35,6 +35,7 @@ import org.apache.pinot.client.PinotClientException;
 import org.apache.pinot.client.Request;
 import org.apache.pinot.client.ResultSet;
 import org.apache.pinot.client.ResultSetGroup;
+import org.apache.pinot.client.StreamingPinotConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -79,14 +80,7 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
     for (int i = 0; i < resultSet.getColumnCount(); i++) {
       if (columnName.equalsIgnoreCase(resultSet.getColumnName(i))) {
         try {
-          final ColumnType columnType = ColumnType.pinotTypeToColumnType(
-              resultSet.getColumnDataType(i));
-          // todo cyril - remove this - temporary adding log to understand when a client has a FLOAT column type
-          if (columnType.getType().equals(ColumnDataType.FLOAT)) {
-            LOG.info(
-                "\"" + resultSet.getColumnName(i) + "\" column returned by Pinot is of type FLOAT");
-          }
-          return columnType;
+          return toColumnType(resultSet.getColumnName(i), resultSet.getColumnDataType(i));
         } catch (final Throwable e) {
           // Pinot client doesn't provide type for pql, so default to DOUBLE type for metric column.
           return new ColumnType(ColumnDataType.DOUBLE);
@@ -97,6 +91,45 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
     return new ColumnType(ColumnDataType.STRING);
   }
 
+  private static ColumnType toColumnType(final String columnName, final String pinotDataType) {
+    final ColumnType columnType = ColumnType.pinotTypeToColumnType(pinotDataType);
+    // todo cyril - remove this - temporary adding log to understand when a client has a FLOAT column type
+    if (columnType.getType().equals(ColumnDataType.FLOAT)) {
+      LOG.info("\"" + columnName + "\" column returned by Pinot is of type FLOAT");
+    }
+    return columnType;
+  }
+
+  /**
+   * Constructs a ThirdEyeResultSetGroup from a response decoded directly into a DataFrame.
+   */
+  private static ThirdEyeResultSetGroup toThirdEyeResultSetGroup(
+      final PinotDataFrameResponse response) {
+    final List<ThirdEyeResultSet> thirdEyeResultSets = new ArrayList<>();
+    if (response.hasResultTable()) {
+      final List<String> columnNames = response.getColumnNames();
+      final List<String> columnDataTypes = response.getColumnDataTypes();
+      final List<ColumnType> columnTypes = new ArrayList<>(columnNames.size());
+      for (int columnIdx = 0; columnIdx < columnNames.size(); columnIdx++) {
+        try {
+          columnTypes.add(toColumnType(columnNames.get(columnIdx),
+              columnDataTypes.get(columnIdx)));
+        } catch (final Throwable e) {
+          // unknown types, eg multi-value columns, default to DOUBLE like in other result sets
+          columnTypes.add(new ColumnType(ColumnDataType.DOUBLE));
+        }
+      }
+      final ThirdEyeResultSetMetaData thirdEyeResultSetMetaData =
+          new ThirdEyeResultSetMetaData(new ArrayList<>(),
+              columnNames,
+              new ArrayList<>(),
+              columnTypes);
+      thirdEyeResultSets.add(new ThirdEyeDataFrameResultSet(thirdEyeResultSetMetaData,
+          response.getDataFrame()));
+    }
+    return new ThirdEyeResultSetGroup(thirdEyeResultSets);
+  }
+
   /**
    * Constructs a {@link ThirdEyeDataFrameResultSet} from any Pinot's {@link ResultSet}.
    *
@@ -141,7 +174,26 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
             groupKeyColumnTypes,
             metricColumnTypes);
 
-    // Build the DataFrame
+    final DataFrame dataFrame = buildDataFrame(resultSet, groupByColumnCount,
+        thirdEyeResultSetMetaData);
+    // Build ThirdEye's result set
+    return new ThirdEyeDataFrameResultSet(thirdEyeResultSetMetaData, dataFrame);
+  }
+
+  private static DataFrame buildDataFrame(final ResultSet resultSet, final int groupByColumnCount,
+      final ThirdEyeResultSetMetaData thirdEyeResultSetMetaData) {
+    if (groupByColumnCount == 0) {
+      return PinotResultTableReader.toDataFrame(resultSet);
+    }
+    return buildDataFrameFromStrings(resultSet, groupByColumnCount, thirdEyeResultSetMetaData);
+  }
+
+  /**
+   * Reads any result set row by row as strings. The types of the metric columns are inferred.
+   */
+  @VisibleForTesting
+  static DataFrame buildDataFrameFromStrings(final ResultSet resultSet,
+      final int groupByColumnCount, final ThirdEyeResultSetMetaData thirdEyeResultSetMetaData) {
     final List<String> columnNameWithDataType = new ArrayList<>();
     //   Always cast dimension values to STRING type
     for (final String groupColumnName : thirdEyeResultSetMetaData.getGroupKeyColumnNames()) {
@@ -177,9 +229,7 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
       }
       dfBuilder.append(columnsOfTheRow);
     }
-    final DataFrame dataFrame = dfBuilder.build();
-    // Build ThirdEye's result set
-    return new ThirdEyeDataFrameResultSet(thirdEyeResultSetMetaData, dataFrame);
+    return dfBuilder.build();
   }
 
   private static List<Pair<Integer, Integer>> rowColCounts(final ResultSetGroup resultSetGroup) {
@@ -192,6 +242,23 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
     return rowColCounts;
   }
 
+  private static List<Pair<Integer, Integer>> rowColCounts(
+      final ThirdEyeResultSetGroup resultSetGroup) {
+    return resultSetGroup.getResultSets().stream()
+        .map(resultSet -> Pair.pair(resultSet.getRowCount(), resultSet.getColumnCount()))
+        .collect(Collectors.toList());
+  }
+
+  private static void logQuery(final String queryWithOptions, final long start,
+      final List<Pair<Integer, Integer>> rowColCounts) {
+    final long end = System.nanoTime();
+    final long durationMillis = (end - start) / TimeUnit.MILLISECONDS.toNanos(1);
+    LOG.info("Query:{} time:{}ms result stats(rows, cols): {}",
+        queryWithOptions.replace('\n', ' '),
+        durationMillis,
+        toString(rowColCounts));
+  }
+
   private static String toString(final List<Pair<Integer, Integer>> pairs) {
     return pairs.stream()
         .map(p -> String.format("(%d, %d)", p.getFirst(), p.getSecond()))
@@ -205,17 +272,19 @@ public class PinotQueryExecutor extends CacheLoader<PinotQuery, ThirdEyeResultSe
       final Connection connection = pinotConnectionManager.get();
       final long start = System.nanoTime();
       final String queryFormat = pinotQuery.isUseSql() ? SQL_QUERY_FORMAT : PQL_QUERY_FORMAT;
+      final Request request = new Request(queryFormat, queryWithOptions);
+      if (pinotQuery.isUseSql() && connection instanceof StreamingPinotConnection) {
+        final PinotDataFrameResponse response = ((StreamingPinotConnection) connection)
+            .executeToDataFrame(pinotQuery.getTableName(), request);
+        final ThirdEyeResultSetGroup resultSetGroup = toThirdEyeResultSetGroup(response);
+        logQuery(queryWithOptions, start, rowColCounts(resultSetGroup));
+        return resultSetGroup;
+      }
       final ResultSetGroup resultSetGroup = connection.execute(
           pinotQuery.getTableName(),
-          new Request(queryFormat, queryWithOptions)
+          request
       );
-
-      final long end = System.nanoTime();
-      final long durationMillis = (end - start) / TimeUnit.MILLISECONDS.toNanos(1);
-      LOG.info("Query:{} time:{}ms result stats(rows, cols): {}",
-          queryWithOptions.replace('\n', ' '),
-          durationMillis,
-          toString(rowColCounts(resultSetGroup)));
+      logQuery(queryWithOptions, start, rowColCounts(resultSetGroup));
 
       return toThirdEyeResultSetGroup(resultSetGroup);
     } catch (final PinotClientException cause) {
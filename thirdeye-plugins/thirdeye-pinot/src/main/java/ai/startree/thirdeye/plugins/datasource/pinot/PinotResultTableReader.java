@@ -0,0 +1,53 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import org.apache.pinot.client.ResultSet;
+
+/**
+ * Column-wise conversion of a Pinot result set into a {@link DataFrame}.
+ *
+ * Each column is read with the {@link ResultSet} accessor of the data type reported by Pinot - eg
+ * {@link ResultSet#getLong(int, int)} for a LONG column - directly into a primitive array. See
+ * {@link PinotColumnBuilder}. No intermediate rows or boxed values are built.
+ */
+public class PinotResultTableReader {
+
+  /**
+   * Builds a DataFrame from the metric columns of a result set. Group keys are not read.
+   */
+  public static DataFrame toDataFrame(final ResultSet resultSet) {
+    final int rowCount = resultSet.getRowCount();
+    final int columnCount = resultSet.getColumnCount();
+    final DataFrame dataFrame = new DataFrame();
+    for (int columnIdx = 0; columnIdx < columnCount; columnIdx++) {
+      PinotColumnBuilder builder = PinotColumnBuilder.forDataType(dataType(resultSet, columnIdx));
+      for (int rowIdx = 0; rowIdx < rowCount; rowIdx++) {
+        builder = builder.append(resultSet, rowIdx, columnIdx);
+      }
+      dataFrame.addSeries(resultSet.getColumnName(columnIdx), builder.build());
+    }
+    return dataFrame;
+  }
+
+  private static String dataType(final ResultSet resultSet, final int columnIdx) {
+    try {
+      return resultSet.getColumnDataType(columnIdx);
+    } catch (final Exception e) {
+      // not reported, eg for pql: the type is inferred from the values
+      return null;
+    }
+  }
+}
@@ -36,6 +36,11 @@ public class PinotThirdEyeDataSourceConfig {
   private Integer requestTimeoutMs;
   private Integer connectTimeoutMs;
   private Integer brokerResponseTimeoutMs;
+  /**
+   * Decode sql responses with a streaming parser while they are received, directly into
+   * DataFrame columns. Reduces the memory used by queries returning many rows.
+   */
+  private Boolean streamingDecodeEnabled;
 
   public PinotOauthConfiguration getOauth() {
     return oauth;
@@ -176,6 +181,16 @@ public class PinotThirdEyeDataSourceConfig {
     return this;
   }
 
+  public Boolean getStreamingDecodeEnabled() {
+    return streamingDecodeEnabled;
+  }
+
+  public PinotThirdEyeDataSourceConfig setStreamingDecodeEnabled(
+      final Boolean streamingDecodeEnabled) {
+    this.streamingDecodeEnabled = streamingDecodeEnabled;
+    return this;
+  }
+
   @Override
   public boolean equals(final Object o) {
     if (this == o) {
@@ -198,7 +213,8 @@ public class PinotThirdEyeDataSourceConfig {
         && Objects.equals(readTimeoutMs, that.readTimeoutMs)
         && Objects.equals(requestTimeoutMs, that.requestTimeoutMs)
         && Objects.equals(connectTimeoutMs, that.connectTimeoutMs)
-        && Objects.equals(brokerResponseTimeoutMs, that.brokerResponseTimeoutMs);
+        && Objects.equals(brokerResponseTimeoutMs, that.brokerResponseTimeoutMs)
+        && Objects.equals(streamingDecodeEnabled, that.streamingDecodeEnabled);
   }
 
   @Override
@@ -216,6 +232,7 @@ public class PinotThirdEyeDataSourceConfig {
         readTimeoutMs,
         requestTimeoutMs,
         connectTimeoutMs,
-        brokerResponseTimeoutMs);
+        brokerResponseTimeoutMs,
+        streamingDecodeEnabled);
   }
 }
@@ -13,6 +13,8 @@
  */
 package org.apache.pinot.client;
 
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotDataFrameResponse;
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotDataFrameResponseReader;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
@@ -35,12 +37,17 @@ import org.slf4j.LoggerFactory;
  * adds certain capabilites which the above class fails to provide
  *
  * Originally added to customize timeout value
+ *
+ * Also decodes sql results directly into DataFrames, see
+ * {@link #executeQueryToDataFrame(String, Request)}.
  */
 public class ForkedJsonAsyncHttpPinotClientTransport implements PinotClientTransport {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(
       ForkedJsonAsyncHttpPinotClientTransport.class);
   private static final ObjectReader OBJECT_READER = new ObjectMapper().reader();
+  private static final PinotDataFrameResponseReader RESPONSE_READER =
+      new PinotDataFrameResponseReader(OBJECT_READER);
 
   private final Map<String, String> _headers;
   private final String _scheme;
@@ -77,28 +84,8 @@ public class ForkedJsonAsyncHttpPinotClientTransport implements PinotClientTrans
   public Future<BrokerResponse> executePinotQueryAsync(String brokerAddress,
       final Request request) {
     try {
-      ObjectNode json = JsonNodeFactory.instance.objectNode();
-      String queryFormat = request.getQueryFormat();
-      json.put(queryFormat, request.getQuery());
-
-      final String url;
-      if (queryFormat.equalsIgnoreCase("sql")) {
-        url = _scheme + "://" + brokerAddress + "/query/sql";
-        json.put("queryOptions", "groupByMode=sql;responseFormat=sql");
-      } else {
-        url = _scheme + "://" + brokerAddress + "/query";
-      }
-
-      BoundRequestBuilder requestBuilder = _httpClient.preparePost(url);
-
-      if (_headers != null) {
-        _headers.forEach((k, v) -> requestBuilder.addHeader(k, v));
-      }
-
-      final Future<Response> response =
-          requestBuilder.addHeader("Content-Type", "application/json; charset=utf-8")
-              .setBody(json.toString())
-              .execute();
+      final String url = queryUrl(brokerAddress, request);
+      final Future<Response> response = prepareRequest(url, request).execute();
 
       return new BrokerResponseFuture(
           response,
@@ -110,6 +97,63 @@ public class ForkedJsonAsyncHttpPinotClientTransport implements PinotClientTrans
     }
   }
 
+  /**
+   * Executes a query and decodes the sql result table directly into a DataFrame, while the
+   * response body is received. The body is not buffered: it is requested from the http client as
+   * the decoder consumes it, see {@link StreamedResponseInputStream}. The whole query, from the
+   * request to the end of the decoding, is bounded by the broker response timeout.
+   */
+  public PinotDataFrameResponse executeQueryToDataFrame(final String brokerAddress,
+      final Request request) throws PinotClientException {
+    final long deadlineNanos = System.nanoTime()
+        + TimeUnit.MILLISECONDS.toNanos(brokerResponseTimeoutMs);
+    try {
+      final String url = queryUrl(brokerAddress, request);
+      LOGGER.debug("Sending query {} to {}", request.getQuery(), url);
+      // closing the stream aborts the request if the body was not read entirely
+      try (final StreamedResponseInputStream inputStream =
+          new StreamedResponseInputStream(deadlineNanos)) {
+        final Future<Void> response = prepareRequest(url, request).execute(inputStream);
+        inputStream.setAbort(() -> response.cancel(true));
+        final int statusCode = inputStream.awaitStatusCode();
+        LOGGER.debug("Received query headers, HTTP status is {}", statusCode);
+
+        if (statusCode != 200) {
+          throw new PinotClientException(
+              "Pinot returned HTTP status " + statusCode + ", expected 200");
+        }
+        return RESPONSE_READER.read(inputStream);
+      }
+    } catch (Exception e) {
+      throw new PinotClientException(e);
+    }
+  }
+
+  private String queryUrl(final String brokerAddress, final Request request) {
+    if (request.getQueryFormat().equalsIgnoreCase("sql")) {
+      return _scheme + "://" + brokerAddress + "/query/sql";
+    }
+    return _scheme + "://" + brokerAddress + "/query";
+  }
+
+  private BoundRequestBuilder prepareRequest(final String url, final Request request) {
+    ObjectNode json = JsonNodeFactory.instance.objectNode();
+    String queryFormat = request.getQueryFormat();
+    json.put(queryFormat, request.getQuery());
+    if (queryFormat.equalsIgnoreCase("sql")) {
+      json.put("queryOptions", "groupByMode=sql;responseFormat=sql");
+    }
+
+    BoundRequestBuilder requestBuilder = _httpClient.preparePost(url);
+
+    if (_headers != null) {
+      _headers.forEach((k, v) -> requestBuilder.addHeader(k, v));
+    }
+
+    return requestBuilder.addHeader("Content-Type", "application/json; charset=utf-8")
+        .setBody(json.toString());
+  }
+
   @Override
   public BrokerResponse executeQuery(String brokerAddress, Request request)
       throws PinotClientException {
@@ -20,6 +20,7 @@ import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.plugins.datasource.pinot.PinotThirdEyeDataSourceConfig;
 import java.security.NoSuchAlgorithmException;
+import java.util.List;
 import javax.inject.Singleton;
 import javax.net.ssl.SSLContext;
 import org.slf4j.Logger;
@@ -32,19 +33,25 @@ public class PinotConnectionBuilder {
 
   public Connection createConnection(final PinotThirdEyeDataSourceConfig config) {
     final String brokerUrl = config.getBrokerUrl();
-    final PinotClientTransport transport = buildTransport(config);
+    final ForkedJsonAsyncHttpPinotClientTransport transport = buildTransport(config);
+    final boolean streamingDecodeEnabled = Boolean.TRUE.equals(
+        config.getStreamingDecodeEnabled());
 
     final Connection connection;
     if (brokerUrl != null && brokerUrl.trim().length() > 0) {
-      connection = ConnectionFactory.fromHostList(singletonList(brokerUrl), transport);
+      final List<String> brokers = singletonList(brokerUrl);
+      connection = streamingDecodeEnabled
+          ? new StreamingPinotConnection(new SimpleBrokerSelector(brokers), transport)
+          : ConnectionFactory.fromHostList(brokers, transport);
       LOG.info("Created pinot transport with brokers [{}]", brokerUrl);
     } else {
       final String zookeeperUrl = requireNonNull(config.getZookeeperUrl(),
           "zookeeperUrl is required if brokerUrl is not provided").trim();
       checkArgument(zookeeperUrl.length() > 0, "if provided, zookeeperUrl cannot be empty");
-      connection = ConnectionFactory.fromZookeeper(String.format("%s/%s",
-          zookeeperUrl,
-          config.getClusterName()), transport);
+      final String clusterUrl = String.format("%s/%s", zookeeperUrl, config.getClusterName());
+      connection = streamingDecodeEnabled
+          ? new StreamingPinotConnection(new DynamicBrokerSelector(clusterUrl), transport)
+          : ConnectionFactory.fromZookeeper(clusterUrl, transport);
       LOG.info("Created pinot transport with controller {}:{}",
           config.getControllerHost(),
           config.getControllerPort());
@@ -52,7 +59,7 @@ public class PinotConnectionBuilder {
     return connection;
   }
 
-  private PinotClientTransport buildTransport(
+  private ForkedJsonAsyncHttpPinotClientTransport buildTransport(
       final PinotThirdEyeDataSourceConfig config) {
     final ThirdEyeJsonAsyncHttpPinotClientTransportFactory factory =
         new ThirdEyeJsonAsyncHttpPinotClientTransportFactory();
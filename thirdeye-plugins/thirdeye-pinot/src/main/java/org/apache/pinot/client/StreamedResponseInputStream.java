@@ -0,0 +1,244 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.pinot.client;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.handler.StreamedAsyncHandler;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+/**
+ * Response body of an http request, read as an InputStream while it is received.
+ *
+ * The body parts are requested from the http client on demand of the reader, with reactive
+ * streams backpressure: the client stops reading from the socket when {@link #PREFETCH_PARTS}
+ * parts are buffered. The netty event loop never waits for the reader, so a slow reader does not
+ * stall other requests.
+ *
+ * All the waits of the reader are bounded by a deadline. Once it is passed, reads fail with a
+ * {@link SocketTimeoutException}. Closing the stream before the end of the body cancels the
+ * request.
+ */
+class StreamedResponseInputStream extends InputStream implements StreamedAsyncHandler<Void> {
+
+  static final int PREFETCH_PARTS = 4;
+
+  private static final Object END = new Object();
+
+  private final long deadlineNanos;
+  private final CompletableFuture<Integer> statusCode = new CompletableFuture<>();
+  // byte[] parts, then END or a Throwable. Bounded by the demand: at most PREFETCH_PARTS parts
+  private final BlockingQueue<Object> parts = new LinkedBlockingQueue<>();
+
+  private volatile boolean streamed = false;
+  private volatile Subscription subscription;
+  private volatile Runnable abort = () -> {};
+  private byte[] current = new byte[0];
+  private int position = 0;
+  private boolean ended = false;
+
+  /**
+   * @param deadlineNanos {@link System#nanoTime()} after which reads fail
+   */
+  StreamedResponseInputStream(final long deadlineNanos) {
+    this.deadlineNanos = deadlineNanos;
+  }
+
+  /**
+   * @param abort cancels the request. Called when the stream is closed before the end of the
+   *     body, or when the deadline is passed.
+   */
+  void setAbort(final Runnable abort) {
+    this.abort = abort;
+  }
+
+  /**
+   * Waits for the status line of the response, until the deadline.
+   */
+  int awaitStatusCode() throws IOException {
+    try {
+      return statusCode.get(remainingNanos(), TimeUnit.NANOSECONDS);
+    } catch (final TimeoutException e) {
+      throw timeout();
+    } catch (final ExecutionException e) {
+      throw new IOException(e.getCause());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for the response", e);
+    }
+  }
+
+  @Override
+  public State onStatusReceived(final HttpResponseStatus responseStatus) {
+    statusCode.complete(responseStatus.getStatusCode());
+    return State.CONTINUE;
+  }
+
+  @Override
+  public State onHeadersReceived(final HttpHeaders headers) {
+    return State.CONTINUE;
+  }
+
+  @Override
+  public State onStream(final Publisher<HttpResponseBodyPart> publisher) {
+    streamed = true;
+    publisher.subscribe(new Subscriber<>() {
+      @Override
+      public void onSubscribe(final Subscription s) {
+        subscription = s;
+        s.request(PREFETCH_PARTS);
+      }
+
+      @Override
+      public void onNext(final HttpResponseBodyPart part) {
+        parts.add(part.getBodyPartBytes());
+      }
+
+      @Override
+      public void onError(final Throwable t) {
+        parts.add(t);
+      }
+
+      @Override
+      public void onComplete() {
+        parts.add(END);
+      }
+    });
+    return State.CONTINUE;
+  }
+
+  /**
+   * Only called if the body is not streamed. The part is buffered without waiting.
+   */
+  @Override
+  public State onBodyPartReceived(final HttpResponseBodyPart bodyPart) {
+    parts.add(bodyPart.getBodyPartBytes());
+    return State.CONTINUE;
+  }
+
+  @Override
+  public void onThrowable(final Throwable t) {
+    statusCode.completeExceptionally(t);
+    parts.add(t);
+  }
+
+  @Override
+  public Void onCompleted() {
+    // the response may have no body
+    statusCode.complete(-1);
+    if (!streamed) {
+      // when streamed, the end is signaled by the publisher, after the buffered parts
+      parts.add(END);
+    }
+    return null;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+    return current[position++] & 0xff;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!fill()) {
+      return -1;
+    }
+    final int n = Math.min(len, current.length - position);
+    System.arraycopy(current, position, b, off, n);
+    position += n;
+    return n;
+  }
+
+  @Override
+  public int available() {
+    return current.length - position;
+  }
+
+  @Override
+  public void close() {
+    if (!ended) {
+      ended = true;
+      final Subscription s = subscription;
+      if (s != null) {
+        s.cancel();
+      }
+      abort.run();
+    }
+  }
+
+  /**
+   * @return false at the end of the body
+   */
+  private boolean fill() throws IOException {
+    while (position == current.length) {
+      if (ended) {
+        return false;
+      }
+      final Object next;
+      try {
+        next = parts.poll(remainingNanos(), TimeUnit.NANOSECONDS);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        close();
+        throw new IOException("Interrupted while reading the response", e);
+      }
+      if (next == null) {
+        close();
+        throw timeout();
+      }
+      if (next == END) {
+        ended = true;
+        return false;
+      }
+      if (next instanceof Throwable) {
+        ended = true;
+        throw new IOException((Throwable) next);
+      }
+      current = (byte[]) next;
+      position = 0;
+      final Subscription s = subscription;
+      if (s != null) {
+        // a part was consumed: request the next one
+        s.request(1);
+      }
+    }
+    return true;
+  }
+
+  private long remainingNanos() {
+    return Math.max(0, deadlineNanos - System.nanoTime());
+  }
+
+  private SocketTimeoutException timeout() {
+    return new SocketTimeoutException("Pinot broker response timed out");
+  }
+}
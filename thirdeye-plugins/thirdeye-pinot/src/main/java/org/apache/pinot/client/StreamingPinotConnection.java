@@ -0,0 +1,54 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.pinot.client;
+
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotDataFrameResponse;
+
+/**
+ * A Pinot connection that can also decode sql results directly into DataFrames, while the
+ * response is received. See
+ * {@link ForkedJsonAsyncHttpPinotClientTransport#executeQueryToDataFrame(String, Request)}.
+ */
+public class StreamingPinotConnection extends Connection {
+
+  private final BrokerSelector brokerSelector;
+  private final ForkedJsonAsyncHttpPinotClientTransport transport;
+
+  StreamingPinotConnection(final BrokerSelector brokerSelector,
+      final ForkedJsonAsyncHttpPinotClientTransport transport) {
+    super(brokerSelector, transport);
+    this.brokerSelector = brokerSelector;
+    this.transport = transport;
+  }
+
+  /**
+   * Executes a query against the broker serving the table.
+   *
+   * @throws PinotClientException if the query fails or returns processing exceptions
+   */
+  public PinotDataFrameResponse executeToDataFrame(final String tableName, final Request request)
+      throws PinotClientException {
+    final String brokerHostPort = brokerSelector.selectBroker(tableName);
+    if (brokerHostPort == null) {
+      throw new PinotClientException("Could not find broker to query for table: " + tableName);
+    }
+    final PinotDataFrameResponse response = transport.executeQueryToDataFrame(brokerHostPort,
+        request);
+    if (response.hasExceptions()) {
+      throw new PinotClientException(
+          "Query had processing exceptions: \n" + response.getExceptions());
+    }
+    return response;
+  }
+}
@@ -75,7 +75,7 @@ public class ThirdEyeJsonAsyncHttpPinotClientTransportFactory implements PinotCl
   }
 
   @Override
-  public PinotClientTransport buildTransport() {
+  public ForkedJsonAsyncHttpPinotClientTransport buildTransport() {
     final Builder builder = Dsl.config();
     if (sslContext != null) {
       builder.setSslContext(new JdkSslContext(sslContext, true, ClientAuth.OPTIONAL));
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.DoubleSeries;
+import ai.startree.thirdeye.spi.dataframe.LongSeries;
+import ai.startree.thirdeye.spi.dataframe.StringSeries;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.apache.pinot.client.ResultTableResultSet;
+import org.testng.annotations.Test;
+
+public class PinotDataFrameResponseReaderTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+  private static final String DATA_SCHEMA = "\"dataSchema\":{"
+      + "\"columnNames\":[\"ts\",\"dimension\",\"value\",\"mv\"],"
+      + "\"columnDataTypes\":[\"LONG\",\"STRING\",\"DOUBLE\",\"STRING_ARRAY\"]}";
+  private static final String ROWS = "\"rows\":["
+      + "[1600000000000,\"a\",1.5,[\"x\",\"y\"]],"
+      + "[1600000060000,null,\"-Infinity\",[]]]";
+  private static final DataFrame EXPECTED = new DataFrame()
+      .addSeries("ts", LongSeries.buildFrom(1600000000000L, 1600000060000L))
+      .addSeries("dimension", StringSeries.buildFrom("a", null))
+      .addSeries("value", DoubleSeries.buildFrom(1.5, Double.NEGATIVE_INFINITY))
+      .addSeries("mv", StringSeries.buildFrom("[\"x\",\"y\"]", "[]"));
+
+  private static PinotDataFrameResponse read(final String response) throws IOException {
+    return new PinotDataFrameResponseReader(OBJECT_MAPPER.reader())
+        .read(new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static String resultTable(final String columnNames, final String columnDataTypes,
+      final String rows) {
+    return "{\"resultTable\":{\"dataSchema\":{"
+        + "\"columnNames\":" + columnNames + ","
+        + "\"columnDataTypes\":" + columnDataTypes + "},"
+        + "\"rows\":" + rows + "}}";
+  }
+
+  @Test
+  public void testReadIntoTypedColumns() throws Exception {
+    final PinotDataFrameResponse response = read("{\"resultTable\":{" + DATA_SCHEMA + "," + ROWS
+        + "},\"exceptions\":[],\"numDocsScanned\":2,\"traceInfo\":{\"a\":[1]},\"timeUsedMs\":3}");
+
+    assertThat(response.hasExceptions()).isFalse();
+    assertThat(response.hasResultTable()).isTrue();
+    assertThat(response.getColumnNames()).containsExactly("ts", "dimension", "value", "mv");
+    assertThat(response.getColumnDataTypes()).containsExactly("LONG",
+        "STRING",
+        "DOUBLE",
+        "STRING_ARRAY");
+    assertThat(response.getDataFrame()).isEqualTo(EXPECTED);
+  }
+
+  @Test
+  public void testReadMatchesResultSetConversion() throws Exception {
+    final String response = resultTable("[\"ts\",\"dimension\",\"count\",\"value\",\"flag\"]",
+        "[\"LONG\",\"STRING\",\"INT\",\"DOUBLE\",\"BOOLEAN\"]",
+        "[[1600000000000,\"a\",3,1.5,true],[1600000060000,\"b\",4,2.25,false]]");
+
+    final DataFrame expected = PinotResultTableReader.toDataFrame(new ResultTableResultSet(
+        OBJECT_MAPPER.readTree(response).get("resultTable")));
+    assertThat(read(response).getDataFrame()).isEqualTo(expected);
+  }
+
+  @Test
+  public void testReadRowsBeforeSchema() throws Exception {
+    final PinotDataFrameResponse response = read(
+        "{\"resultTable\":{" + ROWS + "," + DATA_SCHEMA + "}}");
+
+    assertThat(response.getDataFrame()).isEqualTo(EXPECTED);
+  }
+
+  @Test
+  public void testReadEmptyResultTable() throws Exception {
+    final PinotDataFrameResponse response = read(resultTable("[\"ts\",\"value\"]",
+        "[\"LONG\",\"DOUBLE\"]",
+        "[]"));
+
+    assertThat(response.getDataFrame()).isEqualTo(new DataFrame()
+        .addSeries("ts", LongSeries.empty())
+        .addSeries("value", DoubleSeries.empty()));
+  }
+
+  @Test
+  public void testReadMissingValuesAsNulls() throws Exception {
+    final PinotDataFrameResponse response = read(resultTable("[\"ts\",\"value\"]",
+        "[\"LONG\",\"DOUBLE\"]",
+        "[[1],[2,2.5]]"));
+
+    assertThat(response.getDataFrame()).isEqualTo(new DataFrame()
+        .addSeries("ts", LongSeries.buildFrom(1, 2))
+        .addSeries("value", DoubleSeries.buildFrom(DoubleSeries.NULL, 2.5)));
+  }
+
+  @Test
+  public void testFractionalValuesPromoteLongColumnToDouble() throws Exception {
+    final PinotDataFrameResponse response = read(resultTable("[\"count\",\"other\"]",
+        "[\"LONG\",\"INT\"]",
+        "[[1,null],[null,\"3.5\"],[2.5,4],[3,99999999999999999999]]"));
+
+    assertThat(response.getDataFrame()).isEqualTo(new DataFrame()
+        .addSeries("count", DoubleSeries.buildFrom(1, DoubleSeries.NULL, 2.5, 3))
+        .addSeries("other", DoubleSeries.buildFrom(DoubleSeries.NULL, 3.5, 4, 1e20)));
+  }
+
+  @Test
+  public void testRejectDuplicateColumnNames() {
+    assertThatThrownBy(() -> read(resultTable("[\"value\",\"value\"]",
+        "[\"LONG\",\"DOUBLE\"]",
+        "[[1,2.5]]")))
+        .isInstanceOf(IOException.class)
+        .hasMessageContaining("Duplicate column name in Pinot result table: value");
+  }
+
+  @Test
+  public void testRejectRowWithTooManyValues() {
+    assertThatThrownBy(() -> read(resultTable("[\"value\"]", "[\"LONG\"]", "[[1,2]]")))
+        .isInstanceOf(IOException.class);
+  }
+
+  @Test
+  public void testReadExceptions() throws Exception {
+    final PinotDataFrameResponse response = read(
+        "{\"exceptions\":[{\"errorCode\":150,\"message\":\"bad query\"}]}");
+
+    assertThat(response.hasExceptions()).isTrue();
+    assertThat(response.getExceptions().get(0).get("message").asText()).isEqualTo("bad query");
+    assertThat(response.hasResultTable()).isFalse();
+    assertThat(response.getDataFrame()).isNull();
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSetMetaData;
+import ai.startree.thirdeye.spi.detection.v2.ColumnType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.apache.pinot.client.ResultSet;
+import org.apache.pinot.client.ResultTableResultSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the conversion of a Pinot result table into a DataFrame: row by row through
+ * {@link DataFrame.Builder}, and column by column.
+ */
+public class PinotResultTableReaderBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(PinotResultTableReaderBenchmark.class);
+
+  private static final int N_ROUNDS = 15;
+  private static final int N_ROWS = 500_000;
+  private static final int N_DIMENSION_VALUES = 1000;
+
+  private static final String[] SERIES_NAMES = new String[]{"task", "min", "mid", "max", "outer",
+      "checksum", "samples"};
+  private static final List<String> COLUMN_NAMES = List.of("ts", "dimension", "count", "value");
+  private static final List<String> COLUMN_DATA_TYPES = List.of("LONG", "STRING", "INT",
+      "DOUBLE");
+
+  private static final long SEED = System.nanoTime();
+
+  private final ResultSet resultSet = new ResultTableResultSet(generateResultTable(N_ROWS));
+
+  private long tStart;
+  private long tStartOuter;
+  private List<Long> times = new ArrayList<>();
+  private long timeOuter;
+  private final DataFrame.Builder results = DataFrame.builder(SERIES_NAMES);
+
+  private void benchmarkStringConversion() {
+    startTimerOuter();
+    long checksum = 0;
+
+    final List<ColumnType> columnTypes = new ArrayList<>();
+    for (final String dataType : COLUMN_DATA_TYPES) {
+      columnTypes.add(ColumnType.pinotTypeToColumnType(dataType));
+    }
+    final ThirdEyeResultSetMetaData metaData = new ThirdEyeResultSetMetaData(List.of(),
+        COLUMN_NAMES,
+        List.of(),
+        columnTypes);
+
+    for (int r = 0; r < N_ROUNDS; r++) {
+      startTimer();
+      final DataFrame df = PinotQueryExecutor.buildDataFrameFromStrings(resultSet, 0, metaData);
+      stopTimer();
+
+      checksum ^= checksum(df);
+    }
+
+    logResults("benchmarkStringConversion", checksum);
+  }
+
+  private void benchmarkColumnConversion() {
+    startTimerOuter();
+    long checksum = 0;
+
+    for (int r = 0; r < N_ROUNDS; r++) {
+      startTimer();
+      final DataFrame df = PinotResultTableReader.toDataFrame(resultSet);
+      stopTimer();
+
+      checksum ^= checksum(df);
+    }
+
+    logResults("benchmarkColumnConversion", checksum);
+  }
+
+  private void benchmarkAll() {
+    benchmarkStringConversion();
+    benchmarkColumnConversion();
+  }
+
+  private void startTimer() {
+    this.tStart = System.nanoTime();
+  }
+
+  private void stopTimer() {
+    long tDelta = System.nanoTime() - this.tStart;
+    this.times.add(tDelta);
+  }
+
+  private void startTimerOuter() {
+    this.tStartOuter = System.nanoTime();
+  }
+
+  private void stopTimerOuter() {
+    this.timeOuter = System.nanoTime() - this.tStartOuter;
+  }
+
+  private void logResults(String name, long checksum) {
+    stopTimerOuter();
+    Collections.sort(this.times);
+    long tMid = this.times.get(this.times.size() / 2);
+    long tMin = Collections.min(this.times);
+    long tMax = Collections.max(this.times);
+    LOG.info("{}: min/mid/max = {}ms {}ms {}ms [all={}ms, chk={}, cnt={}]", name, tMin / 1000000,
+        tMid / 1000000, tMax / 1000000, timeOuter / 1000000, checksum % 1000, this.times.size());
+    this.results.append(name, tMin, tMid, tMax, this.timeOuter, checksum, this.times.size());
+
+    // reset timer stats
+    this.times = new ArrayList<>();
+  }
+
+  public static void main(String[] args) throws Exception {
+    LOG.info("Press Enter key to start.");
+    System.in.read();
+
+    LOG.info("Running Pinot result table benchmark ...");
+    PinotResultTableReaderBenchmark b = new PinotResultTableReaderBenchmark();
+    b.benchmarkAll();
+
+    Series.LongFunction toMillis = values -> values[0] / 1000000;
+
+    DataFrame df = b.results.build();
+    df.mapInPlace(toMillis, "min");
+    df.mapInPlace(toMillis, "mid");
+    df.mapInPlace(toMillis, "max");
+    df.mapInPlace(toMillis, "outer");
+    df.mapInPlace((Series.LongFunction) values -> values[0] % 1000, "checksum");
+
+    LOG.info("Summary:\n{}", df.toString(40, SERIES_NAMES));
+    LOG.info("done.");
+  }
+
+  private static long checksum(final DataFrame df) {
+    long bits = 0;
+    for (final long v : df.getLongs("ts").values()) {
+      bits ^= v;
+    }
+    for (final double v : df.getDoubles("value").values()) {
+      bits ^= Double.doubleToLongBits(v);
+    }
+    return bits;
+  }
+
+  private static JsonNode generateResultTable(final int n) {
+    final Random r = new Random();
+    r.setSeed(SEED);
+
+    final JsonNodeFactory factory = JsonNodeFactory.instance;
+    final ObjectNode resultTable = factory.objectNode();
+    final ObjectNode dataSchema = resultTable.putObject("dataSchema");
+    final ArrayNode columnNames = dataSchema.putArray("columnNames");
+    COLUMN_NAMES.forEach(columnNames::add);
+    final ArrayNode columnDataTypes = dataSchema.putArray("columnDataTypes");
+    COLUMN_DATA_TYPES.forEach(columnDataTypes::add);
+
+    final ArrayNode rows = resultTable.putArray("rows");
+    final long start = 1_600_000_000_000L;
+    for (int i = 0; i < n; i++) {
+      rows.addArray()
+          .add(start + i * 60_000L)
+          .add("value_" + r.nextInt(N_DIMENSION_VALUES))
+          .add(r.nextInt(1000))
+          .add(r.nextDouble() * 1000);
+    }
+    return resultTable;
+  }
+}
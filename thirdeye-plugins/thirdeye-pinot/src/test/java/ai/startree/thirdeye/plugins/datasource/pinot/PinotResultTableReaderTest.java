@@ -0,0 +1,123 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.datasource.pinot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ai.startree.thirdeye.spi.dataframe.BooleanSeries;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series.SeriesType;
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSetMetaData;
+import ai.startree.thirdeye.spi.detection.v2.ColumnType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.pinot.client.ResultSet;
+import org.apache.pinot.client.ResultTableResultSet;
+import org.testng.annotations.Test;
+
+public class PinotResultTableReaderTest {
+
+  private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+  private static ResultSet resultSet(final String rows) throws Exception {
+    return new ResultTableResultSet(OBJECT_MAPPER.readTree("{\"dataSchema\":{"
+        + "\"columnNames\":[\"ts\",\"dimension\",\"count\",\"value\",\"flag\",\"time\"],"
+        + "\"columnDataTypes\":[\"LONG\",\"STRING\",\"INT\",\"DOUBLE\",\"BOOLEAN\",\"STRING\"]},"
+        + "\"rows\":" + rows + "}"));
+  }
+
+  @Test
+  public void testColumnConversionMatchesStringConversion() throws Exception {
+    final ResultSet resultSet = resultSet("["
+        + "[1600000000000,\"a\",3,1.5,true,\"20200101\"],"
+        + "[1600000060000,\"b\",4,2.25,false,\"20200102\"]]");
+
+    final DataFrame columns = PinotResultTableReader.toDataFrame(resultSet);
+
+    assertThat(columns).isEqualTo(fromStrings(resultSet));
+    assertThat(columns.get("ts").type()).isEqualTo(SeriesType.LONG);
+    assertThat(columns.get("dimension").type()).isEqualTo(SeriesType.STRING);
+    assertThat(columns.get("count").type()).isEqualTo(SeriesType.LONG);
+    assertThat(columns.get("value").type()).isEqualTo(SeriesType.DOUBLE);
+    assertThat(columns.get("flag").type()).isEqualTo(SeriesType.BOOLEAN);
+    // numbers in STRING columns are inferred, like in the string conversion
+    assertThat(columns.get("time").type()).isEqualTo(SeriesType.LONG);
+  }
+
+  @Test
+  public void testColumnConversionWithNullsAndNonFiniteValues() throws Exception {
+    final ResultSet resultSet = resultSet("["
+        + "[null,null,null,\"-Infinity\",null,null],"
+        + "[1600000060000,\"b\",4,\"NaN\",true,\"x\"]]");
+
+    final DataFrame columns = PinotResultTableReader.toDataFrame(resultSet);
+
+    assertThat(columns.size()).isEqualTo(2);
+    // the reported types are kept: the string conversion infers STRING for ts and count
+    assertThat(columns.get("ts").type()).isEqualTo(SeriesType.LONG);
+    assertThat(columns.get("count").type()).isEqualTo(SeriesType.LONG);
+    assertThat(columns.get("value").type()).isEqualTo(SeriesType.DOUBLE);
+    assertThat(columns.get("flag").type()).isEqualTo(SeriesType.BOOLEAN);
+    assertThat(columns.getLongs("ts").isNull(0)).isTrue();
+    assertThat(columns.getLong("ts", 1)).isEqualTo(1600000060000L);
+    assertThat(columns.getLongs("count").isNull(0)).isTrue();
+    assertThat(columns.getLong("count", 1)).isEqualTo(4L);
+    assertThat(columns.getDouble("value", 0)).isEqualTo(Double.NEGATIVE_INFINITY);
+    assertThat(columns.getDoubles("value").isNull(1)).isTrue();
+    assertThat(columns.getBooleans("flag").isNull(0)).isTrue();
+    assertThat(columns.getBooleans("flag").getBoolean(1)).isEqualTo(BooleanSeries.TRUE);
+    assertThat(columns.getString("time", 1)).isEqualTo("x");
+  }
+
+  @Test
+  public void testColumnConversionOfEmptyResult() throws Exception {
+    final ResultSet resultSet = resultSet("[]");
+
+    final DataFrame columns = PinotResultTableReader.toDataFrame(resultSet);
+
+    assertThat(columns.size()).isEqualTo(0);
+    assertThat(columns.getSeriesNames()).containsExactlyInAnyOrder("ts", "dimension", "count",
+        "value", "flag", "time");
+    assertThat(columns.get("ts").type()).isEqualTo(SeriesType.LONG);
+    assertThat(columns.get("value").type()).isEqualTo(SeriesType.DOUBLE);
+  }
+
+  @Test
+  public void testFractionalValueInLongColumnIsPromoted() throws Exception {
+    final ResultSet resultSet = resultSet("["
+        + "[1,\"a\",3,1.5,true,\"1\"],"
+        + "[2.5,\"b\",4,2,false,\"2\"]]");
+
+    final DataFrame columns = PinotResultTableReader.toDataFrame(resultSet);
+
+    assertThat(columns.get("ts").type()).isEqualTo(SeriesType.DOUBLE);
+    assertThat(columns.getDoubles("ts").values()).containsExactly(1.0, 2.5);
+    assertThat(columns.getDoubles("value").values()).containsExactly(1.5, 2.0);
+  }
+
+  private static DataFrame fromStrings(final ResultSet resultSet) {
+    return PinotQueryExecutor.buildDataFrameFromStrings(resultSet, 0, metaData(resultSet));
+  }
+
+  private static ThirdEyeResultSetMetaData metaData(final ResultSet resultSet) {
+    final List<String> names = new ArrayList<>();
+    final List<ColumnType> types = new ArrayList<>();
+    for (int i = 0; i < resultSet.getColumnCount(); i++) {
+      names.add(resultSet.getColumnName(i));
+      types.add(ColumnType.pinotTypeToColumnType(resultSet.getColumnDataType(i)));
+    }
+    return new ThirdEyeResultSetMetaData(List.of(), names, List.of(), types);
+  }
+}
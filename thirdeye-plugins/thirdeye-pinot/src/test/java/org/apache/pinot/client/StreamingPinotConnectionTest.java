@@ -0,0 +1,221 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.apache.pinot.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotConnectionManager;
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotDataFrameResponse;
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotQuery;
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotQueryExecutor;
+import ai.startree.thirdeye.plugins.datasource.pinot.PinotThirdEyeDataSourceConfig;
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSet;
+import ai.startree.thirdeye.spi.datasource.resultset.ThirdEyeResultSetGroup;
+import ai.startree.thirdeye.spi.detection.v2.ColumnType.ColumnDataType;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class StreamingPinotConnectionTest {
+
+  private static final int LARGE_ROW_COUNT = 200_000;
+
+  private HttpServer server;
+  private volatile int status;
+  private volatile String body;
+  private volatile int rowCount;
+  private volatile long stallMs;
+
+  @BeforeClass
+  public void startBroker() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/query/sql", exchange -> {
+      exchange.getRequestBody().readAllBytes();
+      // chunked response: the body is written while the client reads it
+      exchange.sendResponseHeaders(status, 0);
+      try (final OutputStream outputStream = exchange.getResponseBody();
+          final Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
+        if (body != null) {
+          writer.write(body);
+        } else if (stallMs > 0) {
+          // the broker stops sending in the middle of the body
+          writer.write("{\"resultTable\":{");
+          writer.flush();
+          sleep(stallMs);
+        } else {
+          writeResultTable(writer, rowCount);
+        }
+      }
+    });
+    server.start();
+  }
+
+  @AfterClass(alwaysRun = true)
+  public void stopBroker() {
+    server.stop(0);
+  }
+
+  @AfterMethod(alwaysRun = true)
+  public void resetResponse() {
+    status = 200;
+    body = null;
+    rowCount = 0;
+    stallMs = 0;
+  }
+
+  private static void sleep(final long millis) {
+    try {
+      Thread.sleep(millis);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void writeResultTable(final Writer writer, final int rowCount)
+      throws IOException {
+    writer.write("{\"resultTable\":{\"dataSchema\":{\"columnNames\":[\"ts\",\"value\"],"
+        + "\"columnDataTypes\":[\"LONG\",\"DOUBLE\"]},\"rows\":[");
+    for (int i = 0; i < rowCount; i++) {
+      if (i > 0) {
+        writer.write(',');
+      }
+      writer.write("[" + i + "," + (i * 0.5) + "]");
+    }
+    writer.write("]},\"exceptions\":[],\"numDocsScanned\":" + rowCount + "}");
+  }
+
+  private StreamingPinotConnection connection() {
+    return connection(new PinotThirdEyeDataSourceConfig());
+  }
+
+  private StreamingPinotConnection connection(final PinotThirdEyeDataSourceConfig config) {
+    final Connection connection = new PinotConnectionBuilder().createConnection(config
+        .setBrokerUrl("localhost:" + server.getAddress().getPort())
+        .setStreamingDecodeEnabled(true));
+    assertThat(connection).isInstanceOf(StreamingPinotConnection.class);
+    return (StreamingPinotConnection) connection;
+  }
+
+  @Test
+  public void testDefaultConnectionIsNotStreaming() {
+    final Connection connection = new PinotConnectionBuilder().createConnection(
+        new PinotThirdEyeDataSourceConfig().setBrokerUrl("localhost:1"));
+    try {
+      assertThat(connection).isNotInstanceOf(StreamingPinotConnection.class);
+    } finally {
+      connection.close();
+    }
+  }
+
+  @Test
+  public void testExecuteToDataFrameLargerThanTheStreamBuffer() {
+    rowCount = LARGE_ROW_COUNT;
+    final StreamingPinotConnection connection = connection();
+    try {
+      final PinotDataFrameResponse response = connection.executeToDataFrame("table",
+          new Request("sql", "SELECT ts, value FROM table"));
+
+      final DataFrame dataFrame = response.getDataFrame();
+      assertThat(dataFrame.size()).isEqualTo(LARGE_ROW_COUNT);
+      assertThat(dataFrame.getLong("ts", LARGE_ROW_COUNT - 1)).isEqualTo(LARGE_ROW_COUNT - 1);
+      assertThat(dataFrame.getDouble("value", LARGE_ROW_COUNT - 1))
+          .isEqualTo((LARGE_ROW_COUNT - 1) * 0.5);
+    } finally {
+      connection.close();
+    }
+  }
+
+  @Test
+  public void testProcessingExceptionsFailTheQuery() {
+    body = "{\"exceptions\":[{\"errorCode\":150,\"message\":\"bad query\"}]}";
+    final StreamingPinotConnection connection = connection();
+    try {
+      assertThatThrownBy(() -> connection.executeToDataFrame("table",
+          new Request("sql", "SELECT")))
+          .isInstanceOf(PinotClientException.class)
+          .hasMessageContaining("bad query");
+    } finally {
+      connection.close();
+    }
+  }
+
+  @Test
+  public void testHttpErrorFailsTheQuery() {
+    status = 500;
+    rowCount = LARGE_ROW_COUNT;
+    final StreamingPinotConnection connection = connection();
+    try {
+      assertThatThrownBy(() -> connection.executeToDataFrame("table",
+          new Request("sql", "SELECT ts, value FROM table")))
+          .isInstanceOf(PinotClientException.class)
+          .hasMessageContaining("HTTP status 500");
+    } finally {
+      connection.close();
+    }
+  }
+
+  @Test
+  public void testQueryExecutorUsesTheStreamedDataFrame() {
+    rowCount = 3;
+    final StreamingPinotConnection connection = connection();
+    try {
+      final PinotConnectionManager connectionManager = mock(PinotConnectionManager.class);
+      when(connectionManager.get()).thenReturn(connection);
+
+      final ThirdEyeResultSetGroup resultSetGroup = new PinotQueryExecutor(connectionManager)
+          .load(new PinotQuery("SELECT ts, value FROM table", "table", Map.of()));
+
+      assertThat(resultSetGroup.size()).isEqualTo(1);
+      final ThirdEyeResultSet resultSet = resultSetGroup.get(0);
+      assertThat(resultSet.getRowCount()).isEqualTo(3);
+      assertThat(resultSet.getGroupKeyLength()).isEqualTo(0);
+      assertThat(resultSet.getColumnCount()).isEqualTo(2);
+      assertThat(resultSet.getColumnType(0).getType())
+          .isEqualTo(ColumnDataType.LONG);
+      assertThat(resultSet.getString(2, 1)).isEqualTo("1.0");
+    } finally {
+      connection.close();
+    }
+  }
+
+  @Test
+  public void testStalledBodyFailsTheQueryAtTheBrokerResponseTimeout() {
+    stallMs = 5_000;
+    final StreamingPinotConnection connection = connection(new PinotThirdEyeDataSourceConfig()
+        .setBrokerResponseTimeoutMs(500));
+    try {
+      final long start = System.currentTimeMillis();
+      assertThatThrownBy(() -> connection.executeToDataFrame("table",
+          new Request("sql", "SELECT ts, value FROM table")))
+          .isInstanceOf(PinotClientException.class)
+          .hasMessageContaining("timed out");
+      assertThat(System.currentTimeMillis() - start).isLessThan(stallMs);
+    } finally {
+      connection.close();
+    }
+  }
+}
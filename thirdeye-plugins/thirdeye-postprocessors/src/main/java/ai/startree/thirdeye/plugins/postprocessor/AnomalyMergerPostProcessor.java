@@ -36,7 +36,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -166,8 +166,12 @@ public class AnomalyMergerPostProcessor implements AnomalyPostProcessor {
     final List<AnomalyDTO> persistenceAnomalies = retrieveRelevantAnomaliesFromDatabase(detectionInterval);
     final List<AnomalyDTO> anomaliesToUpdate = vanishedAnomalies(operatorAnomalies, persistenceAnomalies, detectionInterval);
     // exclude vanished anomalies from merge operation
-    persistenceAnomalies.removeAll(anomaliesToUpdate);
-    final List<AnomalyDTO> mergedAnomalies = doMerge(operatorAnomalies, persistenceAnomalies);
+    final Set<AnomalyDTO> vanished = identitySet();
+    vanished.addAll(anomaliesToUpdate);
+    final List<AnomalyDTO> mergeableAnomalies = persistenceAnomalies.stream()
+        .filter(a -> !vanished.contains(a))
+        .collect(Collectors.toList());
+    final List<AnomalyDTO> mergedAnomalies = doMerge(operatorAnomalies, mergeableAnomalies);
     anomaliesToUpdate.addAll(mergedAnomalies);
 
     return anomaliesToUpdate;
@@ -208,16 +212,28 @@ public class AnomalyMergerPostProcessor implements AnomalyPostProcessor {
     for (final AnomalyDTO existingAnomaly : persistenceAnomalies) {
       final Set<AnomalyDTO> children = existingAnomaly.getChildren();
       if (children != null && children.size() > 0) {
-        int numChildrenOutdated = children.stream().map(AnomalyMergerPostProcessor::hasOutdatedLabel).mapToInt( o -> o ? 1 : 0).sum();
+        // single pass on the children: count outdated children, find first and last valid children
+        int numChildrenOutdated = 0;
+        AnomalyDTO firstChildren = null;
+        AnomalyDTO lastChildren = null;
+        for (final AnomalyDTO child : children) {
+          if (hasOutdatedLabel(child)) {
+            numChildrenOutdated++;
+            continue;
+          }
+          if (firstChildren == null || COMPARATOR.compare(child, firstChildren) < 0) {
+            firstChildren = child;
+          }
+          if (lastChildren == null || COMPARATOR.compare(child, lastChildren) >= 0) {
+            lastChildren = child;
+          }
+        }
         if (numChildrenOutdated == children.size()) {
           // parent is fully outdated
           addReplayLabel(existingAnomaly, newOutdatedLabel());
           vanishedAnomalies.add(existingAnomaly);
         } else if (numChildrenOutdated > 0){
           // parent is partially outdated - updated bounds
-          final List<AnomalyDTO> sortedNotOutdatedChildren  = children.stream().filter(a -> !hasOutdatedLabel(a)).sorted(COMPARATOR).collect(Collectors.toList());
-          final AnomalyDTO firstChildren = sortedNotOutdatedChildren.get(0);
-          final AnomalyDTO lastChildren = sortedNotOutdatedChildren.get(sortedNotOutdatedChildren.size()-1);
           existingAnomaly.setStartTime(firstChildren.getStartTime());
           updateAnomalyWithNewValues(existingAnomaly, firstChildren);
           existingAnomaly.setEndTime(lastChildren.getEndTime());
@@ -276,9 +292,10 @@ public class AnomalyMergerPostProcessor implements AnomalyPostProcessor {
   @VisibleForTesting
   protected List<AnomalyDTO> doMerge(final List<AnomalyDTO> operatorAnomalies,
       final List<AnomalyDTO> persistenceAnomalies) {
-    // use a set that maintains order
     final List<AnomalyDTO> sortedAnomalies = combineAndSort(operatorAnomalies, persistenceAnomalies);
-    final Set<AnomalyDTO> anomaliesToUpdate = new LinkedHashSet<>();
+    // anomalies are mutated during the merge - track them by reference, not by hashCode
+    final List<AnomalyDTO> anomaliesToUpdate = new ArrayList<>();
+    final Set<AnomalyDTO> addedAnomalies = identitySet();
     AnomalyDTO parentCandidate = null;
     AnomalyDTO previousAnomaly = null;
     // sorted anomalies look like [parentWithChild, child, replay, child, replay, parentWithNoChild, replay, replayNew]
@@ -289,12 +306,12 @@ public class AnomalyMergerPostProcessor implements AnomalyPostProcessor {
         if (startEndEquals(previousAnomaly, anomaly)) {
           if (currentValueHasChanged(previousAnomaly, anomaly)) {
             addReplayLabel(previousAnomaly, newOutdatedLabel());
-            anomaliesToUpdate.add(previousAnomaly);
+            addOnce(anomaliesToUpdate, addedAnomalies, previousAnomaly);
             addReplayLabel(anomaly, newAfterReplayLabel());
           } else {
             // update the existing anomaly with minor changes - drop the new anomaly
             updateAnomalyWithNewValues(previousAnomaly, anomaly);
-            anomaliesToUpdate.add(previousAnomaly);
+            addOnce(anomaliesToUpdate, addedAnomalies, previousAnomaly);
             continue;
           }
         }
@@ -315,16 +332,27 @@ public class AnomalyMergerPostProcessor implements AnomalyPostProcessor {
       } else {
         // by properties of the sort the current parentCandidate will not merge anymore
         // put it in list of anomalies and make the current anomaly the new parentCandidate
-        anomaliesToUpdate.add(parentCandidate);
+        addOnce(anomaliesToUpdate, addedAnomalies, parentCandidate);
         parentCandidate = anomaly;
       }
     }
     // add last parent candidate
     if (parentCandidate != null) {
-      anomaliesToUpdate.add(parentCandidate);
+      addOnce(anomaliesToUpdate, addedAnomalies, parentCandidate);
     }
 
-    return new ArrayList<>(anomaliesToUpdate);
+    return anomaliesToUpdate;
+  }
+
+  private static Set<AnomalyDTO> identitySet() {
+    return Collections.newSetFromMap(new IdentityHashMap<>());
+  }
+
+  private static void addOnce(final List<AnomalyDTO> anomalies, final Set<AnomalyDTO> added,
+      final AnomalyDTO anomaly) {
+    if (added.add(anomaly)) {
+      anomalies.add(anomaly);
+    }
   }
 
   private void addReplayLabel(final AnomalyDTO anomaly, final AnomalyLabelDTO label) {
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.plugins.postprocessor;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.dataframe.DataFrame;
+import ai.startree.thirdeye.spi.dataframe.Series;
+import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
+import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.detection.DetectionPipelineUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Interval;
+import org.joda.time.chrono.ISOChronology;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the merge of a replay over existing anomalies, for growing numbers of anomalies.
+ * The time per anomaly should stay constant: the merge is expected to scale linearly.
+ */
+public class AnomalyMergerPostProcessorBenchmark {
+
+  private static final Logger LOG = LoggerFactory.getLogger(
+      AnomalyMergerPostProcessorBenchmark.class);
+
+  private static final int N_ROUNDS = 10;
+  private static final int[] N_ANOMALIES = {25_000, 50_000, 100_000};
+  private static final int N_CHILDREN = 10;
+  // every VANISHED_EVERY anomaly is not detected anymore by the replay
+  private static final int VANISHED_EVERY = 5;
+
+  private static final String[] SERIES_NAMES = new String[]{"anomalies", "min", "mid", "max",
+      "outer", "perAnomalyNs", "checksum", "samples"};
+
+  private static final long START = 1_600_000_000_000L;
+  private static final long MINUTE = 60_000L;
+  // bigger than the default merge max gap - groups of children are never merged together
+  private static final long GROUP_GAP = 3 * 60 * MINUTE;
+
+  private long tStart;
+  private long tStartOuter;
+  private List<Long> times = new ArrayList<>();
+  private long timeOuter;
+  private final DataFrame.Builder results = DataFrame.builder(SERIES_NAMES);
+
+  private void benchmarkMerge(final int nAnomalies) {
+    startTimerOuter();
+    long checksum = 0;
+
+    for (int r = 0; r < N_ROUNDS; r++) {
+      // the merge mutates the anomalies - generate a new dataset for each round
+      final List<AnomalyDTO> existingAnomalies = new ArrayList<>();
+      final List<AnomalyDTO> operatorAnomalies = new ArrayList<>();
+      final Interval detectionInterval = generateReplay(nAnomalies, existingAnomalies,
+          operatorAnomalies);
+      final AnomalyMergerPostProcessor merger = newMerger(existingAnomalies);
+
+      startTimer();
+      final List<AnomalyDTO> output = merger.merge(operatorAnomalies, detectionInterval);
+      stopTimer();
+
+      checksum += checksum(output);
+    }
+
+    logResults(nAnomalies, checksum);
+  }
+
+  private void benchmarkAll() {
+    for (final int nAnomalies : N_ANOMALIES) {
+      benchmarkMerge(nAnomalies);
+    }
+  }
+
+  private void startTimer() {
+    this.tStart = System.nanoTime();
+  }
+
+  private void stopTimer() {
+    long tDelta = System.nanoTime() - this.tStart;
+    this.times.add(tDelta);
+  }
+
+  private void startTimerOuter() {
+    this.tStartOuter = System.nanoTime();
+  }
+
+  private void stopTimerOuter() {
+    this.timeOuter = System.nanoTime() - this.tStartOuter;
+  }
+
+  private void logResults(final int nAnomalies, final long checksum) {
+    stopTimerOuter();
+    Collections.sort(this.times);
+    long tMid = this.times.get(this.times.size() / 2);
+    long tMin = Collections.min(this.times);
+    long tMax = Collections.max(this.times);
+    LOG.info("merge {} anomalies: min/mid/max = {}ms {}ms {}ms [all={}ms, chk={}, cnt={}]",
+        nAnomalies, tMin / 1000000, tMid / 1000000, tMax / 1000000, timeOuter / 1000000,
+        checksum % 1000, this.times.size());
+    this.results.append(nAnomalies, tMin, tMid, tMax, this.timeOuter, tMid / nAnomalies,
+        checksum, this.times.size());
+
+    // reset timer stats
+    this.times = new ArrayList<>();
+  }
+
+  public static void main(String[] args) throws Exception {
+    LOG.info("Press Enter key to start.");
+    System.in.read();
+
+    LOG.info("Running anomaly merger benchmark ...");
+    AnomalyMergerPostProcessorBenchmark b = new AnomalyMergerPostProcessorBenchmark();
+    b.benchmarkAll();
+
+    Series.LongFunction toMillis = values -> values[0] / 1000000;
+
+    DataFrame df = b.results.build();
+    df.mapInPlace(toMillis, "min");
+    df.mapInPlace(toMillis, "mid");
+    df.mapInPlace(toMillis, "max");
+    df.mapInPlace(toMillis, "outer");
+    df.mapInPlace((Series.LongFunction) values -> values[0] % 1000, "checksum");
+
+    LOG.info("Summary:\n{}", df.toString(40, SERIES_NAMES));
+    LOG.info("done.");
+  }
+
+  private static AnomalyMergerPostProcessor newMerger(final List<AnomalyDTO> existingAnomalies) {
+    final AnomalyManager anomalyManager = mock(AnomalyManager.class);
+    when(anomalyManager.findByStartEndTimeInRangeAndDetectionConfigId(anyLong(), anyLong(),
+        anyLong(), nullable(Long.class))).thenReturn(existingAnomalies);
+    final AnomalyMergerPostProcessor merger = new AnomalyMergerPostProcessor(
+        new AnomalyMergerPostProcessorSpec()
+            .setAnomalyManager(anomalyManager)
+            .setAlertId(1L)
+            .setUsage(DetectionPipelineUsage.DETECTION));
+    merger.setChronology(ISOChronology.getInstanceUTC());
+    return merger;
+  }
+
+  /**
+   * Generates nAnomalies existing unit anomalies, grouped by N_CHILDREN under existing parents,
+   * and the replay of these anomalies where some anomalies vanished.
+   *
+   * @return the detection interval of the replay
+   */
+  private static Interval generateReplay(final int nAnomalies,
+      final List<AnomalyDTO> existingAnomalies, final List<AnomalyDTO> operatorAnomalies) {
+    long id = 0;
+    long groupStart = START;
+    for (int g = 0; g < nAnomalies / N_CHILDREN; g++) {
+      final AnomalyDTO parent = anomaly(groupStart, groupStart + N_CHILDREN * MINUTE);
+      parent.setId(++id);
+      final Set<AnomalyDTO> children = new HashSet<>();
+      for (int c = 0; c < N_CHILDREN; c++) {
+        final long start = groupStart + c * MINUTE;
+        final AnomalyDTO child = anomaly(start, start + MINUTE).setChild(true);
+        child.setId(++id);
+        children.add(child);
+        existingAnomalies.add(child);
+        if ((g * N_CHILDREN + c) % VANISHED_EVERY != 0) {
+          operatorAnomalies.add(anomaly(start, start + MINUTE));
+        }
+      }
+      parent.setChildren(children);
+      existingAnomalies.add(parent);
+      groupStart += N_CHILDREN * MINUTE + GROUP_GAP;
+    }
+    return new Interval(START, groupStart, DateTimeZone.UTC);
+  }
+
+  private static AnomalyDTO anomaly(final long start, final long end) {
+    final AnomalyDTO anomaly = new AnomalyDTO()
+        .setAvgCurrentVal(10)
+        .setAvgBaselineVal(5)
+        .setScore(1);
+    anomaly.setStartTime(start);
+    anomaly.setEndTime(end);
+    return anomaly;
+  }
+
+  private static long checksum(final List<AnomalyDTO> anomalies) {
+    long bits = anomalies.size();
+    for (final AnomalyDTO anomaly : anomalies) {
+      bits = 31 * bits + (anomaly.getEndTime() - anomaly.getStartTime()) / MINUTE;
+    }
+    return bits;
+  }
+}
@@ -18,7 +18,7 @@ import static ai.startree.thirdeye.spi.util.AlertMetadataUtils.getDateTimeZone;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 
 import ai.startree.thirdeye.alert.AlertTemplateRenderer;
-import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
+import ai.startree.thirdeye.notification.SubscriptionGroupWatermarkManager;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.bao.AlertManager;
 import ai.startree.thirdeye.spi.datalayer.bao.AnomalyManager;
@@ -59,18 +59,21 @@ public class JobSchedulerService {
   private final AnomalyManager anomalyManager;
   private final AnomalySubscriptionGroupNotificationManager notificationManager;
   private final AlertTemplateRenderer alertTemplateRenderer;
+  private final SubscriptionGroupWatermarkManager watermarkManager;
 
   @Inject
   public JobSchedulerService(final TaskManager taskManager,
       final AlertManager alertManager,
       final AnomalyManager anomalyManager,
       final AnomalySubscriptionGroupNotificationManager notificationManager,
-      final AlertTemplateRenderer alertTemplateRenderer) {
+      final AlertTemplateRenderer alertTemplateRenderer,
+      final SubscriptionGroupWatermarkManager watermarkManager) {
     this.taskManager = taskManager;
     this.alertManager = alertManager;
     this.anomalyManager = anomalyManager;
     this.notificationManager = notificationManager;
     this.alertTemplateRenderer = alertTemplateRenderer;
+    this.watermarkManager = watermarkManager;
   }
 
   public boolean taskAlreadyRunning(final String jobName) {
@@ -152,19 +155,14 @@ public class JobSchedulerService {
    * @return true if it needs notification task. false otherwise.
    */
   public boolean needNotification(final SubscriptionGroupDTO configDTO) {
-    Map<Long, Long> vectorClocks = configDTO.getVectorClocks();
+    final Map<Long, Long> vectorClocks = watermarkManager.getVectorClocks(configDTO);
     if (vectorClocks == null || vectorClocks.size() == 0) {
       return true;
     }
-    for (Map.Entry<Long, Long> e : vectorClocks.entrySet()) {
-      long configId = e.getKey();
-      long lastNotifiedTime = e.getValue();
-      if (anomalyManager.filter(new AnomalyFilter()
-              .setCreateTimeWindow(new Interval(lastNotifiedTime, System.currentTimeMillis()))
-              .setAlertId(configId))
-          .stream().anyMatch(x -> !x.isChild())) {
-        return true;
-      }
+    // anomalies of all the alerts created after their watermark, in a single query
+    if (anomalyManager.findByCreateTimeWatermarks(vectorClocks, System.currentTimeMillis())
+        .stream().anyMatch(x -> !x.isChild())) {
+      return true;
     }
     // in addition to checking the watermarks, check if any anomalies need to be re-notified by querying the anomaly subscription group notification table
     List<AnomalySubscriptionGroupNotificationDTO> anomalySubscriptionGroupNotifications =
@@ -42,7 +42,7 @@ import javax.ws.rs.core.MultivaluedMap;
 
 public class DaoFilterBuilder {
 
-  private static final ImmutableSet<String> KEYWORDS = ImmutableSet.of("limit", "offset");
+  private static final ImmutableSet<String> KEYWORDS = ImmutableSet.of("limit", "offset", "afterId");
   private static final ImmutableMap<String, OPER> OPERATOR_MAP = ImmutableMap.<String, OPER>builder()
       .put("eq", OPER.EQ)
       .put("gt", OPER.GT)
@@ -97,6 +97,9 @@ public class DaoFilterBuilder {
           ensure(offset >= 0, ERR_NEGATIVE_OFFSET_VALUE);
           daoFilter.setOffset(offset);
         });
+    optional(queryParameters.getFirst("afterId"))
+        .map(Long::valueOf)
+        .ifPresent(daoFilter::setAfterId);
 
     return daoFilter.setPredicate(buildPredicate(queryParameters));
   }
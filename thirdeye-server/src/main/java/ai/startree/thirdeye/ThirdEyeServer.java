@@ -18,15 +18,20 @@ import static ai.startree.thirdeye.spi.Constants.ENV_THIRDEYE_PLUGINS_DIR;
 import static ai.startree.thirdeye.spi.Constants.SYS_PROP_THIRDEYE_PLUGINS_DIR;
 import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 
+import ai.startree.thirdeye.alert.MonitoredMetricIndexer;
 import ai.startree.thirdeye.auth.AuthConfiguration;
 import ai.startree.thirdeye.auth.AuthDisabledRequestFilter;
 import ai.startree.thirdeye.auth.ThirdEyePrincipal;
 import ai.startree.thirdeye.config.ThirdEyeServerConfiguration;
 import ai.startree.thirdeye.datalayer.DataSourceBuilder;
 import ai.startree.thirdeye.datalayer.core.EnumerationItemMaintainer;
+import ai.startree.thirdeye.datalayer.core.PayloadMigrator;
+import ai.startree.thirdeye.datasource.cache.DataSourceCache;
 import ai.startree.thirdeye.detectionpipeline.PlanExecutor;
+import ai.startree.thirdeye.detectionpipeline.operator.sql.SqlEngineSessionPool;
 import ai.startree.thirdeye.healthcheck.DatabaseHealthCheck;
 import ai.startree.thirdeye.json.ThirdEyeJsonProcessingExceptionMapper;
+import ai.startree.thirdeye.notification.NotificationDispatcher;
 import ai.startree.thirdeye.resources.root.RootResource;
 import ai.startree.thirdeye.scheduler.DetectionCronScheduler;
 import ai.startree.thirdeye.scheduler.SchedulerService;
@@ -173,6 +178,13 @@ public class ThirdEyeServer extends Application<ThirdEyeServerConfiguration> {
           taskDriver = injector.getInstance(TaskDriver.class);
           taskDriver.start();
         }
+
+        if (config.getDatabaseConfiguration().isMigratePayloads()) {
+          injector.getInstance(PayloadMigrator.class).start();
+        }
+
+        // index the monitored metric of the alerts saved before it was indexed
+        injector.getInstance(MonitoredMetricIndexer.class).start();
       }
 
       @Override
@@ -187,8 +199,23 @@ public class ThirdEyeServer extends Application<ThirdEyeServerConfiguration> {
         /* Shutdown the Plan Executor threads */
         injector.getInstance(PlanExecutor.class).close();
 
+        /* Close the idle SQL engine sessions */
+        injector.getInstance(SqlEngineSessionPool.class).close();
+
+        /* Close the data sources and shutdown the data source validation threads */
+        injector.getInstance(DataSourceCache.class).close();
+
         /* Shutdown Enumeration Item Maintainer thread */
         injector.getInstance(EnumerationItemMaintainer.class).close();
+
+        /* Shutdown Payload Migrator thread */
+        injector.getInstance(PayloadMigrator.class).close();
+
+        /* Shutdown Monitored Metric Indexer thread */
+        injector.getInstance(MonitoredMetricIndexer.class).close();
+
+        /* Shutdown the Notification Dispatcher threads */
+        injector.getInstance(NotificationDispatcher.class).close();
       }
     };
   }
@@ -13,10 +13,13 @@
  */
 package ai.startree.thirdeye;
 
+import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
+
 import ai.startree.thirdeye.auth.AccessControlProvider;
 import ai.startree.thirdeye.auth.AuthConfiguration;
 import ai.startree.thirdeye.auth.ThirdEyeAuthModule;
 import ai.startree.thirdeye.config.ThirdEyeServerConfiguration;
+import ai.startree.thirdeye.datalayer.util.DatabaseConfiguration;
 import ai.startree.thirdeye.detectionpipeline.ThirdEyeDetectionPipelineModule;
 import ai.startree.thirdeye.notification.ThirdEyeNotificationModule;
 import ai.startree.thirdeye.scheduler.ThirdEyeSchedulerModule;
@@ -54,6 +57,7 @@ public class ThirdEyeServerModule extends AbstractModule {
     install(new ThirdEyeAuthModule(configuration.getAuthConfiguration()));
 
     install(new ThirdEyeCoreModule(dataSource,
+        optional(configuration.getDatabaseConfiguration()).orElseGet(DatabaseConfiguration::new),
         configuration.getCacheConfig(),
         configuration.getRcaConfiguration(),
         configuration.getUiConfiguration(),
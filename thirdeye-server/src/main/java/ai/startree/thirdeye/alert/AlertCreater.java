@@ -39,15 +39,18 @@ public class AlertCreater {
   private final AlertManager alertManager;
   private final TaskManager taskManager;
   private final AlertInsightsProvider alertInsightsProvider;
+  private final MonitoredMetricIndexer monitoredMetricIndexer;
   private final long minimumOnboardingStartTime;
 
   @Inject
   public AlertCreater(final AlertManager alertManager, final TaskManager taskManager,
       final AlertInsightsProvider alertInsightsProvider,
-      final TimeConfiguration timeConfiguration) {
+      final TimeConfiguration timeConfiguration,
+      final MonitoredMetricIndexer monitoredMetricIndexer) {
     this.alertManager = alertManager;
     this.taskManager = taskManager;
     this.alertInsightsProvider = alertInsightsProvider;
+    this.monitoredMetricIndexer = monitoredMetricIndexer;
     this.minimumOnboardingStartTime = timeConfiguration.getMinimumOnboardingStartTime();
   }
 
@@ -83,6 +86,7 @@ public class AlertCreater {
     if (dto.getLastTimestamp() < minimumOnboardingStartTime) {
       dto.setLastTimestamp(minimumLastTimestamp(dto));
     }
+    monitoredMetricIndexer.index(dto);
     alertManager.save(dto);
     return dto;
   }
@@ -23,6 +23,7 @@ import ai.startree.thirdeye.auth.ThirdEyePrincipal;
 import ai.startree.thirdeye.notification.NotificationPayloadBuilder;
 import ai.startree.thirdeye.notification.NotificationServiceRegistry;
 import ai.startree.thirdeye.notification.SubscriptionGroupFilter;
+import ai.startree.thirdeye.notification.SubscriptionGroupWatermarkManager;
 import ai.startree.thirdeye.spi.api.NotificationPayloadApi;
 import ai.startree.thirdeye.spi.api.SubscriptionGroupApi;
 import ai.startree.thirdeye.spi.datalayer.bao.SubscriptionGroupManager;
@@ -85,6 +86,7 @@ public class InternalResource {
   private final TaskDriverConfiguration taskDriverConfiguration;
   private final TaskDriver taskDriver;
   private final SubscriptionGroupFilter subscriptionGroupFilter;
+  private final SubscriptionGroupWatermarkManager subscriptionGroupWatermarkManager;
   private final DetectionPipelineTaskRunner detectionPipelineTaskRunner;
 
   @Inject
@@ -98,6 +100,7 @@ public class InternalResource {
       final TaskDriverConfiguration taskDriverConfiguration,
       final TaskDriver taskDriver,
       final SubscriptionGroupFilter subscriptionGroupFilter,
+      final SubscriptionGroupWatermarkManager subscriptionGroupWatermarkManager,
       final DetectionPipelineTaskRunner detectionPipelineTaskRunner) {
     this.httpDetectorResource = httpDetectorResource;
     this.databaseAdminResource = databaseAdminResource;
@@ -108,6 +111,7 @@ public class InternalResource {
     this.taskDriverConfiguration = taskDriverConfiguration;
     this.taskDriver = taskDriver;
     this.subscriptionGroupFilter = subscriptionGroupFilter;
+    this.subscriptionGroupWatermarkManager = subscriptionGroupWatermarkManager;
     this.detectionPipelineTaskRunner = detectionPipelineTaskRunner;
   }
 
@@ -137,8 +141,7 @@ public class InternalResource {
     ensureExists(subscriptionGroupManagerById, "Query parameter required: alertId !");
     final SubscriptionGroupDTO sg = subscriptionGroupManager.findById(subscriptionGroupManagerById);
     if (reset == Boolean.TRUE) {
-      sg.setVectorClocks(null);
-      subscriptionGroupManager.save(sg);
+      subscriptionGroupWatermarkManager.resetWatermarks(sg);
     }
 
     requireNonNull(sg, "subscription Group is null");
@@ -189,8 +192,7 @@ public class InternalResource {
     ensureExists(subscriptionGroupId, "Query parameter required: alertId !");
     final SubscriptionGroupDTO sg = subscriptionGroupManager.findById(subscriptionGroupId);
     if (reset == Boolean.TRUE) {
-      sg.setVectorClocks(null);
-      subscriptionGroupManager.save(sg);
+      subscriptionGroupWatermarkManager.resetWatermarks(sg);
     }
     notificationTaskRunner.execute(subscriptionGroupId);
     return Response.ok().build();
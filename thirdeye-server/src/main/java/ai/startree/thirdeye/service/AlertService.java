@@ -26,6 +26,7 @@ import ai.startree.thirdeye.alert.AlertCreater;
 import ai.startree.thirdeye.alert.AlertDeleter;
 import ai.startree.thirdeye.alert.AlertEvaluator;
 import ai.startree.thirdeye.alert.AlertInsightsProvider;
+import ai.startree.thirdeye.alert.MonitoredMetricIndexer;
 import ai.startree.thirdeye.auth.AuthorizationManager;
 import ai.startree.thirdeye.auth.ThirdEyePrincipal;
 import ai.startree.thirdeye.mapper.ApiBeanMapper;
@@ -66,6 +67,7 @@ public class AlertService extends CrudService<AlertApi, AlertDTO> {
   private final AlertEvaluator alertEvaluator;
   private final AppAnalyticsService analyticsService;
   private final AlertInsightsProvider alertInsightsProvider;
+  private final MonitoredMetricIndexer monitoredMetricIndexer;
 
   @Inject
   public AlertService(final AlertCreater alertCreater,
@@ -74,6 +76,7 @@ public class AlertService extends CrudService<AlertApi, AlertDTO> {
       final AlertManager alertManager,
       final AppAnalyticsService analyticsService,
       final AlertInsightsProvider alertInsightsProvider,
+      final MonitoredMetricIndexer monitoredMetricIndexer,
       final AuthorizationManager authorizationManager) {
     super(authorizationManager, alertManager, ImmutableMap.of());
     this.alertCreater = alertCreater;
@@ -81,6 +84,7 @@ public class AlertService extends CrudService<AlertApi, AlertDTO> {
     this.alertEvaluator = alertEvaluator;
     this.analyticsService = analyticsService;
     this.alertInsightsProvider = alertInsightsProvider;
+    this.monitoredMetricIndexer = monitoredMetricIndexer;
   }
 
   @Override
@@ -129,6 +133,7 @@ public class AlertService extends CrudService<AlertApi, AlertDTO> {
     if (updated.getCron() == null) {
       updated.setCron(CRON_EVERY_HOUR);
     }
+    monitoredMetricIndexer.index(updated);
   }
 
   @Override
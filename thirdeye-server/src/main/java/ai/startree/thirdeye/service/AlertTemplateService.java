@@ -14,6 +14,7 @@
 
 package ai.startree.thirdeye.service;
 
+import ai.startree.thirdeye.alert.MonitoredMetricIndexer;
 import ai.startree.thirdeye.auth.AuthorizationManager;
 import ai.startree.thirdeye.auth.ThirdEyePrincipal;
 import ai.startree.thirdeye.core.BootstrapResourcesRegistry;
@@ -36,13 +37,30 @@ public class AlertTemplateService extends CrudService<AlertTemplateApi, AlertTem
   private static final Logger LOG = LoggerFactory.getLogger(AlertTemplateService.class);
 
   private final BootstrapResourcesRegistry bootstrapResourcesRegistry;
+  private final MonitoredMetricIndexer monitoredMetricIndexer;
 
   @Inject
   public AlertTemplateService(final AlertTemplateManager alertTemplateManager,
       final AuthorizationManager authorizationManager,
-      final BootstrapResourcesRegistry bootstrapResourcesRegistry) {
+      final BootstrapResourcesRegistry bootstrapResourcesRegistry,
+      final MonitoredMetricIndexer monitoredMetricIndexer) {
     super(authorizationManager, alertTemplateManager, ImmutableMap.of());
     this.bootstrapResourcesRegistry = bootstrapResourcesRegistry;
+    this.monitoredMetricIndexer = monitoredMetricIndexer;
+  }
+
+  @Override
+  public List<AlertTemplateApi> editMultiple(final ThirdEyePrincipal principal,
+      final List<AlertTemplateApi> list) {
+    final List<AlertTemplateApi> updated = super.editMultiple(principal, list);
+    // the monitored metric of an alert is indexed from its rendered template
+    final int reindexed = monitoredMetricIndexer.indexAlertsUsing(updated.stream()
+        .map(this::toDto)
+        .collect(Collectors.toList()));
+    LOG.info("Updated the monitored metric of {} alerts after updating {} templates.",
+        reindexed,
+        updated.size());
+    return updated;
   }
 
   @Override
@@ -25,6 +25,7 @@ import static ai.startree.thirdeye.util.ResourceUtils.ensureNull;
 import ai.startree.thirdeye.auth.AuthorizationManager;
 import ai.startree.thirdeye.auth.ThirdEyePrincipal;
 import ai.startree.thirdeye.mapper.ApiBeanMapper;
+import ai.startree.thirdeye.notification.SubscriptionGroupWatermarkManager;
 import ai.startree.thirdeye.spi.api.AlertApi;
 import ai.startree.thirdeye.spi.api.SubscriptionGroupApi;
 import ai.startree.thirdeye.spi.datalayer.bao.SubscriptionGroupManager;
@@ -41,13 +42,16 @@ public class SubscriptionGroupService extends
 
   private static final String CRON_EVERY_5MIN = "0 */5 * * * ?";
   private final SubscriptionGroupManager subscriptionGroupManager;
+  private final SubscriptionGroupWatermarkManager watermarkManager;
 
   @Inject
   public SubscriptionGroupService(
       final SubscriptionGroupManager subscriptionGroupManager,
+      final SubscriptionGroupWatermarkManager watermarkManager,
       final AuthorizationManager authorizationManager) {
     super(authorizationManager, subscriptionGroupManager, ImmutableMap.of());
     this.subscriptionGroupManager = subscriptionGroupManager;
+    this.watermarkManager = watermarkManager;
   }
 
   @Override
@@ -90,6 +94,12 @@ public class SubscriptionGroupService extends
     }
   }
 
+  @Override
+  protected void deleteDto(final SubscriptionGroupDTO dto) {
+    super.deleteDto(dto);
+    watermarkManager.deleteWatermarks(dto);
+  }
+
   @Override
   protected SubscriptionGroupDTO toDto(final SubscriptionGroupApi api) {
     return ApiBeanMapper.toSubscriptionGroupDTO(api);
@@ -102,8 +112,7 @@ public class SubscriptionGroupService extends
 
   public SubscriptionGroupApi reset(Long id) {
     final SubscriptionGroupDTO sg = getDto(id);
-    sg.setVectorClocks(null);
-    subscriptionGroupManager.save(sg);
+    watermarkManager.resetWatermarks(sg);
 
     return toApi(sg);
   }
@@ -90,6 +90,13 @@ public class DaoFilterBuilderTest {
     ).isEqualTo(offset);
   }
 
+  @Test
+  public void testAfterIdParam() {
+    final var filter = builder().buildFilter(queryParams("limit", "5", "afterId", "42"));
+    assertThat(filter.getAfterId()).isEqualTo(42L);
+    assertThat(filter.getPredicate()).isNull();
+  }
+
   @Test
   public void testNegativeLimitValue() {
     assertBadRequestException(queryParams("limit", "-1"));
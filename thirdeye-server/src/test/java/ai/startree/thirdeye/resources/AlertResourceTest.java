@@ -23,6 +23,7 @@ import ai.startree.thirdeye.alert.AlertDeleter;
 import ai.startree.thirdeye.alert.AlertEvaluator;
 import ai.startree.thirdeye.alert.AlertInsightsProvider;
 import ai.startree.thirdeye.alert.AlertTemplateRenderer;
+import ai.startree.thirdeye.alert.MonitoredMetricIndexer;
 import ai.startree.thirdeye.auth.AccessControlProvider;
 import ai.startree.thirdeye.auth.AuthorizationManager;
 import ai.startree.thirdeye.auth.ThirdEyePrincipal;
@@ -80,6 +81,7 @@ public class AlertResourceTest {
         alertManager,
         mock(AppAnalyticsService.class),
         mock(AlertInsightsProvider.class),
+        mock(MonitoredMetricIndexer.class),
         authorizationManager
     );
   }
@@ -240,6 +242,7 @@ public class AlertResourceTest {
         alertManager,
         mock(AppAnalyticsService.class),
         mock(AlertInsightsProvider.class),
+        mock(MonitoredMetricIndexer.class),
         newAuthorizationManager(alertTemplateRenderer,
             (String token, ResourceIdentifier id, AccessType accessType) ->
                 id.getNamespace().equals("allowedNamespace")))
@@ -292,6 +295,7 @@ public class AlertResourceTest {
         alertManager,
         mock(AppAnalyticsService.class),
         mock(AlertInsightsProvider.class),
+        mock(MonitoredMetricIndexer.class),
         newAuthorizationManager(alertTemplateRenderer,
             (String token, ResourceIdentifier id, AccessType accessType) ->
                 accessType == AccessType.READ && id.getNamespace().equals("allowedNamespace")))
@@ -337,6 +341,7 @@ public class AlertResourceTest {
         mock(AlertManager.class),
         mock(AppAnalyticsService.class),
         mock(AlertInsightsProvider.class),
+        mock(MonitoredMetricIndexer.class),
         newAuthorizationManager(alertTemplateRenderer,
             (String token, ResourceIdentifier id, AccessType accessType) ->
                 id.getNamespace().equals("readonlyNamespace") && accessType == AccessType.READ))
@@ -386,6 +391,7 @@ public class AlertResourceTest {
         mock(AlertManager.class),
         mock(AppAnalyticsService.class),
         mock(AlertInsightsProvider.class),
+        mock(MonitoredMetricIndexer.class),
         newAuthorizationManager(alertTemplateRenderer,
             (String token, ResourceIdentifier id, AccessType accessType) ->
                 id.getNamespace().equals("allowedNamespace")))
@@ -14,12 +14,14 @@
 
 package ai.startree.thirdeye.spi.datalayer;
 
+import java.util.Collection;
 import org.joda.time.Interval;
 
 public class AnomalyFilter {
 
   private Interval createTimeWindow;
   private Long alertId;
+  private Collection<Long> alertIds;
   private Long enumerationItemId;
 
   public Interval getCreateTimeWindow() {
@@ -40,6 +42,18 @@ public class AnomalyFilter {
     return this;
   }
 
+  public Collection<Long> getAlertIds() {
+    return alertIds;
+  }
+
+  /**
+   * Match anomalies of any of the given alerts. Must not be empty.
+   */
+  public AnomalyFilter setAlertIds(final Collection<Long> alertIds) {
+    this.alertIds = alertIds;
+    return this;
+  }
+
   public Long getEnumerationItemId() {
     return enumerationItemId;
   }
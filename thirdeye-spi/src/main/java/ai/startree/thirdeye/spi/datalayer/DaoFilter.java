@@ -21,6 +21,7 @@ public class DaoFilter {
   private Predicate predicate;
   private Long limit;
   private Long offset;
+  private Long afterId;
   private String orderByKey;
   private boolean isDesc = false;
 
@@ -51,6 +52,19 @@ public class DaoFilter {
     return this;
   }
 
+  public Long getAfterId() {
+    return afterId;
+  }
+
+  /**
+   * Keyset pagination: only entities with an id greater than afterId are returned, sorted by
+   * id. Pass the id of the last entity of a page to get the next page.
+   */
+  public DaoFilter setAfterId(final Long afterId) {
+    this.afterId = afterId;
+    return this;
+  }
+
   public Class<? extends AbstractDTO> getBeanClass() {
     return beanClass;
   }
@@ -56,6 +56,9 @@ public class Predicate {
     this.oper = oper;
   }
 
+  /**
+   * A null value matches the rows where the column is null. Same for {@link #NEQ}.
+   */
   public static Predicate EQ(String columnName, Object value) {
     return new Predicate(columnName, OPER.EQ, value);
   }
@@ -216,13 +219,15 @@ public class Predicate {
     final Predicate predicate = (Predicate) o;
     return oper == predicate.oper &&
         Objects.equals(lhs, predicate.lhs) &&
-        Objects.equals(rhs, predicate.rhs) &&
+        // IN predicates have an array rhs
+        Objects.deepEquals(rhs, predicate.rhs) &&
         Arrays.equals(childPredicates, predicate.childPredicates);
   }
 
   @Override
   public int hashCode() {
-    int result = Objects.hash(oper, lhs, rhs);
+    int result = Objects.hash(oper, lhs);
+    result = 31 * result + Arrays.deepHashCode(new Object[]{rhs});
     result = 31 * result + Arrays.hashCode(childPredicates);
     return result;
   }
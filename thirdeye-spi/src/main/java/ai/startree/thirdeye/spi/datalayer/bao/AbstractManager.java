@@ -16,8 +16,10 @@ package ai.startree.thirdeye.spi.datalayer.bao;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
 import ai.startree.thirdeye.spi.datalayer.dto.AbstractDTO;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 public interface AbstractManager<E extends AbstractDTO> {
 
@@ -27,6 +29,44 @@ public interface AbstractManager<E extends AbstractDTO> {
 
   int update(List<E> entities);
 
+  /**
+   * Create the entities. Implementations may write them in a single transaction.
+   *
+   * @return the number of created entities
+   */
+  default int createAll(final List<E> entities) {
+    int created = 0;
+    for (final E entity : entities) {
+      if (save(entity) != null) {
+        created++;
+      }
+    }
+    return created;
+  }
+
+  /**
+   * Update the entities. Implementations may write them in a single transaction.
+   *
+   * @return the number of updated entities
+   */
+  default int updateAll(final List<E> entities) {
+    return update(entities);
+  }
+
+  /**
+   * Create the entities without id and update the others.
+   *
+   * @return the number of saved entities
+   */
+  default int saveAll(final List<E> entities) {
+    final List<E> toCreate = new ArrayList<>();
+    final List<E> toUpdate = new ArrayList<>();
+    for (final E entity : entities) {
+      (entity.getId() == null ? toCreate : toUpdate).add(entity);
+    }
+    return createAll(toCreate) + updateAll(toUpdate);
+  }
+
   E findById(Long id);
 
   /**
@@ -47,6 +87,10 @@ public interface AbstractManager<E extends AbstractDTO> {
 
   int deleteByIds(List<Long> ids);
 
+  default int deleteAll(final List<E> entities) {
+    return deleteByIds(entities.stream().map(AbstractDTO::getId).collect(Collectors.toList()));
+  }
+
   int deleteByPredicate(Predicate predicate);
 
   int deleteRecordsOlderThanDays(int days);
@@ -21,4 +21,35 @@ public interface AlertManager extends AbstractManager<AlertDTO> {
   List<AlertDTO> findAllActive();
 
   Long countActive();
+
+  /**
+   * Count the distinct (datasource, dataset, metric) monitored by the active alerts. Alerts that
+   * were not indexed yet, or that do not monitor a metric, are not counted.
+   */
+  long countActiveMonitoredMetrics();
+
+  /**
+   * Find the active alerts that are failing and did not succeed since the given time. The health
+   * of an alert is indexed only: it is written by {@link #recordFailure} and
+   * {@link #recordSuccess}, and saving an alert does not change it.
+   *
+   * @param lastSuccessTime epoch millis. Alerts with a last success at or before this time match.
+   */
+  List<AlertDTO> findActiveFailingSince(long lastSuccessTime);
+
+  /**
+   * Count a failed detection run of the alert in the indexed health columns, in a single update:
+   * the alert is not read nor rewritten. If no success was recorded yet, the health window starts
+   * at the last update, or else the creation, of the alert.
+   *
+   * @return the number of updated alerts: 0 if the alert does not exist
+   */
+  int recordFailure(long alertId);
+
+  /**
+   * Reset the failure count of the alert and start a new health window now, in a single update.
+   *
+   * @return the number of updated alerts: 0 if the alert does not exist
+   */
+  int recordSuccess(long alertId);
 }
@@ -16,7 +16,9 @@ package ai.startree.thirdeye.spi.datalayer.bao;
 import ai.startree.thirdeye.spi.datalayer.AnomalyFilter;
 import ai.startree.thirdeye.spi.datalayer.DaoFilter;
 import ai.startree.thirdeye.spi.datalayer.dto.AnomalyDTO;
+import ai.startree.thirdeye.spi.detection.AnomalyFeedbackType;
 import java.util.List;
+import java.util.Map;
 
 public interface AnomalyManager extends AbstractManager<AnomalyDTO> {
 
@@ -48,4 +50,19 @@ public interface AnomalyManager extends AbstractManager<AnomalyDTO> {
 
   List<AnomalyDTO> filter(AnomalyFilter anomalyFilter);
   List<AnomalyDTO> findParentAnomaliesWithFeedback(DaoFilter filter);
+
+  /**
+   * Count the parent anomalies with a feedback matching the filter, by feedback type. The
+   * aggregation is done by the database.
+   */
+  Map<AnomalyFeedbackType, Long> countParentAnomaliesByFeedbackType(DaoFilter filter);
+
+  /**
+   * Find the anomalies of several alerts created after their watermark, in a single query.
+   *
+   * @param watermarks create time watermark by alert id. Anomalies of an alert created after
+   *     its watermark (excluded) and before endTime (excluded) are returned.
+   * @param endTime end of the create time window, in epoch millis
+   */
+  List<AnomalyDTO> findByCreateTimeWatermarks(Map<Long, Long> watermarks, long endTime);
 }
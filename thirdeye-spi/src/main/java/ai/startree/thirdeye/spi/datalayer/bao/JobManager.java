@@ -26,6 +26,13 @@ public interface JobManager extends AbstractManager<JobDTO> {
 
   void updateJobStatusAndEndTime(List<JobDTO> jobsToUpdate, JobStatus nweStatus, long newEndTime);
 
+  /**
+   * Batch version of updateJobStatusAndEndTime for jobs known by id.
+   *
+   * @return the number of jobs updated
+   */
+  int updateJobStatusAndEndTimeByIds(List<Long> jobIds, JobStatus newStatus, long newEndTime);
+
   int deleteRecordsOlderThanDaysWithStatus(int days, JobStatus status);
 
   List<JobDTO> findNRecentJobs(int n);
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.datalayer.bao;
+
+import java.util.Map;
+
+/**
+ * Notification watermarks of the subscription groups: for each alert of a subscription group, the
+ * create time of the most recent anomaly notified. Watermarks are stored in a dedicated table,
+ * one row per subscription group and alert. Database errors are thrown as runtime exceptions.
+ */
+public interface NotificationWatermarkManager {
+
+  /**
+   * @return watermark by alert id
+   */
+  Map<Long, Long> findBySubscriptionGroupId(long subscriptionGroupId);
+
+  /**
+   * Move the watermarks of the subscription group forward. A watermark never goes back: the
+   * stored value is kept if it is greater.
+   *
+   * @param watermarks watermark by alert id
+   */
+  void advance(long subscriptionGroupId, Map<Long, Long> watermarks);
+
+  int deleteBySubscriptionGroupId(long subscriptionGroupId);
+}
@@ -13,7 +13,9 @@
  */
 package ai.startree.thirdeye.spi.datalayer.bao;
 
+import ai.startree.thirdeye.spi.Constants.JobStatus;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskAcquisition;
 import ai.startree.thirdeye.spi.task.TaskInfo;
 import ai.startree.thirdeye.spi.task.TaskStatus;
 import ai.startree.thirdeye.spi.task.TaskType;
@@ -21,6 +23,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import java.sql.Timestamp;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public interface TaskManager extends AbstractManager<TaskDTO> {
@@ -39,6 +42,21 @@ public interface TaskManager extends AbstractManager<TaskDTO> {
 
   List<TaskDTO> findTimeoutTasksWithinDays(int days, long maxTaskTime);
 
+  /**
+   * Mark the tasks returned by findTimeoutTasksWithinDays as TIMEOUT, with a single update.
+   *
+   * @return the number of tasks marked as TIMEOUT
+   */
+  int updateTimeoutTasksWithinDays(int days, long maxTaskTime);
+
+  /**
+   * Find the next status of the SCHEDULED jobs created within days, from the status of their
+   * tasks. Jobs with WAITING tasks are not returned.
+   *
+   * @return the ids of the jobs to move to each status
+   */
+  Map<JobStatus, List<Long>> findScheduledJobTransitionsWithinDays(int days);
+
   List<TaskDTO> findByStatusOrderByCreateTime(TaskStatus status, int fetchSize, boolean asc);
 
   List<TaskDTO> findByStatusAndWorkerId(Long workerId, TaskStatus status);
@@ -46,6 +64,12 @@ public interface TaskManager extends AbstractManager<TaskDTO> {
   boolean updateStatusAndWorkerId(Long workerId, Long id, Set<TaskStatus> allowedOldStatus,
       int expectedVersion);
 
+  /**
+   * Atomically acquire up to limit WAITING tasks: the tasks are returned in RUNNING status,
+   * assigned to workerId. The result also tells whether WAITING tasks were found.
+   */
+  TaskAcquisition acquireTasks(Long workerId, int limit);
+
   void updateStatusAndTaskEndTime(Long id, TaskStatus oldStatus, TaskStatus newStatus,
       Long taskEndTime, String message);
 
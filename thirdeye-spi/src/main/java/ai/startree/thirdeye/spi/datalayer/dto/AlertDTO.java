@@ -25,6 +25,12 @@ import java.util.Objects;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class AlertDTO extends AbstractDTO {
 
+  /**
+   * Value of the monitored datasource, dataset and metric of an alert whose template does not
+   * monitor a metric.
+   */
+  public static final String NO_MONITORED_METRIC = "";
+
   String name;
   String description;
   boolean active;
@@ -36,6 +42,13 @@ public class AlertDTO extends AbstractDTO {
   Map<String, Object> properties;
   DetectionHealth health;
 
+  // datasource, dataset and metric monitored by the alert, from the rendered template metadata.
+  // Indexed to count the monitored metrics without rendering the alerts. Null if the alert was
+  // not indexed yet, NO_MONITORED_METRIC if its template has no complete metric metadata.
+  String monitoredDatasource;
+  String monitoredDataset;
+  String monitoredMetric;
+
   // The alert template
   AlertTemplateDTO template;
 
@@ -126,6 +139,33 @@ public class AlertDTO extends AbstractDTO {
     this.health = health;
   }
 
+  public String getMonitoredDatasource() {
+    return monitoredDatasource;
+  }
+
+  public AlertDTO setMonitoredDatasource(final String monitoredDatasource) {
+    this.monitoredDatasource = monitoredDatasource;
+    return this;
+  }
+
+  public String getMonitoredDataset() {
+    return monitoredDataset;
+  }
+
+  public AlertDTO setMonitoredDataset(final String monitoredDataset) {
+    this.monitoredDataset = monitoredDataset;
+    return this;
+  }
+
+  public String getMonitoredMetric() {
+    return monitoredMetric;
+  }
+
+  public AlertDTO setMonitoredMetric(final String monitoredMetric) {
+    this.monitoredMetric = monitoredMetric;
+    return this;
+  }
+
   public AlertTemplateDTO getTemplate() {
     return template;
   }
@@ -19,7 +19,11 @@ package ai.startree.thirdeye.spi.datasource.macro;
 public enum MacroMetadataKeys {
   MIN_TIME_MILLIS("metadata.minTimeMillis"),
   MAX_TIME_MILLIS("metadata.maxTimeMillis"),
-  GRANULARITY("metadata.granularity");
+  GRANULARITY("metadata.granularity"),
+  /**
+   * Alias of the __timeGroup column in the query result. Eg: ts for "__timeGroup(...) AS ts"
+   */
+  TIME_GROUP_ALIAS("metadata.timeGroupAlias");
 
   private final String key;
 
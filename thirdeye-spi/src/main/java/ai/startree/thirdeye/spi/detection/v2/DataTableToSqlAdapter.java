@@ -22,6 +22,9 @@ import java.util.Properties;
  * An adapter to run SQL on a DataTable with jdbc.
  * Provides required jdbc info and methods to create SQL tables from DataTables.
  * Does not manage connection and query execution.
+ *
+ * An adapter instance is bound to a single connection: loadTables and tearDown can be called
+ * multiple times on this connection.
  */
 public interface DataTableToSqlAdapter {
 
@@ -38,5 +41,24 @@ public interface DataTableToSqlAdapter {
   void loadTables(final Connection connection, Map<String, DataTable> dataTables)
       throws SQLException;
 
+  /**
+   * Cleans up the tables loaded with {@link #loadTables}. The connection can be used again to
+   * load other tables.
+   */
   void tearDown(final Connection connection) throws SQLException;
+
+  /**
+   * Releases everything created by the adapter in the database, before the connection is closed.
+   */
+  default void close(final Connection connection) throws SQLException {
+    tearDown(connection);
+  }
+
+  /**
+   * Whether prepared statements can be executed again after the tables are torn down and loaded
+   * again on the same connection.
+   */
+  default boolean supportsStatementReuse() {
+    return false;
+  }
 }
@@ -15,11 +15,29 @@ package ai.startree.thirdeye.spi.notification;
 
 import ai.startree.thirdeye.spi.ThirdEyeException;
 import ai.startree.thirdeye.spi.api.NotificationPayloadApi;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
 
 public interface NotificationService {
 
   void notify(NotificationPayloadApi api) throws ThirdEyeException;
 
+  /**
+   * Whether a failed notification can be sent again. A retry must not duplicate the
+   * notification: by default, only the failures to reach the server are retried, as nothing was
+   * sent. Services whose notifications are idempotent can retry more failures.
+   *
+   * @param failure the exception thrown by {@link #notify(NotificationPayloadApi)}
+   */
+  default boolean isRetryable(final Exception failure) {
+    for (Throwable t = failure; t != null; t = t.getCause()) {
+      if (t instanceof ConnectException || t instanceof UnknownHostException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Currently used to debug email notification service
    *
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.spi.task;
+
+import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import java.util.List;
+
+/**
+ * Result of an attempt to acquire tasks. WAITING tasks can be found but not acquired, when other
+ * workers acquire them first: callers can retry sooner than when no task was found.
+ */
+public class TaskAcquisition {
+
+  public static final TaskAcquisition NONE = new TaskAcquisition(List.of(), false);
+
+  private final List<TaskDTO> tasks;
+  private final boolean candidatesFound;
+
+  public TaskAcquisition(final List<TaskDTO> tasks, final boolean candidatesFound) {
+    this.tasks = tasks;
+    this.candidatesFound = candidatesFound;
+  }
+
+  /**
+   * The acquired tasks, in RUNNING status.
+   */
+  public List<TaskDTO> getTasks() {
+    return tasks;
+  }
+
+  /**
+   * Whether WAITING tasks were found, acquired or not.
+   */
+  public boolean isCandidatesFound() {
+    return candidatesFound;
+  }
+}
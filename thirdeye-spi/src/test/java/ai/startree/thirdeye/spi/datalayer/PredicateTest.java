@@ -66,5 +66,16 @@ public class PredicateTest {
     assertThat((String[]) output.get(1).getRhs()).isEqualTo(new String[]{"chrome", "safari"});
   }
 
+  @Test
+  public void testInPredicatesWithEqualArraysAreEqual() {
+    final Predicate predicate = Predicate.AND(Predicate.IN("id", new Long[]{1L, 2L}),
+        Predicate.EQ("active", true));
+    final Predicate same = Predicate.AND(Predicate.IN("id", new Long[]{1L, 2L}),
+        Predicate.EQ("active", true));
 
+    assertThat(same).isEqualTo(predicate);
+    assertThat(same.hashCode()).isEqualTo(predicate.hashCode());
+    assertThat(Predicate.IN("id", new Long[]{1L, 3L})).isNotEqualTo(Predicate.IN("id",
+        new Long[]{1L, 2L}));
+  }
 }
@@ -25,6 +25,7 @@ public class TaskContext {
   private TaskManager taskManager;
   private TaskRunnerFactory taskRunnerFactory;
   private MetricRegistry metricRegistry;
+  private TaskFetcher taskFetcher;
 
   public TaskDriverConfiguration getConfig() {
     return config;
@@ -81,4 +82,13 @@ public class TaskContext {
     this.metricRegistry = metricRegistry;
     return this;
   }
+
+  public TaskFetcher getTaskFetcher() {
+    return taskFetcher;
+  }
+
+  public TaskContext setTaskFetcher(final TaskFetcher taskFetcher) {
+    this.taskFetcher = taskFetcher;
+    return this;
+  }
 }
@@ -17,6 +17,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.isNull;
 import static java.util.Objects.requireNonNull;
 
+import ai.startree.thirdeye.datalayer.core.TaskNotificationChannel;
 import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
 import ai.startree.thirdeye.spi.task.TaskStatus;
@@ -38,13 +39,15 @@ public class TaskDriver {
   private final TaskDriverConfiguration config;
   private final Long workerId;
   private final TaskDriverThreadPoolManager taskDriverThreadPoolManager;
+  private final TaskFetcher taskFetcher;
 
   @Inject
   public TaskDriver(final TaskManager taskManager,
       final TaskRunnerFactory taskRunnerFactory,
       final TaskDriverThreadPoolManager taskDriverThreadPoolManager,
       final MetricRegistry metricRegistry,
-      final TaskDriverConfiguration taskDriverConfiguration) {
+      final TaskDriverConfiguration taskDriverConfiguration,
+      final TaskNotificationChannel taskNotificationChannel) {
     this.taskManager = taskManager;
     this.taskDriverThreadPoolManager = taskDriverThreadPoolManager;
     config = taskDriverConfiguration;
@@ -57,6 +60,13 @@ public class TaskDriver {
         .setMetricRegistry(metricRegistry)
         .setConfig(taskDriverConfiguration)
         .setWorkerId(workerId);
+
+    if (config.isPushDispatchEnabled()) {
+      taskFetcher = new TaskFetcher(taskContext, taskNotificationChannel);
+      taskContext.setTaskFetcher(taskFetcher);
+    } else {
+      taskFetcher = null;
+    }
   }
 
   private Long fetchWorkerId(final TaskDriverConfiguration config) {
@@ -83,6 +93,9 @@ public class TaskDriver {
   }
 
   private void runTasksInParallel() {
+    if (taskFetcher != null) {
+      taskFetcher.start();
+    }
     for (int i = 0; i < config.getMaxParallelTasks(); i++) {
       taskDriverThreadPoolManager.getTaskWatcherExecutorService()
           .submit(new TaskDriverRunnable(taskContext));
@@ -109,6 +122,9 @@ public class TaskDriver {
   }
 
   public void shutdown() {
+    if (taskFetcher != null) {
+      taskFetcher.close();
+    }
     taskDriverThreadPoolManager.shutdown();
   }
 }
@@ -20,6 +20,8 @@ public class TaskDriverConfiguration {
   private Long id;
   private boolean enabled = false;
   private boolean randomWorkerIdEnabled = false;
+  // When enabled, a single fetcher per JVM acquires tasks and hands them over to the workers
+  private boolean pushDispatchEnabled = false;
   private Duration noTaskDelay = Duration.ofSeconds(15);
   private Duration taskFailureDelay = Duration.ofSeconds(30);
   private Duration randomDelayCap = Duration.ofSeconds(15);
@@ -49,6 +51,15 @@ public class TaskDriverConfiguration {
     return this;
   }
 
+  public boolean isPushDispatchEnabled() {
+    return pushDispatchEnabled;
+  }
+
+  public TaskDriverConfiguration setPushDispatchEnabled(final boolean pushDispatchEnabled) {
+    this.pushDispatchEnabled = pushDispatchEnabled;
+    return this;
+  }
+
   public boolean isEnabled() {
     return enabled;
   }
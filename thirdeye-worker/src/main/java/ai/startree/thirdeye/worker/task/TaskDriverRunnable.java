@@ -17,23 +17,20 @@ import static ai.startree.thirdeye.spi.util.SpiUtils.optional;
 
 import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskAcquisition;
 import ai.startree.thirdeye.spi.task.TaskInfo;
 import ai.startree.thirdeye.spi.task.TaskStatus;
 import ai.startree.thirdeye.spi.task.TaskType;
 import com.codahale.metrics.Counter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
-import com.google.common.collect.ImmutableSet;
 import com.google.inject.Singleton;
 import java.io.IOException;
-import java.util.Collections;
 import java.util.List;
 import java.util.Random;
-import java.util.Set;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,10 +41,6 @@ public class TaskDriverRunnable implements Runnable {
 
   private static final Logger LOG = LoggerFactory.getLogger(TaskDriverRunnable.class);
   private static final Random RANDOM = new Random();
-  private static final Set<TaskStatus> ALLOWED_OLD_TASK_STATUS = ImmutableSet.of(
-      TaskStatus.FAILED,
-      TaskStatus.WAITING
-  );
 
   private final TaskManager taskManager;
   private final TaskContext taskContext;
@@ -63,6 +56,7 @@ public class TaskDriverRunnable implements Runnable {
   private final Timer taskRunningTimer;
   private final Timer taskWaitingTimer;
   private final TaskDriverThreadPoolManager taskDriverThreadPoolManager;
+  private final TaskFetcher taskFetcher;
 
   public TaskDriverRunnable(final TaskContext taskContext) {
     this.taskContext = taskContext;
@@ -72,6 +66,7 @@ public class TaskDriverRunnable implements Runnable {
     this.config = taskContext.getConfig();
     this.workerId = taskContext.getWorkerId();
     this.taskRunnerFactory = taskContext.getTaskRunnerFactory();
+    this.taskFetcher = taskContext.getTaskFetcher();
 
     final MetricRegistry metricRegistry = taskContext.getMetricRegistry();
     taskExceptionCounter = metricRegistry.counter("taskExceptionCounter");
@@ -188,64 +183,62 @@ public class TaskDriverRunnable implements Runnable {
    * @return null if system is shutting down.
    */
   private TaskDTO waitForTask() {
+    if (taskFetcher != null) {
+      return waitForDispatchedTask();
+    }
     while (!isShutdown()) {
-      final List<TaskDTO> anomalyTasks = findTasks();
-
-      final boolean tasksFound = CollectionUtils.isNotEmpty(anomalyTasks);
-      if (tasksFound) {
-        final TaskDTO taskDTO = acquireTask(anomalyTasks);
-        if (taskDTO != null) {
-          taskFetchHitCounter.inc();
-          return taskDTO;
-        }
+      final TaskAcquisition acquisition = acquireTask();
+      if (!acquisition.getTasks().isEmpty()) {
+        taskFetchHitCounter.inc();
+        return acquisition.getTasks().get(0);
       }
       taskFetchMissCounter.inc();
       final long idleStart = System.currentTimeMillis();
-      sleep(!tasksFound);
+      // tasks were found but acquired by other workers: retry soon
+      sleep(!acquisition.isCandidatesFound());
       workerIdleTimeInSeconds.inc((System.currentTimeMillis() - idleStart) / 1000);
     }
     return null;
   }
 
-  private TaskDTO acquireTask(final List<TaskDTO> anomalyTasks) {
-    // shuffle candidate tasks to avoid synchronized patterns across threads (and hosts)
-    Collections.shuffle(anomalyTasks);
-
-    for (final TaskDTO taskDTO : anomalyTasks) {
+  /**
+   * Push dispatch mode: wait for the {@link TaskFetcher} to hand over an acquired task.
+   *
+   * @return null if system is shutting down.
+   */
+  private TaskDTO waitForDispatchedTask() {
+    while (!isShutdown()) {
+      final long idleStart = System.currentTimeMillis();
       try {
-        // Don't acquire a new task if shutting down.
+        final TaskDTO taskDTO = taskFetcher.take(config.getNoTaskDelay());
+        if (taskDTO != null) {
+          taskFetchHitCounter.inc();
+          return taskDTO;
+        }
+      } catch (InterruptedException e) {
         if (!isShutdown()) {
-          boolean success = taskManager.updateStatusAndWorkerId(workerId,
-              taskDTO.getId(),
-              ALLOWED_OLD_TASK_STATUS,
-              taskDTO.getVersion());
-          if (success) {
-            taskWaitingTimer.update(
-                System.currentTimeMillis() - taskDTO.getCreateTime().getTime(),
-                TimeUnit.MILLISECONDS);
-            return taskDTO;
-          }
+          LOG.warn(e.getMessage(), e);
         }
-      } catch (Exception e) {
-        LOG.warn("Got exception when acquiring task. (Worker Id: {})", workerId, e);
       }
+      taskFetchMissCounter.inc();
+      workerIdleTimeInSeconds.inc((System.currentTimeMillis() - idleStart) / 1000);
     }
     return null;
   }
 
-  private List<TaskDTO> findTasks() {
+  private TaskAcquisition acquireTask() {
     try {
-      // randomize fetching head and tail to reduce synchronized patterns across threads (and hosts)
-      boolean orderAscending = System.currentTimeMillis() % 2 == 0;
-
-      // find by task type to separate online task from a normal task
-      return taskManager.findByStatusOrderByCreateTime(TaskStatus.WAITING,
-          config.getTaskFetchSizeCap(),
-          orderAscending);
+      final TaskAcquisition acquisition = taskManager.acquireTasks(workerId, 1);
+      for (final TaskDTO taskDTO : acquisition.getTasks()) {
+        taskWaitingTimer.update(
+            System.currentTimeMillis() - taskDTO.getCreateTime().getTime(),
+            TimeUnit.MILLISECONDS);
+      }
+      return acquisition;
     } catch (Exception e) {
-      LOG.error("Exception found in fetching new tasks", e);
+      LOG.warn("Got exception when acquiring task. (Worker Id: {})", workerId, e);
     }
-    return null;
+    return TaskAcquisition.NONE;
   }
 
   private void sleep(final boolean hasFetchError) {
@@ -28,6 +28,7 @@ public class TaskDriverThreadPoolManager {
 
   private final ExecutorService taskExecutorService;
   private final ExecutorService taskWatcherExecutorService;
+  private final ExecutorService taskFetcherExecutorService;
   private final ScheduledExecutorService heartbeatExecutorService;
   private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
@@ -46,6 +47,12 @@ public class TaskDriverThreadPoolManager {
             .setDaemon(true)
             .build());
 
+    taskFetcherExecutorService = Executors.newSingleThreadExecutor(
+        new ThreadFactoryBuilder()
+            .setNameFormat("task-fetcher-%d")
+            .setDaemon(true)
+            .build());
+
     heartbeatExecutorService = Executors.newScheduledThreadPool(config.getMaxParallelTasks(),
         new ThreadFactoryBuilder()
             .setNameFormat("task-heartbeat-%d")
@@ -60,6 +67,10 @@ public class TaskDriverThreadPoolManager {
     return taskWatcherExecutorService;
   }
 
+  public ExecutorService getTaskFetcherExecutorService() {
+    return taskFetcherExecutorService;
+  }
+
   public ScheduledExecutorService getHeartbeatExecutorService() {
     return heartbeatExecutorService;
   }
@@ -72,6 +83,7 @@ public class TaskDriverThreadPoolManager {
     shutdown.set(true);
     shutdownExecutionService(taskExecutorService);
     shutdownExecutionService(taskWatcherExecutorService);
+    shutdownExecutionService(taskFetcherExecutorService);
     shutdownExecutionService(heartbeatExecutorService);
   }
 }
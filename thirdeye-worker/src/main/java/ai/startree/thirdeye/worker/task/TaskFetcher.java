@@ -0,0 +1,200 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import ai.startree.thirdeye.datalayer.core.TaskNotificationChannel;
+import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
+import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskStatus;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single task fetcher per JVM. Acquires WAITING tasks on behalf of the worker threads and hands
+ * them over through a bounded queue.
+ *
+ * The fetcher only acquires as many tasks as there are idle workers, so a task is never marked
+ * RUNNING while no thread is available to execute it. It wakes up when:
+ * - a task is created in the same JVM (see {@link TaskNotificationChannel})
+ * - a worker becomes idle
+ * - the periodic database check finds WAITING tasks created by other nodes
+ */
+public class TaskFetcher implements Runnable {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TaskFetcher.class);
+  private static final Random RANDOM = new Random();
+
+  private final TaskManager taskManager;
+  private final TaskDriverConfiguration config;
+  private final long workerId;
+  private final TaskDriverThreadPoolManager taskDriverThreadPoolManager;
+  private final TaskNotificationChannel taskNotificationChannel;
+  private final BlockingQueue<TaskDTO> taskQueue;
+  private final AtomicInteger idleWorkers = new AtomicInteger();
+  private final Semaphore wakeUpSignal = new Semaphore(0);
+  private final Runnable taskAvailableListener = this::wakeUp;
+  private final Counter taskDispatchDbCheckCounter;
+  private final Counter taskDispatchFetchCounter;
+  private final Timer taskWaitingTimer;
+
+  private volatile boolean closed = false;
+
+  public TaskFetcher(final TaskContext taskContext,
+      final TaskNotificationChannel taskNotificationChannel) {
+    this.taskManager = taskContext.getTaskManager();
+    this.config = taskContext.getConfig();
+    this.workerId = taskContext.getWorkerId();
+    this.taskDriverThreadPoolManager = taskContext.getTaskDriverThreadPoolManager();
+    this.taskNotificationChannel = taskNotificationChannel;
+    taskQueue = new ArrayBlockingQueue<>(config.getMaxParallelTasks());
+
+    final MetricRegistry metricRegistry = taskContext.getMetricRegistry();
+    taskDispatchDbCheckCounter = metricRegistry.counter("taskDispatchDbCheckCounter");
+    taskDispatchFetchCounter = metricRegistry.counter("taskDispatchFetchCounter");
+    taskWaitingTimer = metricRegistry.timer("taskWaitingTimer");
+  }
+
+  public void start() {
+    taskNotificationChannel.subscribe(taskAvailableListener);
+    taskDriverThreadPoolManager.getTaskFetcherExecutorService().submit(this);
+  }
+
+  public void close() {
+    closed = true;
+    taskNotificationChannel.unsubscribe(taskAvailableListener);
+    wakeUp();
+  }
+
+  public void wakeUp() {
+    wakeUpSignal.release();
+  }
+
+  /**
+   * Called by worker threads. Blocks until a task is handed over or the timeout expires.
+   *
+   * @return the acquired task. null if no task was handed over before the timeout.
+   */
+  public TaskDTO take(final Duration timeout) throws InterruptedException {
+    idleWorkers.incrementAndGet();
+    wakeUp();
+    try {
+      return taskQueue.poll(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    } finally {
+      idleWorkers.decrementAndGet();
+    }
+  }
+
+  @Override
+  public void run() {
+    while (!isStopped()) {
+      try {
+        final int demand = idleWorkers.get() - taskQueue.size();
+        if (demand <= 0) {
+          // all workers are busy. Wait for a worker to ask for a task.
+          wakeUpSignal.acquire();
+          wakeUpSignal.drainPermits();
+          continue;
+        }
+        final List<TaskDTO> tasks = fetchTasks(demand);
+        tasks.forEach(taskQueue::add);
+        if (tasks.isEmpty()) {
+          waitForTasks();
+        }
+      } catch (final InterruptedException e) {
+        if (!isStopped()) {
+          LOG.warn(e.getMessage(), e);
+        }
+      } catch (final Exception e) {
+        LOG.error("Exception in task fetcher", e);
+        sleep(config.getTaskFailureDelay());
+      }
+    }
+    releaseQueuedTasks();
+    LOG.info("TaskFetcher safely quitting. name: {}", Thread.currentThread().getName());
+  }
+
+  private boolean isStopped() {
+    return closed || taskDriverThreadPoolManager.isShutdown();
+  }
+
+  /**
+   * Wait for an in-process notification. If none is received before the delay expires, run a
+   * lightweight database check to detect tasks created by other nodes.
+   */
+  private void waitForTasks() throws InterruptedException {
+    while (!isStopped()) {
+      final long delay = config.getNoTaskDelay().toMillis()
+          + RANDOM.nextInt((int) config.getRandomDelayCap().toMillis());
+      if (wakeUpSignal.tryAcquire(delay, TimeUnit.MILLISECONDS)) {
+        wakeUpSignal.drainPermits();
+        return;
+      }
+      taskDispatchDbCheckCounter.inc();
+      if (taskManager.countByStatus(TaskStatus.WAITING) > 0) {
+        return;
+      }
+    }
+  }
+
+  private List<TaskDTO> fetchTasks(final int demand) {
+    taskDispatchFetchCounter.inc();
+    final List<TaskDTO> tasks = taskManager.acquireTasks(workerId, demand).getTasks();
+    final long now = System.currentTimeMillis();
+    for (final TaskDTO taskDTO : tasks) {
+      taskWaitingTimer.update(now - taskDTO.getCreateTime().getTime(), TimeUnit.MILLISECONDS);
+    }
+    return tasks;
+  }
+
+  /**
+   * Put tasks acquired but not handed over to a worker back to WAITING.
+   */
+  private void releaseQueuedTasks() {
+    final List<TaskDTO> tasks = new ArrayList<>();
+    taskQueue.drainTo(tasks);
+    for (final TaskDTO taskDTO : tasks) {
+      try {
+        taskManager.updateStatusAndTaskEndTime(taskDTO.getId(),
+            TaskStatus.RUNNING,
+            TaskStatus.WAITING,
+            System.currentTimeMillis(),
+            "Released by the worker at shutdown");
+      } catch (final Exception e) {
+        LOG.error("Could not release task {}", taskDTO.getId(), e);
+      }
+    }
+  }
+
+  private void sleep(final Duration duration) {
+    try {
+      Thread.sleep(duration.toMillis());
+    } catch (final InterruptedException e) {
+      if (!isStopped()) {
+        LOG.warn(e.getMessage(), e);
+      }
+    }
+  }
+}
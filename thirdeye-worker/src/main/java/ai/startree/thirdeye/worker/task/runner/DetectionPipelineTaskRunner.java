@@ -19,6 +19,7 @@ import static java.util.Objects.requireNonNull;
 
 import ai.startree.thirdeye.alert.AlertDetectionIntervalCalculator;
 import ai.startree.thirdeye.alert.AlertTemplateRenderer;
+import ai.startree.thirdeye.alert.MonitoredMetricIndexer;
 import ai.startree.thirdeye.detectionpipeline.DetectionPipelineContext;
 import ai.startree.thirdeye.detectionpipeline.PlanExecutor;
 import ai.startree.thirdeye.spi.datalayer.Predicate;
@@ -63,6 +64,7 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
   private final AnomalyManager anomalyDao;
   private final PlanExecutor planExecutor;
   private final AlertTemplateRenderer alertTemplateRenderer;
+  private final MonitoredMetricIndexer monitoredMetricIndexer;
 
   @Inject
   public DetectionPipelineTaskRunner(final AlertManager alertManager,
@@ -71,13 +73,15 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
       final AlertDetectionIntervalCalculator alertDetectionIntervalCalculator,
       final AnomalyManager anomalyDao,
       final PlanExecutor planExecutor,
-      final AlertTemplateRenderer alertTemplateRenderer) {
+      final AlertTemplateRenderer alertTemplateRenderer,
+      final MonitoredMetricIndexer monitoredMetricIndexer) {
     this.alertManager = alertManager;
     this.anomalySubscriptionGroupNotificationManager = anomalySubscriptionGroupNotificationManager;
     this.alertDetectionIntervalCalculator = alertDetectionIntervalCalculator;
     this.anomalyDao = anomalyDao;
     this.planExecutor = planExecutor;
     this.alertTemplateRenderer = alertTemplateRenderer;
+    this.monitoredMetricIndexer = monitoredMetricIndexer;
 
     detectionTaskExceptionCounter = metricRegistry.counter("detectionTaskExceptionCounter");
     detectionTaskSuccessCounter = metricRegistry.counter("detectionTaskSuccessCounter");
@@ -114,8 +118,8 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
   public List<TaskResult> execute(final TaskInfo taskInfo, final TaskContext taskContext)
       throws Exception {
     detectionTaskCounter.inc();
+    final DetectionPipelineTaskInfo info = (DetectionPipelineTaskInfo) taskInfo;
     try {
-      final DetectionPipelineTaskInfo info = (DetectionPipelineTaskInfo) taskInfo;
       LOG.info("Start detection task for id {} between {} and {}",
           info.getConfigId(),
           new DateTime(info.getStart(), DateTimeZone.UTC),
@@ -143,11 +147,15 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
       final long newLastTimestamp = Math.max(detectionInterval.getEndMillis(),
           alert.getLastTimestamp());
       alert.setLastTimestamp(newLastTimestamp);
+      if (alert.getMonitoredMetric() == null) {
+        // alerts saved before the monitored metric was indexed. Alerts that do not monitor a
+        // metric are marked by the indexer and not rendered again.
+        monitoredMetricIndexer.index(alert);
+      }
       alertManager.update(alert);
+      alertManager.recordSuccess(alert.getId());
 
-      optional(result.getAnomalies())
-          .orElse(Collections.emptyList())
-          .forEach(anomalyDao::save);
+      anomalyDao.saveAll(optional(result.getAnomalies()).orElse(Collections.emptyList()));
 
       detectionTaskSuccessCounter.inc();
       LOG.info("Completed detection task for id {} between {} and {}. Detected {} anomalies.",
@@ -159,10 +167,23 @@ public class DetectionPipelineTaskRunner implements TaskRunner {
       return Collections.emptyList();
     } catch (final Exception e) {
       detectionTaskExceptionCounter.inc();
+      recordFailure(info.getConfigId());
       throw e;
     }
   }
 
+  /**
+   * Maintain the indexed health columns of the alert so that long failing alerts can be found
+   * without reading every active alert.
+   */
+  private void recordFailure(final long alertId) {
+    try {
+      alertManager.recordFailure(alertId);
+    } catch (final Exception e) {
+      LOG.error("Could not record detection failure for alert {}", alertId, e);
+    }
+  }
+
   public OperatorResult run(final AlertDTO alert, final Interval detectionInterval)
       throws Exception {
     LOG.info(String.format("Running detection pipeline for alert: %d, start: %s, end: %s",
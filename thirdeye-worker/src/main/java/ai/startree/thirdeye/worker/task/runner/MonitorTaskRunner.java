@@ -22,25 +22,20 @@ import ai.startree.thirdeye.spi.datalayer.bao.JobManager;
 import ai.startree.thirdeye.spi.datalayer.bao.OnlineDetectionDataManager;
 import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.AlertDTO;
-import ai.startree.thirdeye.spi.datalayer.dto.JobDTO;
-import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
 import ai.startree.thirdeye.spi.task.TaskInfo;
 import ai.startree.thirdeye.spi.task.TaskStatus;
 import ai.startree.thirdeye.worker.task.MonitorTaskInfo;
 import ai.startree.thirdeye.worker.task.TaskContext;
 import ai.startree.thirdeye.worker.task.TaskResult;
 import ai.startree.thirdeye.worker.task.TaskRunner;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
-import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import org.apache.commons.collections4.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,6 +45,9 @@ public class MonitorTaskRunner implements TaskRunner {
   private static final Logger LOG = LoggerFactory.getLogger(MonitorTaskRunner.class);
   private static final long MAX_TASK_TIME = TimeUnit.HOURS.toMillis(6);
   private static final long MAX_FAILED_DISABLE_DAYS = 30;
+  private static final List<JobStatus> JOB_TRANSITIONS = List.of(JobStatus.TIMEOUT,
+      JobStatus.FAILED,
+      JobStatus.COMPLETED);
 
   private final TaskManager taskManager;
   private final JobManager jobManager;
@@ -57,6 +55,8 @@ public class MonitorTaskRunner implements TaskRunner {
   private final DetectionStatusManager detectionStatusManager;
   private final OnlineDetectionDataManager onlineDetectionDataManager;
   private final AnomalySubscriptionGroupNotificationManager anomalySubscriptionGroupNotificationManager;
+  private final Counter monitorTimeoutTaskCounter;
+  private final Map<JobStatus, Counter> monitorJobCounters = new EnumMap<>(JobStatus.class);
 
   @Inject
   public MonitorTaskRunner(final TaskManager taskManager,
@@ -64,13 +64,20 @@ public class MonitorTaskRunner implements TaskRunner {
       final AlertManager alertManager,
       final DetectionStatusManager detectionStatusManager,
       final OnlineDetectionDataManager onlineDetectionDataManager,
-      final AnomalySubscriptionGroupNotificationManager anomalySubscriptionGroupNotificationManager) {
+      final AnomalySubscriptionGroupNotificationManager anomalySubscriptionGroupNotificationManager,
+      final MetricRegistry metricRegistry) {
     this.taskManager = taskManager;
     this.jobManager = jobManager;
     this.alertManager = alertManager;
     this.detectionStatusManager = detectionStatusManager;
     this.onlineDetectionDataManager = onlineDetectionDataManager;
     this.anomalySubscriptionGroupNotificationManager = anomalySubscriptionGroupNotificationManager;
+
+    monitorTimeoutTaskCounter = metricRegistry.counter("monitorTimeoutTaskCounter");
+    for (final JobStatus status : JOB_TRANSITIONS) {
+      monitorJobCounters.put(status,
+          metricRegistry.counter(String.format("monitorJobCounter_%s", status)));
+    }
   }
 
   @Override
@@ -94,55 +101,24 @@ public class MonitorTaskRunner implements TaskRunner {
     int jobRetentionDays = monitorTaskInfo.getDefaultRetentionDays();
     try {
       // Mark expired tasks with RUNNING states as TIMEOUT
-      List<TaskDTO> timeoutTasks = taskManager
-          .findTimeoutTasksWithinDays(jobRetentionDays, MAX_TASK_TIME);
-      if (!timeoutTasks.isEmpty()) {
-        for (TaskDTO task : timeoutTasks) {
-          taskManager
-              .updateStatusAndTaskEndTime(task.getId(), TaskStatus.RUNNING, TaskStatus.TIMEOUT,
-                  System.currentTimeMillis(), "TIMEOUT status updated by MonitorTaskRunner");
-        }
-        LOG.warn("TIMEOUT tasks {}", timeoutTasks);
-      }
-
-      // Find all jobs in SCHEDULED status
-      Map<Long, JobDTO> scheduledJobs = findScheduledJobsWithinDays(jobRetentionDays);
-
-      // Remove SCHEDULED jobs that has WAITING tasks
-      Set<Long> waitingJobs = findWaitingJobsWithinDays(jobRetentionDays);
-      scheduledJobs.keySet().removeAll(waitingJobs);
-
-      // Mark SCHEDULED jobs as TIMEOUT if it has any tasks that run for more than MAX_TASK_TIME or are marked as TIMEOUT
-      Set<Long> timeoutJobs = findTimeoutJobsWithinDays(jobRetentionDays);
-      if (!timeoutJobs.isEmpty()) {
-        List<JobDTO> jobsToUpdate = extractJobDTO(scheduledJobs, timeoutJobs);
-        if (!jobsToUpdate.isEmpty()) {
-          jobManager.updateJobStatusAndEndTime(jobsToUpdate, JobStatus.TIMEOUT,
-              System.currentTimeMillis());
-          scheduledJobs.keySet().removeAll(timeoutJobs);
-          LOG.info("TIMEOUT jobs {}", timeoutJobs);
-        }
+      final int timeoutTasks = taskManager.updateTimeoutTasksWithinDays(jobRetentionDays,
+          MAX_TASK_TIME);
+      monitorTimeoutTaskCounter.inc(timeoutTasks);
+      if (timeoutTasks > 0) {
+        LOG.warn("{} tasks marked as TIMEOUT", timeoutTasks);
       }
 
-      // Mark SCHEDULED jobs as FAILED if it has any tasks are marked as FAILED
-      Set<Long> failedJobs = findFailedJobsWithinDays(jobRetentionDays);
-      if (!failedJobs.isEmpty()) {
-        List<JobDTO> jobsToUpdate = extractJobDTO(scheduledJobs, failedJobs);
-        if (!jobsToUpdate.isEmpty()) {
-          jobManager.updateJobStatusAndEndTime(jobsToUpdate, JobStatus.FAILED,
+      // Mark SCHEDULED jobs without WAITING tasks as TIMEOUT if they have TIMEOUT tasks,
+      // else as FAILED if they have FAILED tasks, else as COMPLETED
+      final Map<JobStatus, List<Long>> jobTransitions = taskManager
+          .findScheduledJobTransitionsWithinDays(jobRetentionDays);
+      for (final JobStatus status : JOB_TRANSITIONS) {
+        final List<Long> jobIds = jobTransitions.getOrDefault(status, List.of());
+        if (!jobIds.isEmpty()) {
+          final int updatedJobs = jobManager.updateJobStatusAndEndTimeByIds(jobIds, status,
               System.currentTimeMillis());
-          scheduledJobs.keySet().removeAll(failedJobs);
-          LOG.info("FAILED jobs {}", timeoutJobs);
-        }
-      }
-
-      // Mark the remaining jobs as COMPLETED
-      if (!scheduledJobs.isEmpty()) {
-        List<JobDTO> jobsToUpdate = new ArrayList<>(scheduledJobs.values());
-        if (!jobsToUpdate.isEmpty()) {
-          jobManager.updateJobStatusAndEndTime(jobsToUpdate, JobStatus.COMPLETED,
-              System.currentTimeMillis());
-          LOG.info("COMPLETED jobs {}", scheduledJobs.keySet());
+          monitorJobCounters.get(status).inc(updatedJobs);
+          LOG.info("{} jobs {}", status, jobIds);
         }
       }
 
@@ -154,36 +130,24 @@ public class MonitorTaskRunner implements TaskRunner {
   }
 
   /**
-   * Disable the alert if it was updated before {@MAX_TASK_FAIL_DAYS} but there is no success run
-   * since then.
+   * Disable the alerts that are failing and had no successful run since {@link
+   * #MAX_FAILED_DISABLE_DAYS}. The health columns of the alert index are maintained by the
+   * detection task, so this is a single indexed query followed by a batch update. The update
+   * does not write the health columns.
    */
   private void disableLongFailedAlerts() {
-    List<AlertDTO> detectionConfigs = alertManager.findAllActive();
-    long currentTimeMillis = System.currentTimeMillis();
-    long maxTaskFailMillis = TimeUnit.DAYS.toMillis(MAX_FAILED_DISABLE_DAYS);
-    for (AlertDTO config : detectionConfigs) {
-      try {
-        Timestamp updateTime = config.getUpdateTime();
-        if (updateTime != null && config.getHealth() != null
-            && config.getHealth().getDetectionTaskStatus() != null) {
-          long lastTaskExecutionTime = config.getHealth().getDetectionTaskStatus()
-              .getLastTaskExecutionTime();
-          // lastTaskExecutionTime == -1L is used for backward compatibility. Currently we have many long failing alerts have -1L.
-          if (updateTime.getTime() <= currentTimeMillis - maxTaskFailMillis && (
-              lastTaskExecutionTime == -1L
-                  || lastTaskExecutionTime <= currentTimeMillis - maxTaskFailMillis)) {
-            config.setActive(false);
-            alertManager.update(config);
-            LOG.info("Disabled alert {} since it failed more than {} days. "
-                    + "Task last update time: {}. Last success task execution time: {}",
-                config.getId(), MAX_FAILED_DISABLE_DAYS, config.getUpdateTime(),
-                lastTaskExecutionTime);
-          }
-        }
-      } catch (Exception e) {
-        LOG.error("Exception in disabling alert ", e);
-      }
+    final long lastSuccessTime = System.currentTimeMillis()
+        - TimeUnit.DAYS.toMillis(MAX_FAILED_DISABLE_DAYS);
+    final List<AlertDTO> failingAlerts = alertManager.findActiveFailingSince(lastSuccessTime);
+    if (failingAlerts.isEmpty()) {
+      return;
     }
+    for (final AlertDTO alert : failingAlerts) {
+      alert.setActive(false);
+      LOG.info("Disabling alert {} since it failed with no success for more than {} days.",
+          alert.getId(), MAX_FAILED_DISABLE_DAYS);
+    }
+    alertManager.updateAll(failingAlerts);
   }
 
   private void executeMonitorExpire(MonitorTaskInfo monitorTaskInfo) {
@@ -249,57 +213,4 @@ public class MonitorTaskRunner implements TaskRunner {
       LOG.error("Exception when deleting old anomaly subscription notifications.", e);
     }
   }
-
-  private Map<Long, JobDTO> findScheduledJobsWithinDays(int days) {
-    Map<Long, JobDTO> jobs = new HashMap<>();
-    List<JobDTO> jobList = jobManager
-        .findByStatusWithinDays(JobStatus.SCHEDULED, days);
-    if (CollectionUtils.isNotEmpty(jobList)) {
-      for (JobDTO jobDTO : jobList) {
-        jobs.put(jobDTO.getId(), jobDTO);
-      }
-    }
-    return jobs;
-  }
-
-  private Set<Long> findWaitingJobsWithinDays(int days) {
-    Set<Long> waitingJobIds = new HashSet<>();
-    List<TaskDTO> waitingTasks = taskManager
-        .findByStatusWithinDays(TaskStatus.WAITING, days);
-    for (TaskDTO task : waitingTasks) {
-      waitingJobIds.add(task.getJobId());
-    }
-    return waitingJobIds;
-  }
-
-  private Set<Long> findTimeoutJobsWithinDays(int days) {
-    Set<Long> timeoutJobs = new HashSet<>();
-    List<TaskDTO> timeoutTasks = taskManager
-        .findByStatusWithinDays(TaskStatus.TIMEOUT, days);
-    for (TaskDTO task : timeoutTasks) {
-      timeoutJobs.add(task.getJobId());
-    }
-    return timeoutJobs;
-  }
-
-  private Set<Long> findFailedJobsWithinDays(int days) {
-    Set<Long> failedJobIds = new HashSet<>();
-    List<TaskDTO> failedTasks = taskManager
-        .findByStatusWithinDays(TaskStatus.FAILED, days);
-    for (TaskDTO task : failedTasks) {
-      failedJobIds.add(task.getJobId());
-    }
-    return failedJobIds;
-  }
-
-  private List<JobDTO> extractJobDTO(Map<Long, JobDTO> allJobs, Set<Long> jobIdToExtract) {
-    List<JobDTO> jobsToUpdate = new ArrayList<>();
-    for (Long jobId : jobIdToExtract) {
-      JobDTO jobDTO = allJobs.get(jobId);
-      if (jobDTO != null) {
-        jobsToUpdate.add(jobDTO);
-      }
-    }
-    return jobsToUpdate;
-  }
 }
@@ -34,6 +34,7 @@ import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import org.slf4j.Logger;
@@ -130,8 +131,9 @@ public class NotificationTaskRunner implements TaskRunner {
 
     /* Update anomalies */
     for (final AnomalyDTO anomaly : anomalies) {
-      anomalyManager.update(anomaly.setNotified(true));
+      anomaly.setNotified(true);
     }
+    anomalyManager.updateAll(new ArrayList<>(anomalies));
     /* Record watermarks */
     subscriptionGroupWatermarkManager.updateWatermarks(subscriptionGroup, anomalies);
   }
@@ -16,10 +16,8 @@ package ai.startree.thirdeye.worker.task;
 import static java.util.Objects.requireNonNull;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
@@ -29,6 +27,7 @@ import static org.mockito.Mockito.when;
 import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
 import ai.startree.thirdeye.spi.datalayer.dto.DetectionPipelineTaskInfo;
 import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskAcquisition;
 import ai.startree.thirdeye.spi.task.TaskStatus;
 import ai.startree.thirdeye.spi.task.TaskType;
 import com.codahale.metrics.MetricRegistry;
@@ -75,9 +74,6 @@ public class HeartbeatTest {
         .setHeartbeatInterval(HEARTBEAT_INTERVAL);
 
     taskManager = Mockito.mock(TaskManager.class);
-    when(taskManager.updateStatusAndWorkerId(anyLong(), anyLong(), anySet(), anyInt()))
-        .thenReturn(true);
-
     doNothing().when(taskManager)
         .updateStatusAndTaskEndTime(anyLong(), any(), any(), anyLong(), any());
 
@@ -99,8 +95,10 @@ public class HeartbeatTest {
   public void heartbeatPulseCheck() {
     final Timestamp startTime = new Timestamp(System.currentTimeMillis());
     final TaskDTO taskDTO = newTask();
-    when(taskManager.findByStatusOrderByCreateTime(eq(TaskStatus.WAITING), anyInt(), anyBoolean()))
-        .thenAnswer(i -> pollingCount++ == 0? List.of(taskDTO) : List.of());
+    when(taskManager.acquireTasks(anyLong(), anyInt()))
+        .thenAnswer(i -> pollingCount++ == 0
+            ? new TaskAcquisition(List.of(taskDTO), true)
+            : TaskAcquisition.NONE);
 
     doAnswer(invocation -> {
       taskDTO.setStatus(TaskStatus.COMPLETED);
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import static java.util.Objects.requireNonNull;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
+import ai.startree.thirdeye.spi.datalayer.dto.DetectionPipelineTaskInfo;
+import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskAcquisition;
+import ai.startree.thirdeye.spi.task.TaskStatus;
+import ai.startree.thirdeye.spi.task.TaskType;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+public class TaskDriverRunnableTest {
+
+  private static final long TASK_ID = 1L;
+
+  @Test(timeOut = 60_000)
+  public void testLostClaimIsRetriedWithTheNoTaskDelay() throws Exception {
+    // a failure delay long enough to make the test time out if it is used
+    final TaskDriverConfiguration config = new TaskDriverConfiguration()
+        .setNoTaskDelay(Duration.ofMillis(100))
+        .setRandomDelayCap(Duration.ofMillis(100))
+        .setTaskFailureDelay(Duration.ofHours(1));
+    final TaskDriverThreadPoolManager threadPoolManager = new TaskDriverThreadPoolManager(config);
+
+    final TaskDTO task = newTask();
+    final AtomicInteger acquireCount = new AtomicInteger();
+    final TaskManager taskManager = Mockito.mock(TaskManager.class);
+    // the first attempt finds a WAITING task but another worker acquires it first
+    when(taskManager.acquireTasks(anyLong(), anyInt()))
+        .thenAnswer(i -> acquireCount.getAndIncrement() == 0
+            ? new TaskAcquisition(List.of(), true)
+            : new TaskAcquisition(List.of(task), true));
+    doAnswer(invocation -> {
+      threadPoolManager.shutdown();
+      return null;
+    }).when(taskManager).updateStatusAndTaskEndTime(eq(TASK_ID),
+        eq(TaskStatus.RUNNING),
+        eq(TaskStatus.COMPLETED),
+        any(),
+        anyString());
+
+    final TaskRunnerFactory taskRunnerFactory = Mockito.mock(TaskRunnerFactory.class);
+    when(taskRunnerFactory.get(any())).thenReturn((taskInfo, taskContext) -> null);
+
+    final TaskContext taskContext = new TaskContext()
+        .setConfig(config)
+        .setWorkerId(0)
+        .setTaskManager(taskManager)
+        .setTaskRunnerFactory(taskRunnerFactory)
+        .setMetricRegistry(new MetricRegistry())
+        .setTaskDriverThreadPoolManager(threadPoolManager);
+
+    final Thread worker = new Thread(new TaskDriverRunnable(taskContext)::run);
+    worker.start();
+    worker.join(Duration.ofSeconds(10).toMillis());
+    try {
+      assertThat(worker.isAlive()).isFalse();
+      assertThat(acquireCount.get()).isEqualTo(2);
+    } finally {
+      threadPoolManager.shutdown();
+      worker.interrupt();
+    }
+  }
+
+  private static TaskDTO newTask() throws Exception {
+    final TaskDTO task = new TaskDTO()
+        .setStatus(TaskStatus.WAITING)
+        .setJobName("TestJob")
+        .setTaskType(TaskType.DETECTION)
+        .setTaskInfo(requireNonNull(
+            new ObjectMapper().writeValueAsString(new DetectionPipelineTaskInfo())));
+
+    final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+    task.setId(TASK_ID)
+        .setCreateTime(timestamp)
+        .setUpdateTime(timestamp);
+    return task;
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023 StarTree Inc
+ *
+ * Licensed under the StarTree Community License (the "License"); you may not use
+ * this file except in compliance with the License. You may obtain a copy of the
+ * License at http://www.startree.ai/legal/startree-community-license
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT * WARRANTIES OF ANY KIND,
+ * either express or implied.
+ * See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package ai.startree.thirdeye.worker.task;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import ai.startree.thirdeye.datalayer.core.TaskNotificationChannel;
+import ai.startree.thirdeye.spi.datalayer.bao.TaskManager;
+import ai.startree.thirdeye.spi.datalayer.dto.TaskDTO;
+import ai.startree.thirdeye.spi.task.TaskAcquisition;
+import ai.startree.thirdeye.spi.task.TaskStatus;
+import ai.startree.thirdeye.spi.task.TaskType;
+import com.codahale.metrics.MetricRegistry;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.mockito.Mockito;
+import org.testng.annotations.Test;
+
+public class TaskFetcherTest {
+
+  private static final long TASK_ID = 1L;
+
+  @Test
+  public void testTaskIsDispatchedOnNotification() throws Exception {
+    final TaskDriverConfiguration config = new TaskDriverConfiguration()
+        .setPushDispatchEnabled(true)
+        .setMaxParallelTasks(2)
+        // long delays: the task must be picked up because of the notification, not the db check
+        .setNoTaskDelay(Duration.ofSeconds(30))
+        .setRandomDelayCap(Duration.ofSeconds(1));
+
+    final AtomicBoolean taskCreated = new AtomicBoolean(false);
+    final TaskDTO task = newTask();
+    final TaskManager taskManager = Mockito.mock(TaskManager.class);
+    when(taskManager.acquireTasks(anyLong(), anyInt()))
+        .thenAnswer(i -> taskCreated.get()
+            ? new TaskAcquisition(List.of(task), true)
+            : TaskAcquisition.NONE);
+
+    final TaskDriverThreadPoolManager threadPoolManager = new TaskDriverThreadPoolManager(config);
+    final TaskNotificationChannel channel = new TaskNotificationChannel();
+    final TaskContext taskContext = new TaskContext()
+        .setConfig(config)
+        .setWorkerId(0)
+        .setTaskManager(taskManager)
+        .setMetricRegistry(new MetricRegistry())
+        .setTaskDriverThreadPoolManager(threadPoolManager);
+    final TaskFetcher taskFetcher = new TaskFetcher(taskContext, channel);
+    try {
+      taskFetcher.start();
+      final CompletableFuture<TaskDTO> dispatched = CompletableFuture.supplyAsync(() -> {
+        try {
+          return taskFetcher.take(Duration.ofSeconds(10));
+        } catch (final InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      });
+
+      // let the fetcher go idle then create a task
+      Thread.sleep(500);
+      taskCreated.set(true);
+      channel.notifyTaskAvailable();
+
+      assertThat(dispatched.get(5, TimeUnit.SECONDS)).isEqualTo(task);
+      verify(taskManager, never()).countByStatus(any());
+    } finally {
+      taskFetcher.close();
+      threadPoolManager.shutdown();
+    }
+  }
+
+  private TaskDTO newTask() {
+    final TaskDTO task = new TaskDTO()
+        .setStatus(TaskStatus.WAITING)
+        .setJobName("TestJob")
+        .setTaskType(TaskType.DETECTION);
+    final Timestamp timestamp = new Timestamp(System.currentTimeMillis());
+    task.setId(TASK_ID)
+        .setCreateTime(timestamp)
+        .setUpdateTime(timestamp);
+    return task;
+  }
+}